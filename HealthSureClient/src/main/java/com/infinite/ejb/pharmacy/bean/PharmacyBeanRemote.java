@@ -1,9 +1,23 @@
 package com.infinite.ejb.pharmacy.bean;
 
+import java.util.List;
+
 import javax.ejb.Remote;
 
+import com.infinite.ejb.pharmacy.model.DispenseLine;
+import com.infinite.ejb.pharmacy.model.DispenseLineResult;
+
 @Remote
 public interface PharmacyBeanRemote {
 
 	public boolean updateMedicineDetails(com.infinite.ejb.pharmacy.model.Medicines med);
+
+	/**
+	 * Dispenses every line of a prescription in one transaction; either all
+	 * lines are dispensed or none is.
+	 *
+	 * @return one result per line, in the order of {@code lines}
+	 */
+	public List<DispenseLineResult> dispensePrescription(String prescriptionId, String pharmacyId,
+			String pharmacistName, List<DispenseLine> lines);
 }
@@ -1,12 +1,21 @@
 package com.infinite.ejb.pharmacy.beanImpl;
 
+import java.util.List;
+
 import javax.faces.application.FacesMessage;
 import javax.faces.context.FacesContext;
 import javax.naming.NamingException;
 
 import com.infinite.ejb.pharmacy.bean.PharmacyBeanRemote;
+import com.infinite.ejb.pharmacy.model.DispenseItemType;
+import com.infinite.ejb.pharmacy.model.DispenseLine;
+import com.infinite.ejb.pharmacy.model.DispenseLineResult;
 import com.infinite.ejb.pharmacy.model.Medicines;
 import com.infinite.ejb.remoteHelper.RemoteHelper;
+import com.infinite.jsf.pharmacy.daoImpl.MedicinesDaoImpl;
+import com.infinite.jsf.pharmacy.daoImpl.ExpiryIndex;
+import com.infinite.jsf.pharmacy.daoImpl.ReorderPointTracker;
+import com.infinite.jsf.util.CacheHelper;
 
 public class PharmacyEjbImpl {
 
@@ -68,6 +77,11 @@ public class PharmacyEjbImpl {
         boolean success = remote.updateMedicineDetails(med);
 
         if (success) {
+            // the EJB writes with JDBC; tell the name index and the stock counts
+            String pharmacyId = med.getPharmacy() != null ? med.getPharmacy().getPharmacyId()
+                    : (String) context.getExternalContext().getSessionMap().get("pharmacy_id");
+            MedicinesDaoImpl.indexMedicine(pharmacyId, med.getMedicineId(), med.getMedicineName());
+            CacheHelper.evictQueries(CacheHelper.STOCK_QUERY_REGION);
             context.addMessage(null, new FacesMessage(FacesMessage.SEVERITY_INFO,
                     "Medicine updated successfully.", ""));
             return "viewMedicines.jsf?faces-redirect=true";
@@ -77,4 +91,29 @@ public class PharmacyEjbImpl {
             return null;
         }
     }
+
+    /**
+     * Dispenses a whole prescription through the EJB in one remote call and one
+     * transaction; either every line is dispensed or none is.
+     *
+     * @return one result per line, in the order of {@code lines}
+     */
+    public List<DispenseLineResult> dispensePrescription(String prescriptionId, String pharmacyId,
+            String pharmacistName, List<DispenseLine> lines) {
+        long dispensedAt = System.currentTimeMillis();
+        List<DispenseLineResult> results = remote.dispensePrescription(prescriptionId, pharmacyId, pharmacistName,
+                lines);
+        if (!results.isEmpty() && results.get(0).isDispensed()) {
+            // the EJB writes with JDBC; the cached stock pages are stale now
+            CacheHelper.evictQueries(CacheHelper.STOCK_QUERY_REGION);
+            for (DispenseLine line : lines) {
+                if (line.getType() == DispenseItemType.MEDICINE) {
+                    ReorderPointTracker.getInstance().recordDispense(pharmacyId, line.getItemId(),
+                            line.getQuantity(), dispensedAt, true);
+                    ExpiryIndex.getInstance().changed(pharmacyId, line.getItemId());
+                }
+            }
+        }
+        return results;
+    }
 }
@@ -0,0 +1,11 @@
+package com.infinite.ejb.pharmacy.model;
+
+/**
+ * Outcome of one line of a dispensed prescription. A prescription is
+ * dispensed completely or not at all, so when one line fails the others are
+ * NOT_DISPENSED.
+ */
+public enum DispenseStatus {
+
+	DISPENSED, INSUFFICIENT_STOCK, UNKNOWN_ITEM, NOT_DISPENSED;
+}
@@ -20,8 +20,13 @@ public enum ConstMessage {
 	INVALID_LICENSE("Invalid License No! Must start with 'LIC' followed by 5 digits."),
 	INVALID_GST("Invalid GST No! Must start with 'GSTIN', followed by 4 digits and end with 2 uppercase letters."),
 	PHARMACY_UPDATE_ERROR ("Error occurred while updating the Pharmacy Status"),
+	NO_PHARMACY_SELECTED("Select at least one pharmacy to validate"),
+	BULK_REVIEW_SUMMARY("%d accepted, %d rejected, %d not changed"),
 
-	APPROVED_SUCCESSFULLY("Approved successfully"), REJECTED_SUBJECT("PHARMACY STATUS : REJECTED"),
+	APPROVED_SUCCESSFULLY("Approved successfully"),
+	ACCEPTED_SUBJECT("PHARMACY STATUS : ACCEPTED"),
+	ACCEPTED_BODY("\n Congratulations !! \n Your pharmacy  has been ACCEPTED \n\n ADMIN : \n RAVIKANT TURI"),
+	REJECTED_SUBJECT("PHARMACY STATUS : REJECTED"),
 	REJECTED_HTML_TEMPLATE("<h2 style='color:red;'>Pharmacy Review Status: Rejected</h2>" + "<p>Dear Pharmacy,</p>"
 			+ "<p>We regret to inform you that your pharmacy application has been <strong>rejected</strong> based on the following validation:</p>"
 			+ "<p style='color:#333;'>%s</p>" + "<p><b>Reviewed By:</b> Ravikant Turi</p>"
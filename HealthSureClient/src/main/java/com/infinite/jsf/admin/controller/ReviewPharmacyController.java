@@ -9,8 +9,10 @@
 package com.infinite.jsf.admin.controller;
 
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import javax.annotation.PostConstruct;
 import javax.faces.application.FacesMessage;
 import javax.faces.context.FacesContext;
@@ -18,6 +20,10 @@ import org.apache.log4j.Logger;
 import com.infinite.jsf.admin.dao.ReviewPharmacyaDao;
 import com.infinite.jsf.admin.daoImpl.ReviewPharmacyaDaoImpl;
 import com.infinite.jsf.admin.exception.ReviewPharmacyException;
+import com.infinite.jsf.admin.model.PharmacyReviewStatus;
+import com.infinite.jsf.admin.model.PharmacyStatusChange;
+import com.infinite.jsf.admin.model.PharmacySummary;
+import com.infinite.jsf.admin.service.PharmacyReviewService;
 import com.infinite.jsf.pharmacy.model.DispensedEquipments;
 import com.infinite.jsf.pharmacy.model.DispensedMedicines;
 import com.infinite.jsf.pharmacy.model.Equipment;
@@ -25,7 +31,6 @@ import com.infinite.jsf.pharmacy.model.Medicines;
 import com.infinite.jsf.pharmacy.model.Passwords;
 import com.infinite.jsf.pharmacy.model.Pharmacists;
 import com.infinite.jsf.pharmacy.model.Pharmacy;
-import com.infinite.jsf.util.MailSend;
 
 /**
  * Controller class for handling pharmacy review and approval operations.
@@ -51,7 +56,6 @@ public class ReviewPharmacyController {
 	private Passwords passwords;
 	private Pharmacy selectedPharmacy;
 	private String showValidatinMessage;
-	private List<Pharmacy> allPharmacies;
 
 	/**
 	 * Mail Validations Message Custimaizations
@@ -70,11 +74,8 @@ public class ReviewPharmacyController {
 	}
 
 	/**
-	 * Retrieves a list of all pharmacies that are pending review. This method calls
-	 * the DAO layer to fetch pharmacy details that require administrative approval
-	 * or verification.
-	 *
-	 * @return List of Pharmacy objects pending review.
+	 * Loads the first page of pharmacies pending review. Only the columns shown
+	 * in the review table are read; see {@link PharmacySummary}.
 	 */
 	@PostConstruct
 	public void init() {
@@ -83,32 +84,29 @@ public class ReviewPharmacyController {
 
 	}
 
-	public List<Pharmacy> showPharmacyAllForReview() {
+	public List<PharmacySummary> showPharmacyAllForReview() {
 		if (logger.isDebugEnabled()) {
-			logger.debug("Fetching all pharmacies for review.");
-		}
-		try {
-			allPharmacies = reviewPharmacyaDao.reviewPharmacyDetails();
-			logger.info("================== : " + allPharmacies.size());
-		} catch (ReviewPharmacyException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
+			logger.debug("Fetching pharmacies for review.");
 		}
 		sortAndPaginate();
-		return allPharmacies;
+		return paginatedPharmacies;
 	}
 
 	/*
 	 * PAGINATION AND SORTING
 	 */
-	private List<Pharmacy> paginatedPharmacies;
+	private List<PharmacySummary> paginatedPharmacies = new ArrayList<>();
+	private long totalPharmacies;
+	/** Pharmacy ID to checkbox state; kept while the admin pages through the list. */
+	private Map<String, Boolean> selected = new HashMap<>();
+	private List<PharmacyStatusChange> bulkResults = new ArrayList<>();
 	private int page = 0;
 	private int pageSize = 3;
 	private String sortField = "pharmacyId";
 	private boolean ascending = true;
 
 	public void nextPage() {
-		if ((page + 1) * pageSize < allPharmacies.size()) {
+		if ((page + 1) * pageSize < totalPharmacies) {
 			page++;
 			sortAndPaginate();
 		}
@@ -121,37 +119,23 @@ public class ReviewPharmacyController {
 		}
 	}
 
+	/**
+	 * Reads the current page, sorted and limited in the database, together
+	 * with the total count for the pager.
+	 */
 	private void sortAndPaginate() {
-
-		Comparator<Pharmacy> comparator = Comparator.comparing(p -> {
-			switch (sortField) {
-			case "pharmacyName":
-				return p.getPharmacyName();
-			case "contactNo":
-				return p.getContactNo();
-			case "aadhar":
-				return p.getAadhar();
-			case "licenseNo":
-				return p.getLicenseNo();
-			case "gstNo":
-				return p.getGstNo();
-			case "status":
-				return p.getStatus();
-			default:
-				return p.getPharmacyId();
+		try {
+			totalPharmacies = reviewPharmacyaDao.countPharmacies();
+			int lastPage = Math.max(0, (int) Math.ceil((double) totalPharmacies / pageSize) - 1);
+			if (page > lastPage) {
+				page = lastPage;
 			}
-		});
-
-		if (!ascending) {
-			comparator = comparator.reversed();
+			paginatedPharmacies = reviewPharmacyaDao.findPharmacySummaries(sortField, ascending, page * pageSize,
+					pageSize);
+		} catch (ReviewPharmacyException e) {
+			logger.error("Could not load pharmacies for review", e);
+			paginatedPharmacies = new ArrayList<>();
 		}
-
-		allPharmacies.sort(comparator);
-
-		int fromIndex = page * pageSize;
-		int toIndex = Math.min(fromIndex + pageSize, allPharmacies.size());
-
-		paginatedPharmacies = allPharmacies.subList(fromIndex, toIndex);
 	}
 
 	/**
@@ -263,7 +247,7 @@ public class ReviewPharmacyController {
 	 * @return A navigation string indicating the next page or action. Update
 	 *         pharmacy status based on validation
 	 */
-	public String validatePharmacy(Pharmacy pharmacy) {
+	public String validatePharmacy(PharmacySummary pharmacy) {
 		FacesContext context = FacesContext.getCurrentInstance();
 
 		if ("ACCEPTED".equals(pharmacy.getStatus())) {
@@ -273,10 +257,19 @@ public class ReviewPharmacyController {
 		}
 
 		boolean isValid = validatePharmacyDetails(pharmacy);
-		String newStatus = isValid ? "ACCEPTED" : "REJECTED";
+		String findings = showValidatinMessage;
+		PharmacyReviewStatus newStatus = isValid ? PharmacyReviewStatus.ACCEPTED : PharmacyReviewStatus.REJECTED;
 
 		try {
-			reviewPharmacyaDao.updatePharmacyStatus(pharmacy, newStatus);
+			// one status UPDATE; the pharmacy is mailed after the commit
+			PharmacyStatusChange change = new PharmacyReviewService(reviewPharmacyaDao)
+					.changeStatus(pharmacy.getPharmacyId(), newStatus, findings);
+			if (!change.isUpdated()) {
+				context.addMessage(null, new FacesMessage(FacesMessage.SEVERITY_ERROR, "Error:",
+						ConstMessage.PHARMACY_UPDATE_ERROR.getMessage()));
+				return null;
+			}
+			pharmacy.setStatus(newStatus.getDbValue());
 		} catch (ReviewPharmacyException e) {
 			context.addMessage(null, new FacesMessage(FacesMessage.SEVERITY_ERROR, "Error:",
 					ConstMessage.PHARMACY_UPDATE_ERROR.getMessage()));
@@ -288,9 +281,6 @@ public class ReviewPharmacyController {
 
 		if (isValid) {
 			context.addMessage(null, new FacesMessage(FacesMessage.SEVERITY_INFO, message, null));
-		} else {
-			String htmlContent = String.format(ConstMessage.REJECTED_HTML_TEMPLATE.getMessage(), showValidatinMessage);
-			MailSend.sendInfo(pharmacy.getEmail(), ConstMessage.REJECTED_SUBJECT.getMessage(), htmlContent);
 		}
 
 		return null;
@@ -302,41 +292,133 @@ public class ReviewPharmacyController {
 	 * ensure they meet required formats and are not null. This method is used to
 	 * determine whether the pharmacy can be approved.
 	 *
-	 * @param pharmacy The Pharmacy object containing details to be validated.
+	 * @param pharmacy The review row containing details to be validated.
 	 * @return true if all required details are valid; false otherwise.
 	 */
 
-	public boolean validatePharmacyDetails(Pharmacy pharmacy) {
-		FacesContext context = FacesContext.getCurrentInstance();
-		boolean isValid = true;
+	public boolean validatePharmacyDetails(PharmacySummary pharmacy) {
+		showValidatinMessage = validationFindings(pharmacy, FacesContext.getCurrentInstance());
+		return showValidatinMessage.isEmpty();
+	}
+
+	/**
+	 * Checks the Aadhaar, license and GST numbers of a review row.
+	 *
+	 * @param pharmacy the review row
+	 * @param context  receives one error message per invalid field; null to
+	 *                 check silently
+	 * @return the findings quoted in a rejection mail, empty if all are valid
+	 */
+	private String validationFindings(PharmacySummary pharmacy, FacesContext context) {
+		StringBuilder findings = new StringBuilder();
 
 		String aadhar = pharmacy.getAadhar();
 		String licenseNo = pharmacy.getLicenseNo();
 		String gstNo = pharmacy.getGstNo();
 
 		if (aadhar == null || !aadhar.matches("AADHAR\\d{6}")) {
-			context.addMessage(null, new FacesMessage(FacesMessage.SEVERITY_ERROR, "Invalid Aadhar",
-					ConstMessage.INVALID_AADHAR.getMessage()));
-			showValidatinMessage = ConstMessage.INVALID_AADHAR.getMessage() + " And Your Aadhar is " + aadhar;
-			isValid = false;
+			if (context != null) {
+				context.addMessage(null, new FacesMessage(FacesMessage.SEVERITY_ERROR, "Invalid Aadhar",
+						ConstMessage.INVALID_AADHAR.getMessage()));
+			}
+			findings.append(ConstMessage.INVALID_AADHAR.getMessage()).append(" And Your Aadhar is ").append(aadhar);
 		}
 
 		if (licenseNo == null || !licenseNo.matches("LIC\\d{5}")) {
-			context.addMessage(null, new FacesMessage(FacesMessage.SEVERITY_ERROR, "Invalid License No",
-					ConstMessage.INVALID_LICENSE.getMessage()));
-			showValidatinMessage += "\n\n" + ConstMessage.INVALID_LICENSE.getMessage() + " And Your LICENSE NO : "
-					+ licenseNo;
-			isValid = false;
+			if (context != null) {
+				context.addMessage(null, new FacesMessage(FacesMessage.SEVERITY_ERROR, "Invalid License No",
+						ConstMessage.INVALID_LICENSE.getMessage()));
+			}
+			if (findings.length() > 0) {
+				findings.append("\n\n");
+			}
+			findings.append(ConstMessage.INVALID_LICENSE.getMessage()).append(" And Your LICENSE NO : ")
+					.append(licenseNo);
 		}
 
 		if (gstNo == null || !gstNo.matches("GSTIN\\d{4}[A-Z]{2}")) {
-			context.addMessage(null, new FacesMessage(FacesMessage.SEVERITY_ERROR, "Invalid GST No",
-					ConstMessage.INVALID_GST.getMessage()));
-			showValidatinMessage += "\n\n" + ConstMessage.INVALID_GST.getMessage() + " AND YOUR GST No: " + gstNo;
-			isValid = false;
+			if (context != null) {
+				context.addMessage(null, new FacesMessage(FacesMessage.SEVERITY_ERROR, "Invalid GST No",
+						ConstMessage.INVALID_GST.getMessage()));
+			}
+			if (findings.length() > 0) {
+				findings.append("\n\n");
+			}
+			findings.append(ConstMessage.INVALID_GST.getMessage()).append(" AND YOUR GST No: ").append(gstNo);
 		}
 
-		return isValid;
+		return findings.toString();
+	}
+
+	/**
+	 * Validates every selected pharmacy, on any page, and accepts or rejects
+	 * them all in one transaction; the pharmacies are mailed in one batch after
+	 * the commit. The outcome per pharmacy is shown in {@link #getBulkResults()}.
+	 *
+	 * @return null to stay on the review page
+	 */
+	public String validateSelected() {
+		FacesContext context = FacesContext.getCurrentInstance();
+		List<String> ids = new ArrayList<>();
+		for (Map.Entry<String, Boolean> entry : selected.entrySet()) {
+			if (Boolean.TRUE.equals(entry.getValue())) {
+				ids.add(entry.getKey());
+			}
+		}
+		if (ids.isEmpty()) {
+			context.addMessage(null, new FacesMessage(FacesMessage.SEVERITY_WARN,
+					ConstMessage.NO_PHARMACY_SELECTED.getMessage(), null));
+			return null;
+		}
+
+		try {
+			Map<String, PharmacyReviewStatus> targets = new LinkedHashMap<>();
+			Map<String, String> reasons = new HashMap<>();
+			for (PharmacySummary row : reviewPharmacyaDao.findPharmacySummaries(ids)) {
+				String findings = validationFindings(row, null);
+				targets.put(row.getPharmacyId(),
+						findings.isEmpty() ? PharmacyReviewStatus.ACCEPTED : PharmacyReviewStatus.REJECTED);
+				reasons.put(row.getPharmacyId(), findings);
+			}
+			for (String id : ids) {
+				if (!targets.containsKey(id)) {
+					// deleted since it was selected; reported as not found
+					targets.put(id, PharmacyReviewStatus.ACCEPTED);
+				}
+			}
+			bulkResults = new PharmacyReviewService(reviewPharmacyaDao).changeStatuses(targets, reasons);
+		} catch (ReviewPharmacyException e) {
+			context.addMessage(null, new FacesMessage(FacesMessage.SEVERITY_ERROR, "Error:",
+					ConstMessage.PHARMACY_UPDATE_ERROR.getMessage()));
+			return null;
+		}
+
+		int accepted = 0;
+		int rejected = 0;
+		for (PharmacyStatusChange change : bulkResults) {
+			if (change.isUpdated() && change.getNewStatus() == PharmacyReviewStatus.ACCEPTED) {
+				accepted++;
+			} else if (change.isUpdated()) {
+				rejected++;
+			}
+		}
+		context.addMessage(null, new FacesMessage(FacesMessage.SEVERITY_INFO, String.format(
+				ConstMessage.BULK_REVIEW_SUMMARY.getMessage(), accepted, rejected, bulkResults.size() - accepted - rejected),
+				null));
+		selected.clear();
+		sortAndPaginate();
+		return null;
+	}
+
+	/**
+	 * Tells the review page which rows may be selected for bulk validation.
+	 *
+	 * @param status stored status of the pharmacy
+	 * @return true if the pharmacy can still change state
+	 */
+	public boolean isReviewable(String status) {
+		PharmacyReviewStatus current = PharmacyReviewStatus.fromDb(status);
+		return current != null && !current.isFinal();
 	}
 
 	/**
@@ -351,11 +433,51 @@ public class ReviewPharmacyController {
 	 */
 
 	public int getTotalPages() {
-		if (allPharmacies != null) {
+		return (int) Math.ceil((double) totalPharmacies / pageSize);
+	}
+
+	/*
+	 * DETAIL VIEWS: the collections of a pharmacy are loaded only here, for the
+	 * one pharmacy an admin opens.
+	 */
+
+	public String viewMedicines(PharmacySummary summary) {
+		return openPharmacy(summary, "viewmedicinesR");
+	}
+
+	public String viewEquipments(PharmacySummary summary) {
+		return openPharmacy(summary, "viewequipmentsR");
+	}
+
+	public String viewPharmacists(PharmacySummary summary) {
+		return openPharmacy(summary, "viewpharmacistsR");
+	}
+
+	public String viewDispensedMedicines(PharmacySummary summary) {
+		return openPharmacy(summary, "viewdispensedmedicinesR");
+	}
 
-			return (int) Math.ceil((double) allPharmacies.size() / pageSize);
+	public String viewDispensedEquipments(PharmacySummary summary) {
+		return openPharmacy(summary, "viewdispensedequipmentsR");
+	}
+
+	public String viewPasswords(PharmacySummary summary) {
+		return openPharmacy(summary, "viewpasswordsR");
+	}
+
+	private String openPharmacy(PharmacySummary summary, String outcome) {
+		try {
+			selectedPharmacy = reviewPharmacyaDao.findPharmacyWithDetails(summary.getPharmacyId());
+		} catch (ReviewPharmacyException e) {
+			logger.error("Could not load details of pharmacy " + summary.getPharmacyId(), e);
+			selectedPharmacy = null;
+		}
+		if (selectedPharmacy == null) {
+			FacesContext.getCurrentInstance().addMessage(null, new FacesMessage(FacesMessage.SEVERITY_ERROR,
+					"Error:", ConstMessage.PHARMACY_UPDATE_ERROR.getMessage()));
+			return null;
 		}
-		return 0;
+		return outcome;
 	}
 
 //	GETTER AND STTER
@@ -432,14 +554,6 @@ public class ReviewPharmacyController {
 		this.showValidatinMessage = showValidatinMessage;
 	}
 
-	public List<Pharmacy> getAllPharmacies() {
-		return allPharmacies;
-	}
-
-	public void setAllPharmacies(List<Pharmacy> allPharmacies) {
-		this.allPharmacies = allPharmacies;
-	}
-
 	public int getPage() {
 		return page;
 	}
@@ -472,7 +586,7 @@ public class ReviewPharmacyController {
 		this.ascending = ascending;
 	}
 
-	public void setPaginatedPharmacies(List<Pharmacy> paginatedPharmacies) {
+	public void setPaginatedPharmacies(List<PharmacySummary> paginatedPharmacies) {
 		this.paginatedPharmacies = paginatedPharmacies;
 	}
 
@@ -484,7 +598,7 @@ public class ReviewPharmacyController {
 		return selectedPharmacy;
 	}
 
-	public List<Pharmacy> getPaginatedPharmacies() {
+	public List<PharmacySummary> getPaginatedPharmacies() {
 
 		return paginatedPharmacies;
 	}
@@ -509,8 +623,22 @@ public class ReviewPharmacyController {
 		return logger;
 	}
 
+	public Map<String, Boolean> getSelected() {
+		return selected;
+	}
+
+	public void setSelected(Map<String, Boolean> selected) {
+		this.selected = selected;
+	}
+
+	public List<PharmacyStatusChange> getBulkResults() {
+		return bulkResults;
+	}
+
 	public void reset() {
 		page = 0;
+		selected.clear();
+		bulkResults = new ArrayList<>();
 		sortAndPaginate();
 	}
 
@@ -9,9 +9,14 @@
 
 package com.infinite.jsf.admin.dao;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import com.infinite.jsf.admin.exception.ReviewPharmacyException;
+import com.infinite.jsf.admin.model.PharmacyReviewStatus;
+import com.infinite.jsf.admin.model.PharmacyStatusChange;
+import com.infinite.jsf.admin.model.PharmacySummary;
 import com.infinite.jsf.pharmacy.model.Pharmacy;
 
 /**
@@ -35,15 +40,73 @@ public interface ReviewPharmacyaDao {
 	 */
 	List<Pharmacy> reviewPharmacyDetails() throws ReviewPharmacyException;
 
+	/**
+	 * Retrieves one page of the review list, sorted and paged in the database.
+	 * Only the columns shown on the review screen are read.
+	 *
+	 * @param sortField   field to sort by; unknown fields sort by pharmacy ID
+	 * @param ascending   sort direction
+	 * @param firstResult index of the first row of the page
+	 * @param maxResults  page size
+	 * @return the rows of the page
+	 * @throws ReviewPharmacyException
+	 */
+	List<PharmacySummary> findPharmacySummaries(String sortField, boolean ascending, int firstResult, int maxResults)
+			throws ReviewPharmacyException;
+
+	/**
+	 * Counts the pharmacies of the review list.
+	 *
+	 * @return number of pharmacies
+	 * @throws ReviewPharmacyException
+	 */
+	long countPharmacies() throws ReviewPharmacyException;
+
+	/**
+	 * Loads one pharmacy with its medicines, equipment, pharmacists, dispense
+	 * history and passwords, for the detail views of the review screen.
+	 *
+	 * @param pharmacyId ID of the pharmacy
+	 * @return the pharmacy with all collections loaded, or null if not found
+	 * @throws ReviewPharmacyException
+	 */
+	Pharmacy findPharmacyWithDetails(String pharmacyId) throws ReviewPharmacyException;
+
 	
 	/**
-	 * Updates the status of a pharmacy (e.g., ACCEPTED or REJECTED).
+	 * Moves a pharmacy to a new review status with a single
+	 * {@code UPDATE pharmacy SET status = ?} guarded by the allowed transitions
+	 * of {@link PharmacyReviewStatus}. Nothing else of the pharmacy is written
+	 * and no notification is sent; the change is committed when this returns.
 	 *
-	 * @param pharmacy the Pharmacy object to update
-	 * @param status   the new status to set
-	 * @return a message indicating the result of the update
-	 * @throws ReviewPharmacyException 
+	 * @param pharmacyId ID of the pharmacy
+	 * @param target     new status
+	 * @return what happened, with the contact details for a notification
+	 * @throws ReviewPharmacyException
 	 */
-	String updatePharmacyStatus(Pharmacy pharmacy, String status) throws ReviewPharmacyException;
+	PharmacyStatusChange changeStatus(String pharmacyId, PharmacyReviewStatus target) throws ReviewPharmacyException;
 	
+
+	/**
+	 * Moves many pharmacies to new review statuses in one transaction. Statuses
+	 * are read and written in batches, one UPDATE per target status and chunk of
+	 * IDs, with the same guard as {@link #changeStatus(String, PharmacyReviewStatus)}.
+	 * No notification is sent; the changes are committed when this returns.
+	 *
+	 * @param targets pharmacy ID to new status, in the order of the result
+	 * @return one change per requested pharmacy
+	 * @throws ReviewPharmacyException if the batch fails; nothing is changed then
+	 */
+	List<PharmacyStatusChange> changeStatuses(Map<String, PharmacyReviewStatus> targets)
+			throws ReviewPharmacyException;
+
+	/**
+	 * Retrieves the review rows of the given pharmacies, e.g. a selection made
+	 * across several pages.
+	 *
+	 * @param pharmacyIds IDs of the pharmacies
+	 * @return the rows found, in no particular order
+	 * @throws ReviewPharmacyException
+	 */
+	List<PharmacySummary> findPharmacySummaries(Collection<String> pharmacyIds) throws ReviewPharmacyException;
 }
@@ -17,7 +17,10 @@ package com.infinite.jsf.admin.daoImpl;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import javax.naming.NamingException;
 
@@ -39,7 +42,9 @@ import com.infinite.jsf.admin.model.Reason;
 import com.infinite.jsf.admin.model.User;
 import com.infinite.jsf.admin.model.UserStatus;
 
+import com.infinite.jsf.util.OtpKey;
 import com.infinite.jsf.util.SessionHelper;
+import com.infinite.jsf.util.UniqueFieldIndex;
 
 public class AdminDaoImpl implements AdminDao {
 
@@ -49,6 +54,16 @@ public class AdminDaoImpl implements AdminDao {
 	 */
 	private static final Logger logger = Logger.getLogger(AdminDaoImpl.class);
 
+	/** Unique properties of {@link User}. */
+	public static final String FIELD_EMAIL = "email";
+	public static final String FIELD_USERNAME = "username";
+
+	// In-memory filters over the registered e-mails and usernames
+	private static final UniqueFieldIndex UNIQUE_INDEX = new UniqueFieldIndex("User", FIELD_EMAIL, FIELD_USERNAME);
+
+	// answer of UserBean.SignUp when both rows were committed
+	private static final String SIGNUP_SUCCESS = "User successfully registered.";
+
 	// Remote EJB reference to interact with the backend UserBean
 	static UserBeanRemote remote;
 
@@ -81,8 +96,8 @@ public class AdminDaoImpl implements AdminDao {
 				logger.info("Validating OTP for email: " + userInput.getEmail());
 			}
 
-			Otp latestOtp = getLatestActiveOtp(userInput.getEmail(), Reason.SIGNUP);
-			if (latestOtp == null || !latestOtp.getOtpCode().equals(otpInput)) {
+			OtpKey otpKey = AdminOtpStore.key(userInput.getEmail(), Reason.SIGNUP);
+			if (!AdminOtpStore.getInstance().verify(otpKey, otpInput)) {
 				logger.warn("Invalid or expired OTP for email: " + userInput.getEmail());
 				return false;
 			}
@@ -103,6 +118,11 @@ public class AdminDaoImpl implements AdminDao {
 			a.setUpdatedAt(userInput.getUpdatedAt());
 
 			String result  = remote.SignUp(a);
+			if (!SIGNUP_SUCCESS.equals(result)) {
+				logger.warn("User " + userInput.getUsername() + " not registered: " + result);
+				return false;
+			}
+			UNIQUE_INDEX.add(uniqueValues(userInput.getEmail(), userInput.getUsername()));
 
 			if (logger.isInfoEnabled()) {
 				logger.info("User Passed to EJB for Saving: " + userInput.getUsername());
@@ -110,7 +130,7 @@ public class AdminDaoImpl implements AdminDao {
 
 			transaction = session.beginTransaction();
 
-			deactivateAllOtps(userInput.getEmail(), Reason.SIGNUP);
+			AdminOtpStore.getInstance().invalidate(otpKey);
 
 			transaction.commit();
 			if (logger.isDebugEnabled()) {
@@ -430,7 +450,7 @@ public class AdminDaoImpl implements AdminDao {
 			//	        managedOtp.setStatus(OtpStatus.EXPIRED);
 			//	        managedOtp.setExpiresAt(new Timestamp(System.currentTimeMillis()));
 			//	        session.update(managedOtp);
-			deactivateAllOtps(user.getEmail(), Reason.FORGOT_PASSWORD);
+			AdminOtpStore.getInstance().invalidate(AdminOtpStore.key(user.getEmail(), Reason.FORGOT_PASSWORD));
 			transaction.commit();
 
 			if (logger.isInfoEnabled()) {
@@ -585,6 +605,35 @@ public class AdminDaoImpl implements AdminDao {
 		}
 	}
 
+	/**
+	 * Builds the in-memory e-mail and username filters from Admin_User; called
+	 * at startup so the first signup form does not pay for the scan.
+	 */
+	public static void rebuildUniqueIndex() {
+		UNIQUE_INDEX.rebuild();
+	}
+
+	/**
+	 * Checks e-mail and username together. Values never registered are
+	 * answered from memory; the rest share one projection query.
+	 *
+	 * @param email
+	 * @param username
+	 * @return the fields (FIELD_EMAIL, FIELD_USERNAME) already registered
+	 */
+	public Set<String> findTakenFields(String email, String username) {
+		try {
+			Set<String> taken = UNIQUE_INDEX.findTaken(uniqueValues(email, username));
+			if (logger.isInfoEnabled()) {
+				logger.info("Uniqueness check for " + email + " / " + username + ": taken " + taken);
+			}
+			return taken;
+		} catch (Exception e) {
+			logger.error("Error checking email/username existence", e);
+			return Collections.emptySet();
+		}
+	}
+
 	/**
 	 * Checks if a user exists with the provided email address.
 	 *
@@ -592,17 +641,8 @@ public class AdminDaoImpl implements AdminDao {
 	 * @return boolean
 	 */
 	public boolean existsByEmail(String email) {
-		Session session = null;
 		try {
-			session = SessionHelper.getSessionFactory().openSession();
-			if (logger.isDebugEnabled()) {
-				logger.debug("Session opened for existsByEmail.");
-			}
-
-			Criteria criteria = session.createCriteria(User.class)
-					.add(Restrictions.eq("email", email));
-
-			boolean exists = !criteria.list().isEmpty();
+			boolean exists = UNIQUE_INDEX.isTaken(FIELD_EMAIL, email);
 
 			if (logger.isInfoEnabled()) {
 				logger.info("Email existence check for " + email + ": " + exists);
@@ -613,13 +653,6 @@ public class AdminDaoImpl implements AdminDao {
 		} catch (Exception e) {
 			logger.error("Error checking email existence", e);
 			return false;
-		} finally {
-			if (session != null) {
-				session.close();
-				if (logger.isDebugEnabled()) {
-					logger.debug("Session closed for existsByEmail.");
-				}
-			}
 		}
 	}
 
@@ -631,17 +664,8 @@ public class AdminDaoImpl implements AdminDao {
 	 * @return boolean
 	 */
 	public boolean existsByUsername(String username) {
-		Session session = null;
 		try {
-			session = SessionHelper.getSessionFactory().openSession();
-			if (logger.isDebugEnabled()) {
-				logger.debug("Session opened for existsByUsername.");
-			}
-
-			Criteria criteria = session.createCriteria(User.class)
-					.add(Restrictions.eq("username", username));
-
-			boolean exists = !criteria.list().isEmpty();
+			boolean exists = UNIQUE_INDEX.isTaken(FIELD_USERNAME, username);
 
 			if (logger.isInfoEnabled()) {
 				logger.info("Username existence check for " + username + ": " + exists);
@@ -652,16 +676,16 @@ public class AdminDaoImpl implements AdminDao {
 		} catch (Exception e) {
 			logger.error("Error checking username existence", e);
 			return false;
-		} finally {
-			if (session != null) {
-				session.close();
-				if (logger.isDebugEnabled()) {
-					logger.debug("Session closed for existsByUsername.");
-				}
-			}
 		}
 	}
 
+	private static Map<String, String> uniqueValues(String email, String username) {
+		Map<String, String> values = new LinkedHashMap<>();
+		values.put(FIELD_EMAIL, email);
+		values.put(FIELD_USERNAME, username);
+		return values;
+	}
+
 
 
 	/**
@@ -0,0 +1,100 @@
+/*
+ * -----------------------------------------------------------------------------
+ * Copyright © 2025 Infinite Computer Solution. All rights reserved.
+ * -----------------------------------------------------------------------------
+ * 
+ * @Purpose : Holds the in-memory OTP store of the admin signup and forgot
+ *            password flows and writes it through to the Admin_Otp table
+ *            using AdminDaoImpl.
+ * 
+ * -----------------------------------------------------------------------------
+ */
+package com.infinite.jsf.admin.daoImpl;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import com.infinite.jsf.admin.model.Otp;
+import com.infinite.jsf.admin.model.OtpStatus;
+import com.infinite.jsf.admin.model.Reason;
+import com.infinite.jsf.util.OtpEntry;
+import com.infinite.jsf.util.OtpKey;
+import com.infinite.jsf.util.OtpStore;
+import com.infinite.jsf.util.RateLimiter;
+
+public final class AdminOtpStore {
+
+	/** Default minimum gap between two OTPs of one email and reason. */
+	public static final long COOLDOWN_MILLIS = 30 * 1000L;
+
+	/** Default number of OTPs per email and reason within {@link #WINDOW_MILLIS}. */
+	public static final int MAX_PER_WINDOW = 5;
+
+	public static final long WINDOW_MILLIS = 30 * 60 * 1000L;
+
+	/**
+	 * Resend rules, overridable per reason with
+	 * healthsure.otp.admin.signup.* and healthsure.otp.admin.forgotPassword.*
+	 */
+	private static final OtpStore STORE = new OtpStore("admin", new AdminOtpPersister(new AdminDaoImpl()),
+			WINDOW_MILLIS)
+			.limit(Reason.SIGNUP, RateLimiter.<OtpKey>fromConfig("healthsure.otp.admin.signup", MAX_PER_WINDOW,
+					WINDOW_MILLIS, COOLDOWN_MILLIS))
+			.limit(Reason.FORGOT_PASSWORD, RateLimiter.<OtpKey>fromConfig("healthsure.otp.admin.forgotPassword",
+					MAX_PER_WINDOW, WINDOW_MILLIS, COOLDOWN_MILLIS));
+
+	private AdminOtpStore() {
+	}
+
+	public static OtpStore getInstance() {
+		return STORE;
+	}
+
+	/**
+	 * Builds the store key; e-mail addresses are compared case-insensitively
+	 * but stored as entered.
+	 */
+	public static OtpKey key(String email, Reason reason) {
+		return new OtpKey(email.trim().toLowerCase(Locale.ROOT), reason, email);
+	}
+
+	/**
+	 * Maps store entries to Admin_Otp rows.
+	 */
+	static class AdminOtpPersister implements OtpStore.Persister {
+		private final AdminDaoImpl dao;
+
+		AdminOtpPersister(AdminDaoImpl dao) {
+			this.dao = dao;
+		}
+
+		@Override
+		public List<OtpEntry> loadSince(OtpKey key, Timestamp since) {
+			List<OtpEntry> entries = new ArrayList<>();
+			for (Otp otp : dao.getAllOtpByEmailAndReasonSince(key.getOwner(), (Reason) key.getPurpose(), since)) {
+				entries.add(new OtpEntry(otp.getOtpCode(), otp.getCreatedAt().getTime(),
+						otp.getExpiresAt().getTime(), otp.getStatus() == OtpStatus.ACTIVE));
+			}
+			return entries;
+		}
+
+		@Override
+		public boolean save(OtpKey key, OtpEntry entry) {
+			Otp otp = new Otp();
+			otp.setEmail(key.getAddress());
+			otp.setOtpCode(entry.getCode());
+			otp.setCreatedAt(entry.getCreatedAt());
+			otp.setExpiresAt(entry.getExpiresAt());
+			otp.setReason((Reason) key.getPurpose());
+			otp.setStatus(OtpStatus.ACTIVE);
+			return dao.saveEmailOtp(otp);
+		}
+
+		@Override
+		public void deactivate(OtpKey key) {
+			dao.deactivateAllOtps(key.getOwner(), (Reason) key.getPurpose());
+		}
+	}
+}
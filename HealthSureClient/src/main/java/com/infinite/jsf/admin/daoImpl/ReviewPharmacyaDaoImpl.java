@@ -10,10 +10,17 @@ package com.infinite.jsf.admin.daoImpl;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.log4j.Logger;
+import org.hibernate.Hibernate;
 import org.hibernate.HibernateException;
+import org.hibernate.LockMode;
 import org.hibernate.Query;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
@@ -23,8 +30,10 @@ import org.hibernate.exception.SQLGrammarException;
 
 import com.infinite.jsf.admin.dao.ReviewPharmacyaDao;
 import com.infinite.jsf.admin.exception.ReviewPharmacyException;
+import com.infinite.jsf.admin.model.PharmacyReviewStatus;
+import com.infinite.jsf.admin.model.PharmacyStatusChange;
+import com.infinite.jsf.admin.model.PharmacySummary;
 import com.infinite.jsf.pharmacy.model.Pharmacy;
-import com.infinite.jsf.util.MailSend;
 import com.infinite.jsf.util.SessionHelper;
 
 /**
@@ -36,9 +45,27 @@ import com.infinite.jsf.util.SessionHelper;
 public class ReviewPharmacyaDaoImpl implements ReviewPharmacyaDao {
 
 	static SessionFactory factory;
-	static Session session;
 	private static final Logger logger = Logger.getLogger(ReviewPharmacyaDaoImpl.class);
 
+	/** Columns of the review screen, in the order of the PharmacySummary constructor. */
+	private static final String SUMMARY_SELECT = "select new com.infinite.jsf.admin.model.PharmacySummary("
+			+ "p.pharmacyId, p.pharmacyName, p.firstName, p.lastName, p.contactNo, p.email, p.licenseNo, p.gstNo, "
+			+ "p.aadhar, p.status, p.createdAt) from Pharmacy p";
+
+	/** Most IDs bound to one IN list. */
+	private static final int MAX_IN_LIST = 500;
+
+	/** Sortable fields of the review screen. */
+	private static final Map<String, String> SORT_PROPERTIES;
+	static {
+		Map<String, String> properties = new HashMap<>();
+		for (String field : Arrays.asList("pharmacyId", "pharmacyName", "contactNo", "email", "aadhar", "licenseNo",
+				"gstNo", "status", "createdAt")) {
+			properties.put(field, field);
+		}
+		SORT_PROPERTIES = Collections.unmodifiableMap(properties);
+	}
+
 	static {
 		factory = SessionHelper.getSessionFactory();
 	}
@@ -52,6 +79,7 @@ public class ReviewPharmacyaDaoImpl implements ReviewPharmacyaDao {
 	@Override
 	public List<Pharmacy> reviewPharmacyDetails() throws ReviewPharmacyException {
 		List<Pharmacy> pharmacies = null;
+		Session session = null;
 		Transaction trans = null;
 
 		try {
@@ -94,66 +122,304 @@ public class ReviewPharmacyaDaoImpl implements ReviewPharmacyaDao {
 				session.close();
 		}
 
-		System.out.println("---------------------method is called");
 		return pharmacies;
 	}
 
 	/**
-	 * Updates the status of a pharmacy and sends a notification email.
+	 * Fetches one page of review rows with a projection query: ORDER BY and
+	 * LIMIT/OFFSET run in the database and no collection is touched.
 	 *
-	 * @param pharmacy the Pharmacy object to update
-	 * @param status   the new status to set (e.g., ACCEPTED or REJECTED)
-	 * @return "updated" if successful
+	 * @param sortField   field to sort by
+	 * @param ascending   sort direction
+	 * @param firstResult index of the first row
+	 * @param maxResults  page size
+	 * @return the rows of the page
 	 * @throws ReviewPharmacyException
 	 */
 	@Override
-	public String updatePharmacyStatus(Pharmacy pharmacy, String status) throws ReviewPharmacyException {
-		Transaction trans = null;
+	public List<PharmacySummary> findPharmacySummaries(String sortField, boolean ascending, int firstResult,
+			int maxResults) throws ReviewPharmacyException {
+		String property = SORT_PROPERTIES.get(sortField);
+		if (property == null) {
+			property = "pharmacyId";
+		}
+		String direction = ascending ? "asc" : "desc";
+		StringBuilder hql = new StringBuilder(SUMMARY_SELECT).append(" order by p.").append(property).append(' ')
+				.append(direction);
+		if (!"pharmacyId".equals(property)) {
+			// stable order, so a row never shows on two pages
+			hql.append(", p.pharmacyId ").append(direction);
+		}
 
+		Session session = null;
 		try {
 			session = factory.openSession();
-			trans = session.beginTransaction();
+			Query query = session.createQuery(hql.toString());
+			query.setFirstResult(Math.max(0, firstResult));
+			query.setMaxResults(maxResults);
+			@SuppressWarnings("unchecked")
+			List<PharmacySummary> page = query.list();
+			if (logger.isDebugEnabled()) {
+				logger.debug("Fetched " + page.size() + " pharmacies for review from row " + firstResult
+						+ " sorted by " + property + " " + direction);
+			}
+			return page;
+
+		} catch (HibernateException e) {
+			logger.error("Hibernate error while fetching a page of pharmacies", e);
+			throw new ReviewPharmacyException("Hibernate error", e);
+
+		} finally {
+			if (session != null)
+				session.close();
+		}
+	}
 
-			String pharmacyId = pharmacy.getPharmacyId();
-			pharmacy.setStatus(status);
-			session.update(pharmacy);
+	/**
+	 * Counts all pharmacies.
+	 *
+	 * @return number of pharmacies
+	 * @throws ReviewPharmacyException
+	 */
+	@Override
+	public long countPharmacies() throws ReviewPharmacyException {
+		Session session = null;
+		try {
+			session = factory.openSession();
+			Number count = (Number) session.createQuery("select count(p.pharmacyId) from Pharmacy p")
+					.uniqueResult();
+			return count == null ? 0L : count.longValue();
 
-			String email = pharmacy.getEmail();
-			MailSend.sendInfo(email, "PHARMACY STATUS : ACCETPED",
-					"\n Congratulations !! \n Your pharmacy  has been ACCPTED \n\n ADMIN : \n RAVIKANT TURI");
+		} catch (HibernateException e) {
+			logger.error("Hibernate error while counting pharmacies", e);
+			throw new ReviewPharmacyException("Hibernate error", e);
 
+		} finally {
+			if (session != null)
+				session.close();
+		}
+	}
+
+	/**
+	 * Loads one pharmacy and initializes its six collections before the
+	 * session closes, so the detail views can read them.
+	 *
+	 * @param pharmacyId ID of the pharmacy
+	 * @return the pharmacy, or null if not found
+	 * @throws ReviewPharmacyException
+	 */
+	@Override
+	public Pharmacy findPharmacyWithDetails(String pharmacyId) throws ReviewPharmacyException {
+		Session session = null;
+		try {
+			session = factory.openSession();
+			Pharmacy pharmacy = (Pharmacy) session.get(Pharmacy.class, pharmacyId);
+			if (pharmacy != null) {
+				Hibernate.initialize(pharmacy.getMedicines());
+				Hibernate.initialize(pharmacy.getEquipments());
+				Hibernate.initialize(pharmacy.getPharmacists());
+				Hibernate.initialize(pharmacy.getDispensedMedicines());
+				Hibernate.initialize(pharmacy.getDispensedEquipments());
+				Hibernate.initialize(pharmacy.getPasswords());
+			}
+			return pharmacy;
+
+		} catch (HibernateException e) {
+			logger.error("Hibernate error while fetching details of pharmacy " + pharmacyId, e);
+			throw new ReviewPharmacyException("Hibernate error", e);
+
+		} finally {
+			if (session != null)
+				session.close();
+		}
+	}
+
+	/**
+	 * Reads the current status, checks the transition and writes only the
+	 * status column. The UPDATE repeats the check in its WHERE clause, so a
+	 * concurrent review of the same pharmacy cannot make a second transition.
+	 * The cost does not depend on how much inventory the pharmacy has.
+	 *
+	 * @param pharmacyId ID of the pharmacy
+	 * @param target     new status
+	 * @return the committed outcome
+	 * @throws ReviewPharmacyException
+	 */
+	@Override
+	public PharmacyStatusChange changeStatus(String pharmacyId, PharmacyReviewStatus target)
+			throws ReviewPharmacyException {
+		Session session = null;
+		Transaction trans = null;
+
+		try {
+			session = factory.openSession();
+			trans = session.beginTransaction();
+			PharmacyStatusChange change = changeStatuses(session, Collections.singletonMap(pharmacyId, target))
+					.get(0);
 			trans.commit();
 
 			if (logger.isInfoEnabled()) {
-				logger.info("Pharmacy status updated to " + status + " for ID: " + pharmacyId);
+				logger.info("Pharmacy status change " + change);
 			}
+			return change;
 
-			return "updated";
-
-		} catch (SQLGrammarException e) {
+		} catch (HibernateException e) {
 			if (trans != null)
 				trans.rollback();
-			logger.error("SQL syntax error", e);
-			throw new ReviewPharmacyException("SQL error in query  while fetching all Pharamcy", e);
+			logger.error("Hibernate error while changing status of pharmacy " + pharmacyId, e);
+			throw new ReviewPharmacyException("Hibernate error", e);
+
+		} finally {
+			if (session != null)
+				session.close();
 		}
+	}
 
-		catch (HibernateException e) {
+	@Override
+	public List<PharmacyStatusChange> changeStatuses(Map<String, PharmacyReviewStatus> targets)
+			throws ReviewPharmacyException {
+		if (targets.isEmpty()) {
+			return Collections.emptyList();
+		}
+		Session session = null;
+		Transaction trans = null;
+
+		try {
+			session = factory.openSession();
+			trans = session.beginTransaction();
+			List<PharmacyStatusChange> changes = changeStatuses(session, targets);
+			trans.commit();
+
+			if (logger.isInfoEnabled()) {
+				logger.info("Bulk status change of " + targets.size() + " pharmacies committed");
+			}
+			return changes;
+
+		} catch (HibernateException e) {
 			if (trans != null)
 				trans.rollback();
-			logger.error("Hibernate error while fetching all Pharamcy", e);
+			logger.error("Hibernate error while changing status of " + targets.size() + " pharmacies", e);
 			throw new ReviewPharmacyException("Hibernate error", e);
-		} catch (Exception e) {
-			if (trans != null)
-				trans.rollback();
 
-			logger.error("Error updating pharmacy status for ID: " + pharmacy.getPharmacyId(), e);
+		} finally {
+			if (session != null)
+				session.close();
+		}
+	}
 
+	@Override
+	@SuppressWarnings("unchecked")
+	public List<PharmacySummary> findPharmacySummaries(Collection<String> pharmacyIds) throws ReviewPharmacyException {
+		List<PharmacySummary> summaries = new ArrayList<>();
+		if (pharmacyIds.isEmpty()) {
+			return summaries;
+		}
+		Session session = null;
+		try {
+			session = factory.openSession();
+			for (List<String> chunk : chunks(new ArrayList<>(pharmacyIds))) {
+				summaries.addAll(session.createQuery(SUMMARY_SELECT + " where p.pharmacyId in (:ids)")
+						.setParameterList("ids", chunk).setReadOnly(true).list());
+			}
+			return summaries;
+		} catch (HibernateException e) {
+			logger.error("Hibernate error while loading " + pharmacyIds.size() + " pharmacies", e);
+			throw new ReviewPharmacyException("Hibernate error", e);
 		} finally {
 			if (session != null)
 				session.close();
 		}
+	}
 
-		return "error";
+	/**
+	 * Transitions inside the caller's transaction. The current statuses are read
+	 * with one projection per chunk of IDs. For every chunk of pharmacies moving
+	 * to the same status, the rows still in an allowed source state are locked
+	 * and read, then written with one UPDATE; only those are reported as
+	 * updated, so a row another review moved meanwhile is not mailed twice.
+	 *
+	 * @return one change per requested pharmacy, in request order
+	 */
+	@SuppressWarnings("unchecked")
+	private List<PharmacyStatusChange> changeStatuses(Session session, Map<String, PharmacyReviewStatus> targets) {
+		Map<String, Object[]> rows = new HashMap<>();
+		for (List<String> chunk : chunks(new ArrayList<>(targets.keySet()))) {
+			List<Object[]> found = session
+					.createQuery("select p.pharmacyId, p.status, p.email, p.pharmacyName from Pharmacy p"
+							+ " where p.pharmacyId in (:ids)")
+					.setParameterList("ids", chunk).list();
+			for (Object[] row : found) {
+				rows.put((String) row[0], row);
+			}
+		}
+
+		Map<String, PharmacyStatusChange.Outcome> outcomes = new HashMap<>();
+		Map<PharmacyReviewStatus, List<String>> eligible = new EnumMap<>(PharmacyReviewStatus.class);
+		for (Map.Entry<String, PharmacyReviewStatus> entry : targets.entrySet()) {
+			Object[] row = rows.get(entry.getKey());
+			PharmacyReviewStatus current = row == null ? null : PharmacyReviewStatus.fromDb((String) row[1]);
+			if (row == null) {
+				outcomes.put(entry.getKey(), PharmacyStatusChange.Outcome.NOT_FOUND);
+			} else if (current == null || !current.canMoveTo(entry.getValue())) {
+				outcomes.put(entry.getKey(), PharmacyStatusChange.Outcome.INVALID_TRANSITION);
+			} else {
+				List<String> ids = eligible.get(entry.getValue());
+				if (ids == null) {
+					ids = new ArrayList<>();
+					eligible.put(entry.getValue(), ids);
+				}
+				ids.add(entry.getKey());
+			}
+		}
+
+		for (Map.Entry<PharmacyReviewStatus, List<String>> group : eligible.entrySet()) {
+			PharmacyReviewStatus target = group.getKey();
+			for (List<String> chunk : chunks(group.getValue())) {
+				List<String> movable = session
+						.createQuery("select p.pharmacyId from Pharmacy p where p.pharmacyId in (:ids)"
+								+ " and upper(p.status) in (:sources)")
+						.setParameterList("ids", chunk)
+						.setParameterList("sources", PharmacyReviewStatus.sourcesOf(target))
+						.setLockMode("p", LockMode.UPGRADE).list();
+				for (String id : chunk) {
+					// another review moved it since the first read
+					outcomes.put(id, PharmacyStatusChange.Outcome.INVALID_TRANSITION);
+				}
+				if (movable.isEmpty()) {
+					continue;
+				}
+				int updated = session
+						.createQuery("update Pharmacy p set p.status = :target where p.pharmacyId in (:ids)"
+								+ " and upper(p.status) in (:sources)")
+						.setParameter("target", target.getDbValue()).setParameterList("ids", movable)
+						.setParameterList("sources", PharmacyReviewStatus.sourcesOf(target)).executeUpdate();
+				if (updated != movable.size()) {
+					logger.warn("Pharmacy status update to " + target + " changed " + updated + " of "
+							+ movable.size() + " locked rows");
+				}
+				for (String id : movable) {
+					outcomes.put(id, PharmacyStatusChange.Outcome.UPDATED);
+				}
+			}
+		}
+
+		List<PharmacyStatusChange> changes = new ArrayList<>(targets.size());
+		for (Map.Entry<String, PharmacyReviewStatus> entry : targets.entrySet()) {
+			Object[] row = rows.get(entry.getKey());
+			changes.add(new PharmacyStatusChange(entry.getKey(), outcomes.get(entry.getKey()),
+					row == null ? null : (String) row[1], entry.getValue(), row == null ? null : (String) row[2],
+					row == null ? null : (String) row[3]));
+		}
+		return changes;
+	}
+
+	/** Splits the IDs so no IN list grows beyond {@link #MAX_IN_LIST}. */
+	private static List<List<String>> chunks(List<String> ids) {
+		List<List<String>> chunks = new ArrayList<>();
+		for (int from = 0; from < ids.size(); from += MAX_IN_LIST) {
+			chunks.add(ids.subList(from, Math.min(ids.size(), from + MAX_IN_LIST)));
+		}
+		return chunks;
 	}
 
 }
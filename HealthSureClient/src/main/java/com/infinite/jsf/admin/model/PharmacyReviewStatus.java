@@ -0,0 +1,96 @@
+/**
+ * Copyright © 2025 Infinite Computer Solution. All rights reserved.
+ */
+package com.infinite.jsf.admin.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Review states of a pharmacy and the transitions an admin may make.
+ *
+ * <pre>
+ * PENDING  --&gt; ACCEPTED
+ * PENDING  --&gt; REJECTED
+ * REJECTED --&gt; ACCEPTED   (re-review after the pharmacy fixed its details)
+ * </pre>
+ *
+ * ACCEPTED is final. {@link #getDbValue()} is the text stored in
+ * {@code pharmacy.status}; stored values are compared ignoring case.
+ *
+ * @author Infinite Computer Solution
+ * @version 1.0
+ */
+public enum PharmacyReviewStatus {
+	PENDING("Pending"), ACCEPTED("ACCEPTED"), REJECTED("REJECTED");
+
+	private final String dbValue;
+
+	PharmacyReviewStatus(String dbValue) {
+		this.dbValue = dbValue;
+	}
+
+	public String getDbValue() {
+		return dbValue;
+	}
+
+	/**
+	 * @param target wanted state
+	 * @return true if a pharmacy in this state may move to the target
+	 */
+	public boolean canMoveTo(PharmacyReviewStatus target) {
+		switch (this) {
+		case PENDING:
+			return target == ACCEPTED || target == REJECTED;
+		case REJECTED:
+			return target == ACCEPTED;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * @return true if no transition leaves this state
+	 */
+	public boolean isFinal() {
+		for (PharmacyReviewStatus target : values()) {
+			if (canMoveTo(target)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Upper-cased stored values of every state that may move to the target,
+	 * for the guard of the status UPDATE.
+	 *
+	 * @param target wanted state
+	 * @return allowed source values, never empty for a reachable target
+	 */
+	public static List<String> sourcesOf(PharmacyReviewStatus target) {
+		List<String> sources = new ArrayList<>();
+		for (PharmacyReviewStatus status : values()) {
+			if (status.canMoveTo(target)) {
+				sources.add(status.dbValue.toUpperCase(Locale.ROOT));
+			}
+		}
+		return sources;
+	}
+
+	/**
+	 * @param value stored status text
+	 * @return the matching state, or null for an unknown value
+	 */
+	public static PharmacyReviewStatus fromDb(String value) {
+		if (value != null) {
+			for (PharmacyReviewStatus status : values()) {
+				if (status.dbValue.equalsIgnoreCase(value.trim())) {
+					return status;
+				}
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,76 @@
+/**
+ * Copyright © 2025 Infinite Computer Solution. All rights reserved.
+ */
+package com.infinite.jsf.admin.model;
+
+import java.io.Serializable;
+
+/**
+ * Result of one pharmacy status transition, returned once the change is
+ * committed. Carries what the notification needs, so nothing has to be
+ * loaded again after the commit.
+ *
+ * @author Infinite Computer Solution
+ * @version 1.0
+ */
+public class PharmacyStatusChange implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	/** What happened to the requested transition. */
+	public enum Outcome {
+		UPDATED, NOT_FOUND, INVALID_TRANSITION
+	}
+
+	private final String pharmacyId;
+	private final Outcome outcome;
+	private final String previousStatus;
+	private final PharmacyReviewStatus newStatus;
+	private final String email;
+	private final String pharmacyName;
+
+	public PharmacyStatusChange(String pharmacyId, Outcome outcome, String previousStatus,
+			PharmacyReviewStatus newStatus, String email, String pharmacyName) {
+		this.pharmacyId = pharmacyId;
+		this.outcome = outcome;
+		this.previousStatus = previousStatus;
+		this.newStatus = newStatus;
+		this.email = email;
+		this.pharmacyName = pharmacyName;
+	}
+
+	public boolean isUpdated() {
+		return outcome == Outcome.UPDATED;
+	}
+
+	public String getPharmacyId() {
+		return pharmacyId;
+	}
+
+	public Outcome getOutcome() {
+		return outcome;
+	}
+
+	/** Status stored before the transition, null if the pharmacy was not found. */
+	public String getPreviousStatus() {
+		return previousStatus;
+	}
+
+	/** Requested status; stored only when {@link #isUpdated()}. */
+	public PharmacyReviewStatus getNewStatus() {
+		return newStatus;
+	}
+
+	public String getEmail() {
+		return email;
+	}
+
+	public String getPharmacyName() {
+		return pharmacyName;
+	}
+
+	@Override
+	public String toString() {
+		return "PharmacyStatusChange [" + pharmacyId + ": " + previousStatus + " -> " + newStatus + ", " + outcome
+				+ "]";
+	}
+}
@@ -0,0 +1,148 @@
+/**
+ * Copyright © 2025 Infinite Computer Solution. All rights reserved.
+ */
+package com.infinite.jsf.admin.model;
+
+import java.io.Serializable;
+import java.sql.Timestamp;
+
+/**
+ * Read-only row of the pharmacy review screen.
+ *
+ * <p>
+ * Filled by an HQL {@code select new} projection over the pharmacy columns the
+ * review table shows, so listing pharmacies never loads their medicines,
+ * equipment, pharmacists, dispense history or passwords.
+ * </p>
+ *
+ * @author Infinite Computer Solution
+ * @version 1.0
+ */
+public class PharmacySummary implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private String pharmacyId;
+	private String pharmacyName;
+	private String firstName;
+	private String lastName;
+	private String contactNo;
+	private String email;
+	private String licenseNo;
+	private String gstNo;
+	private String aadhar;
+	private String status;
+	private Timestamp createdAt;
+
+	public PharmacySummary() {
+	}
+
+	public PharmacySummary(String pharmacyId, String pharmacyName, String firstName, String lastName,
+			String contactNo, String email, String licenseNo, String gstNo, String aadhar, String status,
+			Timestamp createdAt) {
+		this.pharmacyId = pharmacyId;
+		this.pharmacyName = pharmacyName;
+		this.firstName = firstName;
+		this.lastName = lastName;
+		this.contactNo = contactNo;
+		this.email = email;
+		this.licenseNo = licenseNo;
+		this.gstNo = gstNo;
+		this.aadhar = aadhar;
+		this.status = status;
+		this.createdAt = createdAt;
+	}
+
+	public String getPharmacyId() {
+		return pharmacyId;
+	}
+
+	public void setPharmacyId(String pharmacyId) {
+		this.pharmacyId = pharmacyId;
+	}
+
+	public String getPharmacyName() {
+		return pharmacyName;
+	}
+
+	public void setPharmacyName(String pharmacyName) {
+		this.pharmacyName = pharmacyName;
+	}
+
+	public String getFirstName() {
+		return firstName;
+	}
+
+	public void setFirstName(String firstName) {
+		this.firstName = firstName;
+	}
+
+	public String getLastName() {
+		return lastName;
+	}
+
+	public void setLastName(String lastName) {
+		this.lastName = lastName;
+	}
+
+	public String getContactNo() {
+		return contactNo;
+	}
+
+	public void setContactNo(String contactNo) {
+		this.contactNo = contactNo;
+	}
+
+	public String getEmail() {
+		return email;
+	}
+
+	public void setEmail(String email) {
+		this.email = email;
+	}
+
+	public String getLicenseNo() {
+		return licenseNo;
+	}
+
+	public void setLicenseNo(String licenseNo) {
+		this.licenseNo = licenseNo;
+	}
+
+	public String getGstNo() {
+		return gstNo;
+	}
+
+	public void setGstNo(String gstNo) {
+		this.gstNo = gstNo;
+	}
+
+	public String getAadhar() {
+		return aadhar;
+	}
+
+	public void setAadhar(String aadhar) {
+		this.aadhar = aadhar;
+	}
+
+	public String getStatus() {
+		return status;
+	}
+
+	public void setStatus(String status) {
+		this.status = status;
+	}
+
+	public Timestamp getCreatedAt() {
+		return createdAt;
+	}
+
+	public void setCreatedAt(Timestamp createdAt) {
+		this.createdAt = createdAt;
+	}
+
+	@Override
+	public String toString() {
+		return "PharmacySummary [pharmacyId=" + pharmacyId + ", pharmacyName=" + pharmacyName + ", status=" + status
+				+ "]";
+	}
+}
@@ -15,7 +15,6 @@
 
 package com.infinite.jsf.admin.service;
 
-import java.sql.Timestamp;
 import java.util.*;
 import java.util.stream.Collectors;
 import java.util.regex.Pattern;
@@ -23,14 +22,14 @@ import java.util.regex.Pattern;
 import org.apache.log4j.Logger;
 
 import com.infinite.jsf.admin.daoImpl.AdminDaoImpl;
-import com.infinite.jsf.admin.model.Otp;
-import com.infinite.jsf.admin.model.OtpStatus;
+import com.infinite.jsf.admin.daoImpl.AdminOtpStore;
 import com.infinite.jsf.admin.model.Reason;
 import com.infinite.jsf.admin.model.User;
 import com.infinite.jsf.admin.model.UserStatus;
 import com.infinite.jsf.util.EncryptPassword;
 import com.infinite.jsf.util.MailSend;
 import com.infinite.jsf.util.Messages;
+import com.infinite.jsf.util.OtpStore;
 
 public class AdminService {
 
@@ -46,35 +45,30 @@ public class AdminService {
 	 */
 	private AdminDaoImpl dao = new AdminDaoImpl();
 
+	/**
+	 * Shared in-memory OTP store, written through to the Admin_Otp table.
+	 */
+	private final OtpStore otpStore = AdminOtpStore.getInstance();
+
+	/** Validity of a signup or forgot password OTP. */
+	private static final long OTP_TTL_MILLIS = 5 * 60 * 1000L;
+
 	/**
 	 * Checks whether the user is allowed to resend OTP based on two constraints:
-	 * 1. At least 30 seconds must have passed since the last active OTP was generated.
+	 * 1. At least 30 seconds must have passed since the last OTP was generated.
 	 * 2. The user must not have requested OTP more than 5 times in the last 30 minutes.
+	 * Both are answered by the rate limiter of the reason, see AdminOtpStore.
 	 *
 	 * @param email 
 	 * @param reason 
 	 * @return boolean 
 	 */
 	public boolean canResendOtp(String email, Reason reason) {
-		Timestamp now = new Timestamp(System.currentTimeMillis());
-
-		Otp lastOtp = dao.getLatestActiveOtp(email, reason);
-		if (lastOtp != null) {
-			long secondsElapsed = (now.getTime() - lastOtp.getCreatedAt().getTime()) / 1000;
-			if (secondsElapsed < 30) {
-				if(logger.isInfoEnabled()) {
-					logger.info("Resend blocked: last OTP sent " + secondsElapsed + "s ago to " + email); 
-				}
-				return false;
-			}
+		OtpStore.Issue check = otpStore.check(AdminOtpStore.key(email, reason));
+		if (!check.isAllowed() && logger.isInfoEnabled()) {
+			logger.info("Resend blocked for " + email + ": " + check);
 		}
-
-		Timestamp halfHourAgo = new Timestamp(now.getTime() - (30 * 60 * 1000));
-		int resendCount = dao.countOtpRequestsSince(email, reason, halfHourAgo);
-		if(logger.isInfoEnabled()) {
-			logger.info("OTP resend count in last 30 min for " + email + ": " + resendCount); 
-		}
-		return resendCount < 5;
+		return check.isAllowed();
 	}
 
 
@@ -94,65 +88,37 @@ public class AdminService {
 	 */
 	public Map<String, String> sendEmailOtp(String email, String username) {
 		Map<String, String> errors = new HashMap<>();
+		// ✅ Blocked senders are turned away from memory, before any lookup
+		if (email != null && isOtpBlocked(email, Reason.SIGNUP, errors, "email")) {
+			return errors;
+		}
 		if(logger.isInfoEnabled()) {
 			logger.info("Checking if user/email already exists before sending OTP.");
 		}
 		// Check if user or email already exists
-		if (dao.existsByEmail(email)) {
+		Set<String> taken = dao.findTakenFields(email, username);
+		if (taken.contains(AdminDaoImpl.FIELD_EMAIL)) {
 			errors.put("email", Messages.EMAIL_ALREADY_REGISTERED);
 		}
-		if (dao.existsByUsername(username)) {
+		if (taken.contains(AdminDaoImpl.FIELD_USERNAME)) {
 			errors.put("username", Messages.USERNAME_ALREADY_TAKEN);
 		}
 		if (!errors.isEmpty()) {
 			return errors; // return errors if any found
 		}
 
-		// ✅ Step 1: Rate-limit logic - check if already sent 5 in 30 min
-		Timestamp now = new Timestamp(System.currentTimeMillis());
-		Timestamp thirtyMinutesAgo = new Timestamp(now.getTime() - (30 * 60 * 1000));
-
-		List<Otp> recentOtps = dao.getAllOtpByEmailAndReasonSince(email, Reason.SIGNUP, thirtyMinutesAgo);
-
-		if (recentOtps.size() >= 5) {
-			// OTPs exist — calculate remaining block time
-			Otp oldest = recentOtps.get(0); // assume list is sorted by createdAt ascending
-			long millisElapsed = now.getTime() - oldest.getCreatedAt().getTime();
-			long secondsRemaining = (30 * 60) - (millisElapsed / 1000);
-			long minutes = secondsRemaining / 60;
-			long seconds = secondsRemaining % 60;
-
-			logger.warn("OTP resend blocked for email: " + email);
-
-			errors.put("otp", String.format(Messages.OTP_LIMIT_EXCEEDED, minutes));
-			errors.put("remainingMinutes", String.valueOf(minutes));
-			errors.put("remainingSeconds", String.valueOf(seconds));
-			return errors;
-		}
-
-		// ✅ Step 2: Check cooldown of 30 seconds since last OTP
-		if (!canResendOtp(email, Reason.SIGNUP)) {
-			errors.put("otp", Messages.OTP_REQUEST_COOLDOWN);
-			return errors;
-		}
-
 		if(logger.isInfoEnabled()) {
 			logger.info("Generating and sending OTP to: " + email);
 		}
 		String otpCode = String.format("%06d", new Random().nextInt(999999));
 
-
-		Calendar cal = Calendar.getInstance();
-		cal.add(Calendar.MINUTE, 5);
-		Timestamp expiry = new Timestamp(cal.getTimeInMillis());
-
-		Otp otp = new Otp();
-		otp.setEmail(email);
-		otp.setOtpCode(otpCode);
-		otp.setCreatedAt(now);
-		otp.setExpiresAt(expiry);
-		otp.setReason(Reason.SIGNUP);
-		otp.setStatus(OtpStatus.ACTIVE);
+		// ✅ Rate limit, cooldown and save in one step; also catches concurrent requests
+		OtpStore.Issue issue = otpStore.issue(AdminOtpStore.key(email, Reason.SIGNUP), otpCode, OTP_TTL_MILLIS);
+		if (!issue.isAllowed()) {
+			logger.warn("OTP resend blocked for email: " + email + " (" + issue.getOutcome() + ")");
+			putIssueErrors(errors, issue, "email");
+			return errors;
+		}
 
 		String message = "Your OTP for email verification is: " + otpCode;
 
@@ -161,12 +127,6 @@ public class AdminService {
 		} catch (Exception e) {
 			logger.error("Failed to send email: ", e);
 			errors.put("email", Messages.FAILED_TO_SEND_EMAIL);
-			return errors;
-		}
-
-		boolean saved = dao.saveEmailOtp(otp);
-		if (!saved) {
-			errors.put("email", Messages.INTERNAL_OTP_SAVE_ERROR);
 		}
 
 		return errors;
@@ -261,6 +221,11 @@ public class AdminService {
 
 		boolean isEmail = emailOrUsername.matches("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+$");
 
+		// ✅ Blocked senders are turned away from memory, before any lookup
+		if (isEmail && isOtpBlocked(emailOrUsername, Reason.FORGOT_PASSWORD, errors, "usernameOrEmail")) {
+			return errors;
+		}
+
 		// Step 0: Validate email/username existence
 		if (isEmail) {
 			if (!dao.existsByEmail(emailOrUsername)) {
@@ -284,66 +249,79 @@ public class AdminService {
 			return errors;
 		}
 
-		// ✅ Step 2: Rate-limit - max 5 OTPs in 30 minutes
-		Timestamp now = new Timestamp(System.currentTimeMillis());
-		Timestamp thirtyMinutesAgo = new Timestamp(now.getTime() - (30 * 60 * 1000));
-		List<Otp> recentOtps = dao.getAllOtpByEmailAndReasonSince(email, Reason.FORGOT_PASSWORD, thirtyMinutesAgo);
-
-		if (recentOtps.size() >= 5) {
-			Otp oldest = recentOtps.get(0); // assume sorted by createdAt ascending
-			long millisElapsed = now.getTime() - oldest.getCreatedAt().getTime();
-			long secondsRemaining = (30 * 60) - (millisElapsed / 1000);
-			long minutes = secondsRemaining / 60;
-			long seconds = secondsRemaining % 60;
-
-			logger.warn("Forgot Password OTP resend blocked for email: " + email);
-			errors.put("otp", String.format(Messages.OTP_LIMIT_EXCEEDED, minutes));
-			errors.put("remainingMinutes", String.valueOf(minutes));
-			errors.put("remainingSeconds", String.valueOf(seconds));
-			return errors;
-		}
-
-		// ✅ Step 3: Cooldown - 30 seconds since last OTP
-		if (!canResendOtp(email, Reason.FORGOT_PASSWORD)) {
-			errors.put("otp", Messages.OTP_REQUEST_COOLDOWN);
-			return errors;
-		}
-
-		// ✅ Step 4: Generate OTP
+		// ✅ Step 2: Generate OTP
 		if(logger.isInfoEnabled()) {
 		logger.info("Generating Forgot Password OTP for: " + email);
 		}
 		String otpCode = String.format("%06d", new Random().nextInt(999999));
 
-		Calendar cal = Calendar.getInstance();
-		cal.add(Calendar.MINUTE, 5);
-		Timestamp expiry = new Timestamp(cal.getTimeInMillis());
-
-		Otp otp = new Otp();
-		otp.setEmail(email);
-		otp.setOtpCode(otpCode);
-		otp.setCreatedAt(now);
-		otp.setExpiresAt(expiry);
-		otp.setReason(Reason.FORGOT_PASSWORD);
-		otp.setStatus(OtpStatus.ACTIVE);
+		// ✅ Step 3: Rate limit, cooldown and save
+		OtpStore.Issue issue = otpStore.issue(AdminOtpStore.key(email, Reason.FORGOT_PASSWORD), otpCode,
+				OTP_TTL_MILLIS);
+		if (!issue.isAllowed()) {
+			logger.warn("Forgot Password OTP resend blocked for email: " + email + " (" + issue.getOutcome() + ")");
+			putIssueErrors(errors, issue, "usernameOrEmail");
+			return errors;
+		}
 
 		String message = "Your OTP for password reset is: " + otpCode;
 
-		// ✅ Step 5: Send Email
+		// ✅ Step 4: Send Email
 		try {
 			MailSend.sendInfo(email, "Forgot Password OTP", message);
 		} catch (Exception e) {
 			logger.error("Failed to send email: ", e);
 			errors.put("usernameOrEmail", Messages.FAILED_TO_SEND_EMAIL);
-			return errors;
 		}
 
-		// ✅ Step 6: Save OTP
-		if (!dao.saveEmailOtp(otp)) {
-			errors.put("usernameOrEmail", Messages.INTERNAL_OTP_SAVE_ERROR);
+		return errors; // empty = success
+	}
+
+	/**
+	 * Checks the resend rules for the email and fills the errors if a new OTP
+	 * would be refused. The rate limiter answers from memory.
+	 *
+	 * @param email 
+	 * @param reason 
+	 * @param errors 
+	 * @param field field that receives a save failure
+	 * @return true if the request must be rejected
+	 */
+	private boolean isOtpBlocked(String email, Reason reason, Map<String, String> errors, String field) {
+		OtpStore.Issue check = otpStore.check(AdminOtpStore.key(email, reason));
+		if (check.isAllowed()) {
+			return false;
 		}
+		logger.warn("OTP request blocked for email: " + email + " (" + check + ")");
+		putIssueErrors(errors, check, field);
+		return true;
+	}
 
-		return errors; // empty = success
+	/**
+	 * Translates a refused OTP issue into the error entries shown by the pages.
+	 *
+	 * @param errors 
+	 * @param issue 
+	 * @param field field that receives a save failure
+	 */
+	private void putIssueErrors(Map<String, String> errors, OtpStore.Issue issue, String field) {
+		switch (issue.getOutcome()) {
+		case LIMIT_REACHED:
+			// remaining block time comes straight from the rate limiter
+			long secondsRemaining = (issue.getRetryAfterMillis() + 999) / 1000;
+			long minutes = secondsRemaining / 60;
+			long seconds = secondsRemaining % 60;
+			errors.put("otp", String.format(Messages.OTP_LIMIT_EXCEEDED, minutes));
+			errors.put("remainingMinutes", String.valueOf(minutes));
+			errors.put("remainingSeconds", String.valueOf(seconds));
+			break;
+		case COOLDOWN:
+			errors.put("otp", Messages.OTP_REQUEST_COOLDOWN);
+			break;
+		default:
+			errors.put(field, Messages.INTERNAL_OTP_SAVE_ERROR);
+			break;
+		}
 	}
 
 
@@ -561,26 +539,14 @@ public class AdminService {
 			return false;
 		}
 
-		try {
-			// ✅ Use getLatestActiveOtp(String, Reason)
-			Otp otp = dao.getLatestActiveOtp(email, Reason.FORGOT_PASSWORD);
-
-			if (otp != null && otp.getOtpCode().equals(otpCode)) {
-				if(logger.isInfoEnabled()) {
-					logger.info("Valid OTP found for forgot password.");
-				}
-				// ✅ Mark all old OTPs inactive
-
-				return true;
-			} else {
-				logger.warn("OTP invalid or expired.");
-				return false;
+		if (otpStore.verify(AdminOtpStore.key(email, Reason.FORGOT_PASSWORD), otpCode)) {
+			if(logger.isInfoEnabled()) {
+				logger.info("Valid OTP found for forgot password.");
 			}
-
-		} catch (Exception e) {
-			logger.error("Error verifying OTP: ", e);
-			return false;
+			return true;
 		}
+		logger.warn("OTP invalid or expired.");
+		return false;
 	}
 
 
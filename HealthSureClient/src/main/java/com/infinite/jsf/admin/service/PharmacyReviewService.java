@@ -0,0 +1,125 @@
+/**
+ * Copyright © 2025 Infinite Computer Solution. All rights reserved.
+ */
+package com.infinite.jsf.admin.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+
+import com.infinite.jsf.admin.controller.ConstMessage;
+import com.infinite.jsf.admin.dao.ReviewPharmacyaDao;
+import com.infinite.jsf.admin.exception.ReviewPharmacyException;
+import com.infinite.jsf.admin.model.PharmacyReviewStatus;
+import com.infinite.jsf.admin.model.PharmacyStatusChange;
+import com.infinite.jsf.mail.exception.MailOutboxException;
+import com.infinite.jsf.mail.model.MailOutbox;
+import com.infinite.jsf.mail.service.MailDispatcher;
+import com.infinite.jsf.util.MailSend;
+
+/**
+ * Approves and rejects pharmacies.
+ *
+ * <p>
+ * The status change is committed by the DAO first; the pharmacy is notified
+ * only afterwards and only when the status really changed, so a rolled back or
+ * refused transition never produces a mail.
+ * </p>
+ *
+ * @author Infinite Computer Solution
+ * @version 1.0
+ */
+public class PharmacyReviewService {
+	private static final Logger logger = Logger.getLogger(PharmacyReviewService.class);
+
+	private final ReviewPharmacyaDao dao;
+
+	public PharmacyReviewService(ReviewPharmacyaDao dao) {
+		this.dao = dao;
+	}
+
+	/**
+	 * Moves a pharmacy to the target status and notifies it after the commit.
+	 *
+	 * @param pharmacyId ID of the pharmacy
+	 * @param target     ACCEPTED or REJECTED
+	 * @param reason     validation findings quoted in a rejection mail
+	 * @return the outcome of the transition
+	 * @throws ReviewPharmacyException if the status cannot be written
+	 */
+	public PharmacyStatusChange changeStatus(String pharmacyId, PharmacyReviewStatus target, String reason)
+			throws ReviewPharmacyException {
+		PharmacyStatusChange change = dao.changeStatus(pharmacyId, target);
+		if (change.isUpdated()) {
+			notifyPharmacy(change, reason);
+		} else if (logger.isInfoEnabled()) {
+			logger.info("Pharmacy status not changed: " + change);
+		}
+		return change;
+	}
+
+	/**
+	 * Moves many pharmacies in one transaction and notifies those that changed
+	 * with one batch of outbox rows after the commit.
+	 *
+	 * @param targets pharmacy ID to new status; the result keeps this order
+	 * @param reasons pharmacy ID to validation findings quoted in a rejection
+	 *                mail
+	 * @return one change per requested pharmacy
+	 * @throws ReviewPharmacyException if the batch fails; nothing is changed then
+	 */
+	public List<PharmacyStatusChange> changeStatuses(Map<String, PharmacyReviewStatus> targets,
+			Map<String, String> reasons) throws ReviewPharmacyException {
+		List<PharmacyStatusChange> changes = dao.changeStatuses(targets);
+
+		List<MailOutbox> mails = new ArrayList<>();
+		for (PharmacyStatusChange change : changes) {
+			MailOutbox mail = change.isUpdated() ? notificationFor(change, reasons.get(change.getPharmacyId())) : null;
+			if (mail != null) {
+				mails.add(mail);
+			}
+		}
+		try {
+			MailDispatcher.getInstance().enqueueAll(mails);
+		} catch (MailOutboxException e) {
+			// the statuses are committed; only the mails are lost
+			logger.error("Could not queue " + mails.size() + " pharmacy review mails", e);
+		}
+		if (logger.isInfoEnabled()) {
+			logger.info("Bulk review of " + targets.size() + " pharmacies, " + mails.size() + " notified");
+		}
+		return changes;
+	}
+
+	/**
+	 * Queues the mail for a committed transition.
+	 */
+	void notifyPharmacy(PharmacyStatusChange change, String reason) {
+		MailOutbox mail = notificationFor(change, reason);
+		if (mail != null) {
+			MailSend.sendInfo(mail.getRecipient(), mail.getSubject(), mail.getBody());
+		}
+	}
+
+	/**
+	 * Builds the mail of a committed transition, or null if there is nobody to
+	 * tell.
+	 */
+	private MailOutbox notificationFor(PharmacyStatusChange change, String reason) {
+		if (change.getEmail() == null) {
+			logger.warn("Pharmacy " + change.getPharmacyId() + " has no e-mail address, not notified");
+			return null;
+		}
+		if (change.getNewStatus() == PharmacyReviewStatus.ACCEPTED) {
+			return new MailOutbox(change.getEmail(), ConstMessage.ACCEPTED_SUBJECT.getMessage(),
+					ConstMessage.ACCEPTED_BODY.getMessage());
+		}
+		if (change.getNewStatus() == PharmacyReviewStatus.REJECTED) {
+			return new MailOutbox(change.getEmail(), ConstMessage.REJECTED_SUBJECT.getMessage(),
+					String.format(ConstMessage.REJECTED_HTML_TEMPLATE.getMessage(), reason == null ? "" : reason));
+		}
+		return null;
+	}
+}
@@ -14,7 +14,6 @@ import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
-import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -35,19 +34,19 @@ import com.infinite.jsf.insurance.daoImpl.InsuranceCompanyDaoImpl;
 import com.infinite.jsf.insurance.daoImpl.InsuranceCoverageOptionDaoImpl;
 import com.infinite.jsf.insurance.daoImpl.InsurancePlanDaoImpl;
 import com.infinite.jsf.insurance.daoImpl.MemberPlanRuleDaoImpl;
-import com.infinite.jsf.insurance.exception.InsuranceCoverageOptionException;
 import com.infinite.jsf.insurance.exception.InsurancePlanException;
-import com.infinite.jsf.insurance.exception.MemberPlanException;
-import com.infinite.jsf.insurance.model.CoveragePlanStatus;
 import com.infinite.jsf.insurance.model.CoverageType;
 import com.infinite.jsf.insurance.model.CreateInsuranceMessageConstants;
 import com.infinite.jsf.insurance.model.Gender;
 import com.infinite.jsf.insurance.model.InsuranceCompany;
 import com.infinite.jsf.insurance.model.InsuranceCoverageOption;
 import com.infinite.jsf.insurance.model.InsurancePlan;
+import com.infinite.jsf.insurance.model.InsurancePlanDetails;
 import com.infinite.jsf.insurance.model.MemberPlanRule;
+import com.infinite.jsf.insurance.model.PlanCursor;
 import com.infinite.jsf.insurance.model.PlanType;
 import com.infinite.jsf.insurance.model.Relation;
+import com.infinite.jsf.insurance.service.CoverageActivationJob;
 
 /**
  * This controller class is responsible for handling user interactions related
@@ -100,12 +99,23 @@ public class CreateInsuranceController {
 	private String sortField = "planId";
 	private boolean sortAscending = true;
 
+	// keyset cursors: pageCursors.get(i) is the last row of page i, one per page before the current one
+	private List<PlanCursor> pageCursors = new ArrayList<>();
+	private List<InsurancePlan> pagePlans;
+	private boolean hasNextPage;
+	private long totalPlans;
+	// request the page was read in; the getters below are called several times per render
+	private transient FacesContext pageLoadedFor;
+
+	/**
+	 * Returns the plans of the current page. Sorting and paging happen in the
+	 * database, so only one page of rows is read per request.
+	 *
+	 * @return at most pageSize plans
+	 */
 	public List<InsurancePlan> getPaginatedPlans() {
-		showAllPlan();
-		applySorting(); // Ensure sorting is applied before pagination
-		int start = currentPage * pageSize;
-		int end = Math.min(start + pageSize, planList.size());
-		return planList.subList(start, end);
+		loadPage();
+		return pagePlans;
 	}
 
 	public void sortBy(String field) {
@@ -115,76 +125,84 @@ public class CreateInsuranceController {
 			sortField = field;
 			sortAscending = true;
 		}
-		applySorting();
+		resetPaging();
 	}
 
 	public void sortByAsc(String field) {
 		sortField = field;
 		sortAscending = true;
-		applySorting();
+		resetPaging();
 	}
 
 	public void sortByDesc(String field) {
 		sortField = field;
 		sortAscending = false;
-		applySorting();
+		resetPaging();
 	}
 
-	private void applySorting() {
-		if (planList == null || planList.isEmpty())
-			return;
+	private void resetPaging() {
+		currentPage = 0;
+		pageCursors.clear();
+		pagePlans = null;
+	}
 
-		Comparator<InsurancePlan> comparator = getComparator(sortField);
-		if (comparator == null)
+	/**
+	 * Reads the current page once per request: pageSize + 1 rows after the
+	 * cursor of the previous page, the extra row only telling whether a next
+	 * page exists, plus the cached plan count.
+	 */
+	private void loadPage() {
+		FacesContext context = FacesContext.getCurrentInstance();
+		if (pagePlans != null && context != null && context == pageLoadedFor) {
 			return;
-
-		if (!sortAscending) {
-			comparator = comparator.reversed();
-		}
-		planList.sort(comparator);
-	}
-
-	private Comparator<InsurancePlan> getComparator(String field) {
-		switch (field) {
-		case "planName":
-			return Comparator.comparing(InsurancePlan::getPlanName, Comparator.nullsLast(String::compareTo));
-		case "planType":
-			return Comparator.comparing(InsurancePlan::getPlanType, Comparator.nullsLast(Enum::compareTo));
-		case "waitingPeriod":
-			return Comparator.comparing(InsurancePlan::getWaitingPeriod, Comparator.nullsLast(Integer::compareTo));
-		case "expireDate":
-			return Comparator.comparing(InsurancePlan::getExpireDate, Comparator.nullsLast(Date::compareTo));
-		case "activeOn":
-			return Comparator.comparing(InsurancePlan::getActiveOn, Comparator.nullsLast(Date::compareTo));
-		case "maximumMemberAllowed":
-			return Comparator.comparing(InsurancePlan::getMaximumMemberAllowed,
-					Comparator.nullsLast(Integer::compareTo));
-		case "availableCoverAmounts":
-			return Comparator.comparing(InsurancePlan::getAvailableCoverAmounts,
-					Comparator.nullsLast(Double::compareTo));
-		case "periodicDiseases":
-			return Comparator.comparing(InsurancePlan::getPeriodicDiseases, Comparator.nullsLast(String::compareTo));
-		case "description":
-			return Comparator.comparing(InsurancePlan::getDescription, Comparator.nullsLast(String::compareTo));
-		default: // planId
-			return Comparator.comparing(InsurancePlan::getPlanId, Comparator.nullsLast(String::compareTo));
 		}
+		try {
+			List<InsurancePlan> rows = insurancplanDao.findPlanPage(sortField, sortAscending, currentCursor(),
+					pageSize + 1);
+			while (rows.isEmpty() && currentPage > 0) {
+				// the rows of this page were removed in the meantime
+				currentPage--;
+				pageCursors.remove(currentPage);
+				rows = insurancplanDao.findPlanPage(sortField, sortAscending, currentCursor(), pageSize + 1);
+			}
+			hasNextPage = rows.size() > pageSize;
+			pagePlans = hasNextPage ? new ArrayList<>(rows.subList(0, pageSize)) : rows;
+			totalPlans = insurancplanDao.countPlans();
+		} catch (InsurancePlanException e) {
+			logger.error("Could not load page " + currentPage + " of the plan dashboard", e);
+			if (context != null) {
+				context.addMessage(null, new FacesMessage(FacesMessage.SEVERITY_ERROR, "Error",
+						"An error occurred while fetching the data."));
+			}
+			pagePlans = new ArrayList<>();
+			hasNextPage = false;
+		}
+		pageLoadedFor = context;
+	}
+
+	private PlanCursor currentCursor() {
+		return currentPage == 0 ? null : pageCursors.get(currentPage - 1);
 	}
 
 	public void nextPage() {
 		if (isNext()) {
+			pageCursors.add(PlanCursor.of(pagePlans.get(pagePlans.size() - 1), sortField));
 			currentPage++;
+			pagePlans = null;
 		}
 	}
 
 	public void previousPage() {
 		if (isPrevious()) {
 			currentPage--;
+			pageCursors.remove(currentPage);
+			pagePlans = null;
 		}
 	}
 
 	public boolean isNext() {
-		return (currentPage + 1) * pageSize < planList.size();
+		loadPage();
+		return hasNextPage;
 	}
 
 	public boolean isPrevious() {
@@ -196,7 +214,8 @@ public class CreateInsuranceController {
 	}
 
 	public int getTotalPages() {
-		return (int) Math.ceil((double) planList.size() / pageSize);
+		loadPage();
+		return (int) Math.ceil((double) totalPlans / pageSize);
 	}
 
 	public int getPageSize() {
@@ -320,41 +339,27 @@ public class CreateInsuranceController {
 			return null; // Platinum selected but invalid
 		}
 
-		// Step 3: Save insurance plan and Silver coverage
-		try {
-			insurancplanDao.addInsurancePlan(insurancePlan);
-		} catch (InsurancePlanException e) {
-			logger.info("An error occurred while adding the insurancePlan.");
-			context.addMessage(null, new FacesMessage(FacesMessage.SEVERITY_ERROR, "Error :",
-					"An error occurred while adding the insurancePlan."));
-
+		// Step 3: Collect Silver (always) and Gold/Platinum if selected
+		List<InsuranceCoverageOption> options = new ArrayList<>();
+		options.add(coverageOption1);
+		if (isGold) {
+			logger.info("Gold is selected");
+			options.add(coverageOption2);
 		}
-		try {
-			insuranceCoverageOptionDao.addCoveragePlan(coverageOption1);
-		} catch (InsuranceCoverageOptionException e) {
-			logger.info("An error occurred while adding the SILVER plan.");
-			context.addMessage(null, new FacesMessage(FacesMessage.SEVERITY_ERROR, "Error :",
-					"An error occurred while adding the SILVER plan."));
-
+		if (isPlatinum) {
+			logger.info("Platinum is selected");
+			options.add(coverageOption3);
 		}
 
-		// Step 4: Add members
+		// Step 4: Collect members
+		List<MemberPlanRule> planMembers = new ArrayList<>();
 		if (insurancePlan.getPlanType() == PlanType.INDIVIDUAL) {
 			logger.info("plan is INDIVIDUAL type ");
 			MemberPlanRule member = new MemberPlanRule();
 			member.setInsurancePlan(insurancePlan);
 			member.setRelation(Relation.INDIVIDUAL);
 			member.setGender(Gender.valueOf(individualMemberGender));
-			try {
-				memberPlanRuleDao.addMember(member);
-
-			} catch (MemberPlanException e) {
-				logger.info(" An error occurred while adding the insurance member in INDIVIDUAL type.");
-				context.addMessage(null, new FacesMessage(FacesMessage.SEVERITY_ERROR, "Error :",
-						"An error occurred while adding the insurance member in INDIVIDUAL type."));
-
-			}
-			logger.info("individual member added to the plan");
+			planMembers.add(member);
 		} else {
 			logger.info("plan is FAMILY type ");
 			for (String relation : selectedRelations) {
@@ -363,46 +368,22 @@ public class CreateInsuranceController {
 				member.setRelation(Relation.valueOf(relation));
 				member.setGender(relation.equals("SON1") || relation.equals("SON2") || relation.equals("FATHER")
 						|| relation.equals("HUSBAND") ? Gender.MALE : Gender.FEMALE);
-				try {
-					memberPlanRuleDao.addMember(member);
-
-				} catch (MemberPlanException e) {
-					logger.info("An error occurred while adding the insurance member in FAMILY type");
-					context.addMessage(null, new FacesMessage(FacesMessage.SEVERITY_ERROR, "Error :",
-							"An error occurred while adding the insurance member in FAMILY type"));
-
-				}
-				logger.info("family member added to the plan");
+				planMembers.add(member);
 			}
 		}
 
-		// Step 5: Add Gold and Platinum if selected and valid
-		if (isGold) {
-			logger.info("Gold is selected");
-			try {
-				insuranceCoverageOptionDao.addCoveragePlan(coverageOption2);
-				logger.info("Gold is added");
-			} catch (InsuranceCoverageOptionException e) {
-				logger.info("An error occurred while adding the GOLD coveragePlan.");
-				context.addMessage(null, new FacesMessage(FacesMessage.SEVERITY_ERROR, "Error :",
-						"An error occurred while adding the GOLD coveragePlan."));
-
-			}
-		}
-
-		if (isPlatinum) {
-			logger.info("Platinum is selected");
-
-			try {
-				insuranceCoverageOptionDao.addCoveragePlan(coverageOption3);
-				logger.info("Platinum is added");
-
-			} catch (InsuranceCoverageOptionException e) {
-				logger.info("An error occurred while adding the PLATINUM coveragePlan.");
-				context.addMessage(null, new FacesMessage(FacesMessage.SEVERITY_ERROR, "Error :",
-						"An error occurred while adding the PLATINUM coveragePlan."));
-
-			}
+		// Step 5: Save plan, coverage options and members in one transaction
+		try {
+			insurancplanDao.addInsurancePlanWithDetails(insurancePlan, options, planMembers);
+			// the plan is active from today; activate its coverage options now
+			CoverageActivationJob.getInstance().requestRun();
+			logger.info("insurance plan added with " + options.size() + " coverage options and "
+					+ planMembers.size() + " members");
+		} catch (InsurancePlanException e) {
+			logger.info("An error occurred while adding the insurancePlan.");
+			context.addMessage(null, new FacesMessage(FacesMessage.SEVERITY_ERROR, "Error :",
+					"An error occurred while adding the insurancePlan."));
+			return null;
 		}
 
 		return "insuranceAdminDashBoard";
@@ -459,66 +440,9 @@ public class CreateInsuranceController {
 	 *         operation.
 	 */
 	public String findAllPlanDetailsByPlanId(String planId) {
-		System.err.println("we are searching with id " + planId);
 		logger.info(" findAllPlanDetailsByPlanId method is called ");
 		resetAll();
-		FacesContext context = FacesContext.getCurrentInstance();
-
-		try {
-			insurancePlan = insurancplanDao.findInsuranceById(planId);
-			logger.info("insurancePlan is found with the id : " + planId);
-		} catch (InsurancePlanException e) {
-			logger.info("An error occurred while searching the insurancePlan with id : " + planId);
-			context.addMessage(null, new FacesMessage(FacesMessage.SEVERITY_ERROR, "Error :",
-					"An error occurred while searching the insurancePlan id : " + planId));
-
-		}
-
-		try {
-			members = memberPlanRuleDao.searchMemberByPlanId(planId);
-			logger.info("insurance member is found with the plan " + planId);
-		} catch (MemberPlanException e) {
-			logger.info("An error occurred while searching the memeber of insurancePlan id : " + planId);
-
-			context.addMessage(null, new FacesMessage(FacesMessage.SEVERITY_ERROR, "Error :",
-					"An error occurred while searching the memeber of insurancePlan id : " + planId));
-
-		}
-
-		try {
-			planwithCovrageDetailsList = insuranceCoverageOptionDao.findAllInsuranceCoverageOptionsByPlanId(planId);
-			logger.info("coverageoptions are found with the insuranceplan id " + planId);
-		} catch (InsuranceCoverageOptionException e) {
-			logger.info("An error occurred while fetching the coverageOptions of insurancePlan id : " + planId);
-
-			context.addMessage(null, new FacesMessage(FacesMessage.SEVERITY_ERROR, "Error :",
-					"An error occurred while fetching the coverageOptions of insurancePlan id : " + planId));
-
-		}
-
-		for (int i = 0; i < planwithCovrageDetailsList.size(); i++) {
-
-			if (planwithCovrageDetailsList.get(i).getCoverageType().equals(CoverageType.SILVER)) {
-				logger.info("Silver is found");
-				coverageOption1 = planwithCovrageDetailsList.get(i);
-
-			} else if (planwithCovrageDetailsList.get(i).getCoverageType().equals(CoverageType.GOLD)) {
-				logger.info("Gold is found");
-				coverageOption2 = planwithCovrageDetailsList.get(i);
-
-			} else if (planwithCovrageDetailsList.get(i).getCoverageType().equals(CoverageType.PLATINUM)) {
-				logger.info("Plantinum is found");
-				coverageOption3 = planwithCovrageDetailsList.get(i);
-			}
-
-		}
-
-		for (MemberPlanRule member : members) {
-			String key = member.getRelation().toString();
-
-			relationMap.put(key, true);
-
-		}
+		bindPlanDetails(planId, FacesContext.getCurrentInstance());
 		logger.info("All search is done and redirect to search page : insuranceCoverageDetails");
 		return "insuranceCoverageDetails?faces:redirect=true";
 	}
@@ -533,54 +457,55 @@ public class CreateInsuranceController {
 	 *         update operation.
 	 */
 	public String updateInsurancePlan(String planId) {
-		FacesContext context = FacesContext.getCurrentInstance();
-		System.err.println("We are calling update method");
 		resetAll();
-		try {
-			insurancePlan = insurancplanDao.findInsuranceById(planId);
-		} catch (InsurancePlanException e) {
-			context.addMessage(null, new FacesMessage(FacesMessage.SEVERITY_ERROR, "Error :",
-					"An error occurred while fetching the insurancePlan : " + planId));
+		bindPlanDetails(planId, FacesContext.getCurrentInstance());
+		return "insuranceUpdate?faces:redirect=true";
+	}
 
-		}
+	/**
+	 * Binds a plan, its coverage options and its member rules to the form. They
+	 * are read in one session, or taken from the copy read earlier while the
+	 * plan has not changed; the form gets its own copy to edit.
+	 *
+	 * @param planId  the plan to show
+	 * @param context faces context for error messages
+	 */
+	private void bindPlanDetails(String planId, FacesContext context) {
+		InsurancePlanDetails details;
 		try {
-			members = memberPlanRuleDao.searchMemberByPlanId(planId);
-		} catch (MemberPlanException e) {
+			details = insurancplanDao.findPlanDetails(planId);
+		} catch (InsurancePlanException e) {
+			logger.info("An error occurred while searching the insurancePlan with id : " + planId);
 			context.addMessage(null, new FacesMessage(FacesMessage.SEVERITY_ERROR, "Error :",
-					"An error occurred while fetching the memeber of insurancePlan  : " + planId));
-
+					"An error occurred while searching the insurancePlan id : " + planId));
+			return;
 		}
-		try {
-			planwithCovrageDetailsList = insuranceCoverageOptionDao.findAllInsuranceCoverageOptionsByPlanId(planId);
-		} catch (InsuranceCoverageOptionException e) {
+		if (details == null) {
 			context.addMessage(null, new FacesMessage(FacesMessage.SEVERITY_ERROR, "Error :",
-					"An error occurred while fetching the coverageOptions of insurancePlan  : " + planId));
-
-		}
-
-		for (int i = 0; i < planwithCovrageDetailsList.size(); i++) {
-
-			if (planwithCovrageDetailsList.get(i).getCoverageType().equals(CoverageType.SILVER)) {
-
-				coverageOption1 = planwithCovrageDetailsList.get(i);
-
-			} else if (planwithCovrageDetailsList.get(i).getCoverageType().equals(CoverageType.GOLD)) {
-
-				coverageOption2 = planwithCovrageDetailsList.get(i);
-
-			} else if (planwithCovrageDetailsList.get(i).getCoverageType().equals(CoverageType.PLATINUM)) {
-
-				coverageOption3 = planwithCovrageDetailsList.get(i);
-			}
-
+					"No insurancePlan found with id : " + planId));
+			return;
 		}
+		details = details.editableCopy();
+		insurancePlan = details.getPlan();
+		members = details.getMembers();
+		planwithCovrageDetailsList = details.getCoverageOptions();
+
+		// tiers the plan does not offer keep the empty options of resetAll
+		InsuranceCoverageOption silver = details.getCoverageOption(CoverageType.SILVER);
+		InsuranceCoverageOption gold = details.getCoverageOption(CoverageType.GOLD);
+		InsuranceCoverageOption platinum = details.getCoverageOption(CoverageType.PLATINUM);
+		if (silver != null)
+			coverageOption1 = silver;
+		if (gold != null)
+			coverageOption2 = gold;
+		if (platinum != null)
+			coverageOption3 = platinum;
 
 		for (MemberPlanRule member : members) {
-			String key = member.getRelation().toString();
-			relationMap.put(key, true);
-
+			relationMap.put(member.getRelation().toString(), true);
 		}
-		return "insuranceUpdate?faces:redirect=true";
+		logger.info("insurancePlan " + planId + " is found with " + planwithCovrageDetailsList.size()
+				+ " coverage options and " + members.size() + " members");
 	}
 
 	/**
@@ -619,6 +544,7 @@ public class CreateInsuranceController {
 		if (isValid) {
 			try {
 				insurancplanDao.updateInsurancePlan(plan);
+				CoverageActivationJob.getInstance().requestRun();
 			} catch (InsurancePlanException e) {
 				// TODO Auto-generated catch block
 				e.printStackTrace();
@@ -775,10 +701,22 @@ public class CreateInsuranceController {
 
 	public void setPageSize(int pageSize) {
 		this.pageSize = pageSize;
+		resetPaging();
 	}
 
+	/**
+	 * Moves to the given page. Keyset paging can only step forward from a
+	 * known page, so pages ahead are reached one next page at a time.
+	 *
+	 * @param currentPage zero-based page number
+	 */
 	public void setCurrentPage(int currentPage) {
-		this.currentPage = currentPage;
+		while (this.currentPage > Math.max(0, currentPage)) {
+			previousPage();
+		}
+		while (this.currentPage < currentPage && isNext()) {
+			nextPage();
+		}
 	}
 
 	public String getIndividualMemberGender() {
@@ -815,6 +753,7 @@ public class CreateInsuranceController {
 
 	public void setSortField(String sortField) {
 		this.sortField = sortField;
+		resetPaging();
 	}
 
 	public boolean isSortAscending() {
@@ -823,6 +762,7 @@ public class CreateInsuranceController {
 
 	public void setSortAscending(boolean sortAscending) {
 		this.sortAscending = sortAscending;
+		resetPaging();
 	}
 
 	public String getPlanAvailableCoverAmountStr() {
@@ -891,7 +831,6 @@ public class CreateInsuranceController {
 
 	@PostConstruct
 	public void init() {
-		FacesContext context = FacesContext.getCurrentInstance();
 		relationMap.put("SON1", true);
 		relationMap.put("SON2", false);
 		relationMap.put("DAUGHTER1", true);
@@ -902,25 +841,7 @@ public class CreateInsuranceController {
 		relationMap.put("WIFE", true);
 		relationMap.put("SELF", false);
 		relationMap.put("INDIVIDUAL", false);
-		// dynamically update the COVERAGEPLAN STATUS : ACTIVE OR INACTIVE
-		try {
-			planwithCovrageDetailsList = insuranceCoverageOptionDao.findAllInsuranceCoverageOptions();
-		} catch (InsuranceCoverageOptionException e) {
-			context.addMessage(null, new FacesMessage(FacesMessage.SEVERITY_ERROR, "Error :",
-					"An error occurred while fetching the coverageOptions of insurancePlan "));
-
-		}
-		for (InsuranceCoverageOption options : planwithCovrageDetailsList) {
-			if (isActiveBeforeOrEqualToday(options.getInsurancePlan().getActiveOn()))
-				options.setStatus(CoveragePlanStatus.ACTIVE);
-			try {
-				insuranceCoverageOptionDao.updateInsuranceCoverageOption(options);
-			} catch (InsuranceCoverageOptionException e) {
-				context.addMessage(null, new FacesMessage(FacesMessage.SEVERITY_ERROR, "Error :",
-						"An error occurred while fetching the coverageOptions of insurancePlan  "));
-
-			}
-		}
+		// coverage options are activated by CoverageActivationJob, not per view
 
 		// load InsuranceCompany
 		insuranceCompany = companyDao.findCompanyById("COM007");
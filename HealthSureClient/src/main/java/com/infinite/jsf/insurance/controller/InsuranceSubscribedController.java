@@ -0,0 +1,268 @@
+/**
+ * Copyright © 2025 Infinite Computer Solution. All rights reserved.
+ */
+package com.infinite.jsf.insurance.controller;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.faces.application.FacesMessage;
+import javax.faces.context.FacesContext;
+
+import org.apache.log4j.Logger;
+
+import com.infinite.jsf.insurance.exception.InsurancePlanException;
+import com.infinite.jsf.insurance.model.FacetCount;
+import com.infinite.jsf.insurance.model.InsuranceCoverageOption;
+import com.infinite.jsf.insurance.model.PlanFacet;
+import com.infinite.jsf.insurance.model.PlanSearchResult;
+import com.infinite.jsf.insurance.model.PlanType;
+import com.infinite.jsf.insurance.service.InsuranceCatalog;
+import com.infinite.jsf.insurance.service.PlanFacetIndex;
+
+/**
+ * Plan browsing for recipients (InsuranceExplore and
+ * ShowPlanDetailsToBeSuscribe). The session keeps only the chosen facet
+ * values, the page and the chosen coverage id; the plans are searched in the
+ * shared {@link PlanFacetIndex} and read from the {@link InsuranceCatalog}
+ * snapshot, so browsing never queries the database.
+ */
+public class InsuranceSubscribedController {
+	private static final Logger logger = Logger.getLogger(InsuranceSubscribedController.class);
+
+	private final Map<PlanFacet, Set<String>> selectedFacets = new EnumMap<>(PlanFacet.class);
+	private String selectedCoverageId;
+	private String searchRecipeintId;
+
+	// only the options of the current page are kept in the session
+	private PlanSearchResult searchResult;
+	// request the page was searched in; the getters below are called several times per render
+	private transient FacesContext pageLoadedFor;
+
+	private int currentPage = 1;
+	private int pageSize = 10;
+
+	/**
+	 * @return the chosen plan type when exactly one is chosen, else null
+	 */
+	public String getSelectedPlanType() {
+		Set<String> types = selectedFacets.get(PlanFacet.PLAN_TYPE);
+		return types == null || types.size() != 1 ? null : types.iterator().next();
+	}
+
+	/**
+	 * Filters the plans by type; null shows all of them.
+	 *
+	 * @param selectedPlanType name of a {@link PlanType}, or null
+	 * @return null to stay on the page
+	 */
+	public String setSelectedPlanType(String selectedPlanType) {
+		if (selectedPlanType == null || selectedPlanType.isEmpty()) {
+			selectedFacets.remove(PlanFacet.PLAN_TYPE);
+		} else {
+			Set<String> types = new LinkedHashSet<>();
+			types.add(selectedPlanType);
+			selectedFacets.put(PlanFacet.PLAN_TYPE, types);
+		}
+		firstPage();
+		return null;
+	}
+
+	/**
+	 * Adds a facet value to the filters, or removes it if it was chosen.
+	 * Values of one facet are alternatives; different facets must all match.
+	 *
+	 * @param facet name of a {@link PlanFacet}
+	 * @param value the facet value
+	 * @return null to stay on the page
+	 */
+	public String toggleFacet(String facet, String value) {
+		PlanFacet planFacet;
+		try {
+			planFacet = PlanFacet.valueOf(facet);
+		} catch (IllegalArgumentException | NullPointerException e) {
+			logger.warn("Unknown plan facet " + facet);
+			return null;
+		}
+		Set<String> values = selectedFacets.get(planFacet);
+		if (values == null) {
+			values = new LinkedHashSet<>();
+			selectedFacets.put(planFacet, values);
+		}
+		if (!values.remove(value)) {
+			values.add(value);
+		} else if (values.isEmpty()) {
+			selectedFacets.remove(planFacet);
+		}
+		firstPage();
+		return null;
+	}
+
+	/**
+	 * Removes all filters.
+	 *
+	 * @return null to stay on the page
+	 */
+	public String clearFacets() {
+		selectedFacets.clear();
+		firstPage();
+		return null;
+	}
+
+	public boolean isFiltered() {
+		return !selectedFacets.isEmpty();
+	}
+
+	/**
+	 * @return the active coverage options of the current page that match the
+	 *         chosen facet values
+	 */
+	public List<InsuranceCoverageOption> getFilteredCoverageOptions() {
+		loadPage();
+		return searchResult.getOptions();
+	}
+
+	/**
+	 * @return matches of the chosen facet values over all pages
+	 */
+	public int getTotalMatches() {
+		loadPage();
+		return searchResult.getTotal();
+	}
+
+	/**
+	 * @return one list per facet of its values and their counts, in display
+	 *         order
+	 */
+	public List<List<FacetCount>> getFacetGroups() {
+		loadPage();
+		return new ArrayList<>(searchResult.getFacetCounts().values());
+	}
+
+	public int getCurrentPage() {
+		return currentPage;
+	}
+
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	// reset to first page when page size changes
+	public void setPageSize(int pageSize) {
+		this.pageSize = pageSize;
+		firstPage();
+	}
+
+	public int getTotalPages() {
+		loadPage();
+		return Math.max(1, (int) Math.ceil((double) searchResult.getTotal() / pageSize));
+	}
+
+	// Navigation
+	public void nextPage() {
+		if (currentPage < getTotalPages()) {
+			currentPage++;
+			searchResult = null;
+		}
+	}
+
+	public void previousPage() {
+		if (currentPage > 1) {
+			currentPage--;
+			searchResult = null;
+		}
+	}
+
+	/**
+	 * Searches the current page once per request.
+	 */
+	private void loadPage() {
+		FacesContext context = FacesContext.getCurrentInstance();
+		if (searchResult != null && context != null && context == pageLoadedFor) {
+			return;
+		}
+		pageLoadedFor = context;
+		try {
+			PlanFacetIndex index = PlanFacetIndex.getInstance();
+			searchResult = index.search(selectedFacets, (currentPage - 1) * pageSize, pageSize);
+			int lastPage = Math.max(1, (int) Math.ceil((double) searchResult.getTotal() / pageSize));
+			if (currentPage > lastPage) {
+				// plans were withdrawn since the page was chosen
+				currentPage = lastPage;
+				searchResult = index.search(selectedFacets, (currentPage - 1) * pageSize, pageSize);
+			}
+		} catch (InsurancePlanException e) {
+			logger.error("Plan search failed for " + selectedFacets, e);
+			addLoadError(context);
+			searchResult = new PlanSearchResult(Collections.<InsuranceCoverageOption>emptyList(), 0,
+					Collections.<String, List<FacetCount>>emptyMap());
+		}
+	}
+
+	private void firstPage() {
+		currentPage = 1;
+		searchResult = null;
+	}
+
+	/**
+	 * Opens the details of one coverage option.
+	 *
+	 * @param coverageId the chosen coverage option
+	 * @return navigation outcome of the details page
+	 */
+	public String showPlicyDetailsToSuscribe(String coverageId) {
+		this.selectedCoverageId = coverageId;
+		return "ShowPlanDetailsToBeSuscribe?faces-redirect=true";
+	}
+
+	/**
+	 * @return the chosen coverage option as of the current catalogue, or null
+	 *         if it was removed
+	 */
+	public InsuranceCoverageOption getCoverageOption() {
+		InsuranceCatalog.Snapshot catalog = catalog();
+		return catalog == null || selectedCoverageId == null ? null : catalog.getCoverageOption(selectedCoverageId);
+	}
+
+	/**
+	 * The subscription form of ShowPlanDetailsToBeSuscribe binds the member
+	 * lookup (subscribedMember1..8, fetchRecipientDetailsIndividual/Family),
+	 * which this controller does not have; the form stays hidden so the plan
+	 * details still render.
+	 *
+	 * @return false until the member lookup is added
+	 */
+	public boolean isSubscriptionAvailable() {
+		return false;
+	}
+
+	public String getSearchRecipeintId() {
+		return searchRecipeintId;
+	}
+
+	public void setSearchRecipeintId(String searchRecipeintId) {
+		this.searchRecipeintId = searchRecipeintId;
+	}
+
+	private InsuranceCatalog.Snapshot catalog() {
+		try {
+			return InsuranceCatalog.getInstance().snapshot();
+		} catch (InsurancePlanException e) {
+			logger.error("Insurance catalogue not available", e);
+			addLoadError(FacesContext.getCurrentInstance());
+			return null;
+		}
+	}
+
+	private static void addLoadError(FacesContext context) {
+		if (context != null) {
+			context.addMessage(null, new FacesMessage(FacesMessage.SEVERITY_ERROR, "Error :",
+					"The insurance plans could not be loaded. Please try again."));
+		}
+	}
+}
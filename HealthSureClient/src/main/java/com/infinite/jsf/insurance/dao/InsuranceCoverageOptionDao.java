@@ -8,6 +8,7 @@
  */
 package com.infinite.jsf.insurance.dao;
 
+import java.util.Date;
 import java.util.List;
 
 import com.infinite.jsf.insurance.exception.InsuranceCoverageOptionException;
@@ -63,4 +64,14 @@ public interface InsuranceCoverageOptionDao {
 	 * @throws InsuranceCoverageOptionException 
 	 */
 	String updateInsuranceCoverageOption(InsuranceCoverageOption coverageOption) throws InsuranceCoverageOptionException;
+
+	/**
+	 * Activates, in one statement, every INACTIVE coverage option whose plan is
+	 * active on or before the given day.
+	 *
+	 * @param today the day to activate up to
+	 * @return number of coverage options activated
+	 * @throws InsuranceCoverageOptionException
+	 */
+	int activateDueCoverageOptions(Date today) throws InsuranceCoverageOptionException;
 }
@@ -11,7 +11,11 @@ package com.infinite.jsf.insurance.dao;
 import java.util.List;
 
 import com.infinite.jsf.insurance.exception.InsurancePlanException;
+import com.infinite.jsf.insurance.model.InsuranceCoverageOption;
 import com.infinite.jsf.insurance.model.InsurancePlan;
+import com.infinite.jsf.insurance.model.InsurancePlanDetails;
+import com.infinite.jsf.insurance.model.MemberPlanRule;
+import com.infinite.jsf.insurance.model.PlanCursor;
 
 /**
  * Interface for defining CRUD operations related to InsurancePlan entities.
@@ -29,6 +33,20 @@ public interface InsurancePlanDao {
 	 */
 	String addInsurancePlan(InsurancePlan insurancePlan) throws InsurancePlanException;
 
+	/**
+	 * Adds a new insurance plan together with its coverage options and member
+	 * rules in a single transaction. Either the whole plan is stored or nothing
+	 * is.
+	 *
+	 * @param insurancePlan   the insurance plan to be added
+	 * @param coverageOptions coverage options belonging to the plan
+	 * @param members         member rules belonging to the plan
+	 * @return the generated plan ID
+	 * @throws InsurancePlanException
+	 */
+	String addInsurancePlanWithDetails(InsurancePlan insurancePlan, List<InsuranceCoverageOption> coverageOptions,
+			List<MemberPlanRule> members) throws InsurancePlanException;
+
 	/**
 	 * Finds an insurance plan by its ID.
 	 *
@@ -38,6 +56,17 @@ public interface InsurancePlanDao {
 	 */
 	InsurancePlan findInsuranceById(String planId) throws InsurancePlanException;
 
+	/**
+	 * Finds an insurance plan with its coverage options and member rules in one
+	 * session. The result is shared by all callers until the plan changes and
+	 * must not be modified; use {@link InsurancePlanDetails#editableCopy()}.
+	 *
+	 * @param planId the ID of the insurance plan
+	 * @return the plan details, or null if there is no such plan
+	 * @throws InsurancePlanException
+	 */
+	InsurancePlanDetails findPlanDetails(String planId) throws InsurancePlanException;
+
 	/**
 	 * Retrieves all insurance plans.
 	 *
@@ -46,6 +75,32 @@ public interface InsurancePlanDao {
 	 */
 	List<InsurancePlan> showAllPlan() throws InsurancePlanException;
 
+	/**
+	 * Retrieves one page of plans sorted in the database. Paging is by keyset:
+	 * the page starts right after the given cursor, so no earlier rows are
+	 * read or skipped however deep the page is.
+	 *
+	 * @param sortField sortable field of the dashboard; unknown fields sort by
+	 *                  plan ID
+	 * @param ascending sort direction
+	 * @param after     last row of the previous page, or null for the first
+	 *                  page
+	 * @param maxRows   number of rows to return at most
+	 * @return the plans of the page, in sort order
+	 * @throws InsurancePlanException
+	 */
+	List<InsurancePlan> findPlanPage(String sortField, boolean ascending, PlanCursor after, int maxRows)
+			throws InsurancePlanException;
+
+	/**
+	 * Counts all plans. The result is kept in the query cache until a plan is
+	 * added or changed.
+	 *
+	 * @return number of plans
+	 * @throws InsurancePlanException
+	 */
+	long countPlans() throws InsurancePlanException;
+
 	/**
 	 * Updates an existing insurance plan.
 	 *
@@ -17,6 +17,8 @@ import org.hibernate.Transaction;
 
 import com.infinite.jsf.insurance.dao.InsuranceCompanyDao;
 import com.infinite.jsf.insurance.model.InsuranceCompany;
+import com.infinite.jsf.util.CacheHelper;
+import com.infinite.jsf.util.IdGenerator;
 import com.infinite.jsf.util.SessionHelper;
 
 /**
@@ -34,17 +36,17 @@ public class InsuranceCompanyDaoImpl implements InsuranceCompanyDao {
 	 */
 	@Override
 	public String addCompany(InsuranceCompany company) {
-		company.setCompanyId(generateNextCompanyId());
-		logger.info("Adding company: " + company);
-
 		Session session = null;
 		Transaction trans = null;
 
 		try {
+			company.setCompanyId(generateNextCompanyId());
+			logger.info("Adding company: " + company);
 			session = factory.openSession();
 			trans = session.beginTransaction();
 			session.save(company);
 			trans.commit();
+			PlanVersions.catalogChanged();
 			logger.info("Company added successfully.");
 			return "success";
 		} catch (Exception e) {
@@ -96,6 +98,7 @@ public class InsuranceCompanyDaoImpl implements InsuranceCompanyDao {
 			session = factory.openSession();
 			trans = session.beginTransaction();
 			Criteria criteria = session.createCriteria(InsuranceCompany.class);
+			criteria.setCacheable(true).setCacheRegion(CacheHelper.INSURANCE_QUERY_REGION);
 			List<InsuranceCompany> companies = criteria.list();
 			trans.commit();
 			logger.info("Retrieved all companies.");
@@ -126,6 +129,8 @@ public class InsuranceCompanyDaoImpl implements InsuranceCompanyDao {
 			trans = session.beginTransaction();
 			session.delete(company);
 			trans.commit();
+			CacheHelper.evict(InsuranceCompany.class, company.getCompanyId());
+			PlanVersions.allChanged();
 			logger.info("Company deleted successfully.");
 			return "deleted";
 		} catch (Exception e) {
@@ -154,6 +159,9 @@ public class InsuranceCompanyDaoImpl implements InsuranceCompanyDao {
 			trans = session.beginTransaction();
 			session.update(company);
 			trans.commit();
+			CacheHelper.evict(InsuranceCompany.class, company.getCompanyId());
+			// plan details carry the company
+			PlanVersions.allChanged();
 			logger.info("Company updated successfully.");
 			return "updated";
 		} catch (Exception e) {
@@ -168,35 +176,12 @@ public class InsuranceCompanyDaoImpl implements InsuranceCompanyDao {
 	}
 
 	/**
-	 * Generates the next unique company ID in the format COM###.
+	 * Allocates the next unique company ID in the format COM### from the shared
+	 * {@link IdGenerator}.
 	 */
 	public String generateNextCompanyId() {
-		Session session = null;
-
-		try {
-			session = factory.openSession();
-			String lastId = (String) session
-					.createQuery("SELECT c.companyId FROM InsuranceCompany c ORDER BY c.companyId DESC")
-					.setMaxResults(1).uniqueResult();
-
-			int nextNum = 1;
-
-			if (lastId != null && lastId.toUpperCase().startsWith("COM") && lastId.length() == 6) {
-				String numPart = lastId.substring(3); // "001"
-				if (numPart.matches("\\d{3}")) {
-					nextNum = Integer.parseInt(numPart) + 1;
-				}
-			}
-
-			String nextId = String.format("COM%03d", nextNum);
-			logger.info("Generated next company ID: " + nextId);
-			return nextId;
-		} catch (Exception e) {
-			logger.error("Error generating next company ID", e);
-			return "COM001"; // fallback
-		} finally {
-			if (session != null)
-				session.close();
-		}
+		String nextId = IdGenerator.next(IdGenerator.COMPANY);
+		logger.info("Generated next company ID: " + nextId);
+		return nextId;
 	}
 }
@@ -7,6 +7,7 @@
  */
 package com.infinite.jsf.insurance.daoImpl;
 
+import java.util.Date;
 import java.util.List;
 
 import org.apache.log4j.Logger;
@@ -26,6 +27,8 @@ import com.infinite.jsf.insurance.dao.InsuranceCoverageOptionDao;
 import com.infinite.jsf.insurance.exception.InsuranceCoverageOptionException;
 import com.infinite.jsf.insurance.model.CoveragePlanStatus;
 import com.infinite.jsf.insurance.model.InsuranceCoverageOption;
+import com.infinite.jsf.util.CacheHelper;
+import com.infinite.jsf.util.IdGenerator;
 import com.infinite.jsf.util.SessionHelper;
 
 /**
@@ -59,6 +62,9 @@ public class InsuranceCoverageOptionDaoImpl implements InsuranceCoverageOptionDa
 			trans = session.beginTransaction();
 			session.save(coverageOption);
 			trans.commit();
+			if (coverageOption.getInsurancePlan() != null) {
+				PlanVersions.planChanged(coverageOption.getInsurancePlan().getPlanId());
+			}
 			logger.info("Coverage option saved successfully with ID: " + coverageId);
 			return "success";
 
@@ -87,51 +93,21 @@ public class InsuranceCoverageOptionDaoImpl implements InsuranceCoverageOptionDa
 	}
 
 	/**
-	 * Generates the next coverage ID in the format COV###.
+	 * Allocates the next coverage ID in the format COV### from the shared
+	 * {@link IdGenerator}.
 	 *
 	 * @return the next generated coverage ID
 	 */
 
 	public String generateNextInsuranceCoverageOptionId() throws InsuranceCoverageOptionException {
-		Session session = null;
-		String lastId = null;
-
 		try {
-			session = factory.openSession();
-			lastId = (String) session
-					.createQuery("SELECT c.coverageId FROM InsuranceCoverageOption c ORDER BY c.coverageId DESC")
-					.setMaxResults(1).uniqueResult();
-			logger.debug("Last coverage ID fetched: " + lastId);
-
+			String nextId = IdGenerator.next(IdGenerator.COVERAGE);
+			logger.debug("Next generated coverage ID: " + nextId);
+			return nextId;
 		} catch (HibernateException e) {
-			logger.error("Hibernate error while fetching last coverage ID", e);
+			logger.error("Hibernate error while generating coverage ID", e);
 			throw new InsuranceCoverageOptionException("Hibernate error", e);
-
-		} catch (Exception e) {
-			logger.error("Unexpected error while fetching last coverage ID", e);
-			throw new InsuranceCoverageOptionException("Unexpected error", e);
-
-		} finally {
-			if (session != null)
-				session.close();
-		}
-
-		int nextNum = 1;
-		try {
-			if (lastId != null && lastId.toUpperCase().startsWith("COV") && lastId.length() == 6) {
-				String numPart = lastId.substring(3); // e.g., "001"
-				if (numPart.matches("\\d{3}")) {
-					nextNum = Integer.parseInt(numPart) + 1;
-				}
-			}
-		} catch (NumberFormatException e) {
-			logger.error("Error parsing numeric part of coverage ID", e);
-			throw new InsuranceCoverageOptionException("Invalid numeric format in last coverage ID", e);
 		}
-
-		String nextId = String.format("COV%03d", nextNum);
-		logger.debug("Next generated coverage ID: " + nextId);
-		return nextId;
 	}
 
 	/**
@@ -160,6 +136,7 @@ public class InsuranceCoverageOptionDaoImpl implements InsuranceCoverageOptionDa
 			String hql = "FROM InsuranceCoverageOption c WHERE c.insurancePlan.planId = :planId";
 			Query query = session.createQuery(hql);
 			query.setParameter("planId", planId);
+			query.setCacheable(true).setCacheRegion(CacheHelper.INSURANCE_QUERY_REGION);
 			coverageOptionsList = query.list();
 			trans.commit();
 			logger.info("Fetched coverage options for plan ID: " + planId);
@@ -209,6 +186,10 @@ public class InsuranceCoverageOptionDaoImpl implements InsuranceCoverageOptionDa
 			trans = session.beginTransaction();
 			session.update(coverageOption);
 			trans.commit();
+			CacheHelper.evict(InsuranceCoverageOption.class, coverageOption.getCoverageId());
+			if (coverageOption.getInsurancePlan() != null) {
+				PlanVersions.planChanged(coverageOption.getInsurancePlan().getPlanId());
+			}
 			logger.info("Coverage option updated successfully for ID: " + coverageOption.getCoverageId());
 			return "updated";
 		} catch (IllegalArgumentException e) {
@@ -242,7 +223,8 @@ public class InsuranceCoverageOptionDaoImpl implements InsuranceCoverageOptionDa
 		try {
 			session = factory.openSession();
 			trans = session.beginTransaction();
-			options = session.createQuery("from InsuranceCoverageOption").list();
+			options = session.createQuery("from InsuranceCoverageOption").setCacheable(true)
+					.setCacheRegion(CacheHelper.INSURANCE_QUERY_REGION).list();
 			trans.commit();
 		} catch (HibernateException e) {
 			if (trans != null)
@@ -262,4 +244,43 @@ public class InsuranceCoverageOptionDaoImpl implements InsuranceCoverageOptionDa
 		return options;
 	}
 
+	/**
+	 * Activates the due coverage options with one bulk UPDATE; the plans are
+	 * matched by a subquery, so no option is loaded into the session.
+	 *
+	 * @param today the day to activate up to
+	 * @return number of coverage options activated
+	 * @throws InsuranceCoverageOptionException
+	 */
+	@Override
+	public int activateDueCoverageOptions(Date today) throws InsuranceCoverageOptionException {
+		Session session = null;
+		Transaction trans = null;
+
+		try {
+			session = factory.openSession();
+			trans = session.beginTransaction();
+			int activated = session
+					.createQuery("update InsuranceCoverageOption c set c.status = :active where c.status = :inactive "
+							+ "and c.insurancePlan.planId in (select p.planId from InsurancePlan p where p.activeOn <= :today)")
+					.setParameter("active", CoveragePlanStatus.ACTIVE)
+					.setParameter("inactive", CoveragePlanStatus.INACTIVE).setDate("today", today).executeUpdate();
+			trans.commit();
+			if (activated > 0) {
+				// bulk updates bypass the second-level cache
+				CacheHelper.evict(InsuranceCoverageOption.class, null);
+				PlanVersions.allChanged();
+			}
+			return activated;
+		} catch (HibernateException e) {
+			if (trans != null)
+				trans.rollback();
+			logger.error("Hibernate error occurred while activating coverage options", e);
+			throw new InsuranceCoverageOptionException("Hibernate error", e);
+		} finally {
+			if (session != null)
+				session.close();
+		}
+	}
+
 }
@@ -10,19 +10,32 @@
 
 package com.infinite.jsf.insurance.daoImpl;
 
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.log4j.Logger;
 import org.hibernate.HibernateException;
 
+import org.hibernate.Query;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
 
 import com.infinite.jsf.insurance.dao.InsurancePlanDao;
 import com.infinite.jsf.insurance.exception.InsurancePlanException;
+import com.infinite.jsf.insurance.model.CoveragePlanStatus;
+import com.infinite.jsf.insurance.model.InsuranceCoverageOption;
 import com.infinite.jsf.insurance.model.InsurancePlan;
+import com.infinite.jsf.insurance.model.InsurancePlanDetails;
+import com.infinite.jsf.insurance.model.MemberPlanRule;
+import com.infinite.jsf.insurance.model.PlanCursor;
+import com.infinite.jsf.util.AppConfig;
+import com.infinite.jsf.util.CacheHelper;
+import com.infinite.jsf.util.IdGenerator;
 import com.infinite.jsf.util.SessionHelper;
 
 /**
@@ -37,6 +50,39 @@ public class InsurancePlanDaoImpl implements InsurancePlanDao {
 	private static final SessionFactory factory = SessionHelper.getSessionFactory();
 	private static final Logger logger = Logger.getLogger(InsurancePlanDaoImpl.class);
 
+	private static final int DETAILS_CACHE_SIZE = AppConfig.getInt("healthsure.insurance.detailsCacheSize", 1000);
+
+	/**
+	 * Plan details by plan ID; an entry is used only while its version is
+	 * current. Least recently read plans are dropped first; guarded by itself.
+	 */
+	private static final Map<String, InsurancePlanDetails> DETAILS_CACHE = new LinkedHashMap<String, InsurancePlanDetails>(
+			16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, InsurancePlanDetails> eldest) {
+			return size() > DETAILS_CACHE_SIZE;
+		}
+	};
+
+	/** Dashboard sort fields and the mapped properties they order by. */
+	private static final Map<String, String> SORT_PROPERTIES;
+	static {
+		Map<String, String> properties = new HashMap<>();
+		properties.put("planId", "planId");
+		properties.put("planName", "planName");
+		properties.put("planType", "planTypeString");
+		properties.put("waitingPeriod", "waitingPeriod");
+		properties.put("expireDate", "expireDate");
+		properties.put("activeOn", "activeOn");
+		properties.put("maximumMemberAllowed", "maximumMemberAllowed");
+		properties.put("availableCoverAmounts", "availableCoverAmounts");
+		properties.put("periodicDiseases", "periodicDiseases");
+		properties.put("description", "description");
+		SORT_PROPERTIES = Collections.unmodifiableMap(properties);
+	}
+
 	/**
 	 * Adds a new InsurancePlan to the database.
 	 *
@@ -58,6 +104,7 @@ public class InsurancePlanDaoImpl implements InsurancePlanDao {
 			trans = session.beginTransaction();
 			session.save(insurancePlan);
 			trans.commit();
+			PlanVersions.planChanged(planId);
 			logger.info("Plan is save with this planId :" + planId);
 			return planId;
 		} catch (HibernateException e) {
@@ -77,49 +124,84 @@ public class InsurancePlanDaoImpl implements InsurancePlanDao {
 	}
 
 	/**
-	 * Generates the next plan ID in the format PLA###.
+	 * Adds a plan with its coverage options and member rules in one session and
+	 * one transaction. IDs come from the in-memory {@link IdGenerator} blocks and
+	 * the inserts are sent as JDBC batches (hibernate.jdbc.batch_size), so a
+	 * whole plan costs a handful of round trips instead of one session per row.
 	 *
-	 * @return the next generated plan ID
+	 * @param insurancePlan   the plan to be added
+	 * @param coverageOptions coverage options of the plan, saved as INACTIVE
+	 * @param members         member rules of the plan
+	 * @return the generated plan ID
+	 * @throws InsurancePlanException if any row fails; nothing is saved then
 	 */
-	public String generateNextPlanId() throws InsurancePlanException {
+	@Override
+	public String addInsurancePlanWithDetails(InsurancePlan insurancePlan, List<InsuranceCoverageOption> coverageOptions,
+			List<MemberPlanRule> members) throws InsurancePlanException {
 		Session session = null;
-		String lastId = null;
-
+		Transaction trans = null;
+		String planId = null;
 		try {
-			session = factory.openSession();
-			lastId = (String) session.createQuery("SELECT p.planId FROM InsurancePlan p ORDER BY p.planId DESC")
-					.setMaxResults(1).uniqueResult();
-			logger.debug("Last plan ID fetched: " + lastId);
+			planId = generateNextPlanId();
+			insurancePlan.setPlanId(planId);
+			insurancePlan.setActiveOn(new Date());
+			for (InsuranceCoverageOption option : coverageOptions) {
+				option.setCoverageId(IdGenerator.next(IdGenerator.COVERAGE));
+				option.setStatus(CoveragePlanStatus.INACTIVE);
+				option.setInsurancePlan(insurancePlan);
+			}
+			for (MemberPlanRule member : members) {
+				member.setMeberId(IdGenerator.next(IdGenerator.MEMBER));
+				member.setInsurancePlan(insurancePlan);
+			}
 
+			session = factory.openSession();
+			trans = session.beginTransaction();
+			session.save(insurancePlan);
+			for (InsuranceCoverageOption option : coverageOptions) {
+				session.save(option);
+			}
+			for (MemberPlanRule member : members) {
+				session.save(member);
+			}
+			trans.commit();
+			PlanVersions.planChanged(planId);
+			logger.info("Plan " + planId + " saved with " + coverageOptions.size() + " coverage options and "
+					+ members.size() + " member rules");
+			return planId;
 		} catch (HibernateException e) {
-			logger.error("Hibernate error while generating plan ID", e);
-			throw new InsurancePlanException("Hibernate error", e);
-
+			if (trans != null)
+				trans.rollback();
+			logger.error("Hibernate error: plan " + planId + " not saved", e);
+			throw new InsurancePlanException("Hibernate error: plan not saved", e);
+		} catch (InsurancePlanException e) {
+			throw e;
 		} catch (Exception e) {
-			logger.error("Unexpected error while generating plan ID", e);
-			throw new InsurancePlanException("Unexpected error", e);
-
+			if (trans != null)
+				trans.rollback();
+			logger.error("Unexpected error while saving plan " + planId, e);
+			throw new InsurancePlanException("Unexpected error: plan not saved", e);
 		} finally {
 			if (session != null)
 				session.close();
 		}
+	}
 
-		int nextNum = 1;
+	/**
+	 * Allocates the next plan ID in the format PLA### from the shared
+	 * {@link IdGenerator}, without scanning the plan table.
+	 *
+	 * @return the next generated plan ID
+	 */
+	public String generateNextPlanId() throws InsurancePlanException {
 		try {
-			if (lastId != null && lastId.toUpperCase().startsWith("PLA") && lastId.length() == 6) {
-				String numPart = lastId.substring(3); // e.g., "001"
-				if (numPart.matches("\\d{3}")) {
-					nextNum = Integer.parseInt(numPart) + 1;
-				}
-			}
-		} catch (NumberFormatException e) {
-			logger.error("Error parsing numeric part of plan ID", e);
-			throw new InsurancePlanException("Invalid numeric format in last plan ID", e);
+			String nextId = IdGenerator.next(IdGenerator.PLAN);
+			logger.debug("Next generated plan ID: " + nextId);
+			return nextId;
+		} catch (HibernateException e) {
+			logger.error("Hibernate error while generating plan ID", e);
+			throw new InsurancePlanException("Hibernate error", e);
 		}
-
-		String nextId = String.format("PLA%03d", nextNum);
-		logger.debug("Next generated plan ID: " + nextId);
-		return nextId;
 	}
 
 	/**
@@ -161,6 +243,70 @@ public class InsurancePlanDaoImpl implements InsurancePlanDao {
 		return plan;
 	}
 
+	/**
+	 * Finds a plan with its coverage options and member rules: one query reads
+	 * the options with their plan and company fetch-joined, a second one the
+	 * member rules, both in one session. The result is kept until
+	 * {@link PlanVersions} reports a change to the plan.
+	 *
+	 * @param planId the ID of the insurance plan
+	 * @return the plan details, or null if there is no such plan
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public InsurancePlanDetails findPlanDetails(String planId) throws InsurancePlanException {
+		// read the stamp first: a change committed during the read makes the copy stale at once
+		long version = PlanVersions.current(planId);
+		InsurancePlanDetails cached;
+		synchronized (DETAILS_CACHE) {
+			cached = DETAILS_CACHE.get(planId);
+		}
+		if (cached != null && cached.getVersion() == version) {
+			return cached;
+		}
+
+		Session session = null;
+		Transaction trans = null;
+		try {
+			session = factory.openSession();
+			trans = session.beginTransaction();
+			List<InsuranceCoverageOption> options = session
+					.createQuery("select c from InsuranceCoverageOption c join fetch c.insurancePlan p "
+							+ "join fetch p.insuranceCompany where p.planId = :planId order by c.coverageId")
+					.setParameter("planId", planId).list();
+			InsurancePlan plan = options.isEmpty() ? (InsurancePlan) session.get(InsurancePlan.class, planId)
+					: options.get(0).getInsurancePlan();
+			List<MemberPlanRule> members = Collections.emptyList();
+			if (plan != null) {
+				// the plan is in the session already; no join needed
+				members = session.createQuery("from MemberPlanRule m where m.insurancePlan.planId = :planId")
+						.setParameter("planId", planId).list();
+			}
+			trans.commit();
+			if (plan == null) {
+				synchronized (DETAILS_CACHE) {
+					DETAILS_CACHE.remove(planId);
+				}
+				return null;
+			}
+			InsurancePlanDetails details = new InsurancePlanDetails(plan, options, members, version);
+			synchronized (DETAILS_CACHE) {
+				DETAILS_CACHE.put(planId, details);
+			}
+			logger.info("Plan details read for ID: " + planId + " with " + options.size() + " coverage options and "
+					+ members.size() + " members");
+			return details;
+		} catch (HibernateException e) {
+			if (trans != null)
+				trans.rollback();
+			logger.error("Hibernate error while reading plan details", e);
+			throw new InsurancePlanException("Hibernate error", e);
+		} finally {
+			if (session != null)
+				session.close();
+		}
+	}
+
 	/**
 	 * Retrieves all insurance plans from the database.
 	 *
@@ -175,7 +321,8 @@ public class InsurancePlanDaoImpl implements InsurancePlanDao {
 		try {
 			session = factory.openSession();
 			trans = session.beginTransaction();
-			planList = session.createQuery("FROM InsurancePlan").list();
+			planList = session.createQuery("FROM InsurancePlan").setCacheable(true)
+					.setCacheRegion(CacheHelper.INSURANCE_QUERY_REGION).list();
 			trans.commit();
 			logger.info("Fetched all insurance plans. Total: " + (planList != null ? planList.size() : 0));
 
@@ -199,6 +346,109 @@ public class InsurancePlanDaoImpl implements InsurancePlanDao {
 		return planList;
 	}
 
+	/**
+	 * Retrieves one page of plans with ORDER BY and LIMIT in the database. The
+	 * page starts after the cursor (keyset pagination); the plan ID is the
+	 * tie-breaker, so every row appears on exactly one page. Nulls sort first
+	 * ascending and last descending, as in MySQL.
+	 *
+	 * @param sortField sortable field of the dashboard
+	 * @param ascending sort direction
+	 * @param after     last row of the previous page, or null for the first page
+	 * @param maxRows   number of rows to return at most
+	 * @return the plans of the page
+	 */
+	@Override
+	public List<InsurancePlan> findPlanPage(String sortField, boolean ascending, PlanCursor after, int maxRows)
+			throws InsurancePlanException {
+		String property = SORT_PROPERTIES.get(sortField);
+		if (property == null) {
+			property = "planId";
+		}
+		String direction = ascending ? "asc" : "desc";
+		String beyond = ascending ? ">" : "<";
+
+		StringBuilder hql = new StringBuilder("select p FROM InsurancePlan p join fetch p.insuranceCompany");
+		if (after != null) {
+			hql.append(" where ");
+			if ("planId".equals(property)) {
+				hql.append("p.planId ").append(beyond).append(" :lastId");
+			} else if (after.getSortValue() == null) {
+				// nulls come first ascending: the rest of the nulls, then every value
+				hql.append(ascending ? "(p." + property + " is null and p.planId > :lastId) or p." + property
+						+ " is not null" : "p." + property + " is null and p.planId < :lastId");
+			} else {
+				hql.append("p.").append(property).append(' ').append(beyond).append(" :lastValue or (p.")
+						.append(property).append(" = :lastValue and p.planId ").append(beyond).append(" :lastId)");
+				if (!ascending) {
+					hql.append(" or p.").append(property).append(" is null");
+				}
+			}
+		}
+		hql.append(" order by p.").append(property).append(' ').append(direction);
+		if (!"planId".equals(property)) {
+			hql.append(", p.planId ").append(direction);
+		}
+
+		Session session = null;
+		Transaction trans = null;
+		try {
+			session = factory.openSession();
+			trans = session.beginTransaction();
+			Query query = session.createQuery(hql.toString());
+			if (after != null) {
+				query.setParameter("lastId", after.getPlanId());
+				if (!"planId".equals(property) && after.getSortValue() != null) {
+					query.setParameter("lastValue", after.getSortValue());
+				}
+			}
+			query.setMaxResults(maxRows);
+			@SuppressWarnings("unchecked")
+			List<InsurancePlan> page = query.list();
+			trans.commit();
+			if (logger.isDebugEnabled()) {
+				logger.debug("Fetched " + page.size() + " plans sorted by " + property + " " + direction + " after "
+						+ after);
+			}
+			return page;
+
+		} catch (HibernateException e) {
+			if (trans != null)
+				trans.rollback();
+			logger.error("Hibernate error while fetching a page of plans", e);
+			throw new InsurancePlanException("Hibernate error", e);
+
+		} finally {
+			if (session != null)
+				session.close();
+		}
+	}
+
+	/**
+	 * Counts all plans through the insurance query cache region; Hibernate
+	 * drops the cached count as soon as the plan table is written.
+	 *
+	 * @return number of plans
+	 */
+	@Override
+	public long countPlans() throws InsurancePlanException {
+		Session session = null;
+		try {
+			session = factory.openSession();
+			Number count = (Number) session.createQuery("select count(p.planId) FROM InsurancePlan p")
+					.setCacheable(true).setCacheRegion(CacheHelper.INSURANCE_QUERY_REGION).uniqueResult();
+			return count == null ? 0L : count.longValue();
+
+		} catch (HibernateException e) {
+			logger.error("Hibernate error while counting plans", e);
+			throw new InsurancePlanException("Hibernate error", e);
+
+		} finally {
+			if (session != null)
+				session.close();
+		}
+	}
+
 	/**
 	 * Updates an existing InsurancePlan in the database.
 	 *
@@ -215,6 +465,8 @@ public class InsurancePlanDaoImpl implements InsurancePlanDao {
 			trans = session.beginTransaction();
 			session.update(insurancePlan);
 			trans.commit();
+			CacheHelper.evict(InsurancePlan.class, insurancePlan.getPlanId());
+			PlanVersions.planChanged(insurancePlan.getPlanId());
 			logger.info("Insurance plan updated successfully for ID: " + insurancePlan.getPlanId());
 			return "success";
 
@@ -23,6 +23,8 @@ import org.hibernate.exception.SQLGrammarException;
 import com.infinite.jsf.insurance.dao.MemberPlanRuleDao;
 import com.infinite.jsf.insurance.exception.MemberPlanException;
 import com.infinite.jsf.insurance.model.MemberPlanRule;
+import com.infinite.jsf.util.CacheHelper;
+import com.infinite.jsf.util.IdGenerator;
 import com.infinite.jsf.util.SessionHelper;
 
 /**
@@ -54,6 +56,9 @@ public class MemberPlanRuleDaoImpl implements MemberPlanRuleDao {
 			trans = session.beginTransaction();
 			session.save(member);
 			trans.commit();
+			if (member.getInsurancePlan() != null) {
+				PlanVersions.planChanged(member.getInsurancePlan().getPlanId());
+			}
 			logger.info("Member saved successfully with ID: " + memberId);
 			return "success";
 
@@ -76,50 +81,21 @@ public class MemberPlanRuleDaoImpl implements MemberPlanRuleDao {
 	}
 
 	/**
-	 * Generates the next member ID in the format MEM###.
+	 * Allocates the next member ID in the format MEM### from the shared
+	 * {@link IdGenerator}.
 	 *
 	 * @return the next generated member ID
 	 */
 
 	public String generateNextMemberId() throws MemberPlanException {
-		Session session = null;
-		String lastId = null;
-
 		try {
-			session = factory.openSession();
-			lastId = (String) session.createQuery("SELECT m.meberId FROM MemberPlanRule m ORDER BY m.meberId DESC")
-					.setMaxResults(1).uniqueResult();
-			logger.debug("Last member ID fetched: " + lastId);
-
+			String nextId = IdGenerator.next(IdGenerator.MEMBER);
+			logger.debug("Next generated member ID: " + nextId);
+			return nextId;
 		} catch (HibernateException e) {
-			logger.error("Hibernate error while fetching last member ID", e);
+			logger.error("Hibernate error while generating member ID", e);
 			throw new MemberPlanException("Hibernate error", e);
-
-		} catch (Exception e) {
-			logger.error("Unexpected error while fetching last member ID", e);
-			throw new MemberPlanException("Unexpected error", e);
-
-		} finally {
-			if (session != null)
-				session.close();
-		}
-
-		int nextNum = 1;
-		try {
-			if (lastId != null && lastId.toUpperCase().startsWith("MEM") && lastId.length() == 6) {
-				String numPart = lastId.substring(3); // e.g., "001"
-				if (numPart.matches("\\d{3}")) {
-					nextNum = Integer.parseInt(numPart) + 1;
-				}
-			}
-		} catch (NumberFormatException e) {
-			logger.error("Error parsing numeric part of member ID", e);
-			throw new MemberPlanException("Invalid numeric format in last member ID", e);
 		}
-
-		String nextId = String.format("MEM%03d", nextNum);
-		logger.debug("Next generated member ID: " + nextId);
-		return nextId;
 	}
 
 	/**
@@ -142,6 +118,7 @@ public class MemberPlanRuleDaoImpl implements MemberPlanRuleDao {
 			String hql = "FROM MemberPlanRule m WHERE m.insurancePlan.planId = :planId";
 			Query query = session.createQuery(hql);
 			query.setParameter("planId", planId);
+			query.setCacheable(true).setCacheRegion(CacheHelper.INSURANCE_QUERY_REGION);
 			memberList = query.list();
 
 			trans.commit();
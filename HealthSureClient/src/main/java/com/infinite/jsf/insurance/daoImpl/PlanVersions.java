@@ -0,0 +1,116 @@
+/**
+ * Copyright © 2025 Infinite Computer Solution. All rights reserved.
+ */
+package com.infinite.jsf.insurance.daoImpl;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Version stamps of insurance plans, advanced by the insurance DAOs after
+ * every committed change to a plan, its coverage options, its member rules or
+ * its company. A copy of plan data read under a stamp is current for as long
+ * as {@link #current(String)} returns that stamp. Listeners, such as the
+ * insurance catalogue and the plan search, are told after every change.
+ *
+ * <p>
+ * Stamps live in memory and start again after a restart, which only costs
+ * one reload per plan. Changes made outside the DAOs are not seen.
+ * </p>
+ *
+ * @author Infinite Computer Solution
+ * @version 1.0
+ */
+public final class PlanVersions {
+	private static final Logger logger = Logger.getLogger(PlanVersions.class);
+
+	private static final AtomicLong clock = new AtomicLong();
+	private static final ConcurrentMap<String, Long> planStamps = new ConcurrentHashMap<>();
+	/** Stamp of the last change that may touch every plan. */
+	private static volatile long allStamp;
+	private static final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+
+	private PlanVersions() {
+	}
+
+	/**
+	 * @param planId plan id
+	 * @return the current stamp of the plan; read it before reading the plan
+	 */
+	public static long current(String planId) {
+		Long stamp = planStamps.get(planId);
+		return stamp == null ? allStamp : Math.max(stamp, allStamp);
+	}
+
+	/**
+	 * @return stamp of the last change to any insurance data; read it before
+	 *         reading the data
+	 */
+	public static long latest() {
+		return clock.get();
+	}
+
+	/**
+	 * Told about committed changes to insurance data.
+	 */
+	public interface Listener {
+		/**
+		 * Called after every change, on the thread that made it; must return
+		 * quickly.
+		 *
+		 * @param planId the plan changed, or null if any plan may have changed
+		 */
+		void changed(String planId);
+	}
+
+	public static void addListener(Listener listener) {
+		listeners.addIfAbsent(listener);
+	}
+
+	public static void removeListener(Listener listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Records a committed change to one plan or to its rows.
+	 */
+	static void planChanged(String planId) {
+		if (planId != null) {
+			planStamps.put(planId, clock.incrementAndGet());
+			notifyListeners(planId);
+		}
+	}
+
+	/**
+	 * Records a committed change that may touch any plan, e.g. a bulk update
+	 * or a company edit.
+	 */
+	static void allChanged() {
+		allStamp = clock.incrementAndGet();
+		notifyListeners(null);
+	}
+
+	/**
+	 * Records a committed change that touches no existing plan, e.g. a new
+	 * company.
+	 */
+	static void catalogChanged() {
+		clock.incrementAndGet();
+		notifyListeners(null);
+	}
+
+	private static void notifyListeners(String planId) {
+		for (Listener listener : listeners) {
+			try {
+				listener.changed(planId);
+			} catch (RuntimeException e) {
+				// the change is committed; a failing listener must not fail it
+				logger.warn("Plan change listener failed", e);
+			}
+		}
+	}
+}
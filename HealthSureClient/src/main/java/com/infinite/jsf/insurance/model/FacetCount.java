@@ -0,0 +1,52 @@
+/**
+ * Copyright © 2025 Infinite Computer Solution. All rights reserved.
+ */
+package com.infinite.jsf.insurance.model;
+
+import java.io.Serializable;
+
+/**
+ * One value of a facet with the number of coverage options it would show,
+ * given the filters chosen on the other facets.
+ */
+public class FacetCount implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private final PlanFacet facet;
+	private final String value;
+	private final int count;
+	private final boolean selected;
+
+	public FacetCount(PlanFacet facet, String value, int count, boolean selected) {
+		this.facet = facet;
+		this.value = value;
+		this.count = count;
+		this.selected = selected;
+	}
+
+	public PlanFacet getFacet() {
+		return facet;
+	}
+
+	/** Facet name, for the links of the filter panel. */
+	public String getFacetName() {
+		return facet.name();
+	}
+
+	public String getValue() {
+		return value;
+	}
+
+	public int getCount() {
+		return count;
+	}
+
+	public boolean isSelected() {
+		return selected;
+	}
+
+	@Override
+	public String toString() {
+		return facet + "=" + value + " (" + count + (selected ? ", selected)" : ")");
+	}
+}
@@ -0,0 +1,46 @@
+/**
+ * Copyright © 2025 Infinite Computer Solution. All rights reserved.
+ */
+package com.infinite.jsf.insurance.model;
+
+import java.io.Serializable;
+
+/**
+ * One person of a family looking for a plan: the relation to the policy
+ * holder and the age in completed years.
+ */
+public class FamilyMember implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private Relation relation;
+	private int age;
+
+	public FamilyMember() {
+	}
+
+	public FamilyMember(Relation relation, int age) {
+		this.relation = relation;
+		this.age = age;
+	}
+
+	public Relation getRelation() {
+		return relation;
+	}
+
+	public void setRelation(Relation relation) {
+		this.relation = relation;
+	}
+
+	public int getAge() {
+		return age;
+	}
+
+	public void setAge(int age) {
+		this.age = age;
+	}
+
+	@Override
+	public String toString() {
+		return "FamilyMember [relation=" + relation + ", age=" + age + "]";
+	}
+}
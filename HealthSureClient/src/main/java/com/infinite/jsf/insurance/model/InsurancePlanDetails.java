@@ -0,0 +1,94 @@
+/**
+ * Copyright © 2025 Infinite Computer Solution. All rights reserved.
+ */
+package com.infinite.jsf.insurance.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An insurance plan together with its coverage options and member rules, as
+ * read in one session, and the version stamp of the plan at the time of the
+ * read. The lists are unmodifiable; the instances in a shared copy must not
+ * be changed, use {@link #editableCopy()} to bind them to a form.
+ */
+public class InsurancePlanDetails {
+
+	private final InsurancePlan plan;
+	private final List<InsuranceCoverageOption> coverageOptions;
+	private final List<MemberPlanRule> members;
+	private final long version;
+
+	public InsurancePlanDetails(InsurancePlan plan, List<InsuranceCoverageOption> coverageOptions,
+			List<MemberPlanRule> members, long version) {
+		this.plan = plan;
+		this.coverageOptions = Collections.unmodifiableList(new ArrayList<>(coverageOptions));
+		this.members = Collections.unmodifiableList(new ArrayList<>(members));
+		this.version = version;
+	}
+
+	public InsurancePlan getPlan() {
+		return plan;
+	}
+
+	public List<InsuranceCoverageOption> getCoverageOptions() {
+		return coverageOptions;
+	}
+
+	public List<MemberPlanRule> getMembers() {
+		return members;
+	}
+
+	/**
+	 * @return version stamp of the plan when it was read
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * @param type coverage tier
+	 * @return the coverage option of that tier, or null if the plan has none
+	 */
+	public InsuranceCoverageOption getCoverageOption(CoverageType type) {
+		for (InsuranceCoverageOption option : coverageOptions) {
+			if (option.getCoverageType() == type) {
+				return option;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Copies the plan and its coverage options, which the update screen edits;
+	 * the company and the member rules are shared.
+	 *
+	 * @return a copy with the same version
+	 */
+	public InsurancePlanDetails editableCopy() {
+		InsurancePlan planCopy = new InsurancePlan(plan.getPlanId(), plan.getInsuranceCompany(), plan.getPlanName(),
+				plan.getPlanType(), plan.getMinEntryAge(), plan.getMaxEntryAge(), plan.getDescription(),
+				plan.getAvailableCoverAmounts(), plan.getWaitingPeriod(), plan.getCreatedOn(), plan.getExpireDate(),
+				plan.getActiveOn(), plan.getPeriodicDiseases(), plan.getMembers(), plan.getMaximumMemberAllowed(),
+				plan.getMinimumMeberAllowed());
+		List<InsuranceCoverageOption> optionCopies = new ArrayList<>(coverageOptions.size());
+		for (InsuranceCoverageOption option : coverageOptions) {
+			InsuranceCoverageOption copy = new InsuranceCoverageOption();
+			copy.setCoverageId(option.getCoverageId());
+			copy.setInsurancePlan(planCopy);
+			copy.setPremiumAmount(option.getPremiumAmount());
+			copy.setCoverageAmount(option.getCoverageAmount());
+			copy.setStatus(option.getStatus());
+			copy.setCoverageType(option.getCoverageType());
+			optionCopies.add(copy);
+		}
+		return new InsurancePlanDetails(planCopy, optionCopies, members, version);
+	}
+
+	@Override
+	public String toString() {
+		return "InsurancePlanDetails [planId=" + (plan == null ? null : plan.getPlanId()) + ", coverageOptions="
+				+ coverageOptions.size() + ", members=" + members.size() + ", version=" + version + "]";
+	}
+}
@@ -0,0 +1,73 @@
+/**
+ * Copyright © 2025 Infinite Computer Solution. All rights reserved.
+ */
+package com.infinite.jsf.insurance.model;
+
+import java.io.Serializable;
+
+/**
+ * Position of a row in the sorted plan list, used for keyset pagination.
+ * Holds the value of the sort column and the plan ID of the last row of a
+ * page; the next page starts right after it. The plan ID breaks ties between
+ * rows with equal sort values.
+ */
+public class PlanCursor implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private final Object sortValue;
+	private final String planId;
+
+	public PlanCursor(Object sortValue, String planId) {
+		this.sortValue = sortValue;
+		this.planId = planId;
+	}
+
+	/**
+	 * Builds the cursor of a plan for the given sort field.
+	 *
+	 * @param plan      row the cursor points to
+	 * @param sortField one of the sortable fields of the dashboard
+	 * @return the cursor of the row
+	 */
+	public static PlanCursor of(InsurancePlan plan, String sortField) {
+		return new PlanCursor(sortValueOf(plan, sortField), plan.getPlanId());
+	}
+
+	private static Object sortValueOf(InsurancePlan plan, String sortField) {
+		switch (sortField) {
+		case "planName":
+			return plan.getPlanName();
+		case "planType":
+			return plan.getPlanTypeString();
+		case "waitingPeriod":
+			return plan.getWaitingPeriod();
+		case "expireDate":
+			return plan.getExpireDate();
+		case "activeOn":
+			return plan.getActiveOn();
+		case "maximumMemberAllowed":
+			return plan.getMaximumMemberAllowed();
+		case "availableCoverAmounts":
+			return plan.getAvailableCoverAmounts();
+		case "periodicDiseases":
+			return plan.getPeriodicDiseases();
+		case "description":
+			return plan.getDescription();
+		default: // planId
+			return plan.getPlanId();
+		}
+	}
+
+	public Object getSortValue() {
+		return sortValue;
+	}
+
+	public String getPlanId() {
+		return planId;
+	}
+
+	@Override
+	public String toString() {
+		return "PlanCursor [sortValue=" + sortValue + ", planId=" + planId + "]";
+	}
+}
@@ -0,0 +1,29 @@
+/**
+ * Copyright © 2025 Infinite Computer Solution. All rights reserved.
+ */
+package com.infinite.jsf.insurance.model;
+
+/**
+ * Facets by which recipients filter the coverage options on offer. The
+ * values of each facet are fixed buckets, listed by the plan search in
+ * display order.
+ *
+ * PLAN_TYPE - the {@link PlanType} of the plan. ENTRY_AGE - age bands the
+ * plan accepts new members in. COVER_AMOUNT - band of the coverage amount.
+ * WAITING_PERIOD - band of the waiting period in months. PERIODIC_DISEASES -
+ * YES or NO.
+ */
+public enum PlanFacet {
+	PLAN_TYPE("Plan Type"), ENTRY_AGE("Entry Age"), COVER_AMOUNT("Cover Amount"), WAITING_PERIOD("Waiting Period"),
+	PERIODIC_DISEASES("Periodic Diseases");
+
+	private final String label;
+
+	PlanFacet(String label) {
+		this.label = label;
+	}
+
+	public String getLabel() {
+		return label;
+	}
+}
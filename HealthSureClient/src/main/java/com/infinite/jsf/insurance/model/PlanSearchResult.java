@@ -0,0 +1,46 @@
+/**
+ * Copyright © 2025 Infinite Computer Solution. All rights reserved.
+ */
+package com.infinite.jsf.insurance.model;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of a faceted plan search: the matching coverage options of the
+ * page, the number of all matches and the counts of every facet value.
+ */
+public class PlanSearchResult {
+
+	private final List<InsuranceCoverageOption> options;
+	private final int total;
+	private final Map<String, List<FacetCount>> facetCounts;
+
+	public PlanSearchResult(List<InsuranceCoverageOption> options, int total,
+			Map<String, List<FacetCount>> facetCounts) {
+		this.options = Collections.unmodifiableList(options);
+		this.total = total;
+		this.facetCounts = Collections.unmodifiableMap(facetCounts);
+	}
+
+	public List<InsuranceCoverageOption> getOptions() {
+		return options;
+	}
+
+	public int getTotal() {
+		return total;
+	}
+
+	/**
+	 * @return value counts by {@link PlanFacet} name, values in display order
+	 */
+	public Map<String, List<FacetCount>> getFacetCounts() {
+		return facetCounts;
+	}
+
+	@Override
+	public String toString() {
+		return "PlanSearchResult [options=" + options.size() + ", total=" + total + "]";
+	}
+}
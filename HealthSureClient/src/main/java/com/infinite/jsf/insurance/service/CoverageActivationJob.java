@@ -0,0 +1,195 @@
+package com.infinite.jsf.insurance.service;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.log4j.Logger;
+
+import com.infinite.jsf.insurance.dao.InsuranceCoverageOptionDao;
+import com.infinite.jsf.insurance.daoImpl.InsuranceCoverageOptionDaoImpl;
+import com.infinite.jsf.insurance.exception.InsuranceCoverageOptionException;
+
+/**
+ * Copyright © 2025 Infinite Computer Solution. All rights reserved.
+ *
+ * Switches coverage options from INACTIVE to ACTIVE once their plan is active.
+ *
+ * <p>
+ * One bulk UPDATE activates every due option at once, so the cost does not
+ * depend on the size of the catalogue. It runs on a background thread at
+ * start-up, just after every midnight and, through {@link #requestRun()},
+ * after a plan is added or edited; requests that arrive while a run is
+ * pending are merged into it. Each run logs its time, duration and the number
+ * of options activated; the figures of the last run can also be read from
+ * the job.
+ * </p>
+ *
+ * @author Infinite Computer Solution
+ * @version 1.0
+ */
+public class CoverageActivationJob {
+	private static final Logger logger = Logger.getLogger(CoverageActivationJob.class);
+
+	private static volatile CoverageActivationJob instance;
+
+	private final InsuranceCoverageOptionDao coverageOptionDao;
+	private final ScheduledExecutorService scheduler;
+	private final AtomicBoolean runPending = new AtomicBoolean();
+
+	private volatile Date lastRunAt;
+	private volatile long lastRunMillis;
+	private volatile int lastActivated;
+	private volatile long totalActivated;
+
+	CoverageActivationJob(InsuranceCoverageOptionDao coverageOptionDao) {
+		this.coverageOptionDao = coverageOptionDao;
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable task) {
+				Thread thread = new Thread(task, "healthsure-coverage-activation");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		scheduleMidnightRun();
+		// catch up on the days the application was down
+		requestRun();
+	}
+
+	/**
+	 * Schedules the next run just after the coming local midnight. Each run
+	 * schedules the following one, as days are not always 24 hours long.
+	 */
+	private void scheduleMidnightRun() {
+		Calendar midnight = Calendar.getInstance();
+		midnight.set(Calendar.HOUR_OF_DAY, 0);
+		midnight.set(Calendar.MINUTE, 0);
+		midnight.set(Calendar.SECOND, 0);
+		midnight.set(Calendar.MILLISECOND, 0);
+		midnight.add(Calendar.DAY_OF_MONTH, 1);
+		// a few seconds late, so the run sees the new date
+		long delay = midnight.getTimeInMillis() + 5000L - System.currentTimeMillis();
+		try {
+			scheduler.schedule(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						runNow();
+					} finally {
+						scheduleMidnightRun();
+					}
+				}
+			}, delay, TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException e) {
+			// the job is stopped
+		}
+	}
+
+	/**
+	 * Returns the job of this application, starting it on first use.
+	 *
+	 * @return the shared job
+	 */
+	public static CoverageActivationJob getInstance() {
+		CoverageActivationJob result = instance;
+		if (result == null) {
+			synchronized (CoverageActivationJob.class) {
+				result = instance;
+				if (result == null) {
+					result = new CoverageActivationJob(new InsuranceCoverageOptionDaoImpl());
+					instance = result;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Stops the shared job if it was started.
+	 */
+	public static void shutdownInstance() {
+		synchronized (CoverageActivationJob.class) {
+			if (instance != null) {
+				instance.scheduler.shutdownNow();
+				instance = null;
+			}
+		}
+	}
+
+	/**
+	 * Asks for a run as soon as possible, e.g. after a plan edit; returns at
+	 * once.
+	 */
+	public void requestRun() {
+		if (runPending.compareAndSet(false, true)) {
+			try {
+				scheduler.execute(new Runnable() {
+					@Override
+					public void run() {
+						runPending.set(false);
+						runNow();
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				runPending.set(false);
+				logger.warn("Coverage activation not scheduled, the job is stopped");
+			}
+		}
+	}
+
+	/**
+	 * Activates the due coverage options on the calling thread.
+	 *
+	 * @return number of coverage options activated, or -1 if the run failed
+	 */
+	int runNow() {
+		long start = System.currentTimeMillis();
+		try {
+			int activated = coverageOptionDao.activateDueCoverageOptions(new Date(start));
+			lastRunMillis = System.currentTimeMillis() - start;
+			lastRunAt = new Date(start);
+			lastActivated = activated;
+			totalActivated += activated;
+			logger.info("Coverage activation: " + activated + " options activated in " + lastRunMillis + " ms");
+			return activated;
+		} catch (InsuranceCoverageOptionException | RuntimeException e) {
+			// retried by the next run
+			logger.error("Coverage activation failed after " + (System.currentTimeMillis() - start) + " ms", e);
+			return -1;
+		}
+	}
+
+	/**
+	 * @return start of the last successful run, or null if none yet
+	 */
+	public Date getLastRunAt() {
+		return lastRunAt;
+	}
+
+	/**
+	 * @return duration of the last successful run in milliseconds
+	 */
+	public long getLastRunMillis() {
+		return lastRunMillis;
+	}
+
+	/**
+	 * @return coverage options activated by the last successful run
+	 */
+	public int getLastActivated() {
+		return lastActivated;
+	}
+
+	/**
+	 * @return coverage options activated since the job started
+	 */
+	public long getTotalActivated() {
+		return totalActivated;
+	}
+}
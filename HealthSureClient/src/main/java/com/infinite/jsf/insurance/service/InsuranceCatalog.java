@@ -0,0 +1,417 @@
+package com.infinite.jsf.insurance.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.log4j.Logger;
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+
+import com.infinite.jsf.insurance.daoImpl.PlanVersions;
+import com.infinite.jsf.insurance.exception.InsurancePlanException;
+import com.infinite.jsf.insurance.model.CoveragePlanStatus;
+import com.infinite.jsf.insurance.model.InsuranceCompany;
+import com.infinite.jsf.insurance.model.InsuranceCoverageOption;
+import com.infinite.jsf.insurance.model.InsurancePlan;
+import com.infinite.jsf.insurance.model.MemberPlanRule;
+import com.infinite.jsf.insurance.model.PlanType;
+import com.infinite.jsf.util.SessionHelper;
+
+/**
+ * Copyright © 2025 Infinite Computer Solution. All rights reserved.
+ *
+ * Application-wide, read-only copy of the insurance catalogue for the
+ * recipient pages: companies, plans, coverage options and member rules,
+ * indexed by plan, company and plan type, with the {@link PlanEligibilityIndex}
+ * of the plans on offer.
+ *
+ * <p>
+ * The catalogue is an immutable {@link Snapshot} behind a volatile reference,
+ * so a read is one field access and never opens a Hibernate session. It is
+ * built with four queries in one session. Every change made through the
+ * insurance DAOs is reported by {@link PlanVersions}; the snapshot is then
+ * rebuilt on a background thread and swapped in whole, while readers keep
+ * the previous one. Changes arriving during a build are merged into one more
+ * build. Only the first read waits for a build.
+ * </p>
+ *
+ * <p>
+ * The entities in a snapshot are shared by all readers and must not be
+ * modified.
+ * </p>
+ *
+ * @author Infinite Computer Solution
+ * @version 1.0
+ */
+public class InsuranceCatalog {
+	private static final Logger logger = Logger.getLogger(InsuranceCatalog.class);
+
+	private static volatile InsuranceCatalog instance;
+
+	private final ExecutorService builder;
+	private final AtomicBoolean rebuildPending = new AtomicBoolean();
+	private final PlanVersions.Listener changeListener = new PlanVersions.Listener() {
+		@Override
+		public void changed(String planId) {
+			requestRebuild();
+		}
+	};
+	private volatile Snapshot snapshot;
+
+	InsuranceCatalog() {
+		this.builder = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
+				new ThreadFactory() {
+					@Override
+					public Thread newThread(Runnable task) {
+						Thread thread = new Thread(task, "healthsure-insurance-catalog");
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		PlanVersions.addListener(changeListener);
+	}
+
+	/**
+	 * Returns the catalogue of this application, starting it on first use.
+	 *
+	 * @return the shared catalogue
+	 */
+	public static InsuranceCatalog getInstance() {
+		InsuranceCatalog result = instance;
+		if (result == null) {
+			synchronized (InsuranceCatalog.class) {
+				result = instance;
+				if (result == null) {
+					result = new InsuranceCatalog();
+					instance = result;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Stops the shared catalogue if it was started.
+	 */
+	public static void shutdownInstance() {
+		synchronized (InsuranceCatalog.class) {
+			if (instance != null) {
+				PlanVersions.removeListener(instance.changeListener);
+				instance.builder.shutdownNow();
+				instance = null;
+			}
+		}
+	}
+
+	/**
+	 * Returns the current snapshot. Only the first call builds it on the
+	 * calling thread; later calls never wait.
+	 *
+	 * @return the current snapshot
+	 * @throws InsurancePlanException if the first build fails
+	 */
+	public Snapshot snapshot() throws InsurancePlanException {
+		Snapshot current = snapshot;
+		if (current == null) {
+			synchronized (this) {
+				current = snapshot;
+				if (current == null) {
+					current = build();
+					snapshot = current;
+					if (PlanVersions.latest() != current.getVersion()) {
+						// changed while building, before rebuilds were requested
+						requestRebuild();
+					}
+				}
+			}
+		}
+		return current;
+	}
+
+	/**
+	 * Asks for a rebuild on the background thread; returns at once.
+	 */
+	public void requestRebuild() {
+		if (snapshot == null) {
+			// nobody has read the catalogue yet; the first read builds it
+			return;
+		}
+		if (rebuildPending.compareAndSet(false, true)) {
+			try {
+				builder.execute(new Runnable() {
+					@Override
+					public void run() {
+						// changes from now on need another build
+						rebuildPending.set(false);
+						try {
+							Snapshot built = build();
+							Snapshot current = snapshot;
+							if (current == null || built.getVersion() >= current.getVersion()) {
+								snapshot = built;
+							}
+						} catch (InsurancePlanException | RuntimeException e) {
+							// the old snapshot stays; the next change retries
+							logger.error("Insurance catalogue not rebuilt", e);
+						}
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				rebuildPending.set(false);
+				logger.warn("Insurance catalogue rebuild not scheduled, the catalogue is stopped");
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	Snapshot build() throws InsurancePlanException {
+		// read the stamp first: a change committed during the build triggers another one
+		long version = PlanVersions.latest();
+		long start = System.currentTimeMillis();
+		Session session = null;
+		Transaction trans = null;
+		try {
+			session = SessionHelper.getSessionFactory().openSession();
+			trans = session.beginTransaction();
+			// companies and plans first, so the rows read after them find their parents in the session
+			List<InsuranceCompany> companies = session
+					.createQuery("from InsuranceCompany c order by c.companyId").setReadOnly(true).list();
+			List<InsurancePlan> plans = session.createQuery("from InsurancePlan p order by p.planId")
+					.setReadOnly(true).list();
+			List<InsuranceCoverageOption> options = session
+					.createQuery("from InsuranceCoverageOption c order by c.coverageId").setReadOnly(true).list();
+			List<MemberPlanRule> members = session.createQuery("from MemberPlanRule m order by m.meberId")
+					.setReadOnly(true).list();
+			trans.commit();
+			Snapshot built = new Snapshot(companies, plans, options, members, version, start,
+					System.currentTimeMillis() - start);
+			logger.info("Insurance catalogue built: " + built);
+			return built;
+		} catch (HibernateException e) {
+			if (trans != null)
+				trans.rollback();
+			logger.error("Hibernate error while building the insurance catalogue", e);
+			throw new InsurancePlanException("Hibernate error: insurance catalogue not built", e);
+		} finally {
+			if (session != null)
+				session.close();
+		}
+	}
+
+	/**
+	 * One immutable version of the catalogue. All lists are unmodifiable and in
+	 * id order.
+	 */
+	public static final class Snapshot {
+		private final List<InsuranceCompany> companies;
+		private final List<InsurancePlan> plans;
+		private final Map<String, InsuranceCompany> companiesById;
+		private final Map<String, InsurancePlan> plansById;
+		private final Map<String, List<InsurancePlan>> plansByCompany;
+		private final Map<PlanType, List<InsurancePlan>> plansByType;
+		private final Map<String, InsuranceCoverageOption> optionsById;
+		private final Map<String, List<InsuranceCoverageOption>> optionsByPlan;
+		private final List<InsuranceCoverageOption> activeOptions;
+		private final Map<PlanType, List<InsuranceCoverageOption>> activeOptionsByType;
+		private final Map<String, List<MemberPlanRule>> membersByPlan;
+		private final PlanEligibilityIndex eligibility;
+		private final long version;
+		private final long builtAt;
+		private final long buildMillis;
+
+		Snapshot(List<InsuranceCompany> companies, List<InsurancePlan> plans, List<InsuranceCoverageOption> options,
+				List<MemberPlanRule> members, long version, long builtAt, long buildMillis) {
+			this.version = version;
+			this.builtAt = builtAt;
+			this.buildMillis = buildMillis;
+			this.companies = Collections.unmodifiableList(new ArrayList<>(companies));
+			this.plans = Collections.unmodifiableList(new ArrayList<>(plans));
+
+			Map<String, InsuranceCompany> companyIndex = new HashMap<>();
+			for (InsuranceCompany company : companies) {
+				companyIndex.put(company.getCompanyId(), company);
+			}
+			Map<String, InsurancePlan> planIndex = new HashMap<>();
+			Map<String, List<InsurancePlan>> byCompany = new LinkedHashMap<>();
+			Map<PlanType, List<InsurancePlan>> byType = new EnumMap<>(PlanType.class);
+			for (InsurancePlan plan : plans) {
+				planIndex.put(plan.getPlanId(), plan);
+				if (plan.getInsuranceCompany() != null) {
+					add(byCompany, plan.getInsuranceCompany().getCompanyId(), plan);
+				}
+				if (plan.getPlanType() != null) {
+					add(byType, plan.getPlanType(), plan);
+				}
+			}
+			Map<String, InsuranceCoverageOption> optionIndex = new HashMap<>();
+			Map<String, List<InsuranceCoverageOption>> byPlan = new HashMap<>();
+			List<InsuranceCoverageOption> active = new ArrayList<>();
+			Map<PlanType, List<InsuranceCoverageOption>> activeByType = new EnumMap<>(PlanType.class);
+			for (InsuranceCoverageOption option : options) {
+				optionIndex.put(option.getCoverageId(), option);
+				InsurancePlan plan = option.getInsurancePlan();
+				if (plan == null) {
+					continue;
+				}
+				add(byPlan, plan.getPlanId(), option);
+				if (option.getStatus() == CoveragePlanStatus.ACTIVE) {
+					active.add(option);
+					if (plan.getPlanType() != null) {
+						add(activeByType, plan.getPlanType(), option);
+					}
+				}
+			}
+			Map<String, List<MemberPlanRule>> membersIndex = new HashMap<>();
+			for (MemberPlanRule member : members) {
+				if (member.getInsurancePlan() != null) {
+					add(membersIndex, member.getInsurancePlan().getPlanId(), member);
+				}
+			}
+
+			this.companiesById = Collections.unmodifiableMap(companyIndex);
+			this.plansById = Collections.unmodifiableMap(planIndex);
+			this.plansByCompany = freeze(byCompany);
+			this.plansByType = freeze(byType);
+			this.optionsById = Collections.unmodifiableMap(optionIndex);
+			this.optionsByPlan = freeze(byPlan);
+			this.activeOptions = Collections.unmodifiableList(active);
+			this.activeOptionsByType = freeze(activeByType);
+			this.membersByPlan = freeze(membersIndex);
+
+			// only plans with an active coverage option are offered
+			Map<String, InsurancePlan> offered = new LinkedHashMap<>();
+			for (InsuranceCoverageOption option : active) {
+				offered.put(option.getInsurancePlan().getPlanId(), option.getInsurancePlan());
+			}
+			this.eligibility = new PlanEligibilityIndex(offered.values(), membersIndex);
+		}
+
+		private static <K, V> void add(Map<K, List<V>> index, K key, V value) {
+			List<V> values = index.get(key);
+			if (values == null) {
+				values = new ArrayList<>();
+				index.put(key, values);
+			}
+			values.add(value);
+		}
+
+		private static <K, V> Map<K, List<V>> freeze(Map<K, List<V>> index) {
+			for (Map.Entry<K, List<V>> entry : index.entrySet()) {
+				entry.setValue(Collections.unmodifiableList(entry.getValue()));
+			}
+			return Collections.unmodifiableMap(index);
+		}
+
+		private static <K, V> List<V> listOf(Map<K, List<V>> index, K key) {
+			List<V> values = index.get(key);
+			return values == null ? Collections.<V>emptyList() : values;
+		}
+
+		public List<InsuranceCompany> getCompanies() {
+			return companies;
+		}
+
+		public List<InsurancePlan> getPlans() {
+			return plans;
+		}
+
+		public InsuranceCompany getCompany(String companyId) {
+			return companiesById.get(companyId);
+		}
+
+		public InsurancePlan getPlan(String planId) {
+			return plansById.get(planId);
+		}
+
+		public List<InsurancePlan> getPlansByCompany(String companyId) {
+			return listOf(plansByCompany, companyId);
+		}
+
+		public List<InsurancePlan> getPlansByType(PlanType planType) {
+			return listOf(plansByType, planType);
+		}
+
+		public InsuranceCoverageOption getCoverageOption(String coverageId) {
+			return optionsById.get(coverageId);
+		}
+
+		/**
+		 * @return all coverage options of the plan, active or not
+		 */
+		public List<InsuranceCoverageOption> getCoverageOptions(String planId) {
+			return listOf(optionsByPlan, planId);
+		}
+
+		/**
+		 * @return the active coverage options of all plans
+		 */
+		public List<InsuranceCoverageOption> getActiveCoverageOptions() {
+			return activeOptions;
+		}
+
+		/**
+		 * @return the active coverage options of the plans of one type
+		 */
+		public List<InsuranceCoverageOption> getActiveCoverageOptions(PlanType planType) {
+			return listOf(activeOptionsByType, planType);
+		}
+
+		public List<MemberPlanRule> getMembers(String planId) {
+			return listOf(membersByPlan, planId);
+		}
+
+		/**
+		 * @return eligibility of families for the plans with an active
+		 *         coverage option
+		 */
+		public PlanEligibilityIndex getEligibility() {
+			return eligibility;
+		}
+
+		/**
+		 * @return {@link PlanVersions#latest()} when the build started
+		 */
+		public long getVersion() {
+			return version;
+		}
+
+		/**
+		 * @return time the build started, in epoch milliseconds
+		 */
+		public long getBuiltAt() {
+			return builtAt;
+		}
+
+		/**
+		 * @return milliseconds since the build started
+		 */
+		public long getAgeMillis() {
+			return System.currentTimeMillis() - builtAt;
+		}
+
+		/**
+		 * @return duration of the build in milliseconds
+		 */
+		public long getBuildMillis() {
+			return buildMillis;
+		}
+
+		@Override
+		public String toString() {
+			return companies.size() + " companies, " + plans.size() + " plans, " + optionsById.size()
+					+ " coverage options, version " + version + ", built in " + buildMillis + " ms";
+		}
+	}
+}
@@ -0,0 +1,155 @@
+package com.infinite.jsf.insurance.service;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.infinite.jsf.insurance.model.FamilyMember;
+import com.infinite.jsf.insurance.model.InsurancePlan;
+import com.infinite.jsf.insurance.model.MemberPlanRule;
+import com.infinite.jsf.insurance.model.Relation;
+
+/**
+ * Copyright © 2025 Infinite Computer Solution. All rights reserved.
+ *
+ * Finds the plans a family may join without reading any member rule at query
+ * time. A family qualifies for a plan when every member's age lies within the
+ * plan's entry ages, every member's relation has a member rule in the plan
+ * and the family size lies within the plan's member limits.
+ *
+ * <p>
+ * Entry ages are whole years up to {@link #MAX_AGE}, so the interval index is
+ * a table holding, for every age, the bitset of plans whose entry-age range
+ * contains it. A range contains all ages of a family exactly when it contains
+ * the youngest and the oldest, so the age check is one AND of two rows. The
+ * member rules of a plan are reduced to a bitmask by {@link Relation}
+ * ordinal, stored as one bitset of plans per relation, so each distinct
+ * relation of the family costs one more AND. Only the remaining plans are
+ * visited, to compare the family size with their member limits.
+ * </p>
+ *
+ * <p>
+ * A plan without member rules does not restrict relations, and a
+ * maximumMemberAllowed of 0 or less means no upper limit. The index is
+ * immutable; {@link InsuranceCatalog} builds one with every snapshot.
+ * </p>
+ *
+ * @author Infinite Computer Solution
+ * @version 1.0
+ */
+public final class PlanEligibilityIndex {
+
+	/**
+	 * Highest age the table tells apart; for an older member the plans of this
+	 * row are checked against their real maximum entry age.
+	 */
+	public static final int MAX_AGE = 120;
+
+	private static final int ALL_RELATIONS = (1 << Relation.values().length) - 1;
+
+	private final InsurancePlan[] plans;
+	private final BitSet[] plansByAge = new BitSet[MAX_AGE + 1];
+	private final BitSet[] plansByRelation = new BitSet[Relation.values().length];
+	private final int[] maxEntryAges;
+	private final int[] minMembers;
+	private final int[] maxMembers;
+
+	/**
+	 * @param plans       the plans to offer
+	 * @param rulesByPlan member rules by plan id
+	 */
+	public PlanEligibilityIndex(Collection<InsurancePlan> plans,
+			Map<String, ? extends Collection<MemberPlanRule>> rulesByPlan) {
+		int size = plans.size();
+		this.plans = plans.toArray(new InsurancePlan[size]);
+		this.maxEntryAges = new int[size];
+		this.minMembers = new int[size];
+		this.maxMembers = new int[size];
+		for (int age = 0; age <= MAX_AGE; age++) {
+			plansByAge[age] = new BitSet(size);
+		}
+		for (int relation = 0; relation < plansByRelation.length; relation++) {
+			plansByRelation[relation] = new BitSet(size);
+		}
+		for (int i = 0; i < size; i++) {
+			InsurancePlan plan = this.plans[i];
+			int from = Math.max(0, plan.getMinEntryAge());
+			int to = Math.min(MAX_AGE, plan.getMaxEntryAge());
+			for (int age = from; age <= to; age++) {
+				plansByAge[age].set(i);
+			}
+			Collection<MemberPlanRule> rules = rulesByPlan.get(plan.getPlanId());
+			int allowed = rules == null || rules.isEmpty() ? ALL_RELATIONS : mask(rules);
+			for (int relation = 0; relation < plansByRelation.length; relation++) {
+				if ((allowed & 1 << relation) != 0) {
+					plansByRelation[relation].set(i);
+				}
+			}
+			maxEntryAges[i] = plan.getMaxEntryAge();
+			minMembers[i] = plan.getMinimumMeberAllowed();
+			maxMembers[i] = plan.getMaximumMemberAllowed() > 0 ? plan.getMaximumMemberAllowed() : Integer.MAX_VALUE;
+		}
+	}
+
+	private static int mask(Collection<MemberPlanRule> rules) {
+		int mask = 0;
+		for (MemberPlanRule rule : rules) {
+			if (rule.getRelation() != null) {
+				mask |= 1 << rule.getRelation().ordinal();
+			}
+		}
+		return mask;
+	}
+
+	/**
+	 * @param family the members to insure together
+	 * @return the plans the whole family qualifies for, in the order given to
+	 *         the index; empty for an empty family
+	 * @throws IllegalArgumentException if a member has no relation or a
+	 *                                  negative age
+	 */
+	public List<InsurancePlan> eligiblePlans(Collection<FamilyMember> family) {
+		if (family.isEmpty()) {
+			return Collections.emptyList();
+		}
+		int youngest = Integer.MAX_VALUE;
+		int oldest = 0;
+		int relations = 0;
+		for (FamilyMember member : family) {
+			if (member.getRelation() == null || member.getAge() < 0) {
+				throw new IllegalArgumentException("Invalid family member " + member);
+			}
+			youngest = Math.min(youngest, member.getAge());
+			oldest = Math.max(oldest, member.getAge());
+			relations |= 1 << member.getRelation().ordinal();
+		}
+		int members = family.size();
+
+		BitSet candidates = (BitSet) plansByAge[Math.min(youngest, MAX_AGE)].clone();
+		candidates.and(plansByAge[Math.min(oldest, MAX_AGE)]);
+		for (int relation = 0; relation < plansByRelation.length; relation++) {
+			if ((relations & 1 << relation) != 0) {
+				candidates.and(plansByRelation[relation]);
+			}
+		}
+		// the last row holds every plan accepting MAX_AGE or more
+		boolean beyondTable = oldest > MAX_AGE;
+		List<InsurancePlan> eligible = new ArrayList<>();
+		for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+			if (members >= minMembers[i] && members <= maxMembers[i] && (!beyondTable || oldest <= maxEntryAges[i])) {
+				eligible.add(plans[i]);
+			}
+		}
+		return eligible;
+	}
+
+	/**
+	 * @return number of plans in the index
+	 */
+	public int size() {
+		return plans.length;
+	}
+}
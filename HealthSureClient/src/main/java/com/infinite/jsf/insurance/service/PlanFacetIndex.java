@@ -0,0 +1,473 @@
+package com.infinite.jsf.insurance.service;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.log4j.Logger;
+import org.hibernate.HibernateException;
+import org.hibernate.Query;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+
+import com.infinite.jsf.insurance.daoImpl.PlanVersions;
+import com.infinite.jsf.insurance.exception.InsurancePlanException;
+import com.infinite.jsf.insurance.model.CoveragePlanStatus;
+import com.infinite.jsf.insurance.model.FacetCount;
+import com.infinite.jsf.insurance.model.InsuranceCoverageOption;
+import com.infinite.jsf.insurance.model.InsurancePlan;
+import com.infinite.jsf.insurance.model.PlanFacet;
+import com.infinite.jsf.insurance.model.PlanSearchResult;
+import com.infinite.jsf.insurance.model.PlanType;
+import com.infinite.jsf.util.SessionHelper;
+
+/**
+ * Copyright © 2025 Infinite Computer Solution. All rights reserved.
+ *
+ * Faceted search over the active coverage options, each one a document
+ * numbered densely. Every value of every {@link PlanFacet} has a bitset of the
+ * documents that carry it, so a search is one OR per facet over its selected
+ * values and one AND per filtered facet, and the count of a facet value is
+ * the cardinality of one more AND. Counts are disjunctive: those of a facet
+ * apply the filters of the other facets only, so choosing a value never hides
+ * its siblings.
+ *
+ * <p>
+ * The index is built with one query on the first search. Afterwards every
+ * change reported by {@link PlanVersions} is queued to a background thread,
+ * which rereads only the coverage options of the changed plans and swaps
+ * their documents; a change that may touch any plan rebuilds the whole index.
+ * Searches take the read lock and never wait for the database.
+ * </p>
+ *
+ * @author Infinite Computer Solution
+ * @version 1.0
+ */
+public class PlanFacetIndex {
+	private static final Logger logger = Logger.getLogger(PlanFacetIndex.class);
+
+	/** Entry-age bands: label, first and last age. */
+	private static final String[] AGE_BANDS = { "0-17", "18-35", "36-50", "51-65", "66+" };
+	private static final int[][] AGE_LIMITS = { { 0, 17 }, { 18, 35 }, { 36, 50 }, { 51, 65 }, { 66, Integer.MAX_VALUE } };
+	/** Cover amount bands: label and highest amount. */
+	private static final String[] COVER_BANDS = { "Up to 3 Lakh", "3-5 Lakh", "5-10 Lakh", "10-25 Lakh",
+			"Above 25 Lakh" };
+	private static final double[] COVER_LIMITS = { 300000, 500000, 1000000, 2500000, Double.MAX_VALUE };
+	/**
+	 * Waiting periods in months: label and longest period. Plans are created
+	 * with 1 to 3 months only; older values outside that range fall into the
+	 * nearest band.
+	 */
+	private static final String[] WAITING_BANDS = { "1 Month", "2 Months", "3 Months" };
+	private static final int[] WAITING_LIMITS = { 1, 2, Integer.MAX_VALUE };
+	private static final String[] YES_NO = { "YES", "NO" };
+
+	/** Wait before a failed update is tried again. */
+	private static final long RETRY_MILLIS = 30000L;
+
+	private static volatile PlanFacetIndex instance;
+
+	private final ScheduledThreadPoolExecutor worker;
+	private final PlanVersions.Listener changeListener = new PlanVersions.Listener() {
+		@Override
+		public void changed(String planId) {
+			queueChange(planId);
+		}
+	};
+
+	// changes not applied yet, guarded by pending
+	private final Set<String> pending = new HashSet<>();
+	private boolean pendingAll;
+	private boolean drainQueued;
+
+	// guarded by lock
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private final List<InsuranceCoverageOption> docs = new ArrayList<>();
+	private final BitSet live = new BitSet();
+	private final Map<String, List<Integer>> docsByPlan = new HashMap<>();
+	private final Map<PlanFacet, Map<String, BitSet>> postings = new EnumMap<>(PlanFacet.class);
+	private boolean built;
+
+	PlanFacetIndex() {
+		postings.put(PlanFacet.PLAN_TYPE, values(enumNames()));
+		postings.put(PlanFacet.ENTRY_AGE, values(AGE_BANDS));
+		postings.put(PlanFacet.COVER_AMOUNT, values(COVER_BANDS));
+		postings.put(PlanFacet.WAITING_PERIOD, values(WAITING_BANDS));
+		postings.put(PlanFacet.PERIODIC_DISEASES, values(YES_NO));
+		this.worker = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable task) {
+				Thread thread = new Thread(task, "healthsure-plan-facets");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		PlanVersions.addListener(changeListener);
+	}
+
+	/**
+	 * Returns the index of this application, starting it on first use.
+	 *
+	 * @return the shared index
+	 */
+	public static PlanFacetIndex getInstance() {
+		PlanFacetIndex result = instance;
+		if (result == null) {
+			synchronized (PlanFacetIndex.class) {
+				result = instance;
+				if (result == null) {
+					result = new PlanFacetIndex();
+					instance = result;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Stops the shared index if it was started.
+	 */
+	public static void shutdownInstance() {
+		synchronized (PlanFacetIndex.class) {
+			if (instance != null) {
+				PlanVersions.removeListener(instance.changeListener);
+				instance.worker.shutdownNow();
+				instance = null;
+			}
+		}
+	}
+
+	/**
+	 * Finds the active coverage options matching the chosen facet values.
+	 * Values of one facet are alternatives; different facets must all match.
+	 *
+	 * @param selected chosen values by facet; facets without values do not
+	 *                 filter
+	 * @param first    index of the first match of the page
+	 * @param max      page size
+	 * @return the page, the number of matches and the facet counts
+	 * @throws InsurancePlanException if the index cannot be built
+	 */
+	public PlanSearchResult search(Map<PlanFacet, Set<String>> selected, int first, int max)
+			throws InsurancePlanException {
+		ensureBuilt();
+		lock.readLock().lock();
+		try {
+			Map<PlanFacet, BitSet> filters = new EnumMap<>(PlanFacet.class);
+			for (PlanFacet facet : PlanFacet.values()) {
+				Set<String> values = selected.get(facet);
+				if (values != null && !values.isEmpty()) {
+					BitSet filter = new BitSet();
+					for (String value : values) {
+						BitSet posting = postings.get(facet).get(value);
+						if (posting != null) {
+							filter.or(posting);
+						}
+					}
+					filters.put(facet, filter);
+				}
+			}
+			BitSet match = matching(filters, null);
+
+			List<InsuranceCoverageOption> page = new ArrayList<>(Math.max(0, Math.min(max, 64)));
+			int index = 0;
+			for (int doc = match.nextSetBit(0); doc >= 0 && page.size() < max; doc = match.nextSetBit(doc + 1)) {
+				if (index++ >= first) {
+					page.add(docs.get(doc));
+				}
+			}
+
+			Map<String, List<FacetCount>> counts = new LinkedHashMap<>();
+			BitSet scratch = new BitSet();
+			for (PlanFacet facet : PlanFacet.values()) {
+				// the facet's own filter is left out
+				BitSet base = filters.containsKey(facet) ? matching(filters, facet) : match;
+				Set<String> chosen = selected.get(facet);
+				List<FacetCount> facetCounts = new ArrayList<>();
+				for (Map.Entry<String, BitSet> value : postings.get(facet).entrySet()) {
+					scratch.clear();
+					scratch.or(base);
+					scratch.and(value.getValue());
+					facetCounts.add(new FacetCount(facet, value.getKey(), scratch.cardinality(),
+							chosen != null && chosen.contains(value.getKey())));
+				}
+				counts.put(facet.name(), facetCounts);
+			}
+			return new PlanSearchResult(page, match.cardinality(), counts);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/** Live documents passing every filter except the one of {@code skip}. */
+	private BitSet matching(Map<PlanFacet, BitSet> filters, PlanFacet skip) {
+		BitSet result = (BitSet) live.clone();
+		for (Map.Entry<PlanFacet, BitSet> filter : filters.entrySet()) {
+			if (filter.getKey() != skip) {
+				result.and(filter.getValue());
+			}
+		}
+		return result;
+	}
+
+	private void ensureBuilt() throws InsurancePlanException {
+		lock.readLock().lock();
+		try {
+			if (built) {
+				return;
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+		lock.writeLock().lock();
+		try {
+			if (!built) {
+				synchronized (pending) {
+					// the full read covers everything queued so far
+					pending.clear();
+					pendingAll = false;
+				}
+				rebuild(load(null));
+				built = true;
+				synchronized (pending) {
+					if (pendingAll || !pending.isEmpty()) {
+						scheduleDrain(0L);
+					}
+				}
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void queueChange(String planId) {
+		synchronized (pending) {
+			if (planId == null) {
+				pendingAll = true;
+			} else {
+				pending.add(planId);
+			}
+			scheduleDrain(0L);
+		}
+	}
+
+	/** Called holding the pending lock. */
+	private void scheduleDrain(long delayMillis) {
+		if (drainQueued) {
+			return;
+		}
+		drainQueued = true;
+		try {
+			worker.schedule(new Runnable() {
+				@Override
+				public void run() {
+					drain();
+				}
+			}, delayMillis, TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException e) {
+			drainQueued = false;
+			logger.warn("Plan facet update not scheduled, the index is stopped");
+		}
+	}
+
+	private void drain() {
+		Set<String> plans;
+		boolean all;
+		synchronized (pending) {
+			drainQueued = false;
+			plans = new HashSet<>(pending);
+			all = pendingAll;
+			pending.clear();
+			pendingAll = false;
+		}
+		lock.readLock().lock();
+		try {
+			if (!built) {
+				// the first search reads everything
+				return;
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+		try {
+			List<InsuranceCoverageOption> rows = load(all ? null : plans);
+			lock.writeLock().lock();
+			try {
+				if (all) {
+					rebuild(rows);
+				} else {
+					replacePlans(plans, rows);
+				}
+			} finally {
+				lock.writeLock().unlock();
+			}
+		} catch (InsurancePlanException | RuntimeException e) {
+			// keep the change and try again later
+			logger.error("Plan facets not updated, retrying in " + RETRY_MILLIS + " ms", e);
+			synchronized (pending) {
+				pendingAll |= all;
+				pending.addAll(plans);
+				scheduleDrain(RETRY_MILLIS);
+			}
+		}
+	}
+
+	/** Called holding the write lock. */
+	private void rebuild(List<InsuranceCoverageOption> rows) {
+		docs.clear();
+		live.clear();
+		docsByPlan.clear();
+		for (Map<String, BitSet> values : postings.values()) {
+			for (BitSet posting : values.values()) {
+				posting.clear();
+			}
+		}
+		for (InsuranceCoverageOption option : rows) {
+			add(option);
+		}
+		logger.info("Plan facet index built with " + rows.size() + " coverage options");
+	}
+
+	/** Called holding the write lock. */
+	private void replacePlans(Set<String> planIds, List<InsuranceCoverageOption> rows) {
+		for (String planId : planIds) {
+			List<Integer> old = docsByPlan.remove(planId);
+			if (old != null) {
+				for (int doc : old) {
+					remove(doc);
+				}
+			}
+		}
+		for (InsuranceCoverageOption option : rows) {
+			add(option);
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Plan facets of " + planIds + " updated, " + rows.size() + " coverage options");
+		}
+	}
+
+	private void add(InsuranceCoverageOption option) {
+		InsurancePlan plan = option.getInsurancePlan();
+		// reuse the slot of a removed option
+		int doc = live.nextClearBit(0);
+		if (doc == docs.size()) {
+			docs.add(option);
+		} else {
+			docs.set(doc, option);
+		}
+		live.set(doc);
+		List<Integer> planDocs = docsByPlan.get(plan.getPlanId());
+		if (planDocs == null) {
+			planDocs = new ArrayList<>(3);
+			docsByPlan.put(plan.getPlanId(), planDocs);
+		}
+		planDocs.add(doc);
+
+		if (plan.getPlanType() != null) {
+			postings.get(PlanFacet.PLAN_TYPE).get(plan.getPlanType().name()).set(doc);
+		}
+		Map<String, BitSet> ageBands = postings.get(PlanFacet.ENTRY_AGE);
+		for (int i = 0; i < AGE_BANDS.length; i++) {
+			// a plan accepts a band if their age ranges overlap
+			if (plan.getMinEntryAge() <= AGE_LIMITS[i][1] && plan.getMaxEntryAge() >= AGE_LIMITS[i][0]) {
+				ageBands.get(AGE_BANDS[i]).set(doc);
+			}
+		}
+		postings.get(PlanFacet.COVER_AMOUNT).get(COVER_BANDS[band(option.getCoverageAmount(), COVER_LIMITS)])
+				.set(doc);
+		int waiting = 0;
+		while (plan.getWaitingPeriod() > WAITING_LIMITS[waiting]) {
+			waiting++;
+		}
+		postings.get(PlanFacet.WAITING_PERIOD).get(WAITING_BANDS[waiting]).set(doc);
+		String periodic = plan.getPeriodicDiseases() == null ? "NO"
+				: plan.getPeriodicDiseases().trim().toUpperCase(Locale.ROOT);
+		postings.get(PlanFacet.PERIODIC_DISEASES).get("YES".equals(periodic) ? "YES" : "NO").set(doc);
+	}
+
+	private void remove(int doc) {
+		live.clear(doc);
+		docs.set(doc, null);
+		for (Map<String, BitSet> values : postings.values()) {
+			for (BitSet posting : values.values()) {
+				posting.clear(doc);
+			}
+		}
+	}
+
+	private static int band(double amount, double[] limits) {
+		int band = 0;
+		while (amount > limits[band]) {
+			band++;
+		}
+		return band;
+	}
+
+	/**
+	 * Reads the active coverage options with their plan and company.
+	 *
+	 * @param planIds plans to read, or null for all
+	 */
+	@SuppressWarnings("unchecked")
+	private List<InsuranceCoverageOption> load(Collection<String> planIds) throws InsurancePlanException {
+		if (planIds != null && planIds.isEmpty()) {
+			return Collections.emptyList();
+		}
+		Session session = null;
+		Transaction trans = null;
+		try {
+			session = SessionHelper.getSessionFactory().openSession();
+			trans = session.beginTransaction();
+			Query query = session.createQuery("select c from InsuranceCoverageOption c join fetch c.insurancePlan p "
+					+ "join fetch p.insuranceCompany where c.status = :active"
+					+ (planIds == null ? "" : " and p.planId in (:planIds)") + " order by c.coverageId")
+					.setParameter("active", CoveragePlanStatus.ACTIVE).setReadOnly(true);
+			if (planIds != null) {
+				query.setParameterList("planIds", planIds);
+			}
+			List<InsuranceCoverageOption> rows = query.list();
+			trans.commit();
+			return rows;
+		} catch (HibernateException e) {
+			if (trans != null)
+				trans.rollback();
+			logger.error("Hibernate error while reading coverage options for the plan facets", e);
+			throw new InsurancePlanException("Hibernate error: plan facets not read", e);
+		} finally {
+			if (session != null)
+				session.close();
+		}
+	}
+
+	private static Map<String, BitSet> values(String[] labels) {
+		Map<String, BitSet> values = new LinkedHashMap<>();
+		for (String label : labels) {
+			values.put(label, new BitSet());
+		}
+		return values;
+	}
+
+	private static String[] enumNames() {
+		PlanType[] types = PlanType.values();
+		String[] names = new String[types.length];
+		for (int i = 0; i < types.length; i++) {
+			names[i] = types[i].name();
+		}
+		return names;
+	}
+}
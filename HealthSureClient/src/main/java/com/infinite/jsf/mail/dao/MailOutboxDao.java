@@ -0,0 +1,68 @@
+package com.infinite.jsf.mail.dao;
+
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+
+import com.infinite.jsf.mail.exception.MailOutboxException;
+import com.infinite.jsf.mail.model.MailOutbox;
+
+/**
+ * Persistence of the mail outbox used by the asynchronous mail workers.
+ */
+public interface MailOutboxDao {
+
+	/**
+	 * Stores a new outbox row.
+	 *
+	 * @param mail the mail to store; status and timestamps must be set
+	 * @return the generated mail id
+	 */
+	long enqueue(MailOutbox mail) throws MailOutboxException;
+
+	/**
+	 * Stores several new outbox rows in one transaction; either all of them are
+	 * stored or none.
+	 *
+	 * @param mails the mails to store; status and timestamps must be set
+	 */
+	void enqueueAll(List<MailOutbox> mails) throws MailOutboxException;
+
+	/**
+	 * Locks up to {@code limit} due PENDING rows, marks them SENDING and returns
+	 * them. Rows claimed by one node are not visible to another node's claim.
+	 */
+	List<MailOutbox> claimDue(int limit) throws MailOutboxException;
+
+	/**
+	 * The mark methods change only a row still in SENDING, so a worker whose
+	 * claim was released cannot overwrite the outcome of the worker that
+	 * claimed the row after it.
+	 *
+	 * @return false if the row was no longer in SENDING
+	 */
+	boolean markSent(long mailId) throws MailOutboxException;
+
+	boolean markRetry(long mailId, int attempts, Timestamp nextAttemptAt, String error) throws MailOutboxException;
+
+	boolean markFailed(long mailId, int attempts, String error) throws MailOutboxException;
+
+	/**
+	 * Puts a row claimed by this node back to PENDING, e.g. when no worker could
+	 * take it.
+	 */
+	void release(long mailId) throws MailOutboxException;
+
+	/**
+	 * Returns rows stuck in SENDING since before the given time (a node stopped
+	 * while delivering them) to PENDING.
+	 *
+	 * @param claimedBefore claims older than this are released
+	 * @param inFlight      ids still queued or being delivered on this node;
+	 *                      they are kept whatever their age
+	 * @return number of released rows
+	 */
+	int releaseStale(Timestamp claimedBefore, Collection<Long> inFlight) throws MailOutboxException;
+
+	long countPending() throws MailOutboxException;
+}
@@ -0,0 +1,251 @@
+/**
+ * Copyright © 2025 Infinite Computer Solution. All rights reserved.
+ */
+
+/**
+ * This package contains the implementation classes for DAO (Data Access Object)
+ * related to the outgoing mail outbox
+ */
+package com.infinite.jsf.mail.daoImpl;
+
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+import org.hibernate.HibernateException;
+import org.hibernate.LockMode;
+import org.hibernate.Query;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+
+import com.infinite.jsf.mail.dao.MailOutboxDao;
+import com.infinite.jsf.mail.exception.MailOutboxException;
+import com.infinite.jsf.mail.model.MailOutbox;
+import com.infinite.jsf.mail.model.MailStatus;
+import com.infinite.jsf.util.SessionHelper;
+
+/**
+ * Hibernate implementation of MailOutboxDao. Status changes are single HQL
+ * UPDATE statements so that workers never load a row just to modify it.
+ */
+public class MailOutboxDaoImpl implements MailOutboxDao {
+
+	private static final SessionFactory factory = SessionHelper.getSessionFactory();
+	private static final Logger logger = Logger.getLogger(MailOutboxDaoImpl.class);
+
+	/** Longest error text kept in last_error. */
+	private static final int MAX_ERROR_LENGTH = 500;
+
+	/** Rows saved between flushes in {@link #enqueueAll(List)}; matches hibernate.jdbc.batch_size. */
+	private static final int FLUSH_EVERY = 30;
+
+	@Override
+	public long enqueue(MailOutbox mail) throws MailOutboxException {
+		Session session = null;
+		Transaction trans = null;
+		try {
+			session = factory.openSession();
+			trans = session.beginTransaction();
+			session.save(mail);
+			trans.commit();
+			return mail.getMailId();
+		} catch (HibernateException e) {
+			if (trans != null)
+				trans.rollback();
+			logger.error("Hibernate error while queuing mail to " + mail.getRecipient(), e);
+			throw new MailOutboxException("Hibernate error: mail not queued", e);
+		} finally {
+			if (session != null)
+				session.close();
+		}
+	}
+
+	@Override
+	public void enqueueAll(List<MailOutbox> mails) throws MailOutboxException {
+		Session session = null;
+		Transaction trans = null;
+		try {
+			session = factory.openSession();
+			trans = session.beginTransaction();
+			for (int i = 0; i < mails.size(); i++) {
+				session.save(mails.get(i));
+				if ((i + 1) % FLUSH_EVERY == 0) {
+					// keep the session small for large batches
+					session.flush();
+					session.clear();
+				}
+			}
+			trans.commit();
+		} catch (HibernateException e) {
+			if (trans != null)
+				trans.rollback();
+			logger.error("Hibernate error while queuing " + mails.size() + " mails", e);
+			throw new MailOutboxException("Hibernate error: mails not queued", e);
+		} finally {
+			if (session != null)
+				session.close();
+		}
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public List<MailOutbox> claimDue(int limit) throws MailOutboxException {
+		Session session = null;
+		Transaction trans = null;
+		try {
+			session = factory.openSession();
+			trans = session.beginTransaction();
+			Timestamp now = new Timestamp(System.currentTimeMillis());
+			Query query = session.createQuery(
+					"FROM MailOutbox m WHERE m.status = :status AND m.nextAttemptAt <= :now ORDER BY m.mailId");
+			query.setParameter("status", MailStatus.PENDING);
+			query.setTimestamp("now", now);
+			query.setLockMode("m", LockMode.UPGRADE);
+			query.setMaxResults(limit);
+			List<MailOutbox> due = query.list();
+			for (MailOutbox mail : due) {
+				mail.setStatus(MailStatus.SENDING);
+				mail.setClaimedAt(now);
+			}
+			trans.commit();
+			return due;
+		} catch (HibernateException e) {
+			if (trans != null)
+				trans.rollback();
+			logger.error("Hibernate error while claiming due mails", e);
+			throw new MailOutboxException("Hibernate error: mails not claimed", e);
+		} finally {
+			if (session != null)
+				session.close();
+		}
+	}
+
+	@Override
+	public boolean markSent(long mailId) throws MailOutboxException {
+		return executeUpdate("UPDATE MailOutbox SET status = :status, sentAt = :now, attempts = attempts + 1, "
+				+ "lastError = null WHERE mailId = :id AND status = :sending", mailId, MailStatus.SENT, null, null,
+				null);
+	}
+
+	@Override
+	public boolean markRetry(long mailId, int attempts, Timestamp nextAttemptAt, String error)
+			throws MailOutboxException {
+		return executeUpdate("UPDATE MailOutbox SET status = :status, attempts = :attempts, nextAttemptAt = :next, "
+				+ "lastError = :error WHERE mailId = :id AND status = :sending", mailId, MailStatus.PENDING, attempts,
+				nextAttemptAt, error);
+	}
+
+	@Override
+	public boolean markFailed(long mailId, int attempts, String error) throws MailOutboxException {
+		return executeUpdate("UPDATE MailOutbox SET status = :status, attempts = :attempts, lastError = :error "
+				+ "WHERE mailId = :id AND status = :sending", mailId, MailStatus.FAILED, attempts, null, error);
+	}
+
+	@Override
+	public void release(long mailId) throws MailOutboxException {
+		executeUpdate("UPDATE MailOutbox SET status = :status WHERE mailId = :id", mailId, MailStatus.PENDING, null,
+				null, null);
+	}
+
+	@Override
+	public int releaseStale(Timestamp claimedBefore, Collection<Long> inFlight) throws MailOutboxException {
+		Session session = null;
+		Transaction trans = null;
+		try {
+			session = factory.openSession();
+			trans = session.beginTransaction();
+			String hql = "UPDATE MailOutbox SET status = :pending WHERE status = :sending AND claimedAt < :before";
+			if (!inFlight.isEmpty()) {
+				hql += " AND mailId NOT IN (:inFlight)";
+			}
+			Query query = session.createQuery(hql).setParameter("pending", MailStatus.PENDING)
+					.setParameter("sending", MailStatus.SENDING).setTimestamp("before", claimedBefore);
+			if (!inFlight.isEmpty()) {
+				query.setParameterList("inFlight", inFlight);
+			}
+			int released = query.executeUpdate();
+			trans.commit();
+			return released;
+		} catch (HibernateException e) {
+			if (trans != null)
+				trans.rollback();
+			logger.error("Hibernate error while releasing stale mails", e);
+			throw new MailOutboxException("Hibernate error: stale mails not released", e);
+		} finally {
+			if (session != null)
+				session.close();
+		}
+	}
+
+	@Override
+	public long countPending() throws MailOutboxException {
+		Session session = null;
+		try {
+			session = factory.openSession();
+			Number count = (Number) session
+					.createQuery("SELECT count(m.mailId) FROM MailOutbox m WHERE m.status = :status")
+					.setParameter("status", MailStatus.PENDING).uniqueResult();
+			return count == null ? 0L : count.longValue();
+		} catch (HibernateException e) {
+			logger.error("Hibernate error while counting pending mails", e);
+			throw new MailOutboxException("Hibernate error: pending mails not counted", e);
+		} finally {
+			if (session != null)
+				session.close();
+		}
+	}
+
+	/**
+	 * Runs one status UPDATE; the optional parameters are only bound when the
+	 * statement names them.
+	 *
+	 * @return true if a row was changed
+	 */
+	private boolean executeUpdate(String hql, long mailId, MailStatus status, Integer attempts, Timestamp next,
+			String error) throws MailOutboxException {
+		Session session = null;
+		Transaction trans = null;
+		try {
+			session = factory.openSession();
+			trans = session.beginTransaction();
+			Query query = session.createQuery(hql);
+			query.setParameter("id", mailId);
+			query.setParameter("status", status);
+			if (hql.contains(":now")) {
+				query.setTimestamp("now", new Timestamp(System.currentTimeMillis()));
+			}
+			if (hql.contains(":attempts")) {
+				query.setInteger("attempts", attempts);
+			}
+			if (hql.contains(":next")) {
+				query.setTimestamp("next", next);
+			}
+			if (hql.contains(":error")) {
+				query.setString("error", truncate(error));
+			}
+			if (hql.contains(":sending")) {
+				query.setParameter("sending", MailStatus.SENDING);
+			}
+			int updated = query.executeUpdate();
+			trans.commit();
+			return updated > 0;
+		} catch (HibernateException e) {
+			if (trans != null)
+				trans.rollback();
+			logger.error("Hibernate error while updating mail " + mailId + " to " + status, e);
+			throw new MailOutboxException("Hibernate error: mail status not updated", e);
+		} finally {
+			if (session != null)
+				session.close();
+		}
+	}
+
+	private static String truncate(String error) {
+		if (error == null || error.length() <= MAX_ERROR_LENGTH) {
+			return error;
+		}
+		return error.substring(0, MAX_ERROR_LENGTH);
+	}
+}
@@ -0,0 +1,13 @@
+package com.infinite.jsf.mail.exception;
+
+public class MailOutboxException extends Exception {
+
+	public MailOutboxException(String message) {
+		super(message);
+	}
+
+	public MailOutboxException(String message, Throwable throwable) {
+		super(message, throwable);
+	}
+
+}
@@ -0,0 +1,127 @@
+package com.infinite.jsf.mail.model;
+
+import java.sql.Timestamp;
+
+/**
+ * One outgoing e-mail in the durable outbox. Rows are written by the request
+ * thread and delivered later by the mail workers.
+ */
+public class MailOutbox {
+	private long mailId;
+	private String recipient;
+	private String subject;
+	private String body;
+	private MailStatus status;
+	private int attempts;
+	private Timestamp createdAt;
+	private Timestamp nextAttemptAt;
+	private Timestamp claimedAt;
+	private Timestamp sentAt;
+	private String lastError;
+
+	public MailOutbox() {
+		super();
+	}
+
+	public MailOutbox(String recipient, String subject, String body) {
+		super();
+		this.recipient = recipient;
+		this.subject = subject;
+		this.body = body;
+	}
+
+	public long getMailId() {
+		return mailId;
+	}
+
+	public void setMailId(long mailId) {
+		this.mailId = mailId;
+	}
+
+	public String getRecipient() {
+		return recipient;
+	}
+
+	public void setRecipient(String recipient) {
+		this.recipient = recipient;
+	}
+
+	public String getSubject() {
+		return subject;
+	}
+
+	public void setSubject(String subject) {
+		this.subject = subject;
+	}
+
+	public String getBody() {
+		return body;
+	}
+
+	public void setBody(String body) {
+		this.body = body;
+	}
+
+	public MailStatus getStatus() {
+		return status;
+	}
+
+	public void setStatus(MailStatus status) {
+		this.status = status;
+	}
+
+	public int getAttempts() {
+		return attempts;
+	}
+
+	public void setAttempts(int attempts) {
+		this.attempts = attempts;
+	}
+
+	public Timestamp getCreatedAt() {
+		return createdAt;
+	}
+
+	public void setCreatedAt(Timestamp createdAt) {
+		this.createdAt = createdAt;
+	}
+
+	public Timestamp getNextAttemptAt() {
+		return nextAttemptAt;
+	}
+
+	public void setNextAttemptAt(Timestamp nextAttemptAt) {
+		this.nextAttemptAt = nextAttemptAt;
+	}
+
+	public Timestamp getClaimedAt() {
+		return claimedAt;
+	}
+
+	public void setClaimedAt(Timestamp claimedAt) {
+		this.claimedAt = claimedAt;
+	}
+
+	public Timestamp getSentAt() {
+		return sentAt;
+	}
+
+	public void setSentAt(Timestamp sentAt) {
+		this.sentAt = sentAt;
+	}
+
+	public String getLastError() {
+		return lastError;
+	}
+
+	public void setLastError(String lastError) {
+		this.lastError = lastError;
+	}
+
+	@Override
+	public String toString() {
+		return "MailOutbox [mailId=" + mailId + ", recipient=" + recipient + ", subject=" + subject + ", status="
+				+ status + ", attempts=" + attempts + ", createdAt=" + createdAt + ", nextAttemptAt=" + nextAttemptAt
+				+ ", sentAt=" + sentAt + "]";
+	}
+}
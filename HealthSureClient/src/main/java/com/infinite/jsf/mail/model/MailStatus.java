@@ -0,0 +1,8 @@
+package com.infinite.jsf.mail.model;
+
+public enum MailStatus {
+	PENDING,
+	SENDING,
+	SENT,
+	FAILED
+}
@@ -0,0 +1,381 @@
+package com.infinite.jsf.mail.service;
+
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.internet.AddressException;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeMessage;
+
+import org.apache.log4j.Logger;
+
+import com.infinite.jsf.mail.dao.MailOutboxDao;
+import com.infinite.jsf.mail.daoImpl.MailOutboxDaoImpl;
+import com.infinite.jsf.mail.exception.MailOutboxException;
+import com.infinite.jsf.mail.model.MailOutbox;
+import com.infinite.jsf.mail.model.MailStatus;
+import com.infinite.jsf.util.AppConfig;
+
+/**
+ * Copyright © 2025 Infinite Computer Solution. All rights reserved.
+ *
+ * Delivers mails from the {@code mail_outbox} table on a bounded pool of
+ * worker threads.
+ *
+ * <p>
+ * {@link #enqueue(String, String, String)} only inserts a row and returns. When
+ * a worker slot is free the row is inserted already claimed and handed to the
+ * pool directly; otherwise it stays PENDING and the poller picks it up once the
+ * workers catch up. Because every mail is written before it is sent, nothing is
+ * lost on a restart: rows left in SENDING by a dead node are released again
+ * after {@code healthsure.mail.staleAfterMs}, but never before a full queue
+ * could have drained, and never while this node still holds them.
+ * </p>
+ *
+ * <p>
+ * Without SMTP credentials the dispatcher only stores mails; they stay
+ * PENDING until a node with credentials picks them up.
+ * </p>
+ *
+ * <p>
+ * A failed delivery is retried with exponential backoff starting at
+ * {@code healthsure.mail.retryBaseMs}; after {@code healthsure.mail.maxAttempts}
+ * tries, or at once for an invalid address, the row is marked FAILED.
+ * </p>
+ *
+ * @author Infinite Computer Solution
+ * @version 1.0
+ */
+public class MailDispatcher {
+	private static final Logger logger = Logger.getLogger(MailDispatcher.class);
+
+	private static volatile MailDispatcher instance;
+
+	private final MailOutboxDao outboxDao;
+	private final SmtpTransportPool transportPool;
+	private final ThreadPoolExecutor workers;
+	private final ScheduledExecutorService poller;
+	private final int maxAttempts;
+	private final long retryBaseMillis;
+	private final long staleAfterMillis;
+	private final boolean delivering;
+	// claimed by this node and not yet finished
+	private final Set<Long> inFlight = Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+
+	private final AtomicLong enqueued = new AtomicLong();
+	private final AtomicLong sent = new AtomicLong();
+	private final AtomicLong retried = new AtomicLong();
+	private final AtomicLong failed = new AtomicLong();
+	private final AtomicLong latencyTotal = new AtomicLong();
+	private final AtomicLong latencyMax = new AtomicLong();
+	private final AtomicLong sendTimeTotal = new AtomicLong();
+
+	MailDispatcher(MailOutboxDao outboxDao) {
+		int workerCount = Math.max(1, AppConfig.getInt("healthsure.mail.workers", 4));
+		int queueCapacity = Math.max(1, AppConfig.getInt("healthsure.mail.queueCapacity", 200));
+		long pollInterval = Math.max(100L, AppConfig.getLong("healthsure.mail.pollIntervalMs", 5000L));
+		this.outboxDao = outboxDao;
+		this.maxAttempts = Math.max(1, AppConfig.getInt("healthsure.mail.maxAttempts", 5));
+		this.retryBaseMillis = AppConfig.getLong("healthsure.mail.retryBaseMs", 30000L);
+		this.transportPool = new SmtpTransportPool(workerCount);
+		// a claim is stale only once every mail queued ahead of it could have timed out
+		long drainMillis = (queueCapacity / workerCount + 1) * transportPool.getWorstSendMillis();
+		this.staleAfterMillis = Math.max(drainMillis, AppConfig.getLong("healthsure.mail.staleAfterMs", 300000L));
+		this.delivering = transportPool.isConfigured();
+		this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<Runnable>(queueCapacity), new DaemonThreadFactory("healthsure-mail-"));
+		this.poller = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("healthsure-mail-poller-"));
+		if (!delivering) {
+			logger.error("healthsure.mail.username, .password or .from not configured; mails are stored but not sent");
+			return;
+		}
+		this.poller.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				poll();
+			}
+		}, pollInterval, pollInterval, TimeUnit.MILLISECONDS);
+		logger.info("Mail dispatcher started with " + workerCount + " workers, queue capacity " + queueCapacity
+				+ ", claims stale after " + staleAfterMillis + " ms");
+	}
+
+	/**
+	 * Returns the dispatcher of this application, starting it on first use.
+	 *
+	 * @return the shared dispatcher
+	 */
+	public static MailDispatcher getInstance() {
+		MailDispatcher result = instance;
+		if (result == null) {
+			synchronized (MailDispatcher.class) {
+				result = instance;
+				if (result == null) {
+					result = new MailDispatcher(new MailOutboxDaoImpl());
+					instance = result;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Stops the shared dispatcher if it was started. Mails not yet delivered
+	 * stay in the outbox and are sent after the next start.
+	 */
+	public static void shutdownInstance() {
+		synchronized (MailDispatcher.class) {
+			if (instance != null) {
+				instance.shutdown();
+				instance = null;
+			}
+		}
+	}
+
+	/**
+	 * Stores the mail in the outbox and schedules its delivery.
+	 *
+	 * @param recipient address of the receiver
+	 * @param subject   subject line
+	 * @param body      HTML body
+	 * @return id of the outbox row
+	 * @throws MailOutboxException if the row cannot be written
+	 */
+	public long enqueue(String recipient, String subject, String body) throws MailOutboxException {
+		Timestamp now = new Timestamp(System.currentTimeMillis());
+		MailOutbox mail = new MailOutbox(recipient, subject, body);
+		mail.setCreatedAt(now);
+		mail.setNextAttemptAt(now);
+		boolean direct = delivering && workers.getQueue().remainingCapacity() > 0;
+		if (direct) {
+			mail.setStatus(MailStatus.SENDING);
+			mail.setClaimedAt(now);
+		} else {
+			mail.setStatus(MailStatus.PENDING);
+		}
+		long mailId = outboxDao.enqueue(mail);
+		enqueued.incrementAndGet();
+		if (direct) {
+			submit(mail);
+		}
+		return mailId;
+	}
+
+	/**
+	 * Stores several mails in the outbox with a single transaction and schedules
+	 * their delivery. As many as there are free worker slots go to the workers
+	 * directly; the rest are left to the poller.
+	 *
+	 * @param mails mails built with recipient, subject and body
+	 * @throws MailOutboxException if the rows cannot be written; none is queued
+	 *                             then
+	 */
+	public void enqueueAll(List<MailOutbox> mails) throws MailOutboxException {
+		if (mails.isEmpty()) {
+			return;
+		}
+		Timestamp now = new Timestamp(System.currentTimeMillis());
+		int direct = delivering ? Math.min(mails.size(), workers.getQueue().remainingCapacity()) : 0;
+		for (int i = 0; i < mails.size(); i++) {
+			MailOutbox mail = mails.get(i);
+			mail.setCreatedAt(now);
+			mail.setNextAttemptAt(now);
+			if (i < direct) {
+				mail.setStatus(MailStatus.SENDING);
+				mail.setClaimedAt(now);
+			} else {
+				mail.setStatus(MailStatus.PENDING);
+			}
+		}
+		outboxDao.enqueueAll(mails);
+		enqueued.addAndGet(mails.size());
+		for (int i = 0; i < direct; i++) {
+			submit(mails.get(i));
+		}
+	}
+
+	/**
+	 * Returns the current queue and delivery figures.
+	 *
+	 * @return metrics snapshot
+	 */
+	public MailMetrics getMetrics() {
+		long delivered = sent.get();
+		return new MailMetrics(workers.getQueue().size() + workers.getActiveCount(), workers.getActiveCount(),
+				enqueued.get(), delivered, retried.get(), failed.get(),
+				delivered == 0 ? 0d : (double) latencyTotal.get() / delivered, latencyMax.get(),
+				delivered == 0 ? 0d : (double) sendTimeTotal.get() / delivered);
+	}
+
+	/**
+	 * Number of rows waiting in the outbox, across all nodes.
+	 *
+	 * @return PENDING rows
+	 * @throws MailOutboxException if the count fails
+	 */
+	public long getBacklog() throws MailOutboxException {
+		return outboxDao.countPending();
+	}
+
+	void shutdown() {
+		poller.shutdownNow();
+		workers.shutdown();
+		try {
+			if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+				workers.shutdownNow();
+			}
+		} catch (InterruptedException e) {
+			workers.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+		transportPool.close();
+		logger.info("Mail dispatcher stopped: " + getMetrics());
+	}
+
+	/**
+	 * Releases claims of crashed workers and claims as many due rows as there
+	 * are free queue slots.
+	 */
+	void poll() {
+		try {
+			outboxDao.releaseStale(new Timestamp(System.currentTimeMillis() - staleAfterMillis), inFlight);
+			int free = workers.getQueue().remainingCapacity();
+			if (free <= 0) {
+				return;
+			}
+			List<MailOutbox> due = outboxDao.claimDue(free);
+			for (MailOutbox mail : due) {
+				submit(mail);
+			}
+		} catch (MailOutboxException e) {
+			logger.error("Mail outbox poll failed", e);
+		} catch (RuntimeException e) {
+			// keep the scheduled poller alive
+			logger.error("Unexpected error in mail outbox poll", e);
+		}
+	}
+
+	private void submit(final MailOutbox mail) {
+		inFlight.add(mail.getMailId());
+		try {
+			workers.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						deliver(mail);
+					} finally {
+						inFlight.remove(mail.getMailId());
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			inFlight.remove(mail.getMailId());
+			try {
+				outboxDao.release(mail.getMailId());
+			} catch (MailOutboxException releaseFailure) {
+				// the stale-claim sweep will release it later
+				logger.warn("Could not release mail " + mail.getMailId(), releaseFailure);
+			}
+		}
+	}
+
+	void deliver(MailOutbox mail) {
+		int attempts = mail.getAttempts() + 1;
+		long start = System.currentTimeMillis();
+		try {
+			MimeMessage message = new MimeMessage(transportPool.getSession());
+			message.setFrom(new InternetAddress(transportPool.getFrom()));
+			message.addRecipient(Message.RecipientType.TO, new InternetAddress(mail.getRecipient()));
+			message.setSubject(mail.getSubject());
+			message.setContent(mail.getBody(), "text/html; charset=utf-8");
+			transportPool.send(message);
+		} catch (AddressException e) {
+			logger.warn("Mail " + mail.getMailId() + " has an invalid recipient " + mail.getRecipient());
+			recordFailure(mail, attempts, e.getMessage());
+			return;
+		} catch (MessagingException e) {
+			if (attempts >= maxAttempts) {
+				logger.error("Mail " + mail.getMailId() + " failed after " + attempts + " attempts", e);
+				recordFailure(mail, attempts, e.getMessage());
+			} else {
+				long delay = retryBaseMillis << Math.min(attempts - 1, 20);
+				logger.warn("Mail " + mail.getMailId() + " attempt " + attempts + " failed, retrying in " + delay
+						+ " ms: " + e.getMessage());
+				try {
+					if (outboxDao.markRetry(mail.getMailId(), attempts,
+							new Timestamp(System.currentTimeMillis() + delay), e.getMessage())) {
+						retried.incrementAndGet();
+					} else {
+						logClaimLost(mail, "retry");
+					}
+				} catch (MailOutboxException updateFailure) {
+					logger.error("Could not schedule retry of mail " + mail.getMailId(), updateFailure);
+				}
+			}
+			return;
+		}
+
+		long end = System.currentTimeMillis();
+		sendTimeTotal.addAndGet(end - start);
+		long latency = end - (mail.getCreatedAt() == null ? start : mail.getCreatedAt().getTime());
+		latencyTotal.addAndGet(latency);
+		long max;
+		while (latency > (max = latencyMax.get()) && !latencyMax.compareAndSet(max, latency)) {
+			// retry until the larger value is stored
+		}
+		sent.incrementAndGet();
+		try {
+			if (!outboxDao.markSent(mail.getMailId())) {
+				logClaimLost(mail, "sent");
+			}
+		} catch (MailOutboxException e) {
+			// the mail went out; a stale release could resend it, which is preferable to losing it
+			logger.error("Mail " + mail.getMailId() + " sent but not marked as sent", e);
+		}
+	}
+
+	private void recordFailure(MailOutbox mail, int attempts, String error) {
+		failed.incrementAndGet();
+		try {
+			if (!outboxDao.markFailed(mail.getMailId(), attempts, error)) {
+				logClaimLost(mail, "failed");
+			}
+		} catch (MailOutboxException e) {
+			logger.error("Could not mark mail " + mail.getMailId() + " as failed", e);
+		}
+	}
+
+	private static void logClaimLost(MailOutbox mail, String outcome) {
+		// released as stale and claimed again; that worker records the outcome
+		logger.warn("Mail " + mail.getMailId() + " was no longer claimed by this worker, not marked as " + outcome);
+	}
+
+	private static final class DaemonThreadFactory implements ThreadFactory {
+		private final String prefix;
+		private final AtomicInteger counter = new AtomicInteger();
+
+		DaemonThreadFactory(String prefix) {
+			this.prefix = prefix;
+		}
+
+		@Override
+		public Thread newThread(Runnable task) {
+			Thread thread = new Thread(task, prefix + counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
@@ -0,0 +1,86 @@
+package com.infinite.jsf.mail.service;
+
+import java.io.Serializable;
+
+/**
+ * Copyright © 2025 Infinite Computer Solution. All rights reserved.
+ *
+ * Snapshot of the mail dispatcher. Counters are cumulative since start-up;
+ * latency is measured from enqueue to successful delivery.
+ *
+ * @author Infinite Computer Solution
+ * @version 1.0
+ */
+public class MailMetrics implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private final int queueDepth;
+	private final int activeWorkers;
+	private final long enqueued;
+	private final long sent;
+	private final long retried;
+	private final long failed;
+	private final double averageLatencyMillis;
+	private final long maxLatencyMillis;
+	private final double averageSendMillis;
+
+	public MailMetrics(int queueDepth, int activeWorkers, long enqueued, long sent, long retried, long failed,
+			double averageLatencyMillis, long maxLatencyMillis, double averageSendMillis) {
+		this.queueDepth = queueDepth;
+		this.activeWorkers = activeWorkers;
+		this.enqueued = enqueued;
+		this.sent = sent;
+		this.retried = retried;
+		this.failed = failed;
+		this.averageLatencyMillis = averageLatencyMillis;
+		this.maxLatencyMillis = maxLatencyMillis;
+		this.averageSendMillis = averageSendMillis;
+	}
+
+	/** Mails handed to this node's workers and not yet finished. */
+	public int getQueueDepth() {
+		return queueDepth;
+	}
+
+	public int getActiveWorkers() {
+		return activeWorkers;
+	}
+
+	public long getEnqueued() {
+		return enqueued;
+	}
+
+	public long getSent() {
+		return sent;
+	}
+
+	public long getRetried() {
+		return retried;
+	}
+
+	/** Mails given up after the last retry. */
+	public long getFailed() {
+		return failed;
+	}
+
+	public double getAverageLatencyMillis() {
+		return averageLatencyMillis;
+	}
+
+	public long getMaxLatencyMillis() {
+		return maxLatencyMillis;
+	}
+
+	/** Time spent talking to the SMTP server per delivered mail. */
+	public double getAverageSendMillis() {
+		return averageSendMillis;
+	}
+
+	@Override
+	public String toString() {
+		return "MailMetrics [queueDepth=" + queueDepth + ", activeWorkers=" + activeWorkers + ", enqueued=" + enqueued
+				+ ", sent=" + sent + ", retried=" + retried + ", failed=" + failed + ", avgLatencyMs="
+				+ String.format("%.1f", averageLatencyMillis) + ", maxLatencyMs=" + maxLatencyMillis
+				+ ", avgSendMs=" + String.format("%.1f", averageSendMillis) + "]";
+	}
+}
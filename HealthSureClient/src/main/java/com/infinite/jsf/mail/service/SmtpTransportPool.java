@@ -0,0 +1,184 @@
+package com.infinite.jsf.mail.service;
+
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.internet.MimeMessage;
+
+import org.apache.log4j.Logger;
+
+import com.infinite.jsf.util.AppConfig;
+
+/**
+ * Copyright © 2025 Infinite Computer Solution. All rights reserved.
+ *
+ * Keeps authenticated SMTP connections open between messages.
+ *
+ * <p>
+ * The javax.mail Session is built once and every worker borrows an already
+ * connected {@link Transport}, so the TCP, TLS and AUTH handshake is paid once
+ * per connection rather than once per mail. A pooled connection the server has
+ * closed in the meantime is detected and replaced transparently.
+ * </p>
+ *
+ * <p>
+ * Settings are read through {@link AppConfig}: {@code healthsure.mail.host},
+ * {@code .port}, {@code .ssl}, {@code .auth}, {@code .username},
+ * {@code .password}, {@code .from} and {@code .debug}. Pointing host and port at
+ * a local SMTP stand-in with ssl and auth off is enough for tests.
+ * </p>
+ *
+ * <p>
+ * There are no default credentials. When auth is on and the username or
+ * password is not configured, or no sender address is known, the pool is not
+ * {@link #isConfigured() configured} and refuses to send.
+ * </p>
+ *
+ * @author Infinite Computer Solution
+ * @version 1.0
+ */
+public class SmtpTransportPool {
+	private static final Logger logger = Logger.getLogger(SmtpTransportPool.class);
+
+	private final Session session;
+	private final String host;
+	private final int port;
+	private final boolean auth;
+	private final String username;
+	private final String password;
+	private final String from;
+	private final long worstSendMillis;
+	private final BlockingQueue<Transport> idle;
+
+	public SmtpTransportPool(int maxIdle) {
+		this.host = AppConfig.get("healthsure.mail.host", "smtp.gmail.com");
+		this.port = AppConfig.getInt("healthsure.mail.port", 465);
+		this.auth = AppConfig.getBoolean("healthsure.mail.auth", true);
+		this.username = AppConfig.get("healthsure.mail.username", null);
+		this.password = AppConfig.get("healthsure.mail.password", null);
+		this.from = AppConfig.get("healthsure.mail.from", username);
+		this.idle = new ArrayBlockingQueue<>(Math.max(1, maxIdle));
+		long connectTimeout = AppConfig.getLong("healthsure.mail.connectTimeoutMs", 10000L);
+		long readTimeout = AppConfig.getLong("healthsure.mail.readTimeoutMs", 15000L);
+		// a reused connection timing out, then a fresh one
+		this.worstSendMillis = 2 * (connectTimeout + readTimeout);
+
+		Properties props = new Properties();
+		props.put("mail.smtp.host", host);
+		props.put("mail.smtp.port", String.valueOf(port));
+		props.put("mail.smtp.ssl.enable", String.valueOf(AppConfig.getBoolean("healthsure.mail.ssl", true)));
+		props.put("mail.smtp.auth", String.valueOf(auth));
+		props.put("mail.smtp.connectiontimeout", String.valueOf(connectTimeout));
+		props.put("mail.smtp.timeout", String.valueOf(readTimeout));
+		props.put("mail.smtp.writetimeout", String.valueOf(readTimeout));
+		this.session = Session.getInstance(props);
+		this.session.setDebug(AppConfig.getBoolean("healthsure.mail.debug", false));
+	}
+
+	/**
+	 * @return true when the sender address and, with auth on, the username and
+	 *         password are configured
+	 */
+	public boolean isConfigured() {
+		return from != null && (!auth || username != null && password != null);
+	}
+
+	/**
+	 * @return how long one {@link #send(MimeMessage)} can take before the
+	 *         timeouts give up
+	 */
+	public long getWorstSendMillis() {
+		return worstSendMillis;
+	}
+
+	public Session getSession() {
+		return session;
+	}
+
+	public String getFrom() {
+		return from;
+	}
+
+	/**
+	 * Sends the message over a pooled connection. When a reused connection turns
+	 * out to be dead the message is sent once more over a fresh connection.
+	 *
+	 * @param message message built on {@link #getSession()}
+	 * @throws MessagingException if the message cannot be delivered
+	 */
+	public void send(MimeMessage message) throws MessagingException {
+		if (!isConfigured()) {
+			throw new MessagingException("SMTP credentials are not configured");
+		}
+		Transport transport = idle.poll();
+		boolean reused = transport != null;
+		if (transport == null || !transport.isConnected()) {
+			closeQuietly(transport);
+			transport = connect();
+			reused = false;
+		}
+		try {
+			transport.sendMessage(message, message.getAllRecipients());
+		} catch (MessagingException e) {
+			if (transport.isConnected()) {
+				// the server refused this message; the connection itself is still usable
+				release(transport);
+				throw e;
+			}
+			closeQuietly(transport);
+			if (!reused) {
+				throw e;
+			}
+			logger.debug("Pooled SMTP connection failed, retrying on a new one: " + e.getMessage());
+			transport = connect();
+			try {
+				transport.sendMessage(message, message.getAllRecipients());
+			} catch (MessagingException retryFailure) {
+				closeQuietly(transport);
+				throw retryFailure;
+			}
+		}
+		release(transport);
+	}
+
+	private void release(Transport transport) {
+		if (!idle.offer(transport)) {
+			closeQuietly(transport);
+		}
+	}
+
+	/**
+	 * Closes every idle connection.
+	 */
+	public void close() {
+		Transport transport;
+		while ((transport = idle.poll()) != null) {
+			closeQuietly(transport);
+		}
+	}
+
+	private Transport connect() throws MessagingException {
+		Transport transport = session.getTransport("smtp");
+		if (auth) {
+			transport.connect(host, port, username, password);
+		} else {
+			transport.connect(host, port, null, null);
+		}
+		return transport;
+	}
+
+	private static void closeQuietly(Transport transport) {
+		if (transport == null) {
+			return;
+		}
+		try {
+			transport.close();
+		} catch (MessagingException e) {
+			logger.debug("Error closing SMTP connection: " + e.getMessage());
+		}
+	}
+}
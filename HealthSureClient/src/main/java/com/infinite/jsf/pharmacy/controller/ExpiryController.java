@@ -0,0 +1,142 @@
+package com.infinite.jsf.pharmacy.controller;
+
+import java.util.Collections;
+import java.util.List;
+
+import javax.faces.application.FacesMessage;
+import javax.faces.context.FacesContext;
+
+import org.apache.log4j.Logger;
+
+import com.infinite.jsf.pharmacy.daoImpl.ExpiryIndex;
+import com.infinite.jsf.pharmacy.exception.StockException;
+import com.infinite.jsf.pharmacy.model.ExpiryAlert;
+
+/**
+ * Expired and near-expiry medicine batches of the logged-in pharmacy: the
+ * count badge of the dashboard and the paged alert list. Session scoped for
+ * the current page; the alerts come from the in-memory expiry index.
+ */
+public class ExpiryController {
+    private static final Logger logger = Logger.getLogger(ExpiryController.class);
+
+    private final ExpiryIndex expiryIndex = ExpiryIndex.getInstance();
+
+    // only the rows of the current page are kept in the session
+    private List<ExpiryAlert> pageAlerts;
+    private int totalAlerts;
+    private int expiredAlerts;
+    // request the page was read in; the getters below are called several times per render
+    private transient FacesContext pageLoadedFor;
+
+    private int currentPage = 1;
+    private int pageSize = 10;
+
+    public int getCurrentPage() {
+        return currentPage;
+    }
+
+    public void setCurrentPage(int currentPage) {
+        this.currentPage = currentPage;
+        pageAlerts = null;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    // reset to first page when page size changes
+    public void setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+        currentPage = 1;
+        pageAlerts = null;
+    }
+
+    public int getTotalPages() {
+        loadPage();
+        return Math.max(1, (int) Math.ceil((double) totalAlerts / pageSize));
+    }
+
+    /**
+     * @return batches in stock that have expired or expire soon; the count of
+     *         the dashboard badge
+     */
+    public int getTotalAlerts() {
+        loadPage();
+        return totalAlerts;
+    }
+
+    public int getExpiredAlerts() {
+        loadPage();
+        return expiredAlerts;
+    }
+
+    public int getWarnDays() {
+        return expiryIndex.getWarnDays();
+    }
+
+    /**
+     * @return the alerts of the current page, earliest expiry first
+     */
+    public List<ExpiryAlert> getPaginatedAlerts() {
+        loadPage();
+        return pageAlerts;
+    }
+
+    /**
+     * Reads the counts and the current page once per request.
+     */
+    private void loadPage() {
+        FacesContext context = FacesContext.getCurrentInstance();
+        if (pageAlerts != null && context != null && context == pageLoadedFor) {
+            return;
+        }
+        String pharmacyId = (String) context.getExternalContext().getSessionMap().get("pharmacy_id");
+        pageLoadedFor = context;
+        if (pharmacyId == null) {
+            pageAlerts = Collections.emptyList();
+            totalAlerts = 0;
+            expiredAlerts = 0;
+            return;
+        }
+        try {
+            totalAlerts = expiryIndex.countAlerts(pharmacyId);
+            expiredAlerts = expiryIndex.countExpired(pharmacyId);
+            int lastPage = Math.max(1, (int) Math.ceil((double) totalAlerts / pageSize));
+            if (currentPage > lastPage) {
+                // batches were sold or removed since the page was chosen
+                currentPage = lastPage;
+            }
+            pageAlerts = expiryIndex.alerts(pharmacyId, (currentPage - 1) * pageSize, pageSize);
+        } catch (StockException e) {
+            logger.error("Expiry alerts of pharmacy " + pharmacyId + " not read", e);
+            context.addMessage(null, new FacesMessage(FacesMessage.SEVERITY_ERROR,
+                    "Expiry alerts could not be loaded. Please try again.", ""));
+            pageAlerts = Collections.emptyList();
+            totalAlerts = 0;
+            expiredAlerts = 0;
+        }
+    }
+
+    // Navigation
+    public void nextPage() {
+        if (currentPage < getTotalPages()) {
+            currentPage++;
+            pageAlerts = null;
+        }
+    }
+
+    public void previousPage() {
+        if (currentPage > 1) {
+            currentPage--;
+            pageAlerts = null;
+        }
+    }
+
+    //to call in home pharmacy page
+    public String ViewExpiryAlerts() {
+        currentPage = 1;
+        pageAlerts = null;
+        return "ExpiryAlerts.jsf?faces-redirect=true";
+    }
+}
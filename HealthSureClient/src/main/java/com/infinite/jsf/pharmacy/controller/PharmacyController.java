@@ -13,6 +13,9 @@ import com.infinite.jsf.pharmacy.model.Pharmacists;
 import com.infinite.jsf.pharmacy.model.Pharmacy;
 
 import java.sql.Timestamp;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
 import java.util.regex.Pattern;
 
 
@@ -78,7 +81,14 @@ public class PharmacyController {
             isValid = false;
         }
 
-        if (pharmacyDao.isOwnerMobileExist(pharmacy.getOwnerMobile())) {
+        // one lookup for all owner fields; mostly answered from memory
+        Map<String, String> ownerFields = new LinkedHashMap<>();
+        ownerFields.put(PharmacyDaoImpl.FIELD_OWNER_MOBILE, pharmacy.getOwnerMobile());
+        ownerFields.put(PharmacyDaoImpl.FIELD_AADHAR, pharmacy.getAadhar());
+        ownerFields.put(PharmacyDaoImpl.FIELD_OWNER_EMAIL, pharmacy.getOwnerEmail());
+        Set<String> taken = pharmacyDao.findTakenFields(ownerFields);
+
+        if (taken.contains(PharmacyDaoImpl.FIELD_OWNER_MOBILE)) {
             context.addMessage("form:ownerMobile", new FacesMessage(FacesMessage.SEVERITY_ERROR, "Owner Mobile already registered.", null));
             isValid = false;
         }
@@ -99,7 +109,7 @@ public class PharmacyController {
             isValid = false;
         }
 
-        if (pharmacyDao.isAadharExists(pharmacy.getAadhar())) {
+        if (taken.contains(PharmacyDaoImpl.FIELD_AADHAR)) {
             context.addMessage("form:aadharNo", new FacesMessage(FacesMessage.SEVERITY_ERROR, "Aadhar already registered.", null));
             isValid = false;
         }
@@ -109,7 +119,7 @@ public class PharmacyController {
             isValid = false;
         }
         
-        if (pharmacyDao.isOwnerEmailExist(pharmacy.getOwnerEmail())) {
+        if (taken.contains(PharmacyDaoImpl.FIELD_OWNER_EMAIL)) {
             context.addMessage("form:ownerEmail", new FacesMessage(FacesMessage.SEVERITY_ERROR, "Oner email allready register registered.", null));
             isValid = false;
         }
@@ -152,7 +162,14 @@ public class PharmacyController {
             context.addMessage("form:email", new FacesMessage(FacesMessage.SEVERITY_ERROR, "Invalid email format.", null));
             isValid = false;
         }
-      if (pharmacyDao.isEmailExist(pharmacy.getEmail())) {
+        // one lookup for all pharmacy fields; mostly answered from memory
+        Map<String, String> pharmacyFields = new LinkedHashMap<>();
+        pharmacyFields.put(PharmacyDaoImpl.FIELD_EMAIL, pharmacy.getEmail());
+        pharmacyFields.put(PharmacyDaoImpl.FIELD_CONTACT_NO, pharmacy.getContactNo());
+        pharmacyFields.put(PharmacyDaoImpl.FIELD_GST_NO, pharmacy.getGstNo());
+        Set<String> taken = pharmacyDao.findTakenFields(pharmacyFields);
+
+      if (taken.contains(PharmacyDaoImpl.FIELD_EMAIL)) {
       context.addMessage("form:email", new FacesMessage(FacesMessage.SEVERITY_ERROR, " email allready registered.", null));
       isValid = false;
   }
@@ -161,7 +178,7 @@ public class PharmacyController {
             context.addMessage("form:contactNo", new FacesMessage(FacesMessage.SEVERITY_ERROR, "Contact Number must be 10 digits.", null));
             isValid = false;
         }
-        if (pharmacyDao.isPharmacyMobileExist(pharmacy.getContactNo())) {
+        if (taken.contains(PharmacyDaoImpl.FIELD_CONTACT_NO)) {
             context.addMessage("form:contactNo", new FacesMessage(FacesMessage.SEVERITY_ERROR, "Pharmacy Mobile already registered.", null));
             isValid = false;
         }
@@ -195,7 +212,7 @@ public class PharmacyController {
         }
         
 
-        if (pharmacyDao.isGstExists(pharmacy.getGstNo())) {
+        if (taken.contains(PharmacyDaoImpl.FIELD_GST_NO)) {
             context.addMessage("form:gstNo", new FacesMessage(FacesMessage.SEVERITY_ERROR, "GST number already registered.", null));
             isValid = false;
         }
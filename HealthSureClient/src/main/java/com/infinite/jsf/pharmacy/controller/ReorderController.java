@@ -0,0 +1,51 @@
+package com.infinite.jsf.pharmacy.controller;
+
+import java.util.Collections;
+import java.util.List;
+
+import javax.faces.context.FacesContext;
+
+import com.infinite.jsf.pharmacy.daoImpl.ReorderPointTracker;
+import com.infinite.jsf.pharmacy.model.ReorderSuggestion;
+
+/**
+ * "Reorder soon" list of the pharmacy dashboard. Request scoped; the list is
+ * computed once per request from the in-memory reorder points.
+ */
+public class ReorderController {
+
+    private static final int LIMIT = 10;
+
+    private List<ReorderSuggestion> reorderSoon;
+    private boolean ready;
+
+    /**
+     * @return medicines of the logged-in pharmacy that run out soonest, at
+     *         most ten
+     */
+    public List<ReorderSuggestion> getReorderSoon() {
+        load();
+        return reorderSoon;
+    }
+
+    /**
+     * @return false while the dispensing rates of the pharmacy are still being
+     *         read
+     */
+    public boolean isReady() {
+        load();
+        return ready;
+    }
+
+    private void load() {
+        if (reorderSoon != null) {
+            return;
+        }
+        String pharmacyId = (String) FacesContext.getCurrentInstance().getExternalContext().getSessionMap()
+                .get("pharmacy_id");
+        List<ReorderSuggestion> suggestions = pharmacyId == null ? null
+                : ReorderPointTracker.getInstance().reorderSoon(pharmacyId, LIMIT);
+        ready = suggestions != null;
+        reorderSoon = ready ? suggestions : Collections.<ReorderSuggestion>emptyList();
+    }
+}
@@ -11,23 +11,22 @@ import com.infinite.jsf.pharmacy.model.Equipment;
 public class ViewEquipmentController {
 
     private EquipmentDaoImpl equipmentDao;
-    private List<Equipment> equipmentList;
+    // only the rows of the current page are kept in the session
+    private List<Equipment> pageEquipment;
+    private long totalEquipment;
+    // request the page was read in; the getters below are called several times per render
+    private transient FacesContext pageLoadedFor;
 
     public void setEquipmentDao(EquipmentDaoImpl equipmentDao) {
         this.equipmentDao = equipmentDao;
     }
 
-    public List<Equipment> getEquipmentList() {
-        if (equipmentList == null) {
-            String pharmacyId = (String) FacesContext.getCurrentInstance().getExternalContext().getSessionMap().get("pharmacy_id");
-            equipmentList = equipmentDao.getEquipmentByPharmacyId(pharmacyId);
-        }
-        return equipmentList;
-    }
-
     // Search
     private String searchText;
     private String searchMode = "starts";
+    // filter of the last search, applied to every page
+    private String filterText;
+    private boolean filterContains;
 
     public String getSearchText() {
         return searchText;
@@ -46,18 +45,11 @@ public class ViewEquipmentController {
     }
 
     public String searchEquipment() {
-        String pharmacyId = (String) FacesContext.getCurrentInstance().getExternalContext().getSessionMap().get("pharmacy_id");
-
-        if (searchText == null || searchText.trim().isEmpty()) {
-            equipmentList = equipmentDao.getEquipmentByPharmacyId(pharmacyId);
-        } else if ("starts".equals(searchMode)) {
-            equipmentList = equipmentDao.searchEquipmentStartingWith(searchText, pharmacyId);
-        } else if ("contains".equals(searchMode)) {
-            equipmentList = equipmentDao.searchEquipmentContaining(searchText, pharmacyId);
-        }
+        filterText = searchText == null ? null : searchText.trim();
+        filterContains = "contains".equals(searchMode);
 
         currentPage = 1;
-        sortEquipment(); // Re-sort after search
+        pageEquipment = null;
         return null;
     }
 
@@ -71,6 +63,7 @@ public class ViewEquipmentController {
 
     public void setCurrentPage(int currentPage) {
         this.currentPage = currentPage;
+        pageEquipment = null;
     }
 
     public int getPageSize() {
@@ -80,31 +73,61 @@ public class ViewEquipmentController {
     public void setPageSize(int pageSize) {
         this.pageSize = pageSize;
         currentPage = 1;
+        pageEquipment = null;
     }
 
     public int getTotalPages() {
-        int total = (equipmentList != null) ? equipmentList.size() : 0;
-        return (int) Math.ceil((double) total / pageSize);
+        loadPage();
+        return (int) Math.ceil((double) totalEquipment / pageSize);
+    }
+
+    public long getTotalEquipment() {
+        loadPage();
+        return totalEquipment;
     }
 
+    /**
+     * Returns the equipment of the current page. Filtering, sorting and paging
+     * happen in the database, so only one page of rows is read per request.
+     *
+     * @return at most pageSize equipment
+     */
     public List<Equipment> getPaginatedEquipment() {
-        if (equipmentList == null) {
-            return new java.util.ArrayList<>();
+        loadPage();
+        return pageEquipment;
+    }
+
+    /**
+     * Reads the count and the current page once per request.
+     */
+    private void loadPage() {
+        FacesContext context = FacesContext.getCurrentInstance();
+        if (pageEquipment != null && context != null && context == pageLoadedFor) {
+            return;
         }
-        int fromIndex = (currentPage - 1) * pageSize;
-        int toIndex = Math.min(fromIndex + pageSize, equipmentList.size());
-        return equipmentList.subList(fromIndex, toIndex);
+        String pharmacyId = (String) context.getExternalContext().getSessionMap().get("pharmacy_id");
+        totalEquipment = equipmentDao.countEquipment(pharmacyId, filterText, filterContains);
+        int lastPage = Math.max(1, (int) Math.ceil((double) totalEquipment / pageSize));
+        if (currentPage > lastPage) {
+            // rows were removed since the page was chosen
+            currentPage = lastPage;
+        }
+        pageEquipment = equipmentDao.findEquipmentPage(pharmacyId, filterText, filterContains, sortBy, ascending,
+                (currentPage - 1) * pageSize, pageSize);
+        pageLoadedFor = context;
     }
 
     public void nextPage() {
         if (currentPage < getTotalPages()) {
             currentPage++;
+            pageEquipment = null;
         }
     }
 
     public void previousPage() {
         if (currentPage > 1) {
             currentPage--;
+            pageEquipment = null;
         }
     }
 
@@ -131,29 +154,9 @@ public class ViewEquipmentController {
             sortBy = column;
             ascending = true;
         }
-        sortEquipment();
-    }
-
-    private void sortEquipment() {
-        if (equipmentList == null) return;
-
-        equipmentList.sort((a, b) -> {
-            int result = 0;
-            switch (sortBy) {
-                case "equipmentName":
-                    result = a.getEquipmentName().compareToIgnoreCase(b.getEquipmentName());
-                    break;
-                case "unitPrice":
-                    result = Double.compare(a.getUnitPrice(), b.getUnitPrice());
-                    break;
-                case "quantity":
-                    result = Integer.compare(a.getQuantity(), b.getQuantity());
-                    break;
-                default:
-                    return 0;
-            }
-            return ascending ? result : -result;
-        });
+        // the database sorts; start again from the first page
+        currentPage = 1;
+        pageEquipment = null;
     }
 
     // Date highlighting for expired items
@@ -15,24 +15,22 @@ public class ViewStocksController {
      */
     
     private MedicinesDaoImpl medicinesDao;
-    private List<Medicines> medicinesList;
+    // only the rows of the current page are kept in the session
+    private List<Medicines> pageMedicines;
+    private long totalMedicines;
+    // request the page was read in; the getters below are called several times per render
+    private transient FacesContext pageLoadedFor;
 
     public void setMedicinesDao(MedicinesDaoImpl medicinesDao) {
         this.medicinesDao = medicinesDao;
     }
 
-    public List<Medicines> getMedicinesList() {
-        if (medicinesList == null) {
-           // medicinesList = medicinesDao.getAllMedicines();
-        	String pharmacyId = (String) FacesContext.getCurrentInstance().getExternalContext().getSessionMap().get("pharmacy_id");
-        	medicinesList = medicinesDao.getMedicinesByPharmacyId(pharmacyId);
-        }
-        return medicinesList;
-    }
-
  // Search related fields
     private String searchText;
     private String searchMode = "starts"; // default
+    // filter of the last search, applied to every page
+    private String filterText;
+    private boolean filterContains;
 
     // Getter and Setter for searchText
     public String getSearchText() {
@@ -52,53 +50,16 @@ public class ViewStocksController {
         this.searchMode = searchMode;
     }
 
-    // Search method
-//    public String searchMedicines() {
-//        if (searchText == null || searchText.trim().isEmpty()) {
-//            medicinesList = medicinesDao.getAllMedicines();
-//        } else if ("starts".equals(searchMode)) {
-//            medicinesList = medicinesDao.searchMedicinesStartingWith(searchText);
-//        } else if ("contains".equals(searchMode)) {
-//            medicinesList = medicinesDao.searchMedicinesContaining(searchText);
-//        }
-//        currentPage = 1; // Reset to first page after search
-//        return null;
-//    }
-    
-//    public String searchMedicines() {
-//        String pharmacyId = (String) FacesContext.getCurrentInstance().getExternalContext().getSessionMap().get("pharmacy_id");
-//
-//        if (searchText == null || searchText.trim().isEmpty()) {
-//            medicinesList = medicinesDao.getMedicinesByPharmacyId(pharmacyId);
-//        } else if ("starts".equals(searchMode)) {
-//            medicinesList = medicinesDao.searchMedicinesStartingWith(searchText, pharmacyId);
-//        } else if ("contains".equals(searchMode)) {
-//            medicinesList = medicinesDao.searchMedicinesContaining(searchText, pharmacyId);
-//        }
-//
-//        currentPage = 1; // Reset to first page
-//        return null;
-//    }
-
-
-    
     public String searchMedicines() {
-        String pharmacyId = (String) FacesContext.getCurrentInstance().getExternalContext().getSessionMap().get("pharmacy_id");
-
         if (searchText != null) {
         	// Trim leading and trailing spaces
             searchText = searchText.trim(); 
         }
-
-        if (searchText == null || searchText.isEmpty()) {
-            medicinesList = medicinesDao.getMedicinesByPharmacyId(pharmacyId);
-        } else if ("starts".equals(searchMode)) {
-            medicinesList = medicinesDao.searchMedicinesStartingWith(searchText, pharmacyId);
-        } else if ("contains".equals(searchMode)) {
-            medicinesList = medicinesDao.searchMedicinesContaining(searchText, pharmacyId);
-        }
+        filterText = searchText;
+        filterContains = "contains".equals(searchMode);
 
         currentPage = 1; // Reset to first page
+        pageMedicines = null;
         return null;
     }
     // page 
@@ -112,6 +73,7 @@ public class ViewStocksController {
 
     public void setCurrentPage(int currentPage) {
         this.currentPage = currentPage;
+        pageMedicines = null;
     }
 
     public int getPageSize() {
@@ -123,32 +85,62 @@ public class ViewStocksController {
     	
     	this.pageSize = pageSize;
     	currentPage = 1;
+    	pageMedicines = null;
     }
     
     public int getTotalPages() {
-        int total = (medicinesList != null) ? medicinesList.size() : 0;
-        return (int) Math.ceil((double) total / pageSize);
+        loadPage();
+        return (int) Math.ceil((double) totalMedicines / pageSize);
+    }
+
+    public long getTotalMedicines() {
+        loadPage();
+        return totalMedicines;
     }
 
+    /**
+     * Returns the medicines of the current page. Filtering, sorting and paging
+     * happen in the database, so only one page of rows is read per request.
+     *
+     * @return at most pageSize medicines
+     */
     public List<Medicines> getPaginatedMedicines() {
-        if (medicinesList == null) {
-            return new java.util.ArrayList<>(); // return empty list if null
+        loadPage();
+        return pageMedicines;
+    }
+
+    /**
+     * Reads the count and the current page once per request.
+     */
+    private void loadPage() {
+        FacesContext context = FacesContext.getCurrentInstance();
+        if (pageMedicines != null && context != null && context == pageLoadedFor) {
+            return;
         }
-        int fromIndex = (currentPage - 1) * pageSize;
-        int toIndex = Math.min(fromIndex + pageSize, medicinesList.size());
-        return medicinesList.subList(fromIndex, toIndex);
+        String pharmacyId = (String) context.getExternalContext().getSessionMap().get("pharmacy_id");
+        totalMedicines = medicinesDao.countMedicines(pharmacyId, filterText, filterContains);
+        int lastPage = Math.max(1, (int) Math.ceil((double) totalMedicines / pageSize));
+        if (currentPage > lastPage) {
+            // rows were removed since the page was chosen
+            currentPage = lastPage;
+        }
+        pageMedicines = medicinesDao.findMedicinesPage(pharmacyId, filterText, filterContains, sortBy, ascending,
+                (currentPage - 1) * pageSize, pageSize);
+        pageLoadedFor = context;
     }
 
     // Navigation
     public void nextPage() {
         if (currentPage < getTotalPages()) {
             currentPage++;
+            pageMedicines = null;
         }
     }
 
     public void previousPage() {
         if (currentPage > 1) {
             currentPage--;
+            pageMedicines = null;
         }
     }
 
@@ -176,25 +168,11 @@ public class ViewStocksController {
             sortBy = column;
             ascending = true; // reset to ascending for new column
         }
-        sortMedicines();
-    }
-
-    private void sortMedicines() {
-        if (medicinesList == null) return;
-        medicinesList.sort((a, b) -> {
-            int result = 0;
-            switch (sortBy) {
-                case "medicineName":
-                    result = a.getMedicineName().compareToIgnoreCase(b.getMedicineName()); break;
-                case "unitPrice":
-                    result = Double.compare(a.getUnitPrice(), b.getUnitPrice()); break;
-                case "expiryDate":
-                    result = a.getExpiryDate().compareTo(b.getExpiryDate()); break;
-                default: return 0;
-            }
-            return ascending ? result : -result;
-        });
+        // the database sorts; start again from the first page
+        currentPage = 1;
+        pageMedicines = null;
     }
+
 // maling expired medicines
     public String getExpiryStyle(Date expiryDate) {
         if (expiryDate != null && expiryDate.before(new Date())) {
@@ -0,0 +1,52 @@
+package com.infinite.jsf.pharmacy.dao;
+
+import java.util.List;
+
+import com.infinite.jsf.pharmacy.exception.StockException;
+import com.infinite.jsf.pharmacy.model.BatchAllocation;
+import com.infinite.jsf.pharmacy.model.DispenseLine;
+import com.infinite.jsf.pharmacy.model.DispenseLineResult;
+
+/**
+ * Copyright © 2025 Infinite Computer Solution. All rights reserved.
+ *
+ * Dispenses the medicines and equipment of a prescription.
+ *
+ * @author Infinite Computer Solution
+ * @version 1.0
+ */
+public interface DispenseDao {
+
+	/**
+	 * Dispenses every line of a prescription in one transaction: stock is
+	 * checked for all lines, then all stock decrements and all dispense rows
+	 * are sent as JDBC batches. Either every line is dispensed or none is.
+	 *
+	 * @param prescriptionId prescription being filled; its doctor and
+	 *                       recipient are copied to the dispense rows
+	 * @param pharmacyId     dispensing pharmacy; every item must belong to it
+	 * @param pharmacistName pharmacist recorded on the dispense rows
+	 * @param lines          items and quantities to hand out
+	 * @return one result per line, in the order of {@code lines}
+	 * @throws StockException if the prescription does not exist, a line is
+	 *                        invalid or the database cannot be updated
+	 */
+	List<DispenseLineResult> dispensePrescription(String prescriptionId, String pharmacyId, String pharmacistName,
+			List<DispenseLine> lines) throws StockException;
+
+	/**
+	 * Chooses the batches of a medicine to dispense from, first expiring
+	 * first and skipping expired batches. The result can be passed to
+	 * {@link #dispensePrescription} through
+	 * {@link BatchAllocation#toDispenseLine()}.
+	 *
+	 * @param pharmacyId   dispensing pharmacy
+	 * @param medicineName medicine name, matched ignoring case
+	 * @param quantity     units needed
+	 * @return batches and units to take, earliest expiry first
+	 * @throws StockException if the medicine is unknown, the unexpired stock is
+	 *                        too low or the batches cannot be read
+	 */
+	List<BatchAllocation> allocateMedicine(String pharmacyId, String medicineName, int quantity)
+			throws StockException;
+}
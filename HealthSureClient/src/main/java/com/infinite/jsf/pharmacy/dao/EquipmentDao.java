@@ -9,4 +9,31 @@ public interface EquipmentDao {
 	 List<Equipment> getEquipmentByPharmacyId(String pharmacyId);
 	    List<Equipment> searchEquipmentStartingWith(String name, String pharmacyId);
 	    List<Equipment> searchEquipmentContaining(String name, String pharmacyId);
+
+	/**
+	 * Reads one page of the equipment of a pharmacy, filtered and sorted in the
+	 * database.
+	 *
+	 * @param pharmacyId  pharmacy whose stock is listed
+	 * @param name        name filter, null or blank for all equipment
+	 * @param contains    true to match the name anywhere, false for names
+	 *                    starting with it
+	 * @param sortField   equipmentName, unitPrice or quantity; anything else
+	 *                    sorts by name
+	 * @param ascending   sort direction
+	 * @param firstResult index of the first row of the page
+	 * @param maxResults  page size
+	 * @return the equipment of the page
+	 */
+	List<Equipment> findEquipmentPage(String pharmacyId, String name, boolean contains, String sortField,
+			boolean ascending, int firstResult, int maxResults);
+
+	/**
+	 * Counts the equipment matching the same filter as
+	 * {@link #findEquipmentPage}. The count is served from the query cache until
+	 * the Equipment table changes.
+	 *
+	 * @return number of matching equipment
+	 */
+	long countEquipment(String pharmacyId, String name, boolean contains);
 }
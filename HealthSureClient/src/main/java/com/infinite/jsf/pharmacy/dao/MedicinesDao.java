@@ -7,4 +7,31 @@ public interface MedicinesDao {
     List<Medicines> getMedicinesByPharmacyId(String pharmacyId);
     List<Medicines> searchMedicinesStartingWith(String name, String pharmacyId);
     List<Medicines> searchMedicinesContaining(String name, String pharmacyId);
+
+    /**
+     * Reads one page of the medicines of a pharmacy, filtered and sorted in the
+     * database.
+     *
+     * @param pharmacyId  pharmacy whose stock is listed
+     * @param name        name filter, null or blank for all medicines
+     * @param contains    true to match the name anywhere, false for names
+     *                    starting with it
+     * @param sortField   medicineName, unitPrice or expiryDate; anything else
+     *                    sorts by name
+     * @param ascending   sort direction
+     * @param firstResult index of the first row of the page
+     * @param maxResults  page size
+     * @return the medicines of the page
+     */
+    List<Medicines> findMedicinesPage(String pharmacyId, String name, boolean contains, String sortField,
+            boolean ascending, int firstResult, int maxResults);
+
+    /**
+     * Counts the medicines matching the same filter as
+     * {@link #findMedicinesPage}. The count is served from the query cache
+     * until the Medicines table changes.
+     *
+     * @return number of matching medicines
+     */
+    long countMedicines(String pharmacyId, String name, boolean contains);
 }
\ No newline at end of file
@@ -0,0 +1,76 @@
+package com.infinite.jsf.pharmacy.dao;
+
+import com.infinite.jsf.pharmacy.exception.InsufficientStockException;
+import com.infinite.jsf.pharmacy.exception.StockException;
+import com.infinite.jsf.pharmacy.exception.UnknownStockItemException;
+import com.infinite.jsf.pharmacy.model.StockItemType;
+import com.infinite.jsf.pharmacy.model.StockReservation;
+
+/**
+ * Stock movements of medicines and equipment.
+ *
+ * <p>
+ * A dispense first {@link #reserve reserves} the units, which only holds them
+ * in memory, and then {@link #commit commits} the reservation, which removes
+ * them from the table with a conditional UPDATE that never lets the quantity
+ * go below zero. A reservation that is not needed any more is
+ * {@link #release released}; one that is neither committed nor released
+ * expires.
+ * </p>
+ */
+public interface StockLedgerDao {
+
+	/**
+	 * Holds units of one medicine or equipment for a later commit.
+	 *
+	 * @param type     medicine or equipment
+	 * @param skuId    id of the medicine or equipment
+	 * @param quantity units to hold, at least 1
+	 * @return the reservation to commit or release
+	 * @throws InsufficientStockException if fewer units are free
+	 * @throws UnknownStockItemException  if the item does not exist
+	 * @throws StockException             if the stock cannot be read
+	 */
+	StockReservation reserve(StockItemType type, String skuId, int quantity) throws StockException;
+
+	/**
+	 * Takes the reserved units out of stock.
+	 *
+	 * @param reservation an open reservation
+	 * @throws InsufficientStockException if the stock was taken outside this application
+	 * @throws StockException if the reservation is unknown or expired, or the
+	 *                        update fails
+	 */
+	void commit(StockReservation reservation) throws StockException;
+
+	/**
+	 * Gives the reserved units back without touching the table. Releasing a
+	 * committed or expired reservation does nothing.
+	 *
+	 * @param reservation the reservation
+	 */
+	void release(StockReservation reservation);
+
+	/**
+	 * Adds units to the stock, e.g. for a delivery, with a relative UPDATE that
+	 * cannot overwrite concurrent dispenses.
+	 *
+	 * @param type     medicine or equipment
+	 * @param skuId    id of the medicine or equipment
+	 * @param quantity units received, at least 1
+	 * @throws UnknownStockItemException if the item does not exist
+	 * @throws StockException            if the update fails
+	 */
+	void restock(StockItemType type, String skuId, int quantity) throws StockException;
+
+	/**
+	 * Units that can still be reserved: the stored quantity minus the open
+	 * reservations of this application.
+	 *
+	 * @param type  medicine or equipment
+	 * @param skuId id of the medicine or equipment
+	 * @return free units, 0 if the item does not exist
+	 * @throws StockException if the stock cannot be read
+	 */
+	int available(StockItemType type, String skuId) throws StockException;
+}
@@ -0,0 +1,355 @@
+package com.infinite.jsf.pharmacy.daoImpl;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.jdbc.Work;
+
+import com.infinite.jsf.pharmacy.dao.DispenseDao;
+import com.infinite.jsf.pharmacy.exception.InsufficientStockException;
+import com.infinite.jsf.pharmacy.exception.StockException;
+import com.infinite.jsf.pharmacy.exception.UnknownStockItemException;
+import com.infinite.jsf.pharmacy.model.BatchAllocation;
+import com.infinite.jsf.pharmacy.model.DispenseLine;
+import com.infinite.jsf.pharmacy.model.DispenseLineResult;
+import com.infinite.jsf.pharmacy.model.DispenseStatus;
+import com.infinite.jsf.pharmacy.model.DispensedEquipments;
+import com.infinite.jsf.pharmacy.model.DispensedMedicines;
+import com.infinite.jsf.pharmacy.model.Equipment;
+import com.infinite.jsf.pharmacy.model.Medicines;
+import com.infinite.jsf.pharmacy.model.Pharmacy;
+import com.infinite.jsf.pharmacy.model.StockItemType;
+import com.infinite.jsf.pharmacy.model.StockReservation;
+import com.infinite.jsf.util.CacheHelper;
+import com.infinite.jsf.util.IdGenerator;
+import com.infinite.jsf.util.SessionHelper;
+
+/**
+ * Copyright © 2025 Infinite Computer Solution. All rights reserved.
+ *
+ * Dispenses a prescription in one transaction with a fixed number of round
+ * trips, whatever the number of lines: one read of the prescription, one
+ * ownership check per kind of item, one batch of conditional stock decrements
+ * per kind of item and the batched inserts of the dispense rows
+ * ({@code hibernate.jdbc.batch_size}).
+ *
+ * <p>
+ * Lines are first reserved in the {@link StockLedgerDaoImpl stock ledger}, so
+ * a prescription that cannot be filled is refused without writing anything.
+ * The decrements keep the {@code quantity >= ?} guard of the ledger and are
+ * sent in id order so that two prescriptions sharing items lock the rows in
+ * the same order.
+ * </p>
+ *
+ * @author Infinite Computer Solution
+ * @version 1.0
+ */
+public class DispenseDaoImpl implements DispenseDao {
+	private static final Logger logger = Logger.getLogger(DispenseDaoImpl.class);
+	private static final SessionFactory factory = SessionHelper.getSessionFactory();
+
+	// Prescription, Recipient and Doctors are not mapped in this application; read the keys with SQL,
+	// as the EJB does
+	private static final String PRESCRIPTION_SQL = "SELECT doctor_id, h_id FROM prescription "
+			+ "WHERE prescription_id = :prescriptionId";
+
+	private final StockLedgerDaoImpl ledger = new StockLedgerDaoImpl();
+
+	@Override
+	public List<DispenseLineResult> dispensePrescription(String prescriptionId, String pharmacyId,
+			String pharmacistName, List<DispenseLine> lines) throws StockException {
+		if (lines == null || lines.isEmpty()) {
+			throw new StockException("Prescription " + prescriptionId + " has no lines to dispense");
+		}
+		for (DispenseLine line : lines) {
+			if (line.getType() == null || line.getItemId() == null || line.getQuantity() < 1) {
+				throw new StockException("Invalid dispense line " + line);
+			}
+		}
+
+		Session session = null;
+		Transaction trans = null;
+		List<StockReservation> reservations = new ArrayList<>(lines.size());
+		boolean closed = false;
+		boolean settled = false;
+		try {
+			session = factory.openSession();
+			trans = session.beginTransaction();
+			Object[] prescription = (Object[]) session.createSQLQuery(PRESCRIPTION_SQL)
+					.setString("prescriptionId", prescriptionId).uniqueResult();
+			if (prescription == null) {
+				trans.rollback();
+				throw new StockException("Prescription " + prescriptionId + " does not exist");
+			}
+
+			List<DispenseLineResult> refused = reserveAll(session, pharmacyId, lines, reservations);
+			if (refused != null) {
+				trans.rollback();
+				logger.info("Prescription " + prescriptionId + " not dispensed: " + refused);
+				return refused;
+			}
+
+			for (StockReservation reservation : reservations) {
+				ledger.close(reservation);
+			}
+			closed = true;
+			int[] counts = decrementAll(session, pharmacyId, reservations);
+			if (!allTaken(counts)) {
+				trans.rollback();
+				settleAll(reservations, false);
+				settled = true;
+				return shortages(lines, reservations, counts);
+			}
+
+			List<DispenseLineResult> results = saveDispenses(session, (String) prescription[0],
+					(String) prescription[1], prescriptionId, pharmacyId, pharmacistName, lines);
+			long dispensedAt = System.currentTimeMillis();
+			trans.commit();
+			settleAll(reservations, true);
+			settled = true;
+			for (DispenseLine line : lines) {
+				if (line.getType() == StockItemType.MEDICINE) {
+					ReorderPointTracker.getInstance().recordDispense(pharmacyId, line.getItemId(), line.getQuantity(),
+							dispensedAt, false);
+				}
+			}
+			// the decrements are plain JDBC, which Hibernate does not see
+			CacheHelper.evictQueries(CacheHelper.STOCK_QUERY_REGION);
+			if (logger.isInfoEnabled()) {
+				logger.info("Prescription " + prescriptionId + " dispensed by " + pharmacyId + ", " + lines.size()
+						+ " lines");
+			}
+			return results;
+		} catch (HibernateException e) {
+			if (trans != null && trans.isActive())
+				trans.rollback();
+			logger.error("Hibernate error while dispensing prescription " + prescriptionId, e);
+			throw new StockException("Hibernate error: prescription not dispensed", e);
+		} catch (StockException e) {
+			if (trans != null && trans.isActive())
+				trans.rollback();
+			throw e;
+		} finally {
+			if (!settled && closed) {
+				settleAll(reservations, false);
+			} else if (!settled) {
+				for (StockReservation reservation : reservations) {
+					ledger.release(reservation);
+				}
+			}
+			if (session != null)
+				session.close();
+		}
+	}
+
+	@Override
+	public List<BatchAllocation> allocateMedicine(String pharmacyId, String medicineName, int quantity)
+			throws StockException {
+		return FefoBatchAllocator.getInstance().allocate(pharmacyId, medicineName, quantity);
+	}
+
+	/**
+	 * Reserves every line. All lines are tried so that each gets its own
+	 * status.
+	 *
+	 * @return the line results if any line was refused, null if all were
+	 *         reserved
+	 */
+	private List<DispenseLineResult> reserveAll(Session session, String pharmacyId, List<DispenseLine> lines,
+			List<StockReservation> reservations) throws StockException {
+		Map<StockItemType, Set<String>> owned = ownedItems(session, pharmacyId, lines);
+		List<DispenseLineResult> results = new ArrayList<>(lines.size());
+		boolean refused = false;
+		for (DispenseLine line : lines) {
+			DispenseStatus status = DispenseStatus.NOT_DISPENSED;
+			int available = 0;
+			try {
+				if (!owned.get(line.getType()).contains(line.getItemId())) {
+					throw new UnknownStockItemException(line.getType() + " " + line.getItemId()
+							+ " does not belong to pharmacy " + pharmacyId);
+				}
+				reservations.add(ledger.reserve(line.getType(), line.getItemId(), line.getQuantity()));
+			} catch (InsufficientStockException e) {
+				status = DispenseStatus.INSUFFICIENT_STOCK;
+				available = e.getAvailable();
+			} catch (UnknownStockItemException e) {
+				status = DispenseStatus.UNKNOWN_ITEM;
+			}
+			refused |= status != DispenseStatus.NOT_DISPENSED;
+			results.add(new DispenseLineResult(line, status, null, available));
+		}
+		return refused ? results : null;
+	}
+
+	/** Ids of the lines' items that belong to the pharmacy, one query per kind of item. */
+	@SuppressWarnings("unchecked")
+	private static Map<StockItemType, Set<String>> ownedItems(Session session, String pharmacyId,
+			List<DispenseLine> lines) {
+		Map<StockItemType, Set<String>> requested = new EnumMap<>(StockItemType.class);
+		for (StockItemType type : StockItemType.values()) {
+			requested.put(type, new HashSet<String>());
+		}
+		for (DispenseLine line : lines) {
+			requested.get(line.getType()).add(line.getItemId());
+		}
+		Map<StockItemType, Set<String>> owned = new EnumMap<>(StockItemType.class);
+		for (Map.Entry<StockItemType, Set<String>> entry : requested.entrySet()) {
+			StockItemType type = entry.getKey();
+			Set<String> ids = new HashSet<>();
+			if (!entry.getValue().isEmpty()) {
+				ids.addAll(session
+						.createQuery("select e." + type.getIdProperty() + " from " + type.getEntityName()
+								+ " e where e.pharmacy.pharmacyId = :pharmacyId and e." + type.getIdProperty()
+								+ " in (:ids)")
+						.setString("pharmacyId", pharmacyId).setParameterList("ids", entry.getValue()).list());
+			}
+			owned.put(type, ids);
+		}
+		return owned;
+	}
+
+	/**
+	 * Sends the conditional decrements as one JDBC batch per kind of item.
+	 *
+	 * @return the update count of each reservation, in reservation order
+	 */
+	private static int[] decrementAll(Session session, final String pharmacyId,
+			final List<StockReservation> reservations) {
+		final int[] counts = new int[reservations.size()];
+		final List<Integer> order = new ArrayList<>(reservations.size());
+		for (int i = 0; i < reservations.size(); i++) {
+			order.add(i);
+		}
+		Collections.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				StockReservation left = reservations.get(a);
+				StockReservation right = reservations.get(b);
+				int result = left.getType().compareTo(right.getType());
+				return result != 0 ? result : left.getSkuId().compareTo(right.getSkuId());
+			}
+		});
+		session.doWork(new Work() {
+			@Override
+			public void execute(Connection connection) throws SQLException {
+				for (StockItemType type : StockItemType.values()) {
+					List<Integer> batched = new ArrayList<>();
+					String quantity = type.getQuantityColumn();
+					try (PreparedStatement pst = connection.prepareStatement("UPDATE " + type.getTable() + " SET "
+							+ quantity + " = " + quantity + " - ? WHERE " + type.getIdColumn()
+							+ " = ? AND pharmacy_id = ? AND " + quantity + " >= ?")) {
+						for (Integer i : order) {
+							StockReservation reservation = reservations.get(i);
+							if (reservation.getType() == type) {
+								pst.setInt(1, reservation.getQuantity());
+								pst.setString(2, reservation.getSkuId());
+								pst.setString(3, pharmacyId);
+								pst.setInt(4, reservation.getQuantity());
+								pst.addBatch();
+								batched.add(i);
+							}
+						}
+						if (!batched.isEmpty()) {
+							int[] result = pst.executeBatch();
+							for (int j = 0; j < result.length; j++) {
+								counts[batched.get(j)] = result[j];
+							}
+						}
+					}
+				}
+			}
+		});
+		return counts;
+	}
+
+	private static boolean allTaken(int[] counts) {
+		for (int count : counts) {
+			if (count != 1) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void settleAll(List<StockReservation> reservations, boolean taken) {
+		for (StockReservation reservation : reservations) {
+			ledger.settle(reservation, taken);
+		}
+	}
+
+	/**
+	 * Results of a batch in which some decrements found less stock than the
+	 * ledger expected, i.e. it was taken by another node.
+	 */
+	private List<DispenseLineResult> shortages(List<DispenseLine> lines, List<StockReservation> reservations,
+			int[] counts) throws StockException {
+		List<DispenseLineResult> results = new ArrayList<>(lines.size());
+		for (int i = 0; i < lines.size(); i++) {
+			StockReservation reservation = reservations.get(i);
+			if (counts[i] == 1) {
+				results.add(new DispenseLineResult(lines.get(i), DispenseStatus.NOT_DISPENSED, null, 0));
+			} else {
+				int available = ledger.available(reservation.getType(), reservation.getSkuId());
+				results.add(new DispenseLineResult(lines.get(i), DispenseStatus.INSUFFICIENT_STOCK, null,
+						available));
+			}
+		}
+		logger.info("Stock changed while dispensing, nothing dispensed: " + results);
+		return results;
+	}
+
+	/** Saves one dispense row per line; the inserts go out in JDBC batches on commit. */
+	private static List<DispenseLineResult> saveDispenses(Session session, String doctorId, String hId,
+			String prescriptionId, String pharmacyId, String pharmacistName, List<DispenseLine> lines) {
+		Pharmacy pharmacy = (Pharmacy) session.load(Pharmacy.class, pharmacyId);
+		Date today = new Date();
+		List<DispenseLineResult> results = new ArrayList<>(lines.size());
+		for (DispenseLine line : lines) {
+			String dispenseId;
+			if (line.getType() == StockItemType.MEDICINE) {
+				DispensedMedicines dispensed = new DispensedMedicines();
+				dispenseId = IdGenerator.next(IdGenerator.DISPENSED_MEDICINE);
+				dispensed.setDispenseId(dispenseId);
+				dispensed.setMedicines((Medicines) session.load(Medicines.class, line.getItemId()));
+				dispensed.setPharmacy(pharmacy);
+				dispensed.setQuantityDispensed(line.getQuantity());
+				dispensed.setDispenseDate(today);
+				dispensed.setPrescriptionId(prescriptionId);
+				dispensed.setDoctorId(doctorId);
+				dispensed.sethId(hId);
+				dispensed.setPharmacistName(pharmacistName);
+				session.save(dispensed);
+			} else {
+				DispensedEquipments dispensed = new DispensedEquipments();
+				dispenseId = IdGenerator.next(IdGenerator.DISPENSED_EQUIPMENT);
+				dispensed.setDispensedEquipId(dispenseId);
+				dispensed.setEquipment((Equipment) session.load(Equipment.class, line.getItemId()));
+				dispensed.setPharmacy(pharmacy);
+				dispensed.setQuantityDispensed(line.getQuantity());
+				dispensed.setDispenseDate(today);
+				dispensed.setPrescriptionId(prescriptionId);
+				dispensed.setDoctorId(doctorId);
+				dispensed.sethId(hId);
+				dispensed.setPharmacistName(pharmacistName);
+				session.save(dispensed);
+			}
+			results.add(new DispenseLineResult(line, DispenseStatus.DISPENSED, dispenseId, 0));
+		}
+		return results;
+	}
+}
@@ -1,16 +1,34 @@
 package com.infinite.jsf.pharmacy.daoImpl;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.hibernate.Query;
 import org.hibernate.Session;
 
 import com.infinite.jsf.pharmacy.dao.EquipmentDao;
 import com.infinite.jsf.pharmacy.model.Equipment;
+import com.infinite.jsf.util.CacheHelper;
+import com.infinite.jsf.util.NameMatches;
 import com.infinite.jsf.util.SessionHelper;
 
 public class EquipmentDaoImpl implements EquipmentDao {
 
+	/** Names of the stock, per pharmacy; searched before falling back to LIKE. */
+	private static final StockNameIndex NAME_INDEX = new StockNameIndex("Equipment", "equipmentId", "equipmentName");
+
+	/** Most index matches looked up by id; larger results are read with LIKE. */
+	private static final int MAX_INDEXED_IDS = 1000;
+
+	/** Columns the stock view can be sorted by. */
+	private static final Set<String> SORT_PROPERTIES = new HashSet<>(
+			Arrays.asList("equipmentName", "unitPrice", "quantity"));
+
 	@Override
 	public List<Equipment> getEquipmentByPharmacyId(String pharmacyId) {
         Session session = SessionHelper.getSessionFactory().openSession();
@@ -25,10 +43,14 @@ public class EquipmentDaoImpl implements EquipmentDao {
 
 	@Override
 	public List<Equipment> searchEquipmentStartingWith(String name, String pharmacyId) {
+		NameMatches matches = isBlank(name) ? null : NAME_INDEX.search(pharmacyId, name, false, 0, Integer.MAX_VALUE);
+		if (matches != null) {
+			return findByIds(matches.getIds());
+		}
 		 Session session = SessionHelper.getSessionFactory().openSession();
 	        try {
-	            Query query = session.createQuery("from Equipment where lower(equipmentName) like :name and pharmacy.pharmacyId = :pharmacyId");
-	            query.setParameter("name", name.toLowerCase() + "%");
+	            Query query = session.createQuery("from Equipment where lower(trim(equipmentName)) like :name escape '!' and pharmacy.pharmacyId = :pharmacyId");
+	            query.setParameter("name", StockNameIndex.likePattern(name, false));
 	            query.setParameter("pharmacyId", pharmacyId);
 	            return query.list();
 	        } finally {
@@ -38,10 +60,14 @@ public class EquipmentDaoImpl implements EquipmentDao {
 
 	@Override
 	public List<Equipment> searchEquipmentContaining(String name, String pharmacyId) {
+		NameMatches matches = isBlank(name) ? null : NAME_INDEX.search(pharmacyId, name, true, 0, Integer.MAX_VALUE);
+		if (matches != null) {
+			return findByIds(matches.getIds());
+		}
 		 Session session = SessionHelper.getSessionFactory().openSession();
 	        try {
-	            Query query = session.createQuery("from Equipment where lower(equipmentName) like :name and pharmacy.pharmacyId = :pharmacyId");
-	            query.setParameter("name", "%" + name.toLowerCase() + "%");
+	            Query query = session.createQuery("from Equipment where lower(trim(equipmentName)) like :name escape '!' and pharmacy.pharmacyId = :pharmacyId");
+	            query.setParameter("name", StockNameIndex.likePattern(name, true));
 	            query.setParameter("pharmacyId", pharmacyId);
 	            return query.list();
 	        } finally {
@@ -49,4 +75,121 @@ public class EquipmentDaoImpl implements EquipmentDao {
 	        }
 	}
 
+	@Override
+	@SuppressWarnings("unchecked")
+	public List<Equipment> findEquipmentPage(String pharmacyId, String name, boolean contains, String sortField,
+			boolean ascending, int firstResult, int maxResults) {
+		String property = SORT_PROPERTIES.contains(sortField) ? sortField : "equipmentName";
+		String direction = ascending ? "asc" : "desc";
+		NameMatches matches = isBlank(name) ? null
+				: NAME_INDEX.search(pharmacyId, name, contains, 0, MAX_INDEXED_IDS + 1);
+		if (matches != null && matches.getTotal() == 0) {
+			return new ArrayList<>();
+		}
+		boolean indexed = matches != null && matches.getTotal() <= MAX_INDEXED_IDS;
+		Session session = SessionHelper.getSessionFactory().openSession();
+		try {
+			// equipmentId breaks ties, so a row never shows on two pages
+			String where = indexed ? " where e.pharmacy.pharmacyId = :pharmacyId and e.equipmentId in (:ids)" : where(name);
+			Query query = session.createQuery("from Equipment e" + where + " order by e." + property + " "
+					+ direction + ", e.equipmentId " + direction);
+			if (indexed) {
+				// the index found the rows; the database only sorts and pages them by primary key
+				query.setParameter("pharmacyId", pharmacyId);
+				query.setParameterList("ids", matches.getIds());
+			} else {
+				bind(query, pharmacyId, name, contains);
+			}
+			query.setFirstResult(firstResult);
+			query.setMaxResults(maxResults);
+			query.setReadOnly(true);
+			return query.list();
+		} finally {
+			session.close();
+		}
+	}
+
+	@Override
+	public long countEquipment(String pharmacyId, String name, boolean contains) {
+		// the same rows as the page: the index ids while they are few enough, else LIKE;
+		// the database counts them, so rows deleted since the index loaded are left out
+		NameMatches matches = isBlank(name) ? null
+				: NAME_INDEX.search(pharmacyId, name, contains, 0, MAX_INDEXED_IDS + 1);
+		if (matches != null && matches.getTotal() == 0) {
+			return 0L;
+		}
+		boolean indexed = matches != null && matches.getTotal() <= MAX_INDEXED_IDS;
+		Session session = SessionHelper.getSessionFactory().openSession();
+		try {
+			String where = indexed ? " where e.pharmacy.pharmacyId = :pharmacyId and e.equipmentId in (:ids)" : where(name);
+			Query query = session.createQuery("select count(e.equipmentId) from Equipment e" + where);
+			if (indexed) {
+				query.setParameter("pharmacyId", pharmacyId);
+				query.setParameterList("ids", matches.getIds());
+			} else {
+				bind(query, pharmacyId, name, contains);
+			}
+			query.setCacheable(true);
+			query.setCacheRegion(CacheHelper.STOCK_QUERY_REGION);
+			Number count = (Number) query.uniqueResult();
+			return count == null ? 0L : count.longValue();
+		} finally {
+			session.close();
+		}
+	}
+
+	/**
+	 * Forgets a deleted equipment row in the name index; to be called by every
+	 * path that deletes equipment.
+	 *
+	 * @param pharmacyId owner of the equipment
+	 * @param equipmentId id of the deleted row
+	 */
+	public static void unindexEquipment(String pharmacyId, String equipmentId) {
+		NAME_INDEX.remove(pharmacyId, equipmentId);
+	}
+
+	/**
+	 * Loads the rows of the given ids, in the order of the ids.
+	 */
+	@SuppressWarnings("unchecked")
+	private List<Equipment> findByIds(List<String> ids) {
+		Map<String, Equipment> byId = new HashMap<>();
+		Session session = SessionHelper.getSessionFactory().openSession();
+		try {
+			for (int from = 0; from < ids.size(); from += MAX_INDEXED_IDS) {
+				List<Equipment> rows = session.createQuery("from Equipment e where e.equipmentId in (:ids)")
+						.setParameterList("ids", ids.subList(from, Math.min(ids.size(), from + MAX_INDEXED_IDS))).list();
+				for (Equipment row : rows) {
+					byId.put(row.getEquipmentId(), row);
+				}
+			}
+		} finally {
+			session.close();
+		}
+		List<Equipment> ordered = new ArrayList<>(byId.size());
+		for (String id : ids) {
+			Equipment row = byId.get(id);
+			if (row != null) {
+				ordered.add(row);
+			}
+		}
+		return ordered;
+	}
+
+	private static String where(String name) {
+		return isBlank(name) ? " where e.pharmacy.pharmacyId = :pharmacyId"
+				: " where e.pharmacy.pharmacyId = :pharmacyId and lower(trim(e.equipmentName)) like :name escape '!'";
+	}
+
+	private static void bind(Query query, String pharmacyId, String name, boolean contains) {
+		query.setParameter("pharmacyId", pharmacyId);
+		if (!isBlank(name)) {
+			query.setParameter("name", StockNameIndex.likePattern(name, contains));
+		}
+	}
+
+	private static boolean isBlank(String value) {
+		return value == null || value.trim().isEmpty();
+	}
 }
@@ -0,0 +1,417 @@
+package com.infinite.jsf.pharmacy.daoImpl;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+import org.hibernate.HibernateException;
+import org.hibernate.Query;
+import org.hibernate.Session;
+
+import com.infinite.jsf.pharmacy.exception.StockException;
+import com.infinite.jsf.pharmacy.model.ExpiryAlert;
+import com.infinite.jsf.util.AppConfig;
+import com.infinite.jsf.util.SessionHelper;
+
+/**
+ * Copyright © 2025 Infinite Computer Solution. All rights reserved.
+ *
+ * Medicine batches of each pharmacy ordered by expiry day, to list the
+ * batches in stock that have expired or expire within
+ * {@code healthsure.expiry.warnDays} (default 30) days.
+ *
+ * <p>
+ * The batches with stock sit in a skip list ordered by expiry day, so the
+ * alerts of a pharmacy are the head of its list up to the warning horizon: a
+ * page of alerts costs O(log n + first + page) and the counts behind the dashboard
+ * badge are recounted from that head only when a batch or the day changed.
+ * Readers walk the skip list without locking; its entries are immutable and
+ * replaced on change.
+ * </p>
+ *
+ * <p>
+ * A pharmacy is read on its first use with one projection over the
+ * {@code (pharmacy_id, expiry_date)} index. Afterwards its batches follow the
+ * {@link StockLedgerDaoImpl stock ledger}, which reports every quantity it
+ * reads or changes, and medicines edited or dispensed outside Hibernate are
+ * reread by id before the next use. Once a day, just after midnight, a
+ * background job rereads every pharmacy in use, to pick up rows changed
+ * outside this application, recounts its alerts and logs them.
+ * </p>
+ *
+ * @author Infinite Computer Solution
+ * @version 1.0
+ */
+public class ExpiryIndex {
+	private static final Logger logger = Logger.getLogger(ExpiryIndex.class);
+
+	private static final ExpiryIndex INSTANCE = new ExpiryIndex(AppConfig.getInt("healthsure.expiry.warnDays", 30));
+
+	/** Earliest expiry first; the id keeps batches of one day apart. */
+	private static final Comparator<Batch> BY_EXPIRY = new Comparator<Batch>() {
+		@Override
+		public int compare(Batch a, Batch b) {
+			int result = Long.compare(a.day, b.day);
+			return result == 0 ? a.medicineId.compareTo(b.medicineId) : result;
+		}
+	};
+
+	private final int warnDays;
+	private final ConcurrentMap<String, PharmacyExpiry> pharmacies = new ConcurrentHashMap<>();
+	/** Pharmacy of every batch read, by medicine id, to route stock changes. */
+	private final ConcurrentMap<String, PharmacyExpiry> owners = new ConcurrentHashMap<>();
+	private final ScheduledExecutorService scheduler;
+
+	ExpiryIndex(int warnDays) {
+		this.warnDays = Math.max(0, warnDays);
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable task) {
+				Thread thread = new Thread(task, "healthsure-expiry");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		scheduleDailyRun();
+	}
+
+	/**
+	 * Schedules the next daily run a minute after the coming local midnight;
+	 * each run schedules the following one, so daylight saving changes do not
+	 * move it.
+	 */
+	private void scheduleDailyRun() {
+		long delay = startOfDay(System.currentTimeMillis(), 1) + 60000L - System.currentTimeMillis();
+		try {
+			scheduler.schedule(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						runDaily();
+					} finally {
+						scheduleDailyRun();
+					}
+				}
+			}, delay, TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException e) {
+			// stopped with the application
+		}
+	}
+
+	public static ExpiryIndex getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Stops the daily job; called when the application is undeployed.
+	 */
+	public static void shutdown() {
+		INSTANCE.scheduler.shutdownNow();
+	}
+
+	/**
+	 * @return number of days before expiry a batch is listed
+	 */
+	public int getWarnDays() {
+		return warnDays;
+	}
+
+	/**
+	 * Lists a page of the batches in stock that have expired or expire soon.
+	 *
+	 * @param pharmacyId owner of the batches
+	 * @param first      index of the first alert of the page
+	 * @param max        page size
+	 * @return alerts, earliest expiry first
+	 * @throws StockException if the batches cannot be read
+	 */
+	public List<ExpiryAlert> alerts(String pharmacyId, int first, int max) throws StockException {
+		PharmacyExpiry group = group(pharmacyId);
+		long today = startOfDay(System.currentTimeMillis(), 0);
+		List<ExpiryAlert> page = new ArrayList<>(Math.max(0, Math.min(max, 64)));
+		int index = 0;
+		for (Batch batch : group.alerting(horizon(today))) {
+			if (page.size() >= max) {
+				break;
+			}
+			if (index++ >= first) {
+				page.add(new ExpiryAlert(batch.medicineId, batch.medicineName, batch.batchNo, batch.expiryDate,
+						batch.quantity, batch.day < today));
+			}
+		}
+		return page;
+	}
+
+	/**
+	 * @return number of batches in stock that have expired or expire soon
+	 * @throws StockException if the batches cannot be read
+	 */
+	public int countAlerts(String pharmacyId) throws StockException {
+		return group(pharmacyId).counts(System.currentTimeMillis())[1];
+	}
+
+	/**
+	 * @return number of batches in stock that have expired
+	 * @throws StockException if the batches cannot be read
+	 */
+	public int countExpired(String pharmacyId) throws StockException {
+		return group(pharmacyId).counts(System.currentTimeMillis())[0];
+	}
+
+	/**
+	 * Records the stored quantity of a batch; called by the stock ledger.
+	 */
+	void quantityChanged(String medicineId, int quantity) {
+		PharmacyExpiry group = owners.get(medicineId);
+		if (group != null) {
+			group.setQuantity(medicineId, quantity);
+		}
+	}
+
+	/**
+	 * Marks a medicine written outside Hibernate, e.g. edited or dispensed
+	 * through the EJB; it is reread before the next use of its pharmacy.
+	 */
+	public void changed(String pharmacyId, String medicineId) {
+		PharmacyExpiry group = pharmacyId == null ? owners.get(medicineId) : pharmacies.get(pharmacyId);
+		if (group != null) {
+			group.markStale(medicineId);
+		}
+	}
+
+	/**
+	 * Rereads every pharmacy in use and logs its alerts.
+	 */
+	void runDaily() {
+		long now = System.currentTimeMillis();
+		for (PharmacyExpiry group : pharmacies.values()) {
+			try {
+				group.apply(read("m.pharmacy.pharmacyId = :pharmacyId", "pharmacyId", group.pharmacyId), null);
+				int[] counts = group.counts(now);
+				if (counts[1] > 0) {
+					logger.info("Pharmacy " + group.pharmacyId + ": " + counts[0] + " expired and "
+							+ (counts[1] - counts[0]) + " near-expiry medicine batches in stock");
+				}
+			} catch (StockException | RuntimeException e) {
+				// one pharmacy must not stop the others; it is reread on its next use
+				group.loaded = false;
+				logger.error("Expiry alerts of pharmacy " + group.pharmacyId + " not refreshed", e);
+			}
+		}
+	}
+
+	private PharmacyExpiry group(String pharmacyId) throws StockException {
+		PharmacyExpiry group = pharmacies.get(pharmacyId);
+		if (group == null) {
+			PharmacyExpiry created = new PharmacyExpiry(pharmacyId);
+			group = pharmacies.putIfAbsent(pharmacyId, created);
+			if (group == null) {
+				group = created;
+			}
+		}
+		if (!group.loaded) {
+			group.apply(read("m.pharmacy.pharmacyId = :pharmacyId", "pharmacyId", pharmacyId), null);
+		} else {
+			Set<String> stale = group.takeStale();
+			if (!stale.isEmpty()) {
+				group.apply(read("m.medicineId in (:ids)", "ids", stale), stale);
+			}
+		}
+		return group;
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<Object[]> read(String condition, String parameter, Object value) throws StockException {
+		Session session = null;
+		try {
+			session = SessionHelper.getSessionFactory().openSession();
+			Query query = session.createQuery("select m.medicineId, m.medicineName, m.batchNo, m.expiryDate, "
+					+ "m.quantityInStock from Medicines m where " + condition + " and m.expiryDate is not null")
+					.setReadOnly(true);
+			if (value instanceof Collection) {
+				query.setParameterList(parameter, (Collection<?>) value);
+			} else {
+				query.setParameter(parameter, value);
+			}
+			return query.list();
+		} catch (HibernateException e) {
+			logger.error("Hibernate error while reading medicine expiry dates", e);
+			throw new StockException("Hibernate error: medicine expiry dates not read", e);
+		} finally {
+			if (session != null)
+				session.close();
+		}
+	}
+
+	/** First day after the warning window; batches expiring before it alert. */
+	private long horizon(long today) {
+		return startOfDay(today, warnDays + 1);
+	}
+
+	private static long startOfDay(long time, int plusDays) {
+		Calendar day = Calendar.getInstance();
+		day.setTimeInMillis(time);
+		day.set(Calendar.HOUR_OF_DAY, 0);
+		day.set(Calendar.MINUTE, 0);
+		day.set(Calendar.SECOND, 0);
+		day.set(Calendar.MILLISECOND, 0);
+		day.add(Calendar.DAY_OF_MONTH, plusDays);
+		return day.getTimeInMillis();
+	}
+
+	/** Batches of one pharmacy; writers synchronize on this. */
+	private final class PharmacyExpiry {
+		private final String pharmacyId;
+		/** Batches with stock, earliest expiry first. */
+		private final ConcurrentSkipListSet<Batch> inStock = new ConcurrentSkipListSet<>(BY_EXPIRY);
+		private final Map<String, Batch> byId = new HashMap<>();
+		private final Set<String> stale = new HashSet<>();
+		private volatile boolean loaded;
+		// expired and total alerts of countedFor; countedFor is reset on every change
+		private int[] counts;
+		private long countedFor = -1;
+
+		PharmacyExpiry(String pharmacyId) {
+			this.pharmacyId = pharmacyId;
+		}
+
+		/**
+		 * Applies rows read from the table.
+		 *
+		 * @param scope ids that were read, or null for all batches of the
+		 *              pharmacy; batches in scope without a row are removed
+		 */
+		synchronized void apply(List<Object[]> rows, Set<String> scope) {
+			Set<String> seen = new HashSet<>();
+			for (Object[] row : rows) {
+				Date expiryDate = (Date) row[3];
+				Batch batch = new Batch((String) row[0], (String) row[1], row[2] == null ? "" : (String) row[2],
+						expiryDate, startOfDay(expiryDate.getTime(), 0), ((Number) row[4]).intValue());
+				seen.add(batch.medicineId);
+				replace(byId.get(batch.medicineId), batch);
+				owners.put(batch.medicineId, this);
+			}
+			for (Iterator<Batch> it = byId.values().iterator(); it.hasNext();) {
+				Batch batch = it.next();
+				if ((scope == null || scope.contains(batch.medicineId)) && !seen.contains(batch.medicineId)) {
+					inStock.remove(batch);
+					it.remove();
+					owners.remove(batch.medicineId, this);
+				}
+			}
+			countedFor = -1;
+			if (scope == null) {
+				loaded = true;
+				stale.clear();
+				if (logger.isDebugEnabled()) {
+					logger.debug("Expiry dates of " + pharmacyId + " loaded, " + byId.size() + " batches");
+				}
+			}
+		}
+
+		synchronized Set<String> takeStale() {
+			if (stale.isEmpty()) {
+				return Collections.emptySet();
+			}
+			Set<String> ids = new HashSet<>(stale);
+			stale.clear();
+			return ids;
+		}
+
+		synchronized void markStale(String medicineId) {
+			stale.add(medicineId);
+		}
+
+		synchronized void setQuantity(String medicineId, int quantity) {
+			Batch batch = byId.get(medicineId);
+			if (batch != null && batch.quantity != quantity) {
+				replace(batch, batch.withQuantity(quantity));
+				countedFor = -1;
+			}
+		}
+
+		/** Batches in stock expiring before the horizon, earliest first. */
+		NavigableSet<Batch> alerting(long horizon) {
+			return inStock.headSet(Batch.probe(horizon), false);
+		}
+
+		/**
+		 * @return expired and total alerts, recounted if a batch or the day
+		 *         changed since the last count
+		 */
+		synchronized int[] counts(long now) {
+			long today = startOfDay(now, 0);
+			if (countedFor != today) {
+				int expired = 0;
+				int total = 0;
+				for (Batch batch : alerting(horizon(today))) {
+					total++;
+					if (batch.day < today) {
+						expired++;
+					}
+				}
+				counts = new int[] { expired, total };
+				countedFor = today;
+			}
+			return counts;
+		}
+
+		private void replace(Batch old, Batch batch) {
+			if (old != null) {
+				inStock.remove(old);
+			}
+			byId.put(batch.medicineId, batch);
+			if (batch.quantity > 0) {
+				inStock.add(batch);
+			}
+		}
+	}
+
+	/** One row of the Medicines table; immutable, replaced on change. */
+	private static final class Batch {
+		private final String medicineId;
+		private final String medicineName;
+		private final String batchNo;
+		private final Date expiryDate;
+		/** Start of the expiry day. */
+		private final long day;
+		private final int quantity;
+
+		Batch(String medicineId, String medicineName, String batchNo, Date expiryDate, long day, int quantity) {
+			this.medicineId = medicineId;
+			this.medicineName = medicineName;
+			this.batchNo = batchNo;
+			this.expiryDate = expiryDate;
+			this.day = day;
+			this.quantity = quantity;
+		}
+
+		/** Sorts before every batch of the given day. */
+		static Batch probe(long day) {
+			return new Batch("", null, null, null, day, 0);
+		}
+
+		Batch withQuantity(int quantity) {
+			return new Batch(medicineId, medicineName, batchNo, expiryDate, day, quantity);
+		}
+	}
+}
@@ -0,0 +1,348 @@
+package com.infinite.jsf.pharmacy.daoImpl;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.log4j.Logger;
+import org.hibernate.HibernateException;
+import org.hibernate.Query;
+import org.hibernate.Session;
+
+import com.infinite.jsf.pharmacy.exception.InsufficientStockException;
+import com.infinite.jsf.pharmacy.exception.StockException;
+import com.infinite.jsf.pharmacy.exception.UnknownStockItemException;
+import com.infinite.jsf.pharmacy.model.BatchAllocation;
+import com.infinite.jsf.util.AppConfig;
+import com.infinite.jsf.util.SessionHelper;
+
+/**
+ * Copyright © 2025 Infinite Computer Solution. All rights reserved.
+ *
+ * First-expiry-first-out allocation over the batches of a medicine.
+ *
+ * <p>
+ * Every row of the Medicines table is one batch. Per pharmacy and medicine
+ * name the batches with stock sit in a min-heap ordered by expiry date, so an
+ * allocation takes the earliest batches from the top of the heap, spills over
+ * into the next ones until the quantity is filled and drops expired batches
+ * on the way; it costs O(k log n) for k batches used and never touches the
+ * database.
+ * </p>
+ *
+ * <p>
+ * The batches of a pharmacy are read once, with one projection, on its first
+ * allocation and again after {@code healthsure.fefo.ttlMs} (default 10
+ * minutes) to pick up rows added outside this application. In between they
+ * follow the stock: the {@link StockLedgerDaoImpl stock ledger} reports every
+ * quantity it reads or changes, renames come from the medicine edit, and
+ * batches whose quantity the ledger lost track of are reread by id before the
+ * next allocation of their pharmacy.
+ * </p>
+ *
+ * <p>
+ * An allocation is advice; the dispense of the chosen batches still goes
+ * through the ledger, which refuses stock that is gone.
+ * </p>
+ *
+ * @author Infinite Computer Solution
+ * @version 1.0
+ */
+public class FefoBatchAllocator {
+	private static final Logger logger = Logger.getLogger(FefoBatchAllocator.class);
+
+	private static final FefoBatchAllocator INSTANCE = new FefoBatchAllocator(
+			AppConfig.getLong("healthsure.fefo.ttlMs", 600000L));
+
+	/** Earliest expiry first; batch number and id keep the order stable. */
+	private static final Comparator<Batch> BY_EXPIRY = new Comparator<Batch>() {
+		@Override
+		public int compare(Batch a, Batch b) {
+			int result = Long.compare(a.expiresAt(), b.expiresAt());
+			if (result == 0) {
+				result = a.batchNo.compareTo(b.batchNo);
+			}
+			return result == 0 ? a.medicineId.compareTo(b.medicineId) : result;
+		}
+	};
+
+	private final long ttlMillis;
+	private final ConcurrentMap<String, PharmacyBatches> pharmacies = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, Batch> batches = new ConcurrentHashMap<>();
+
+	FefoBatchAllocator(long ttlMillis) {
+		this.ttlMillis = ttlMillis;
+	}
+
+	public static FefoBatchAllocator getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Chooses the batches to dispense a quantity of a medicine from.
+	 *
+	 * @param pharmacyId   dispensing pharmacy
+	 * @param medicineName medicine name, matched ignoring case
+	 * @param quantity     units needed
+	 * @return batches and units to take, earliest expiry first
+	 * @throws UnknownStockItemException  if the pharmacy has no such medicine
+	 * @throws InsufficientStockException if the unexpired batches hold fewer
+	 *                                    units
+	 * @throws StockException             if the batches cannot be read
+	 */
+	public List<BatchAllocation> allocate(String pharmacyId, String medicineName, int quantity)
+			throws StockException {
+		if (quantity < 1) {
+			throw new StockException("Quantity must be at least 1, was " + quantity);
+		}
+		PharmacyBatches group = pharmacies.get(pharmacyId);
+		if (group == null) {
+			PharmacyBatches created = new PharmacyBatches(pharmacyId);
+			group = pharmacies.putIfAbsent(pharmacyId, created);
+			if (group == null) {
+				group = created;
+			}
+		}
+		if (System.currentTimeMillis() - group.loadedAt > ttlMillis) {
+			group.apply(read("m.pharmacy.pharmacyId = :pharmacyId", "pharmacyId", pharmacyId), null);
+		} else {
+			Set<String> stale = group.takeStale();
+			if (!stale.isEmpty()) {
+				group.apply(read("m.medicineId in (:ids)", "ids", stale), stale);
+			}
+		}
+		return group.allocate(key(medicineName), quantity, startOfToday());
+	}
+
+	/**
+	 * Records the stored quantity of a batch; called by the stock ledger.
+	 */
+	void quantityChanged(String medicineId, int quantity) {
+		Batch batch = batches.get(medicineId);
+		if (batch != null) {
+			batch.group.setQuantity(batch, quantity);
+		}
+	}
+
+	/**
+	 * Marks a batch whose quantity is no longer known; it is reread before the
+	 * next allocation of its pharmacy.
+	 */
+	void markStale(String medicineId) {
+		Batch batch = batches.get(medicineId);
+		if (batch != null) {
+			batch.group.markStale(batch);
+		}
+	}
+
+	/**
+	 * Moves a batch to its new medicine name after an edit.
+	 */
+	void renamed(String medicineId, String medicineName) {
+		Batch batch = batches.get(medicineId);
+		if (batch != null && medicineName != null) {
+			batch.group.rename(batch, key(medicineName));
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<Object[]> read(String condition, String parameter, Object value) throws StockException {
+		Session session = null;
+		try {
+			session = SessionHelper.getSessionFactory().openSession();
+			Query query = session.createQuery("select m.medicineId, m.medicineName, m.batchNo, "
+					+ "m.expiryDate, m.quantityInStock from Medicines m where " + condition).setReadOnly(true);
+			if (value instanceof Collection) {
+				query.setParameterList(parameter, (Collection<?>) value);
+			} else {
+				query.setParameter(parameter, value);
+			}
+			return query.list();
+		} catch (HibernateException e) {
+			logger.error("Hibernate error while reading medicine batches", e);
+			throw new StockException("Hibernate error: medicine batches not read", e);
+		} finally {
+			if (session != null)
+				session.close();
+		}
+	}
+
+	private static String key(String medicineName) {
+		return medicineName == null ? "" : medicineName.trim().toLowerCase(Locale.ROOT);
+	}
+
+	private static long startOfToday() {
+		Calendar today = Calendar.getInstance();
+		today.set(Calendar.HOUR_OF_DAY, 0);
+		today.set(Calendar.MINUTE, 0);
+		today.set(Calendar.SECOND, 0);
+		today.set(Calendar.MILLISECOND, 0);
+		return today.getTimeInMillis();
+	}
+
+	/** Batches of one pharmacy; every field of its batches is guarded by this. */
+	private final class PharmacyBatches {
+		private final String pharmacyId;
+		private final Map<String, Batch> byId = new HashMap<>();
+		private final Map<String, PriorityQueue<Batch>> heaps = new HashMap<>();
+		private final Set<String> stale = new HashSet<>();
+		private volatile long loadedAt;
+
+		PharmacyBatches(String pharmacyId) {
+			this.pharmacyId = pharmacyId;
+		}
+
+		/**
+		 * Applies rows read from the table.
+		 *
+		 * @param scope ids that were read, or null for all batches of the
+		 *              pharmacy; batches in scope without a row are removed
+		 */
+		synchronized void apply(List<Object[]> rows, Set<String> scope) {
+			Set<String> seen = new HashSet<>();
+			for (Object[] row : rows) {
+				String id = (String) row[0];
+				seen.add(id);
+				Batch batch = byId.get(id);
+				if (batch == null) {
+					batch = new Batch(this, id);
+					byId.put(id, batch);
+					batches.put(id, batch);
+				} else {
+					dequeue(batch);
+				}
+				batch.nameKey = key((String) row[1]);
+				batch.batchNo = row[2] == null ? "" : (String) row[2];
+				batch.expiryDate = (Date) row[3];
+				batch.quantity = ((Number) row[4]).intValue();
+				enqueue(batch);
+			}
+			for (Iterator<Batch> it = byId.values().iterator(); it.hasNext();) {
+				Batch batch = it.next();
+				if ((scope == null || scope.contains(batch.medicineId)) && !seen.contains(batch.medicineId)) {
+					dequeue(batch);
+					it.remove();
+					batches.remove(batch.medicineId, batch);
+				}
+			}
+			if (scope == null) {
+				loadedAt = System.currentTimeMillis();
+				stale.clear();
+				if (logger.isDebugEnabled()) {
+					logger.debug("Medicine batches of " + pharmacyId + " loaded, " + byId.size() + " rows");
+				}
+			}
+		}
+
+		synchronized Set<String> takeStale() {
+			if (stale.isEmpty()) {
+				return Collections.emptySet();
+			}
+			Set<String> ids = new HashSet<>(stale);
+			stale.clear();
+			return ids;
+		}
+
+		synchronized void markStale(Batch batch) {
+			stale.add(batch.medicineId);
+		}
+
+		synchronized void setQuantity(Batch batch, int quantity) {
+			batch.quantity = quantity;
+			if (quantity > 0 && !batch.queued) {
+				enqueue(batch);
+			}
+			// a batch that ran out stays in its heap until an allocation meets it
+		}
+
+		synchronized void rename(Batch batch, String nameKey) {
+			if (!nameKey.equals(batch.nameKey)) {
+				dequeue(batch);
+				batch.nameKey = nameKey;
+				enqueue(batch);
+			}
+		}
+
+		synchronized List<BatchAllocation> allocate(String nameKey, int quantity, long today) throws StockException {
+			PriorityQueue<Batch> heap = heaps.get(nameKey);
+			if (heap == null) {
+				throw new UnknownStockItemException("Pharmacy " + pharmacyId + " has no medicine " + nameKey);
+			}
+			List<Batch> used = new ArrayList<>();
+			List<BatchAllocation> allocations = new ArrayList<>();
+			int remaining = quantity;
+			while (remaining > 0 && !heap.isEmpty()) {
+				Batch batch = heap.poll();
+				if (batch.quantity <= 0 || batch.expiresAt() < today) {
+					// empty or expired: out of the heap until the ledger reports stock again
+					batch.queued = false;
+					continue;
+				}
+				int take = Math.min(batch.quantity, remaining);
+				allocations.add(new BatchAllocation(batch.medicineId, batch.batchNo, batch.expiryDate, take));
+				remaining -= take;
+				used.add(batch);
+			}
+			// allocating does not change the stock; the dispense does
+			heap.addAll(used);
+			if (remaining > 0) {
+				throw new InsufficientStockException("Only " + (quantity - remaining) + " unexpired units of "
+						+ nameKey + " at pharmacy " + pharmacyId + ", " + quantity + " requested",
+						quantity - remaining);
+			}
+			return allocations;
+		}
+
+		private void enqueue(Batch batch) {
+			PriorityQueue<Batch> heap = heaps.get(batch.nameKey);
+			if (heap == null) {
+				heap = new PriorityQueue<>(11, BY_EXPIRY);
+				heaps.put(batch.nameKey, heap);
+			}
+			if (batch.quantity > 0 && !batch.queued) {
+				heap.add(batch);
+				batch.queued = true;
+			}
+		}
+
+		private void dequeue(Batch batch) {
+			if (batch.queued) {
+				heaps.get(batch.nameKey).remove(batch);
+				batch.queued = false;
+			}
+		}
+	}
+
+	/** One row of the Medicines table. */
+	private static final class Batch {
+		private final PharmacyBatches group;
+		private final String medicineId;
+		private String nameKey;
+		private String batchNo;
+		private Date expiryDate;
+		private int quantity;
+		private boolean queued;
+
+		Batch(PharmacyBatches group, String medicineId) {
+			this.group = group;
+			this.medicineId = medicineId;
+		}
+
+		long expiresAt() {
+			return expiryDate == null ? Long.MAX_VALUE : expiryDate.getTime();
+		}
+	}
+}
@@ -1,16 +1,34 @@
 package com.infinite.jsf.pharmacy.daoImpl;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.hibernate.Query;
 import org.hibernate.Session;
 
 import com.infinite.jsf.pharmacy.dao.MedicinesDao;
 import com.infinite.jsf.pharmacy.model.Medicines;
+import com.infinite.jsf.util.CacheHelper;
+import com.infinite.jsf.util.NameMatches;
 import com.infinite.jsf.util.SessionHelper;
 
 public class MedicinesDaoImpl implements MedicinesDao {
 
+    /** Names of the stock, per pharmacy; searched before falling back to LIKE. */
+    private static final StockNameIndex NAME_INDEX = new StockNameIndex("Medicines", "medicineId", "medicineName");
+
+    /** Most index matches looked up by id; larger results are read with LIKE. */
+    private static final int MAX_INDEXED_IDS = 1000;
+
+    /** Columns the stock view can be sorted by. */
+    private static final Set<String> SORT_PROPERTIES = new HashSet<>(
+            Arrays.asList("medicineName", "unitPrice", "expiryDate"));
+
     @Override
     public List<Medicines> getMedicinesByPharmacyId(String pharmacyId) {
         Session session = SessionHelper.getSessionFactory().openSession();
@@ -25,10 +43,14 @@ public class MedicinesDaoImpl implements MedicinesDao {
 
     @Override
     public List<Medicines> searchMedicinesStartingWith(String name, String pharmacyId) {
+        NameMatches matches = isBlank(name) ? null : NAME_INDEX.search(pharmacyId, name, false, 0, Integer.MAX_VALUE);
+        if (matches != null) {
+            return findByIds(matches.getIds());
+        }
         Session session = SessionHelper.getSessionFactory().openSession();
         try {
-            Query query = session.createQuery("from Medicines where lower(medicineName) like :name and pharmacy.pharmacyId = :pharmacyId");
-            query.setParameter("name", name.toLowerCase() + "%");
+            Query query = session.createQuery("from Medicines where lower(trim(medicineName)) like :name escape '!' and pharmacy.pharmacyId = :pharmacyId");
+            query.setParameter("name", StockNameIndex.likePattern(name, false));
             query.setParameter("pharmacyId", pharmacyId);
             return query.list();
         } finally {
@@ -38,14 +60,154 @@ public class MedicinesDaoImpl implements MedicinesDao {
 
     @Override
     public List<Medicines> searchMedicinesContaining(String name, String pharmacyId) {
+        NameMatches matches = isBlank(name) ? null : NAME_INDEX.search(pharmacyId, name, true, 0, Integer.MAX_VALUE);
+        if (matches != null) {
+            return findByIds(matches.getIds());
+        }
         Session session = SessionHelper.getSessionFactory().openSession();
         try {
-            Query query = session.createQuery("from Medicines where lower(medicineName) like :name and pharmacy.pharmacyId = :pharmacyId");
-            query.setParameter("name", "%" + name.toLowerCase() + "%");
+            Query query = session.createQuery("from Medicines where lower(trim(medicineName)) like :name escape '!' and pharmacy.pharmacyId = :pharmacyId");
+            query.setParameter("name", StockNameIndex.likePattern(name, true));
             query.setParameter("pharmacyId", pharmacyId);
             return query.list();
         } finally {
             session.close();
         }
     }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Medicines> findMedicinesPage(String pharmacyId, String name, boolean contains, String sortField,
+            boolean ascending, int firstResult, int maxResults) {
+        String property = SORT_PROPERTIES.contains(sortField) ? sortField : "medicineName";
+        String direction = ascending ? "asc" : "desc";
+        NameMatches matches = isBlank(name) ? null
+                : NAME_INDEX.search(pharmacyId, name, contains, 0, MAX_INDEXED_IDS + 1);
+        if (matches != null && matches.getTotal() == 0) {
+            return new ArrayList<>();
+        }
+        boolean indexed = matches != null && matches.getTotal() <= MAX_INDEXED_IDS;
+        Session session = SessionHelper.getSessionFactory().openSession();
+        try {
+            // medicineId breaks ties, so a row never shows on two pages
+            String where = indexed ? " where m.pharmacy.pharmacyId = :pharmacyId and m.medicineId in (:ids)" : where(name);
+            Query query = session.createQuery("from Medicines m" + where + " order by m." + property + " "
+                    + direction + ", m.medicineId " + direction);
+            if (indexed) {
+                // the index found the rows; the database only sorts and pages them by primary key
+                query.setParameter("pharmacyId", pharmacyId);
+                query.setParameterList("ids", matches.getIds());
+            } else {
+                bind(query, pharmacyId, name, contains);
+            }
+            query.setFirstResult(firstResult);
+            query.setMaxResults(maxResults);
+            query.setReadOnly(true);
+            return query.list();
+        } finally {
+            session.close();
+        }
+    }
+
+    @Override
+    public long countMedicines(String pharmacyId, String name, boolean contains) {
+        // the same rows as the page: the index ids while they are few enough, else LIKE;
+        // the database counts them, so rows deleted since the index loaded are left out
+        NameMatches matches = isBlank(name) ? null
+                : NAME_INDEX.search(pharmacyId, name, contains, 0, MAX_INDEXED_IDS + 1);
+        if (matches != null && matches.getTotal() == 0) {
+            return 0L;
+        }
+        boolean indexed = matches != null && matches.getTotal() <= MAX_INDEXED_IDS;
+        Session session = SessionHelper.getSessionFactory().openSession();
+        try {
+            String where = indexed ? " where m.pharmacy.pharmacyId = :pharmacyId and m.medicineId in (:ids)" : where(name);
+            Query query = session.createQuery("select count(m.medicineId) from Medicines m" + where);
+            if (indexed) {
+                query.setParameter("pharmacyId", pharmacyId);
+                query.setParameterList("ids", matches.getIds());
+            } else {
+                bind(query, pharmacyId, name, contains);
+            }
+            query.setCacheable(true);
+            query.setCacheRegion(CacheHelper.STOCK_QUERY_REGION);
+            Number count = (Number) query.uniqueResult();
+            return count == null ? 0L : count.longValue();
+        } finally {
+            session.close();
+        }
+    }
+
+    /**
+     * Records a medicine added or renamed outside Hibernate, e.g. through the
+     * EJB, in the name index, the batch allocator, the reorder points and the
+     * expiry alerts.
+     *
+     * @param pharmacyId owner of the medicine
+     * @param medicineId id of the medicine
+     * @param medicineName its new name
+     */
+    public static void indexMedicine(String pharmacyId, String medicineId, String medicineName) {
+        NAME_INDEX.put(pharmacyId, medicineId, medicineName);
+        FefoBatchAllocator.getInstance().renamed(medicineId, medicineName);
+        ReorderPointTracker.getInstance().renamed(medicineId, medicineName);
+        // the edit may have changed the expiry date or the batch as well
+        ExpiryIndex.getInstance().changed(pharmacyId, medicineId);
+    }
+
+    /**
+     * Forgets a deleted medicine in the name index and the expiry alerts; to
+     * be called by every path that deletes medicines.
+     *
+     * @param pharmacyId owner of the medicine
+     * @param medicineId id of the deleted medicine
+     */
+    public static void unindexMedicine(String pharmacyId, String medicineId) {
+        NAME_INDEX.remove(pharmacyId, medicineId);
+        ExpiryIndex.getInstance().changed(pharmacyId, medicineId);
+    }
+
+    /**
+     * Loads the rows of the given ids, in the order of the ids.
+     */
+    @SuppressWarnings("unchecked")
+    private List<Medicines> findByIds(List<String> ids) {
+        Map<String, Medicines> byId = new HashMap<>();
+        Session session = SessionHelper.getSessionFactory().openSession();
+        try {
+            for (int from = 0; from < ids.size(); from += MAX_INDEXED_IDS) {
+                List<Medicines> rows = session.createQuery("from Medicines m where m.medicineId in (:ids)")
+                        .setParameterList("ids", ids.subList(from, Math.min(ids.size(), from + MAX_INDEXED_IDS))).list();
+                for (Medicines row : rows) {
+                    byId.put(row.getMedicineId(), row);
+                }
+            }
+        } finally {
+            session.close();
+        }
+        List<Medicines> ordered = new ArrayList<>(byId.size());
+        for (String id : ids) {
+            Medicines row = byId.get(id);
+            if (row != null) {
+                ordered.add(row);
+            }
+        }
+        return ordered;
+    }
+
+    private static String where(String name) {
+        return isBlank(name) ? " where m.pharmacy.pharmacyId = :pharmacyId"
+                : " where m.pharmacy.pharmacyId = :pharmacyId and lower(trim(m.medicineName)) like :name escape '!'";
+    }
+
+    private static void bind(Query query, String pharmacyId, String name, boolean contains) {
+        query.setParameter("pharmacyId", pharmacyId);
+        if (!isBlank(name)) {
+            query.setParameter("name", StockNameIndex.likePattern(name, contains));
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
 }
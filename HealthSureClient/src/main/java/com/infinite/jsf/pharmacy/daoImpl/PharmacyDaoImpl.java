@@ -1,7 +1,10 @@
 package com.infinite.jsf.pharmacy.daoImpl;
 
-import java.sql.Timestamp;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Random;
+import java.util.Set;
 import org.hibernate.Query;
 import org.hibernate.Session;
 import org.hibernate.Transaction;
@@ -11,28 +14,58 @@ import com.infinite.jsf.pharmacy.model.Pharmacy;
 import com.infinite.jsf.pharmacy.model.PharmacyOtp;
 import com.infinite.jsf.pharmacy.model.Purpose;
 import com.infinite.jsf.pharmacy.model.Status;
+import com.infinite.jsf.util.IdGenerator;
 import com.infinite.jsf.util.MailSend;
+import com.infinite.jsf.util.OtpEntry;
+import com.infinite.jsf.util.OtpKey;
+import com.infinite.jsf.util.OtpStore;
+import com.infinite.jsf.util.RateLimiter;
 import com.infinite.jsf.util.SessionHelper;
+import com.infinite.jsf.util.UniqueFieldIndex;
 
 public class PharmacyDaoImpl implements PharmacyDao {
 
 	Session session;
 
+	/** Validity of the OTP mailed on registration. */
+	private static final long REGISTER_OTP_TTL_MILLIS = 2 * 60 * 1000L;
+
+	/** Validity of a resent OTP. */
+	private static final long RESEND_OTP_TTL_MILLIS = 10 * 60 * 1000L;
+
+	/**
+	 * Resend limit per e-mail: 5 per 30 minutes and 30 s between two, overridable
+	 * with healthsure.otp.pharmacy.resend.*
+	 */
+	private static final RateLimiter<String> RESEND_LIMITER = RateLimiter.fromConfig(
+			"healthsure.otp.pharmacy.resend", 5, 30 * 60 * 1000L, 30 * 1000L);
+
+	/** Unique properties of {@link Pharmacy}, as used by {@link #findTakenFields(Map)}. */
+	public static final String FIELD_EMAIL = "email";
+	public static final String FIELD_CONTACT_NO = "contactNo";
+	public static final String FIELD_GST_NO = "gstNo";
+	public static final String FIELD_OWNER_EMAIL = "ownerEmail";
+	public static final String FIELD_OWNER_MOBILE = "ownerMobile";
+	public static final String FIELD_AADHAR = "aadhar";
+
+	private static final UniqueFieldIndex UNIQUE_INDEX = new UniqueFieldIndex("Pharmacy", FIELD_EMAIL,
+			FIELD_CONTACT_NO, FIELD_GST_NO, FIELD_OWNER_EMAIL, FIELD_OWNER_MOBILE, FIELD_AADHAR);
+
+	/**
+	 * Builds the in-memory uniqueness filters from the pharmacy table; called
+	 * at startup so the first registration form does not pay for the scan.
+	 */
+	public static void rebuildUniqueIndex() {
+		UNIQUE_INDEX.rebuild();
+	}
+
 // generating 6 digit otp
 	public int generateOtp() {
 		return 100000 + new Random().nextInt(900000);
 	}
 
-	public static String getNextPharmacyId(Session session) {
-		String prefix = "PHM";
-		String hql = "select max(pharmacyId) from Pharmacy";
-		String maxId = (String) session.createQuery(hql).uniqueResult();
-		if (maxId == null) {
-			return prefix + "001";
-		}
-		int id = Integer.parseInt(maxId.substring(prefix.length()));
-		id++;
-		return String.format("%s%03d", prefix, id);
+	public static String getNextPharmacyId() {
+		return IdGenerator.next(IdGenerator.PHARMACY);
 	}
 
 // add/register pharmacy
@@ -41,7 +74,7 @@ public class PharmacyDaoImpl implements PharmacyDao {
 		session = SessionHelper.getSessionFactory().openSession();
 		Transaction trans = session.beginTransaction();
 
-		String nextId = getNextPharmacyId(session);
+		String nextId = getNextPharmacyId();
 		pharmacy.setPharmacyId(nextId);
 		pharmacy.setStatus("Pending");
 
@@ -53,26 +86,19 @@ public class PharmacyDaoImpl implements PharmacyDao {
 		try {
 			session.save(pharmacy);
 			trans.commit();
+			UNIQUE_INDEX.add(uniqueValues(pharmacy));
 		} catch (Exception e) {
 			if (e.getCause() instanceof org.hibernate.exception.ConstraintViolationException) {
 				return "Aadhar or GST allready exist";
 			}
 		}
 		int code = generateOtp();
-		Timestamp now = new Timestamp(System.currentTimeMillis());
-		Timestamp expiry = new Timestamp(now.getTime() + 2 * 60 * 1000);
-
-		PharmacyOtp otp = new PharmacyOtp();
-		otp.setOtpCode(String.valueOf(code));
-		otp.setStatus(Status.PENDING);
-		otp.setPurpose(Purpose.REGISTER);
-		otp.setPharmacyId(pharmacy.getPharmacyId());
-		otp.setCreatedAt(now);
-		otp.setExpiresAt(expiry);
-
-		trans = session.beginTransaction();
-		session.save(otp);
-		trans.commit();
+		OtpStore.Issue issue = PharmacyOtpStore.getInstance().issue(
+				PharmacyOtpStore.key(pharmacy.getPharmacyId(), Purpose.REGISTER), String.valueOf(code),
+				REGISTER_OTP_TTL_MILLIS);
+		if (!issue.isAllowed()) {
+			return "Pharmacy record added but OTP could not be generated. Please resend OTP.";
+		}
 
 		String subject = "Hi " + pharmacy.getPharmacyName() + ", your account is created";
 		String body = "Your OTP Code is " + code + ". Please use this to set your password.";
@@ -109,34 +135,23 @@ public class PharmacyDaoImpl implements PharmacyDao {
 		System.out.println("OTP: " + otp);
 		System.out.println("Expected status: PENDING");
 
-		String hql = "from PharmacyOtp where pharmacyId = :pharmacyId and otpCode = :otp and status = :status";
-		Query query = session.createQuery(hql);
-		query.setParameter("pharmacyId", pharmacy.getPharmacyId());
-		query.setParameter("otp", String.valueOf(otp));
-		query.setParameter("status", Status.PENDING);
+		OtpStore store = PharmacyOtpStore.getInstance();
+		OtpKey key = PharmacyOtpStore.key(pharmacy.getPharmacyId(), Purpose.REGISTER);
+		OtpEntry objOtp = store.findLatest(key);
 
-		PharmacyOtp objOtp = (PharmacyOtp) query.uniqueResult();
-
-		if (objOtp != null) {
-			Timestamp now = new Timestamp(System.currentTimeMillis());
-			if (now.after(objOtp.getExpiresAt())) {
+		if (objOtp != null && objOtp.matches(String.valueOf(otp))) {
+			if (objOtp.isExpired(System.currentTimeMillis())) {
 				// Mark OTP as expired
-				Transaction tx = session.beginTransaction();
-				objOtp.setStatus(Status.EXPIRED);
-				session.update(objOtp);
-				tx.commit();
-
+				store.invalidate(key);
 				return "Otp expired. Please resend OTP.";
 			}
 
 			// OTP is valid and not expired, proceed
 			String pwd = getAlphaNumericString();
-			objOtp.setStatus(Status.VERIFIED);
-			objOtp.setNewPassword(pwd);
-
-			Transaction trans = session.beginTransaction();
-			session.update(objOtp);
-			trans.commit();
+			if (!PharmacyOtpStore.markVerified(key, objOtp.getCode(), pwd)) {
+				return "Otp could not be verified. Please try again.";
+			}
+			store.invalidate(key);
 
 			String body = "Your One-Time Password for Login is: " + pwd;
 			MailSend.sendInfo(email, "One Time Password", body);
@@ -235,6 +250,9 @@ public class PharmacyDaoImpl implements PharmacyDao {
 	}
 
 	public String resendOtp(String email) {
+		if (email == null) {
+			return "No pharmacy found with this email.";
+		}
 		session = SessionHelper.getSessionFactory().openSession();
 
 		Query pharmacyQuery = session.createQuery("from Pharmacy where email = :email");
@@ -245,29 +263,26 @@ public class PharmacyDaoImpl implements PharmacyDao {
 			return "No pharmacy found with this email.";
 		}
 
+		// only known accounts take a permit, so unknown e-mails cannot use up a quota
+		RateLimiter.Decision decision = RESEND_LIMITER.tryAcquire(email.trim().toLowerCase(Locale.ROOT));
+		if (!decision.isAllowed()) {
+			long seconds = decision.getRetryAfterSeconds();
+			if (decision.getReason() == RateLimiter.Reason.COOLDOWN) {
+				return "Please wait " + seconds + " seconds before requesting another OTP.";
+			}
+			return "Too many OTP requests. Please try again in " + (seconds / 60) + " min " + (seconds % 60)
+					+ " sec.";
+		}
+
 		int newOtp = generateOtp();
-		Timestamp now = new Timestamp(System.currentTimeMillis());
-		Timestamp expiry = new Timestamp(now.getTime() + 10 * 60 * 1000);
-
-		// Invalidate previous OTPs by marking expired
-		Transaction tx = session.beginTransaction();
-		Query otpUpdate = session.createQuery(
-				"update PharmacyOtp set status = :expired where pharmacyId = :pharmacyId and status = :pending");
-		otpUpdate.setParameter("expired", Status.EXPIRED);
-		otpUpdate.setParameter("pharmacyId", pharmacy.getPharmacyId());
-		otpUpdate.setParameter("pending", Status.PENDING);
-		otpUpdate.executeUpdate();
-
-		// Save new OTP
-		PharmacyOtp newOtpObj = new PharmacyOtp();
-		newOtpObj.setOtpCode(String.valueOf(newOtp));
-		newOtpObj.setStatus(Status.PENDING);
-		newOtpObj.setPurpose(Purpose.REGISTER);
-		newOtpObj.setPharmacyId(pharmacy.getPharmacyId());
-		newOtpObj.setCreatedAt(now);
-		newOtpObj.setExpiresAt(expiry);
-		session.save(newOtpObj);
-		tx.commit();
+
+		// Replaces the previous OTP, which is marked expired in the same transaction
+		OtpStore.Issue issue = PharmacyOtpStore.getInstance().issue(
+				PharmacyOtpStore.key(pharmacy.getPharmacyId(), Purpose.REGISTER), String.valueOf(newOtp),
+				RESEND_OTP_TTL_MILLIS);
+		if (!issue.isAllowed()) {
+			return "OTP could not be generated. Please try again.";
+		}
 
 		// Send OTP mail
 		String subject = "Your new OTP code";
@@ -278,52 +293,52 @@ public class PharmacyDaoImpl implements PharmacyDao {
 	}
 
 // checking for duplicate Aadhar, GST,pharmacyEmail, OwnerEmail, PharmacyPhone, OwnerPhone
+
+	/**
+	 * Checks several unique fields at once. Values the in-memory filters have
+	 * never seen are answered without a query; the rest are confirmed with a
+	 * single projection query.
+	 *
+	 * @param candidates field constant of this class to entered value
+	 * @return the fields whose value is already registered
+	 */
+	public Set<String> findTakenFields(Map<String, String> candidates) {
+		return UNIQUE_INDEX.findTaken(candidates);
+	}
+
 	public boolean isAadharExists(String aadhar) {
-		session = SessionHelper.getSessionFactory().openSession();
-		Query query = session.createQuery("from Pharmacy where aadhar = :aadhar");
-		query.setParameter("aadhar", aadhar);
-		query.setMaxResults(1);
-		return query.uniqueResult() != null;
+		return UNIQUE_INDEX.isTaken(FIELD_AADHAR, aadhar);
 	}
 
 	public boolean isGstExists(String gstNo) {
-		session = SessionHelper.getSessionFactory().openSession();
-		Query query = session.createQuery("from Pharmacy where gstNo = :gst");
-		query.setParameter("gst", gstNo);
-		query.setMaxResults(1);
-		return query.uniqueResult() != null;
+		return UNIQUE_INDEX.isTaken(FIELD_GST_NO, gstNo);
 	}
 
 	public boolean isEmailExist(String email) {
-		session = SessionHelper.getSessionFactory().openSession();
-		Query query = session.createQuery("from Pharmacy where email = :email");
-		query.setParameter("email", email);
-		query.setMaxResults(1);
-		return query.uniqueResult() != null;
+		return UNIQUE_INDEX.isTaken(FIELD_EMAIL, email);
 	}
 
 	public boolean isOwnerEmailExist(String ownerEmail) {
-		session = SessionHelper.getSessionFactory().openSession();
-		Query query = session.createQuery("from Pharmacy where ownerEmail = :ownerEmail");
-		query.setParameter("ownerEmail", ownerEmail);
-		query.setMaxResults(1);
-		return query.uniqueResult() != null;
+		return UNIQUE_INDEX.isTaken(FIELD_OWNER_EMAIL, ownerEmail);
 	}
 
 	public boolean isOwnerMobileExist(String ownerMobile) {
-		session = SessionHelper.getSessionFactory().openSession();
-		Query query = session.createQuery("from Pharmacy where ownerMobile = :ownerMobile");
-		query.setParameter("ownerMobile", ownerMobile);
-		query.setMaxResults(1);
-		return query.uniqueResult() != null;
+		return UNIQUE_INDEX.isTaken(FIELD_OWNER_MOBILE, ownerMobile);
 	}
 
 	public boolean isPharmacyMobileExist(String PharmacyMobile) {
-		session = SessionHelper.getSessionFactory().openSession();
-		Query query = session.createQuery("from Pharmacy where contactNo = :contactNo");
-		query.setParameter("contactNo", PharmacyMobile);
-		query.setMaxResults(1);
-		return query.uniqueResult() != null;
+		return UNIQUE_INDEX.isTaken(FIELD_CONTACT_NO, PharmacyMobile);
+	}
+
+	private static Map<String, String> uniqueValues(Pharmacy pharmacy) {
+		Map<String, String> values = new LinkedHashMap<>();
+		values.put(FIELD_EMAIL, pharmacy.getEmail());
+		values.put(FIELD_CONTACT_NO, pharmacy.getContactNo());
+		values.put(FIELD_GST_NO, pharmacy.getGstNo());
+		values.put(FIELD_OWNER_EMAIL, pharmacy.getOwnerEmail());
+		values.put(FIELD_OWNER_MOBILE, pharmacy.getOwnerMobile());
+		values.put(FIELD_AADHAR, pharmacy.getAadhar());
+		return values;
 	}
 
 }
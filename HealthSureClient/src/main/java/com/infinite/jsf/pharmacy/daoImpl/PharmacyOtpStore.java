@@ -0,0 +1,167 @@
+package com.infinite.jsf.pharmacy.daoImpl;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+
+import com.infinite.jsf.pharmacy.model.PharmacyOtp;
+import com.infinite.jsf.pharmacy.model.Purpose;
+import com.infinite.jsf.pharmacy.model.Status;
+import com.infinite.jsf.util.OtpEntry;
+import com.infinite.jsf.util.OtpKey;
+import com.infinite.jsf.util.OtpStore;
+import com.infinite.jsf.util.SessionHelper;
+
+/**
+ * Holds the in-memory OTP store of the pharmacy registration flow, keyed by
+ * pharmacy id and purpose, and writes it through to the Pharmacy_Otp table.
+ * Only PENDING codes live in the store; the VERIFIED row that carries the
+ * temporary password is still read from the table.
+ */
+public final class PharmacyOtpStore {
+
+	private static final Logger logger = Logger.getLogger(PharmacyOtpStore.class);
+
+	/** How far back a pharmacy's codes are reloaded after a restart. */
+	private static final long HISTORY_MILLIS = 30 * 60 * 1000L;
+
+	/**
+	 * Resend limits are applied per e-mail in PharmacyDaoImpl before the
+	 * pharmacy is looked up, so the store itself is not limited.
+	 */
+	private static final OtpStore STORE = new OtpStore("pharmacy", new PharmacyOtpPersister(), HISTORY_MILLIS);
+
+	private PharmacyOtpStore() {
+	}
+
+	public static OtpStore getInstance() {
+		return STORE;
+	}
+
+	public static OtpKey key(String pharmacyId, Purpose purpose) {
+		return new OtpKey(pharmacyId, purpose);
+	}
+
+	/**
+	 * Marks the PENDING row of the code as VERIFIED and stores the temporary
+	 * password on it.
+	 *
+	 * @return true if the row was updated
+	 */
+	static boolean markVerified(OtpKey key, String otpCode, String newPassword) {
+		Session session = null;
+		Transaction trans = null;
+		try {
+			session = SessionHelper.getSessionFactory().openSession();
+			trans = session.beginTransaction();
+			int updated = session.createQuery("update PharmacyOtp set status = :verified, newPassword = :pwd "
+					+ "where pharmacyId = :pharmacyId and purpose = :purpose and otpCode = :otp and status = :pending")
+					.setParameter("verified", Status.VERIFIED).setParameter("pwd", newPassword)
+					.setParameter("pharmacyId", key.getOwner()).setParameter("purpose", key.getPurpose())
+					.setParameter("otp", otpCode).setParameter("pending", Status.PENDING).executeUpdate();
+			trans.commit();
+			return updated > 0;
+		} catch (HibernateException e) {
+			if (trans != null)
+				trans.rollback();
+			logger.error("Could not mark OTP verified for " + key, e);
+			return false;
+		} finally {
+			if (session != null)
+				session.close();
+		}
+	}
+
+	/**
+	 * Maps store entries to Pharmacy_Otp rows.
+	 */
+	static class PharmacyOtpPersister implements OtpStore.Persister {
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public List<OtpEntry> loadSince(OtpKey key, Timestamp since) {
+			List<OtpEntry> entries = new ArrayList<>();
+			Session session = null;
+			try {
+				session = SessionHelper.getSessionFactory().openSession();
+				List<PharmacyOtp> rows = session
+						.createQuery("from PharmacyOtp where pharmacyId = :pharmacyId and purpose = :purpose "
+								+ "and createdAt >= :since order by createdAt")
+						.setParameter("pharmacyId", key.getOwner()).setParameter("purpose", key.getPurpose())
+						.setTimestamp("since", since).list();
+				for (PharmacyOtp otp : rows) {
+					entries.add(new OtpEntry(otp.getOtpCode(), otp.getCreatedAt().getTime(),
+							otp.getExpiresAt().getTime(), otp.getStatus() == Status.PENDING));
+				}
+			} catch (HibernateException e) {
+				// an empty history only means the key starts fresh on this node
+				logger.error("Could not load OTP history for " + key, e);
+			} finally {
+				if (session != null)
+					session.close();
+			}
+			return entries;
+		}
+
+		@Override
+		public boolean save(OtpKey key, OtpEntry entry) {
+			Session session = null;
+			Transaction trans = null;
+			try {
+				session = SessionHelper.getSessionFactory().openSession();
+				trans = session.beginTransaction();
+				expirePending(session, key);
+				PharmacyOtp otp = new PharmacyOtp();
+				otp.setPharmacyId(key.getOwner());
+				otp.setOtpCode(entry.getCode());
+				otp.setPurpose((Purpose) key.getPurpose());
+				otp.setStatus(Status.PENDING);
+				otp.setCreatedAt(entry.getCreatedAt());
+				otp.setExpiresAt(entry.getExpiresAt());
+				session.save(otp);
+				trans.commit();
+				return true;
+			} catch (HibernateException e) {
+				if (trans != null)
+					trans.rollback();
+				logger.error("Could not save OTP for " + key, e);
+				return false;
+			} finally {
+				if (session != null)
+					session.close();
+			}
+		}
+
+		@Override
+		public void deactivate(OtpKey key) {
+			Session session = null;
+			Transaction trans = null;
+			try {
+				session = SessionHelper.getSessionFactory().openSession();
+				trans = session.beginTransaction();
+				expirePending(session, key);
+				trans.commit();
+			} catch (HibernateException e) {
+				if (trans != null)
+					trans.rollback();
+				logger.error("Could not expire OTPs for " + key, e);
+			} finally {
+				if (session != null)
+					session.close();
+			}
+		}
+
+		private static void expirePending(Session session, OtpKey key) {
+			session.createQuery("update PharmacyOtp set status = :expired "
+					+ "where pharmacyId = :pharmacyId and purpose = :purpose and status = :pending")
+					.setParameter("expired", Status.EXPIRED).setParameter("pharmacyId", key.getOwner())
+					.setParameter("purpose", key.getPurpose()).setParameter("pending", Status.PENDING)
+					.executeUpdate();
+		}
+	}
+}
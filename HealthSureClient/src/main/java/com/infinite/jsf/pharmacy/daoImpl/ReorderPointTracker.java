@@ -0,0 +1,379 @@
+package com.infinite.jsf.pharmacy.daoImpl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.log4j.Logger;
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+
+import com.infinite.jsf.pharmacy.model.ReorderSuggestion;
+import com.infinite.jsf.util.AppConfig;
+import com.infinite.jsf.util.SessionHelper;
+
+/**
+ * Copyright © 2025 Infinite Computer Solution. All rights reserved.
+ *
+ * Tracks how fast each medicine of each pharmacy is dispensed and lists the
+ * medicines that will run out soon.
+ *
+ * <p>
+ * Every medicine has an exponentially decayed sum of the units dispensed,
+ * with a half-life of {@code healthsure.reorder.halfLifeDays} (default 14);
+ * divided by the decay time constant it is the recent daily usage. A dispense
+ * decays the sum to its own time and adds its units, so each update is O(1)
+ * and the dispensing history is never scanned again. The stock comes from the
+ * {@link StockLedgerDaoImpl stock ledger}, which reports every quantity it
+ * reads or changes; days of cover is stock divided by daily usage.
+ * </p>
+ *
+ * <p>
+ * Medicines are numbered densely as they are first seen and their state is
+ * kept in parallel primitive arrays indexed by that number. Updates are
+ * queued to a single background thread
+ * ({@code healthsure.reorder.queueSize}, default 10000 events; beyond that
+ * events are dropped and logged), so dispensing never waits for the tracker.
+ * A pharmacy is seeded on its first dashboard view from its medicines and
+ * the last {@code healthsure.reorder.historyDays} (default 56) days of its
+ * dispenses, summed per day; until then {@link #reorderSoon} returns null.
+ * </p>
+ *
+ * @author Infinite Computer Solution
+ * @version 1.0
+ */
+public class ReorderPointTracker {
+	private static final Logger logger = Logger.getLogger(ReorderPointTracker.class);
+
+	private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+	private static final int INITIAL_SLOTS = 256;
+	/** Stock not reported yet. */
+	private static final int UNKNOWN = -1;
+
+	private static final ReorderPointTracker INSTANCE = new ReorderPointTracker(
+			AppConfig.getInt("healthsure.reorder.halfLifeDays", 14), AppConfig.getInt("healthsure.reorder.historyDays", 56),
+			AppConfig.getInt("healthsure.reorder.coverDays", 14), AppConfig.getInt("healthsure.reorder.queueSize", 10000));
+
+	private final double tauDays;
+	private final int historyDays;
+	private final double coverDays;
+	private final ThreadPoolExecutor worker;
+	private final Set<String> seedsRequested = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+	// written by the worker thread only, under the write lock
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private final Map<String, Integer> slots = new HashMap<>();
+	private final Map<String, PharmacySlots> pharmacies = new HashMap<>();
+	private String[] medicineIds = new String[INITIAL_SLOTS];
+	private String[] names = new String[INITIAL_SLOTS];
+	private int[] stock = new int[INITIAL_SLOTS];
+	private double[] decayed = new double[INITIAL_SLOTS];
+	private long[] decayedAt = new long[INITIAL_SLOTS];
+	private int slotCount;
+
+	ReorderPointTracker(int halfLifeDays, int historyDays, int coverDays, int queueSize) {
+		this.tauDays = Math.max(1, halfLifeDays) / Math.log(2);
+		this.historyDays = Math.max(1, historyDays);
+		this.coverDays = coverDays;
+		this.worker = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<Runnable>(Math.max(1, queueSize)), new ThreadFactory() {
+					@Override
+					public Thread newThread(Runnable task) {
+						Thread thread = new Thread(task, "healthsure-reorder");
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+	}
+
+	public static ReorderPointTracker getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Stops the worker thread; called when the application is undeployed.
+	 */
+	public static void shutdown() {
+		INSTANCE.worker.shutdownNow();
+	}
+
+	/**
+	 * Records committed dispense rows.
+	 *
+	 * @param pharmacyId    dispensing pharmacy
+	 * @param medicineId    medicine dispensed
+	 * @param quantity      units dispensed
+	 * @param dispensedAt   time just before the commit
+	 * @param adjustStock   true if the stock ledger did not see the dispense,
+	 *                      e.g. it went through the EJB, so the tracked stock
+	 *                      must be lowered here
+	 */
+	public void recordDispense(final String pharmacyId, final String medicineId, final int quantity,
+			final long dispensedAt, final boolean adjustStock) {
+		submit(new Runnable() {
+			@Override
+			public void run() {
+				lock.writeLock().lock();
+				try {
+					PharmacySlots pharmacy = pharmacies.get(pharmacyId);
+					if (pharmacy == null || dispensedAt < pharmacy.seededAt) {
+						// the seed reads this dispense from the table
+						return;
+					}
+					int slot = slot(pharmacy, medicineId);
+					addUsage(slot, quantity, dispensedAt);
+					if (adjustStock && stock[slot] != UNKNOWN) {
+						stock[slot] = Math.max(0, stock[slot] - quantity);
+					}
+				} finally {
+					lock.writeLock().unlock();
+				}
+			}
+		});
+	}
+
+	/**
+	 * Records the stored quantity of a medicine; called by the stock ledger.
+	 */
+	void stockChanged(final String medicineId, final int quantity) {
+		submit(new Runnable() {
+			@Override
+			public void run() {
+				lock.writeLock().lock();
+				try {
+					Integer slot = slots.get(medicineId);
+					if (slot != null) {
+						stock[slot] = quantity;
+					}
+				} finally {
+					lock.writeLock().unlock();
+				}
+			}
+		});
+	}
+
+	/**
+	 * Records the new name of a medicine after an edit.
+	 */
+	void renamed(final String medicineId, final String medicineName) {
+		submit(new Runnable() {
+			@Override
+			public void run() {
+				lock.writeLock().lock();
+				try {
+					Integer slot = slots.get(medicineId);
+					if (slot != null) {
+						names[slot] = medicineName;
+					}
+				} finally {
+					lock.writeLock().unlock();
+				}
+			}
+		});
+	}
+
+	/**
+	 * Lists the medicines of a pharmacy whose stock covers at most
+	 * {@code healthsure.reorder.coverDays} days of usage, fewest days first.
+	 *
+	 * @param pharmacyId pharmacy of the dashboard
+	 * @param limit      most medicines to return
+	 * @return the medicines to reorder, or null while the pharmacy is being
+	 *         seeded
+	 */
+	public List<ReorderSuggestion> reorderSoon(String pharmacyId, int limit) {
+		long now = System.currentTimeMillis();
+		List<ReorderSuggestion> suggestions = new ArrayList<>();
+		lock.readLock().lock();
+		try {
+			PharmacySlots pharmacy = pharmacies.get(pharmacyId);
+			if (pharmacy == null) {
+				requestSeed(pharmacyId);
+				return null;
+			}
+			for (int i = 0; i < pharmacy.size; i++) {
+				int slot = pharmacy.slots[i];
+				double usage = dailyUsage(slot, now);
+				if (usage <= 0 || stock[slot] == UNKNOWN) {
+					continue;
+				}
+				double cover = stock[slot] / usage;
+				if (cover <= coverDays) {
+					suggestions.add(new ReorderSuggestion(medicineIds[slot],
+							names[slot] == null ? medicineIds[slot] : names[slot], stock[slot], usage, cover));
+				}
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+		Collections.sort(suggestions, new Comparator<ReorderSuggestion>() {
+			@Override
+			public int compare(ReorderSuggestion a, ReorderSuggestion b) {
+				return Double.compare(a.getDaysOfCover(), b.getDaysOfCover());
+			}
+		});
+		return suggestions.size() > limit ? new ArrayList<>(suggestions.subList(0, limit)) : suggestions;
+	}
+
+	private void requestSeed(final String pharmacyId) {
+		if (!seedsRequested.add(pharmacyId)) {
+			return;
+		}
+		boolean queued = submit(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					seed(pharmacyId);
+				} catch (HibernateException e) {
+					logger.error("Could not seed reorder points of pharmacy " + pharmacyId, e);
+				} finally {
+					seedsRequested.remove(pharmacyId);
+				}
+			}
+		});
+		if (!queued) {
+			seedsRequested.remove(pharmacyId);
+		}
+	}
+
+	/**
+	 * Reads the medicines of a pharmacy and its recent dispenses summed per
+	 * day; runs on the worker thread.
+	 */
+	@SuppressWarnings("unchecked")
+	private void seed(String pharmacyId) {
+		long seededAt = System.currentTimeMillis();
+		Calendar since = Calendar.getInstance();
+		since.add(Calendar.DAY_OF_MONTH, -historyDays);
+		List<Object[]> medicines;
+		List<Object[]> history;
+		Session session = null;
+		try {
+			session = SessionHelper.getSessionFactory().openSession();
+			medicines = session
+					.createQuery("select m.medicineId, m.medicineName, m.quantityInStock from Medicines m "
+							+ "where m.pharmacy.pharmacyId = :pharmacyId")
+					.setString("pharmacyId", pharmacyId).setReadOnly(true).list();
+			history = session
+					.createQuery("select d.medicines.medicineId, d.dispenseDate, sum(d.quantityDispensed) "
+							+ "from DispensedMedicines d where d.pharmacy.pharmacyId = :pharmacyId "
+							+ "and d.dispenseDate >= :since group by d.medicines.medicineId, d.dispenseDate "
+							+ "order by d.dispenseDate")
+					.setString("pharmacyId", pharmacyId).setDate("since", since.getTime()).setReadOnly(true).list();
+		} finally {
+			if (session != null)
+				session.close();
+		}
+
+		lock.writeLock().lock();
+		try {
+			PharmacySlots pharmacy = new PharmacySlots(seededAt);
+			for (Object[] row : medicines) {
+				int slot = slot(pharmacy, (String) row[0]);
+				names[slot] = (String) row[1];
+				stock[slot] = ((Number) row[2]).intValue();
+			}
+			for (Object[] row : history) {
+				// a day's dispenses count from its middle
+				long at = ((Date) row[1]).getTime() + DAY_MILLIS / 2;
+				addUsage(slot(pharmacy, (String) row[0]), ((Number) row[2]).intValue(), Math.min(at, seededAt));
+			}
+			pharmacies.put(pharmacyId, pharmacy);
+		} finally {
+			lock.writeLock().unlock();
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Reorder points of " + pharmacyId + " seeded with " + medicines.size() + " medicines and "
+					+ history.size() + " dispensing days in " + (System.currentTimeMillis() - seededAt) + " ms");
+		}
+	}
+
+	private boolean submit(Runnable task) {
+		try {
+			worker.execute(task);
+			return true;
+		} catch (RejectedExecutionException e) {
+			logger.warn("Reorder point update dropped, queue full or worker stopped");
+			return false;
+		}
+	}
+
+	/** Slot of a medicine, allocated and listed under its pharmacy on first sight. */
+	private int slot(PharmacySlots pharmacy, String medicineId) {
+		Integer slot = slots.get(medicineId);
+		if (slot != null) {
+			return slot;
+		}
+		if (slotCount == medicineIds.length) {
+			int capacity = slotCount * 2;
+			medicineIds = Arrays.copyOf(medicineIds, capacity);
+			names = Arrays.copyOf(names, capacity);
+			stock = Arrays.copyOf(stock, capacity);
+			decayed = Arrays.copyOf(decayed, capacity);
+			decayedAt = Arrays.copyOf(decayedAt, capacity);
+		}
+		int created = slotCount++;
+		medicineIds[created] = medicineId;
+		stock[created] = UNKNOWN;
+		slots.put(medicineId, created);
+		pharmacy.add(created);
+		return created;
+	}
+
+	private void addUsage(int slot, int quantity, long at) {
+		if (decayedAt[slot] == 0L) {
+			decayed[slot] = quantity;
+			decayedAt[slot] = at;
+		} else if (at >= decayedAt[slot]) {
+			decayed[slot] = decayed[slot] * decay(at - decayedAt[slot]) + quantity;
+			decayedAt[slot] = at;
+		} else {
+			// late event: weigh it at its own age instead of moving the clock back
+			decayed[slot] += quantity * decay(decayedAt[slot] - at);
+		}
+	}
+
+	private double dailyUsage(int slot, long now) {
+		if (decayedAt[slot] == 0L) {
+			return 0;
+		}
+		return decayed[slot] * decay(Math.max(0L, now - decayedAt[slot])) / tauDays;
+	}
+
+	private double decay(long elapsedMillis) {
+		return Math.exp(-(elapsedMillis / (double) DAY_MILLIS) / tauDays);
+	}
+
+	/** Slots of the medicines of one pharmacy. */
+	private static final class PharmacySlots {
+		private final long seededAt;
+		private int[] slots = new int[16];
+		private int size;
+
+		PharmacySlots(long seededAt) {
+			this.seededAt = seededAt;
+		}
+
+		void add(int slot) {
+			if (size == slots.length) {
+				slots = Arrays.copyOf(slots, size * 2);
+			}
+			slots[size++] = slot;
+		}
+	}
+}
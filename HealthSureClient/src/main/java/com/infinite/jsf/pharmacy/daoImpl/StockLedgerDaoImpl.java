@@ -0,0 +1,374 @@
+package com.infinite.jsf.pharmacy.daoImpl;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.log4j.Logger;
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+
+import com.infinite.jsf.pharmacy.dao.StockLedgerDao;
+import com.infinite.jsf.pharmacy.exception.InsufficientStockException;
+import com.infinite.jsf.pharmacy.exception.StockException;
+import com.infinite.jsf.pharmacy.exception.UnknownStockItemException;
+import com.infinite.jsf.pharmacy.model.StockItemType;
+import com.infinite.jsf.pharmacy.model.StockReservation;
+import com.infinite.jsf.util.AppConfig;
+import com.infinite.jsf.util.SessionHelper;
+
+/**
+ * Copyright © 2025 Infinite Computer Solution. All rights reserved.
+ *
+ * Stock ledger backed by per-item counters in memory and conditional UPDATEs
+ * in the database.
+ *
+ * <p>
+ * Every medicine or equipment touched by a dispense has a counter with its
+ * stored quantity and the units reserved on this node. Reserving only changes
+ * the counter, under one of a fixed set of striped locks, so dispenses of
+ * different items never wait for each other and no row or table is locked
+ * while a pharmacist fills in a form. Committing runs
+ * {@code UPDATE ... SET quantity = quantity - ? WHERE id = ? AND quantity >= ?};
+ * the database has the last word, so stock taken by another node can make a
+ * commit fail but can never be oversold.
+ * </p>
+ *
+ * <p>
+ * Stored quantities are reread after {@code healthsure.stock.refreshMs}
+ * (default 5 seconds) and before a reservation is refused. Reservations not
+ * committed or released within {@code healthsure.stock.reservationTtlMs}
+ * (default 15 minutes) are released.
+ * </p>
+ *
+ * @author Infinite Computer Solution
+ * @version 1.0
+ */
+public class StockLedgerDaoImpl implements StockLedgerDao {
+	private static final Logger logger = Logger.getLogger(StockLedgerDaoImpl.class);
+	private static final SessionFactory factory = SessionHelper.getSessionFactory();
+
+	private static final int STRIPES = 64;
+	private static final int SWEEP_INTERVAL = 256;
+	/** Quantity of an item that does not exist. */
+	private static final int MISSING = -1;
+	/** Quantity not read yet, or to be reread. */
+	private static final int UNKNOWN = -2;
+
+	private static final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+	static {
+		for (int i = 0; i < STRIPES; i++) {
+			locks[i] = new ReentrantLock();
+		}
+	}
+
+	// shared by all instances: the faces-config beans and the dispensing code
+	private static final ConcurrentMap<String, SkuCounter> counters = new ConcurrentHashMap<>();
+	private static final ConcurrentMap<String, StockReservation> reservations = new ConcurrentHashMap<>();
+	private static final AtomicInteger operations = new AtomicInteger();
+
+	private final long refreshMillis = AppConfig.getLong("healthsure.stock.refreshMs", 5000L);
+	private final long reservationTtlMillis = AppConfig.getLong("healthsure.stock.reservationTtlMs", 900000L);
+
+	@Override
+	public StockReservation reserve(StockItemType type, String skuId, int quantity) throws StockException {
+		if (quantity < 1) {
+			throw new StockException("Quantity must be at least 1, was " + quantity);
+		}
+		if (operations.incrementAndGet() % SWEEP_INTERVAL == 0) {
+			releaseExpired();
+		}
+		String key = key(type, skuId);
+		SkuCounter counter = counter(key);
+		ReentrantLock lock = lockFor(key);
+
+		// read outside the lock so a slow query never blocks the other items of the stripe
+		Integer stored = counter.isStale(System.currentTimeMillis(), refreshMillis) ? readQuantity(type, skuId)
+				: null;
+		while (true) {
+			lock.lock();
+			try {
+				if (stored != null) {
+					counter.load(stored);
+					stockChanged(type, skuId, stored);
+				}
+				if (counter.onHand == MISSING) {
+					throw new UnknownStockItemException(type + " " + skuId + " does not exist");
+				}
+				int free = counter.onHand - counter.reserved;
+				if (free >= quantity) {
+					counter.reserved += quantity;
+					StockReservation reservation = new StockReservation(UUID.randomUUID().toString(), type, skuId,
+							quantity, System.currentTimeMillis() + reservationTtlMillis);
+					reservations.put(reservation.getReservationId(), reservation);
+					if (logger.isDebugEnabled()) {
+						logger.debug("Reserved " + reservation + ", " + (free - quantity) + " left");
+					}
+					return reservation;
+				}
+				if (stored != null) {
+					throw new InsufficientStockException("Only " + Math.max(0, free) + " of " + type + " " + skuId
+							+ " available, " + quantity + " requested", Math.max(0, free));
+				}
+			} finally {
+				lock.unlock();
+			}
+			// the cached quantity may miss a restock made elsewhere; ask the table once before refusing
+			stored = readQuantity(type, skuId);
+		}
+	}
+
+	@Override
+	public void commit(StockReservation reservation) throws StockException {
+		if (!close(reservation)) {
+			throw new StockException("Reservation " + reservation.getReservationId()
+					+ " is not open; it was committed, released or has expired");
+		}
+		Session session = null;
+		Transaction trans = null;
+		boolean taken;
+		try {
+			session = factory.openSession();
+			trans = session.beginTransaction();
+			taken = decrement(session, reservation);
+			trans.commit();
+		} catch (HibernateException e) {
+			if (trans != null)
+				trans.rollback();
+			settle(reservation, false);
+			logger.error("Hibernate error while committing " + reservation, e);
+			throw new StockException("Hibernate error: stock not updated, reservation released", e);
+		} finally {
+			if (session != null)
+				session.close();
+		}
+
+		settle(reservation, taken);
+		if (!taken) {
+			throw new InsufficientStockException("Stock of " + reservation.getType() + " " + reservation.getSkuId()
+					+ " was taken elsewhere; " + reservation.getQuantity() + " units not dispensed", 0);
+		}
+	}
+
+	@Override
+	public void release(StockReservation reservation) {
+		if (reservations.remove(reservation.getReservationId()) != null) {
+			unreserve(reservation);
+		}
+	}
+
+	@Override
+	public void restock(StockItemType type, String skuId, int quantity) throws StockException {
+		if (quantity < 1) {
+			throw new StockException("Quantity must be at least 1, was " + quantity);
+		}
+		Session session = null;
+		Transaction trans = null;
+		int updated;
+		try {
+			session = factory.openSession();
+			trans = session.beginTransaction();
+			updated = session
+					.createQuery("update " + type.getEntityName() + " s set s." + type.getQuantityProperty() + " = s."
+							+ type.getQuantityProperty() + " + :quantity where s." + type.getIdProperty() + " = :id")
+					.setInteger("quantity", quantity).setString("id", skuId).executeUpdate();
+			trans.commit();
+		} catch (HibernateException e) {
+			if (trans != null)
+				trans.rollback();
+			logger.error("Hibernate error while restocking " + type + " " + skuId, e);
+			throw new StockException("Hibernate error: stock not updated", e);
+		} finally {
+			if (session != null)
+				session.close();
+		}
+		if (updated == 0) {
+			throw new UnknownStockItemException(type + " " + skuId + " does not exist");
+		}
+
+		String key = key(type, skuId);
+		ReentrantLock lock = lockFor(key);
+		lock.lock();
+		try {
+			SkuCounter counter = counters.get(key);
+			if (counter != null && counter.onHand >= 0) {
+				counter.onHand += quantity;
+				stockChanged(type, skuId, counter.onHand);
+			} else {
+				stockChanged(type, skuId, UNKNOWN);
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public int available(StockItemType type, String skuId) throws StockException {
+		String key = key(type, skuId);
+		SkuCounter counter = counter(key);
+		Integer stored = counter.isStale(System.currentTimeMillis(), refreshMillis) ? readQuantity(type, skuId)
+				: null;
+		ReentrantLock lock = lockFor(key);
+		lock.lock();
+		try {
+			if (stored != null) {
+				counter.load(stored);
+				stockChanged(type, skuId, stored);
+			}
+			return counter.onHand < 0 ? 0 : Math.max(0, counter.onHand - counter.reserved);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Takes the units of a reservation out of the table inside the caller's
+	 * transaction.
+	 *
+	 * @return false if fewer units were stored than reserved; nothing changed
+	 *         then
+	 */
+	boolean decrement(Session session, StockReservation reservation) {
+		StockItemType type = reservation.getType();
+		String quantity = type.getQuantityProperty();
+		int updated = session
+				.createQuery("update " + type.getEntityName() + " s set s." + quantity + " = s." + quantity
+						+ " - :quantity where s." + type.getIdProperty() + " = :id and s." + quantity + " >= :quantity")
+				.setInteger("quantity", reservation.getQuantity()).setString("id", reservation.getSkuId())
+				.executeUpdate();
+		return updated == 1;
+	}
+
+	/**
+	 * Takes an open reservation out of the ledger so that it can be decremented
+	 * by the caller's own statements, e.g. a batched dispense; the caller must
+	 * {@link #settle} it afterwards.
+	 *
+	 * @return false if the reservation was already committed, released or
+	 *         expired
+	 */
+	boolean close(StockReservation reservation) {
+		return reservations.remove(reservation.getReservationId()) != null;
+	}
+
+	/**
+	 * Moves a finished reservation out of the counter: the units leave the
+	 * stock if they were taken, otherwise the stored quantity is reread.
+	 */
+	void settle(StockReservation reservation, boolean taken) {
+		String key = key(reservation.getType(), reservation.getSkuId());
+		ReentrantLock lock = lockFor(key);
+		lock.lock();
+		try {
+			SkuCounter counter = counter(key);
+			counter.reserved = Math.max(0, counter.reserved - reservation.getQuantity());
+			if (taken && counter.onHand >= 0) {
+				counter.onHand = Math.max(0, counter.onHand - reservation.getQuantity());
+			} else if (!taken) {
+				counter.onHand = UNKNOWN;
+			}
+			stockChanged(reservation.getType(), reservation.getSkuId(), counter.onHand);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void unreserve(StockReservation reservation) {
+		String key = key(reservation.getType(), reservation.getSkuId());
+		ReentrantLock lock = lockFor(key);
+		lock.lock();
+		try {
+			SkuCounter counter = counter(key);
+			counter.reserved = Math.max(0, counter.reserved - reservation.getQuantity());
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void releaseExpired() {
+		long now = System.currentTimeMillis();
+		for (StockReservation reservation : reservations.values()) {
+			if (reservation.getExpiresAt() < now && reservations.remove(reservation.getReservationId(), reservation)) {
+				unreserve(reservation);
+				logger.info("Released expired " + reservation);
+			}
+		}
+	}
+
+	private int readQuantity(StockItemType type, String skuId) throws StockException {
+		Session session = null;
+		try {
+			session = factory.openSession();
+			Number quantity = (Number) session
+					.createQuery("select s." + type.getQuantityProperty() + " from " + type.getEntityName()
+							+ " s where s." + type.getIdProperty() + " = :id")
+					.setString("id", skuId).uniqueResult();
+			return quantity == null ? MISSING : quantity.intValue();
+		} catch (HibernateException e) {
+			logger.error("Hibernate error while reading stock of " + type + " " + skuId, e);
+			throw new StockException("Hibernate error: stock not read", e);
+		} finally {
+			if (session != null)
+				session.close();
+		}
+	}
+
+	/**
+	 * Keeps the batch allocator, the reorder points and the expiry alerts in
+	 * step with the stock of medicines; a negative quantity means the stored
+	 * quantity is not known.
+	 */
+	private static void stockChanged(StockItemType type, String skuId, int onHand) {
+		if (type != StockItemType.MEDICINE) {
+			return;
+		}
+		if (onHand >= 0) {
+			FefoBatchAllocator.getInstance().quantityChanged(skuId, onHand);
+			ReorderPointTracker.getInstance().stockChanged(skuId, onHand);
+			ExpiryIndex.getInstance().quantityChanged(skuId, onHand);
+		} else {
+			FefoBatchAllocator.getInstance().markStale(skuId);
+			ExpiryIndex.getInstance().changed(null, skuId);
+		}
+	}
+
+	private static SkuCounter counter(String key) {
+		SkuCounter counter = counters.get(key);
+		if (counter == null) {
+			SkuCounter created = new SkuCounter();
+			counter = counters.putIfAbsent(key, created);
+			if (counter == null) {
+				counter = created;
+			}
+		}
+		return counter;
+	}
+
+	private static ReentrantLock lockFor(String key) {
+		return locks[(key.hashCode() & 0x7fffffff) % STRIPES];
+	}
+
+	private static String key(StockItemType type, String skuId) {
+		return type.name() + ':' + skuId;
+	}
+
+	/** Stored and reserved units of one item; changed under its stripe lock. */
+	private static final class SkuCounter {
+		private volatile int onHand = UNKNOWN;
+		private volatile long loadedAt;
+		private int reserved;
+
+		boolean isStale(long now, long refreshMillis) {
+			return onHand == UNKNOWN || now - loadedAt > refreshMillis;
+		}
+
+		void load(int stored) {
+			onHand = stored;
+			loadedAt = System.currentTimeMillis();
+		}
+	}
+}
@@ -0,0 +1,243 @@
+package com.infinite.jsf.pharmacy.daoImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+
+import org.apache.log4j.Logger;
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+
+import com.infinite.jsf.util.AppConfig;
+import com.infinite.jsf.util.NameIndex;
+import com.infinite.jsf.util.NameMatches;
+import com.infinite.jsf.util.SessionHelper;
+
+/**
+ * Copyright © 2025 Infinite Computer Solution. All rights reserved.
+ *
+ * Per-pharmacy {@link NameIndex} over the names of one stock table
+ * (medicines or equipment).
+ *
+ * <p>
+ * The index of a pharmacy is loaded in the background on its first search
+ * with one projection of the id and name columns; until it is ready
+ * {@link #search} returns null and the DAO answers with SQL. Writes made by
+ * this application are applied with {@link #put} and {@link #remove}; rows
+ * changed elsewhere are picked up when the index is reloaded after
+ * {@code healthsure.stockIndex.ttlMs} (default 10 minutes). At most {@code healthsure.stockIndex.maxPharmacies}
+ * pharmacies (default 500) are indexed; the others always use SQL.
+ * </p>
+ *
+ * @author Infinite Computer Solution
+ * @version 1.0
+ */
+public class StockNameIndex {
+	private static final Logger logger = Logger.getLogger(StockNameIndex.class);
+
+	private static final ExecutorService loader = Executors.newSingleThreadExecutor(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable task) {
+			Thread thread = new Thread(task, "healthsure-stock-index");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	private final String entityName;
+	private final String idProperty;
+	private final String nameProperty;
+	private final long ttlMillis;
+	private final long retryMillis;
+	private final int maxPharmacies;
+	private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+	/**
+	 * @param entityName   mapped stock entity, e.g. {@code Medicines}
+	 * @param idProperty   its id property
+	 * @param nameProperty its name property
+	 */
+	public StockNameIndex(String entityName, String idProperty, String nameProperty) {
+		this.entityName = entityName;
+		this.idProperty = idProperty;
+		this.nameProperty = nameProperty;
+		this.ttlMillis = AppConfig.getLong("healthsure.stockIndex.ttlMs", 600000L);
+		this.retryMillis = AppConfig.getLong("healthsure.stockIndex.retryMs", 60000L);
+		this.maxPharmacies = AppConfig.getInt("healthsure.stockIndex.maxPharmacies", 500);
+	}
+
+	/**
+	 * Searches the names of one pharmacy.
+	 *
+	 * @return one page of ranked ids, or null while the index of the pharmacy
+	 *         is not loaded
+	 * @see NameIndex#search(String, boolean, int, int)
+	 */
+	public NameMatches search(String pharmacyId, String query, boolean contains, int firstResult, int maxResults) {
+		if (pharmacyId == null) {
+			return null;
+		}
+		Entry entry = entries.get(pharmacyId);
+		if (entry == null) {
+			if (entries.size() >= maxPharmacies) {
+				return null;
+			}
+			Entry created = new Entry(pharmacyId);
+			entry = entries.putIfAbsent(pharmacyId, created);
+			if (entry == null) {
+				entry = created;
+			}
+		}
+		NameIndex index = entry.index;
+		long now = System.currentTimeMillis();
+		if ((index == null || now - entry.loadedAt > ttlMillis) && now - entry.failedAt >= retryMillis) {
+			// a stale index still answers while the fresh one loads
+			entry.scheduleLoad();
+		}
+		return index == null ? null : index.search(query, contains, firstResult, maxResults);
+	}
+
+	/**
+	 * Records a row that was added or renamed. Pharmacies without an index are
+	 * skipped; their index reads the row when it loads.
+	 *
+	 * @param pharmacyId owner of the row
+	 * @param id         row id
+	 * @param name       new name
+	 */
+	public void put(String pharmacyId, String id, String name) {
+		Entry entry = pharmacyId == null ? null : entries.get(pharmacyId);
+		if (entry != null) {
+			entry.put(id, name);
+		}
+	}
+
+	/**
+	 * Forgets a row that was deleted.
+	 *
+	 * @param pharmacyId owner of the row
+	 * @param id         row id
+	 */
+	public void remove(String pharmacyId, String id) {
+		// a null name removes the row, also from a load that is running
+		put(pharmacyId, id, null);
+	}
+
+	/**
+	 * Builds the pattern of the SQL fallback so it matches what the index
+	 * matches: the text is trimmed and lower-cased, and {@code %}, {@code _}
+	 * and the escape character itself are escaped. Use it with
+	 * {@code lower(trim(name)) like :name escape '!'}.
+	 *
+	 * @param text     text typed by the user
+	 * @param contains true to match anywhere in the name
+	 * @return the LIKE pattern
+	 */
+	public static String likePattern(String text, boolean contains) {
+		String escaped = text.trim().toLowerCase(Locale.ROOT).replace("!", "!!").replace("%", "!%").replace("_",
+				"!_");
+		return contains ? "%" + escaped + "%" : escaped + "%";
+	}
+
+	/**
+	 * Stops the loader thread; called when the application is undeployed.
+	 */
+	public static void shutdown() {
+		loader.shutdownNow();
+	}
+
+	@SuppressWarnings("unchecked")
+	private NameIndex read(String pharmacyId) {
+		Session session = null;
+		try {
+			session = SessionHelper.getSessionFactory().openSession();
+			List<Object[]> rows = session
+					.createQuery("select e." + idProperty + ", e." + nameProperty + " from " + entityName
+							+ " e where e.pharmacy.pharmacyId = :pharmacyId")
+					.setParameter("pharmacyId", pharmacyId).setReadOnly(true).list();
+			NameIndex index = new NameIndex();
+			for (Object[] row : rows) {
+				index.put((String) row[0], (String) row[1]);
+			}
+			return index;
+		} finally {
+			if (session != null) {
+				session.close();
+			}
+		}
+	}
+
+	/** Index of one pharmacy and its loading state. */
+	private final class Entry implements Runnable {
+		private final String pharmacyId;
+		private volatile NameIndex index;
+		private volatile long loadedAt;
+		private volatile long failedAt;
+		// guarded by this
+		private boolean loading;
+		private final List<String[]> pendingEdits = new ArrayList<>();
+
+		Entry(String pharmacyId) {
+			this.pharmacyId = pharmacyId;
+		}
+
+		synchronized void put(String id, String name) {
+			if (loading) {
+				// the running load may have read the old name
+				pendingEdits.add(new String[] { id, name });
+			}
+			if (index != null) {
+				index.put(id, name);
+			}
+		}
+
+		synchronized void scheduleLoad() {
+			if (loading) {
+				return;
+			}
+			loading = true;
+			try {
+				loader.execute(this);
+			} catch (RejectedExecutionException e) {
+				loading = false;
+			}
+		}
+
+		@Override
+		public void run() {
+			long start = System.currentTimeMillis();
+			try {
+				NameIndex fresh = read(pharmacyId);
+				synchronized (this) {
+					for (String[] edit : pendingEdits) {
+						fresh.put(edit[0], edit[1]);
+					}
+					index = fresh;
+					loadedAt = System.currentTimeMillis();
+				}
+				if (logger.isDebugEnabled()) {
+					logger.debug(entityName + " name index of " + pharmacyId + " loaded with " + fresh.size()
+							+ " rows in " + (System.currentTimeMillis() - start) + " ms");
+				}
+			} catch (HibernateException e) {
+				// searches keep using SQL until the retry delay has passed
+				failedAt = System.currentTimeMillis();
+				logger.error("Could not load " + entityName + " name index of " + pharmacyId, e);
+			} catch (RuntimeException e) {
+				failedAt = System.currentTimeMillis();
+				logger.error("Unexpected error loading " + entityName + " name index of " + pharmacyId, e);
+			} finally {
+				synchronized (this) {
+					loading = false;
+					pendingEdits.clear();
+				}
+			}
+		}
+	}
+}
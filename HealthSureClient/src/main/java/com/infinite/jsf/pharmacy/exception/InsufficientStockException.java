@@ -0,0 +1,21 @@
+package com.infinite.jsf.pharmacy.exception;
+
+/**
+ * Thrown when fewer units are available than requested; nothing was reserved
+ * or dispensed.
+ */
+public class InsufficientStockException extends StockException {
+
+	private final int available;
+
+	public InsufficientStockException(String message, int available) {
+		super(message);
+		this.available = available;
+	}
+
+	/** Units that could still be reserved when the request was refused. */
+	public int getAvailable() {
+		return available;
+	}
+
+}
@@ -0,0 +1,13 @@
+package com.infinite.jsf.pharmacy.exception;
+
+public class StockException extends Exception {
+
+	public StockException(String message) {
+		super(message);
+	}
+
+	public StockException(String message, Throwable throwable) {
+		super(message, throwable);
+	}
+
+}
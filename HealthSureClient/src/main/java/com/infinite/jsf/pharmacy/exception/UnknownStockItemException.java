@@ -0,0 +1,13 @@
+package com.infinite.jsf.pharmacy.exception;
+
+/**
+ * Thrown when a medicine or equipment id does not exist, or does not belong
+ * to the pharmacy that dispenses it.
+ */
+public class UnknownStockItemException extends StockException {
+
+	public UnknownStockItemException(String message) {
+		super(message);
+	}
+
+}
@@ -0,0 +1,57 @@
+/**
+ * Copyright © 2025 Infinite Computer Solution. All rights reserved.
+ */
+package com.infinite.jsf.pharmacy.model;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * Units to take from one medicine batch, as chosen by first-expiry-first-out
+ * allocation.
+ *
+ * @author Infinite Computer Solution
+ * @version 1.0
+ */
+public class BatchAllocation implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private final String medicineId;
+	private final String batchNo;
+	private final Date expiryDate;
+	private final int quantity;
+
+	public BatchAllocation(String medicineId, String batchNo, Date expiryDate, int quantity) {
+		this.medicineId = medicineId;
+		this.batchNo = batchNo;
+		this.expiryDate = expiryDate;
+		this.quantity = quantity;
+	}
+
+	/** Row of the batch in the Medicines table. */
+	public String getMedicineId() {
+		return medicineId;
+	}
+
+	public String getBatchNo() {
+		return batchNo;
+	}
+
+	public Date getExpiryDate() {
+		return expiryDate;
+	}
+
+	public int getQuantity() {
+		return quantity;
+	}
+
+	/** The dispense line taking these units. */
+	public DispenseLine toDispenseLine() {
+		return new DispenseLine(StockItemType.MEDICINE, medicineId, quantity);
+	}
+
+	@Override
+	public String toString() {
+		return "BatchAllocation [" + medicineId + " " + batchNo + " x" + quantity + "]";
+	}
+}
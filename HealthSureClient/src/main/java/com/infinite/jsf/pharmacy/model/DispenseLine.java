@@ -0,0 +1,60 @@
+/**
+ * Copyright © 2025 Infinite Computer Solution. All rights reserved.
+ */
+package com.infinite.jsf.pharmacy.model;
+
+import java.io.Serializable;
+
+/**
+ * One line of a prescription to dispense: a medicine or equipment and the
+ * units handed out.
+ *
+ * @author Infinite Computer Solution
+ * @version 1.0
+ */
+public class DispenseLine implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private StockItemType type;
+	private String itemId;
+	private int quantity;
+
+	public DispenseLine() {
+	}
+
+	public DispenseLine(StockItemType type, String itemId, int quantity) {
+		this.type = type;
+		this.itemId = itemId;
+		this.quantity = quantity;
+	}
+
+	public StockItemType getType() {
+		return type;
+	}
+
+	public void setType(StockItemType type) {
+		this.type = type;
+	}
+
+	/** Medicine or equipment id. */
+	public String getItemId() {
+		return itemId;
+	}
+
+	public void setItemId(String itemId) {
+		this.itemId = itemId;
+	}
+
+	public int getQuantity() {
+		return quantity;
+	}
+
+	public void setQuantity(int quantity) {
+		this.quantity = quantity;
+	}
+
+	@Override
+	public String toString() {
+		return "DispenseLine [" + type + " " + itemId + " x" + quantity + "]";
+	}
+}
@@ -0,0 +1,56 @@
+/**
+ * Copyright © 2025 Infinite Computer Solution. All rights reserved.
+ */
+package com.infinite.jsf.pharmacy.model;
+
+import java.io.Serializable;
+
+/**
+ * Result of one {@link DispenseLine}: its status, the id of the dispense row
+ * written for it, and for a shortage the units that were available.
+ *
+ * @author Infinite Computer Solution
+ * @version 1.0
+ */
+public class DispenseLineResult implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private final DispenseLine line;
+	private final DispenseStatus status;
+	private final String dispenseId;
+	private final int available;
+
+	public DispenseLineResult(DispenseLine line, DispenseStatus status, String dispenseId, int available) {
+		this.line = line;
+		this.status = status;
+		this.dispenseId = dispenseId;
+		this.available = available;
+	}
+
+	public DispenseLine getLine() {
+		return line;
+	}
+
+	public DispenseStatus getStatus() {
+		return status;
+	}
+
+	/** Id of the Dispensed_Medicines or Dispensed_Equipments row; null unless DISPENSED. */
+	public String getDispenseId() {
+		return dispenseId;
+	}
+
+	/** Units available when the line was refused for INSUFFICIENT_STOCK. */
+	public int getAvailable() {
+		return available;
+	}
+
+	public boolean isDispensed() {
+		return status == DispenseStatus.DISPENSED;
+	}
+
+	@Override
+	public String toString() {
+		return "DispenseLineResult [" + line + ", " + status + (dispenseId == null ? "" : ", " + dispenseId) + "]";
+	}
+}
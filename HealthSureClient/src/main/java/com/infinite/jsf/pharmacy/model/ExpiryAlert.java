@@ -0,0 +1,64 @@
+/**
+ * Copyright © 2025 Infinite Computer Solution. All rights reserved.
+ */
+package com.infinite.jsf.pharmacy.model;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * A medicine batch in stock that has expired or expires soon.
+ *
+ * @author Infinite Computer Solution
+ * @version 1.0
+ */
+public class ExpiryAlert implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private final String medicineId;
+	private final String medicineName;
+	private final String batchNo;
+	private final Date expiryDate;
+	private final int quantityInStock;
+	private final boolean expired;
+
+	public ExpiryAlert(String medicineId, String medicineName, String batchNo, Date expiryDate, int quantityInStock,
+			boolean expired) {
+		this.medicineId = medicineId;
+		this.medicineName = medicineName;
+		this.batchNo = batchNo;
+		this.expiryDate = expiryDate;
+		this.quantityInStock = quantityInStock;
+		this.expired = expired;
+	}
+
+	public String getMedicineId() {
+		return medicineId;
+	}
+
+	public String getMedicineName() {
+		return medicineName;
+	}
+
+	public String getBatchNo() {
+		return batchNo;
+	}
+
+	public Date getExpiryDate() {
+		return expiryDate;
+	}
+
+	public int getQuantityInStock() {
+		return quantityInStock;
+	}
+
+	/** True if the batch expired before today, false if it expires soon. */
+	public boolean isExpired() {
+		return expired;
+	}
+
+	@Override
+	public String toString() {
+		return "ExpiryAlert [" + medicineId + " " + batchNo + ", " + (expired ? "expired" : "near expiry") + "]";
+	}
+}
@@ -205,9 +205,7 @@ public class Pharmacy {
 				+ ", pinCode=" + pinCode + ", addressLine1=" + addressLine1 + ", firstName=" + firstName
 				+ ", middleName=" + middleName + ", lastName=" + lastName + ", gender=" + gender + ", ownerMobile="
 				+ ownerMobile + ", ownerEmail=" + ownerEmail + ", aadhar=" + aadhar + ", ownerAddress=" + ownerAddress
-				+ ", medicines=" + medicines + ", equipments=" + equipments + ", pharmacists=" + pharmacists
-				+ ", dispensedMedicines=" + dispensedMedicines + ", dispensedEquipments=" + dispensedEquipments
-				+ ", passwords=" + passwords + "]";
+				+ "]"; // collections are lazy and may not be loaded
 	}
 	
 	
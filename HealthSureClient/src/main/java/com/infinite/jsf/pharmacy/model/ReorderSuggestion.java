@@ -0,0 +1,59 @@
+/**
+ * Copyright © 2025 Infinite Computer Solution. All rights reserved.
+ */
+package com.infinite.jsf.pharmacy.model;
+
+import java.io.Serializable;
+
+/**
+ * A medicine that will run out soon at the current rate of dispensing.
+ *
+ * @author Infinite Computer Solution
+ * @version 1.0
+ */
+public class ReorderSuggestion implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private final String medicineId;
+	private final String medicineName;
+	private final int quantityInStock;
+	private final double dailyUsage;
+	private final double daysOfCover;
+
+	public ReorderSuggestion(String medicineId, String medicineName, int quantityInStock, double dailyUsage,
+			double daysOfCover) {
+		this.medicineId = medicineId;
+		this.medicineName = medicineName;
+		this.quantityInStock = quantityInStock;
+		this.dailyUsage = dailyUsage;
+		this.daysOfCover = daysOfCover;
+	}
+
+	public String getMedicineId() {
+		return medicineId;
+	}
+
+	public String getMedicineName() {
+		return medicineName;
+	}
+
+	public int getQuantityInStock() {
+		return quantityInStock;
+	}
+
+	/** Units dispensed per day, exponentially weighted towards recent days. */
+	public double getDailyUsage() {
+		return dailyUsage;
+	}
+
+	/** Days until the stock runs out at {@link #getDailyUsage()}. */
+	public double getDaysOfCover() {
+		return daysOfCover;
+	}
+
+	@Override
+	public String toString() {
+		return "ReorderSuggestion [" + medicineId + ", " + quantityInStock + " left, "
+				+ String.format("%.1f", daysOfCover) + " days]";
+	}
+}
@@ -0,0 +1,58 @@
+/**
+ * Copyright © 2025 Infinite Computer Solution. All rights reserved.
+ */
+package com.infinite.jsf.pharmacy.model;
+
+/**
+ * Kinds of stock kept by a pharmacy, with the mapped entity and properties
+ * the stock ledger reads and decrements, and the table and columns used by
+ * the batched JDBC statements of a dispense.
+ *
+ * @author Infinite Computer Solution
+ * @version 1.0
+ */
+public enum StockItemType {
+	MEDICINE("Medicines", "medicineId", "quantityInStock", "Medicines", "medicine_id", "quantity_in_stock"),
+	EQUIPMENT("Equipment", "equipmentId", "quantity", "Equipment", "equipment_id", "quantity");
+
+	private final String entityName;
+	private final String idProperty;
+	private final String quantityProperty;
+	private final String table;
+	private final String idColumn;
+	private final String quantityColumn;
+
+	StockItemType(String entityName, String idProperty, String quantityProperty, String table, String idColumn,
+			String quantityColumn) {
+		this.entityName = entityName;
+		this.idProperty = idProperty;
+		this.quantityProperty = quantityProperty;
+		this.table = table;
+		this.idColumn = idColumn;
+		this.quantityColumn = quantityColumn;
+	}
+
+	public String getEntityName() {
+		return entityName;
+	}
+
+	public String getIdProperty() {
+		return idProperty;
+	}
+
+	public String getQuantityProperty() {
+		return quantityProperty;
+	}
+
+	public String getTable() {
+		return table;
+	}
+
+	public String getIdColumn() {
+		return idColumn;
+	}
+
+	public String getQuantityColumn() {
+		return quantityColumn;
+	}
+}
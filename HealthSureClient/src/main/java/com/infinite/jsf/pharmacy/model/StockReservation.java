@@ -0,0 +1,59 @@
+/**
+ * Copyright © 2025 Infinite Computer Solution. All rights reserved.
+ */
+package com.infinite.jsf.pharmacy.model;
+
+import java.io.Serializable;
+
+/**
+ * Units of one medicine or equipment held for a dispense that is not yet
+ * committed. Returned by the stock ledger and handed back to it to commit or
+ * release the hold.
+ *
+ * @author Infinite Computer Solution
+ * @version 1.0
+ */
+public class StockReservation implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private final String reservationId;
+	private final StockItemType type;
+	private final String skuId;
+	private final int quantity;
+	private final long expiresAt;
+
+	public StockReservation(String reservationId, StockItemType type, String skuId, int quantity, long expiresAt) {
+		this.reservationId = reservationId;
+		this.type = type;
+		this.skuId = skuId;
+		this.quantity = quantity;
+		this.expiresAt = expiresAt;
+	}
+
+	public String getReservationId() {
+		return reservationId;
+	}
+
+	public StockItemType getType() {
+		return type;
+	}
+
+	/** Medicine or equipment id. */
+	public String getSkuId() {
+		return skuId;
+	}
+
+	public int getQuantity() {
+		return quantity;
+	}
+
+	/** Time in milliseconds after which an uncommitted hold is released. */
+	public long getExpiresAt() {
+		return expiresAt;
+	}
+
+	@Override
+	public String toString() {
+		return "StockReservation [" + reservationId + ", " + type + " " + skuId + " x" + quantity + "]";
+	}
+}
@@ -0,0 +1,91 @@
+package com.infinite.jsf.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+
+import com.infinite.jsf.util.IdGenerator;
+import com.infinite.jsf.util.SessionHelper;
+
+/**
+ * Concurrency stress check for IdGenerator against the configured database.
+ * Two allocator instances stand in for two application nodes; every thread
+ * draws ids at the same time and any id handed out twice is reported. The
+ * sequence row of the test prefix is deleted at the end.
+ */
+public class IdGeneratorStressTest {
+
+	private static final String PREFIX = "TST";
+	private static final int THREADS_PER_NODE = 8;
+	private static final int IDS_PER_THREAD = 500;
+
+	public static void main(String[] args) throws Exception {
+		try {
+			run();
+		} finally {
+			deleteSequence();
+		}
+	}
+
+	private static void run() throws Exception {
+		IdGenerator[] nodes = { new IdGenerator(5, 3), new IdGenerator(7, 3) };
+		Set<String> seen = ConcurrentHashMap.newKeySet();
+		AtomicInteger duplicates = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS_PER_NODE * nodes.length);
+		List<Future<?>> futures = new ArrayList<>();
+		for (IdGenerator node : nodes) {
+			for (int t = 0; t < THREADS_PER_NODE; t++) {
+				futures.add(pool.submit(() -> {
+					start.await();
+					for (int i = 0; i < IDS_PER_THREAD; i++) {
+						String id = node.nextId(PREFIX);
+						if (!seen.add(id)) {
+							duplicates.incrementAndGet();
+							System.out.println("Duplicate id: " + id);
+						}
+					}
+					return null;
+				}));
+			}
+		}
+
+		long began = System.currentTimeMillis();
+		start.countDown();
+		for (Future<?> f : futures) {
+			f.get();
+		}
+		pool.shutdown();
+
+		int expected = nodes.length * THREADS_PER_NODE * IDS_PER_THREAD;
+		System.out.println("Ids drawn: " + expected + ", unique: " + seen.size() + ", duplicates: "
+				+ duplicates.get() + ", took " + (System.currentTimeMillis() - began) + " ms");
+		System.out.println(seen.size() == expected && duplicates.get() == 0 ? "PASS" : "FAIL");
+	}
+
+	private static void deleteSequence() {
+		Session session = SessionHelper.getSessionFactory().openSession();
+		Transaction trans = session.beginTransaction();
+		try {
+			session.createSQLQuery("DELETE FROM id_sequence WHERE prefix = :prefix").setParameter("prefix", PREFIX)
+					.executeUpdate();
+			trans.commit();
+		} catch (RuntimeException e) {
+			trans.rollback();
+			System.out.println("Sequence row " + PREFIX + " not deleted");
+			throw e;
+		} finally {
+			session.close();
+		}
+	}
+}
@@ -0,0 +1,142 @@
+package com.infinite.jsf.test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Minimal plain-text SMTP server for local tests. It accepts HELO/EHLO, MAIL,
+ * RCPT, DATA, RSET, NOOP and QUIT, keeps every received message in memory and
+ * can be told to answer slowly or reject messages. Not for production use.
+ */
+public class LocalSmtpServer implements AutoCloseable {
+
+	private final ServerSocket serverSocket;
+	private final ExecutorService handlers = Executors.newCachedThreadPool();
+	private final List<String> messages = new CopyOnWriteArrayList<>();
+	private final AtomicInteger connections = new AtomicInteger();
+	private volatile long delayMillis;
+	private volatile int rejectNext;
+	private volatile boolean running = true;
+
+	public LocalSmtpServer(int port) throws IOException {
+		serverSocket = new ServerSocket(port);
+		Thread acceptor = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				acceptLoop();
+			}
+		}, "local-smtp");
+		acceptor.setDaemon(true);
+		acceptor.start();
+	}
+
+	public int getPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	/** Messages received so far, raw DATA content. */
+	public List<String> getMessages() {
+		return messages;
+	}
+
+	/** Number of SMTP connections opened by clients. */
+	public int getConnectionCount() {
+		return connections.get();
+	}
+
+	/** Simulates a slow server: every DATA is acknowledged after the delay. */
+	public void setDelayMillis(long delayMillis) {
+		this.delayMillis = delayMillis;
+	}
+
+	/** Answers the next messages with a temporary failure (451). */
+	public void rejectNext(int count) {
+		this.rejectNext = count;
+	}
+
+	@Override
+	public void close() throws IOException {
+		running = false;
+		serverSocket.close();
+		handlers.shutdownNow();
+	}
+
+	private void acceptLoop() {
+		while (running) {
+			try {
+				final Socket socket = serverSocket.accept();
+				connections.incrementAndGet();
+				handlers.execute(new Runnable() {
+					@Override
+					public void run() {
+						handle(socket);
+					}
+				});
+			} catch (IOException e) {
+				if (running) {
+					e.printStackTrace();
+				}
+			}
+		}
+	}
+
+	private void handle(Socket socket) {
+		try (Socket s = socket;
+				BufferedReader in = new BufferedReader(
+						new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+				PrintWriter out = new PrintWriter(s.getOutputStream(), true)) {
+			reply(out, "220 localhost HealthSure test SMTP");
+			String line;
+			while ((line = in.readLine()) != null) {
+				String command = line.length() < 4 ? line.toUpperCase() : line.substring(0, 4).toUpperCase();
+				if ("EHLO".equals(command)) {
+					reply(out, "250-localhost");
+					reply(out, "250 8BITMIME");
+				} else if ("HELO".equals(command) || "MAIL".equals(command) || "RCPT".equals(command)
+						|| "RSET".equals(command) || "NOOP".equals(command)) {
+					reply(out, "250 OK");
+				} else if ("DATA".equals(command)) {
+					reply(out, "354 End data with <CR><LF>.<CR><LF>");
+					StringBuilder data = new StringBuilder();
+					while ((line = in.readLine()) != null && !".".equals(line)) {
+						data.append(line.startsWith("..") ? line.substring(1) : line).append("\r\n");
+					}
+					if (delayMillis > 0) {
+						Thread.sleep(delayMillis);
+					}
+					if (rejectNext > 0) {
+						rejectNext--;
+						reply(out, "451 Temporary failure, try again");
+					} else {
+						messages.add(data.toString());
+						reply(out, "250 OK queued");
+					}
+				} else if ("QUIT".equals(command)) {
+					reply(out, "221 Bye");
+					return;
+				} else {
+					reply(out, "502 Command not implemented");
+				}
+			}
+		} catch (IOException e) {
+			// client went away
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void reply(PrintWriter out, String text) {
+		out.print(text + "\r\n");
+		out.flush();
+	}
+}
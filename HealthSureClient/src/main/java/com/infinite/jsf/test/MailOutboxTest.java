@@ -0,0 +1,52 @@
+package com.infinite.jsf.test;
+
+import com.infinite.jsf.mail.service.MailDispatcher;
+import com.infinite.jsf.mail.service.MailMetrics;
+import com.infinite.jsf.util.MailSend;
+
+/**
+ * Sends a burst of mails through the outbox against {@link LocalSmtpServer}
+ * and prints how long the callers waited and how delivery went. Needs the
+ * database with the mail_outbox table.
+ */
+public class MailOutboxTest {
+
+	public static void main(String[] args) throws Exception {
+		int mails = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+		int port = 2525;
+		System.setProperty("healthsure.mail.host", "localhost");
+		System.setProperty("healthsure.mail.port", String.valueOf(port));
+		System.setProperty("healthsure.mail.ssl", "false");
+		System.setProperty("healthsure.mail.auth", "false");
+		System.setProperty("healthsure.mail.from", "noreply@healthsure.local");
+		System.setProperty("healthsure.mail.retryBaseMs", "500");
+		System.setProperty("healthsure.mail.pollIntervalMs", "200");
+
+		try (LocalSmtpServer smtp = new LocalSmtpServer(port)) {
+			// a slow server and two transient failures show the retries and the non-blocking enqueue
+			smtp.setDelayMillis(50);
+			smtp.rejectNext(2);
+
+			long start = System.nanoTime();
+			for (int i = 0; i < mails; i++) {
+				String ack = MailSend.sendInfo("user" + i + "@healthsure.local", "Outbox test " + i,
+						"<p>Test mail " + i + "</p>");
+				if (i == 0) {
+					System.out.println(ack);
+				}
+			}
+			long enqueueMillis = (System.nanoTime() - start) / 1_000_000;
+			System.out.println("Enqueued " + mails + " mails in " + enqueueMillis + " ms");
+
+			long deadline = System.currentTimeMillis() + 60_000L;
+			while (smtp.getMessages().size() < mails && System.currentTimeMillis() < deadline) {
+				Thread.sleep(200);
+			}
+			MailMetrics metrics = MailDispatcher.getInstance().getMetrics();
+			System.out.println("Delivered " + smtp.getMessages().size() + "/" + mails + " over "
+					+ smtp.getConnectionCount() + " SMTP connections");
+			System.out.println(metrics);
+			MailDispatcher.shutdownInstance();
+		}
+	}
+}
@@ -0,0 +1,156 @@
+package com.infinite.jsf.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.hibernate.stat.Statistics;
+
+import com.infinite.jsf.insurance.dao.InsuranceCompanyDao;
+import com.infinite.jsf.insurance.daoImpl.InsuranceCompanyDaoImpl;
+import com.infinite.jsf.insurance.daoImpl.InsuranceCoverageOptionDaoImpl;
+import com.infinite.jsf.insurance.daoImpl.InsurancePlanDaoImpl;
+import com.infinite.jsf.insurance.daoImpl.MemberPlanRuleDaoImpl;
+import com.infinite.jsf.insurance.model.CoverageType;
+import com.infinite.jsf.insurance.model.Gender;
+import com.infinite.jsf.insurance.model.InsuranceCompany;
+import com.infinite.jsf.insurance.model.InsuranceCoverageOption;
+import com.infinite.jsf.insurance.model.InsurancePlan;
+import com.infinite.jsf.insurance.model.MemberPlanRule;
+import com.infinite.jsf.insurance.model.PlanType;
+import com.infinite.jsf.insurance.model.Relation;
+import com.infinite.jsf.util.SessionHelper;
+
+/**
+ * Compares the database work needed to create one family plan (3 coverage
+ * options, 6 member rules) the old way, one DAO call and session per row,
+ * with the single-transaction addInsurancePlanWithDetails. Uses the Hibernate
+ * statistics of the configured database. The plans created are deleted again
+ * at the end.
+ */
+public class PlanCreationBenchmark {
+
+	private static final int PLANS = 20;
+	private static final List<Relation> FAMILY = Arrays.asList(Relation.SELF, Relation.WIFE, Relation.SON1,
+			Relation.SON2, Relation.DAUGHTER1, Relation.DAUGHTER2);
+
+	public static void main(String[] args) throws Exception {
+		InsuranceCompanyDao companyDao = new InsuranceCompanyDaoImpl();
+		InsuranceCompany company = companyDao.findAllCompany().get(0);
+		InsurancePlanDaoImpl planDao = new InsurancePlanDaoImpl();
+		InsuranceCoverageOptionDaoImpl coverageDao = new InsuranceCoverageOptionDaoImpl();
+		MemberPlanRuleDaoImpl memberDao = new MemberPlanRuleDaoImpl();
+		Statistics stats = SessionHelper.getSessionFactory().getStatistics();
+		List<String> created = new ArrayList<>();
+
+		try {
+			stats.clear();
+			long began = System.currentTimeMillis();
+			for (int i = 0; i < PLANS; i++) {
+				InsurancePlan plan = newPlan(company, "Bench per-row " + i);
+				planDao.addInsurancePlan(plan);
+				created.add(plan.getPlanId());
+				for (InsuranceCoverageOption option : newOptions(plan)) {
+					coverageDao.addCoveragePlan(option);
+				}
+				for (MemberPlanRule member : newMembers(plan)) {
+					memberDao.addMember(member);
+				}
+			}
+			report("per-row DAO calls", stats, System.currentTimeMillis() - began);
+
+			stats.clear();
+			began = System.currentTimeMillis();
+			for (int i = 0; i < PLANS; i++) {
+				InsurancePlan plan = newPlan(company, "Bench aggregate " + i);
+				planDao.addInsurancePlanWithDetails(plan, newOptions(plan), newMembers(plan));
+				created.add(plan.getPlanId());
+			}
+			report("single transaction", stats, System.currentTimeMillis() - began);
+		} finally {
+			deletePlans(created);
+		}
+	}
+
+	/** Removes the benchmark plans with their coverage options and member rules. */
+	private static void deletePlans(List<String> planIds) {
+		if (planIds.isEmpty()) {
+			return;
+		}
+		Session session = SessionHelper.getSessionFactory().openSession();
+		Transaction trans = session.beginTransaction();
+		try {
+			session.createQuery("delete from MemberPlanRule m where m.insurancePlan.planId in (:ids)")
+					.setParameterList("ids", planIds).executeUpdate();
+			session.createQuery("delete from InsuranceCoverageOption c where c.insurancePlan.planId in (:ids)")
+					.setParameterList("ids", planIds).executeUpdate();
+			int deleted = session.createQuery("delete from InsurancePlan p where p.planId in (:ids)")
+					.setParameterList("ids", planIds).executeUpdate();
+			trans.commit();
+			System.out.println("benchmark plans deleted: " + deleted);
+		} catch (RuntimeException e) {
+			trans.rollback();
+			System.out.println("benchmark plans not deleted: " + planIds);
+			throw e;
+		} finally {
+			session.close();
+		}
+	}
+
+	private static void report(String label, Statistics stats, long millis) {
+		System.out.println(String.format(
+				"%-20s sessions/plan=%.1f transactions/plan=%.1f statements/plan=%.1f rows/plan=%.1f total=%d ms",
+				label, (double) stats.getSessionOpenCount() / PLANS, (double) stats.getTransactionCount() / PLANS,
+				(double) stats.getPrepareStatementCount() / PLANS, (double) stats.getEntityInsertCount() / PLANS,
+				millis));
+	}
+
+	private static InsurancePlan newPlan(InsuranceCompany company, String name) {
+		InsurancePlan plan = new InsurancePlan();
+		plan.setInsuranceCompany(company);
+		plan.setPlanName(name);
+		plan.setPlanType(PlanType.FAMILY);
+		plan.setMinEntryAge(18);
+		plan.setMaxEntryAge(65);
+		plan.setDescription("benchmark plan");
+		plan.setAvailableCoverAmounts(500000d);
+		plan.setWaitingPeriod(2);
+		plan.setCreatedOn(new Date());
+		plan.setExpireDate(new Date(System.currentTimeMillis() + 365L * 24 * 60 * 60 * 1000));
+		plan.setPeriodicDiseases("NO");
+		plan.setMaximumMemberAllowed(6);
+		plan.setMinimumMeberAllowed(1);
+		return plan;
+	}
+
+	private static List<InsuranceCoverageOption> newOptions(InsurancePlan plan) {
+		List<InsuranceCoverageOption> options = new ArrayList<>();
+		double premium = 5000d;
+		for (CoverageType type : CoverageType.values()) {
+			InsuranceCoverageOption option = new InsuranceCoverageOption();
+			option.setInsurancePlan(plan);
+			option.setCoverageType(type);
+			option.setPremiumAmount(premium);
+			option.setCoverageAmount(premium * 100);
+			options.add(option);
+			premium *= 2;
+		}
+		return options;
+	}
+
+	private static List<MemberPlanRule> newMembers(InsurancePlan plan) {
+		List<MemberPlanRule> members = new ArrayList<>();
+		for (Relation relation : FAMILY) {
+			MemberPlanRule member = new MemberPlanRule();
+			member.setInsurancePlan(plan);
+			member.setRelation(relation);
+			member.setGender(relation == Relation.WIFE || relation.name().startsWith("DAUGHTER") ? Gender.FEMALE
+					: Gender.MALE);
+			members.add(member);
+		}
+		return members;
+	}
+}
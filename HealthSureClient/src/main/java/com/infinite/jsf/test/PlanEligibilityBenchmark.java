@@ -0,0 +1,178 @@
+package com.infinite.jsf.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.infinite.jsf.insurance.model.FamilyMember;
+import com.infinite.jsf.insurance.model.InsurancePlan;
+import com.infinite.jsf.insurance.model.MemberPlanRule;
+import com.infinite.jsf.insurance.model.PlanType;
+import com.infinite.jsf.insurance.model.Relation;
+import com.infinite.jsf.insurance.service.PlanEligibilityIndex;
+
+/**
+ * Measures the eligibility lookup over 10,000 generated plans against the
+ * nested scan of every plan's entry ages and member rules, and checks that
+ * both find the same plans. Needs no database.
+ */
+public class PlanEligibilityBenchmark {
+
+	private static final int PLANS = 10000;
+	private static final int FAMILIES = 1000;
+	private static final int WARMUP_ROUNDS = 20;
+	private static final int ROUNDS = 20;
+
+	public static void main(String[] args) {
+		Random random = new Random(42);
+		List<InsurancePlan> plans = new ArrayList<>();
+		Map<String, List<MemberPlanRule>> rules = new HashMap<>();
+		for (int i = 0; i < PLANS; i++) {
+			InsurancePlan plan = newPlan(random, i);
+			plans.add(plan);
+			rules.put(plan.getPlanId(), newRules(random, plan));
+		}
+		List<List<FamilyMember>> families = new ArrayList<>();
+		for (int i = 0; i < FAMILIES; i++) {
+			families.add(newFamily(random));
+		}
+
+		long began = System.nanoTime();
+		PlanEligibilityIndex index = new PlanEligibilityIndex(plans, rules);
+		System.out.println(String.format("index of %d plans built in %.1f ms", index.size(),
+				(System.nanoTime() - began) / 1e6));
+
+		List<List<FamilyMember>> checked = new ArrayList<>(families);
+		// ages beyond the index table
+		checked.add(Arrays.asList(new FamilyMember(Relation.SELF, PlanEligibilityIndex.MAX_AGE + 10)));
+		checked.add(Arrays.asList(new FamilyMember(Relation.SELF, 40),
+				new FamilyMember(Relation.MOTHER, PlanEligibilityIndex.MAX_AGE + 1)));
+		for (List<FamilyMember> family : checked) {
+			if (!index.eligiblePlans(family).equals(scan(plans, rules, family))) {
+				throw new IllegalStateException("Index and scan differ for " + family);
+			}
+		}
+
+		long found = 0;
+		for (int round = 0; round < WARMUP_ROUNDS; round++) {
+			found += runIndex(index, families) + runScan(plans, rules, families);
+		}
+		long indexNanos = 0;
+		long scanNanos = 0;
+		for (int round = 0; round < ROUNDS; round++) {
+			began = System.nanoTime();
+			found += runIndex(index, families);
+			indexNanos += System.nanoTime() - began;
+			began = System.nanoTime();
+			found += runScan(plans, rules, families);
+			scanNanos += System.nanoTime() - began;
+		}
+		int queries = ROUNDS * FAMILIES;
+		System.out.println(String.format("index  %8.1f us/family", indexNanos / 1e3 / queries));
+		System.out.println(String.format("scan   %8.1f us/family", scanNanos / 1e3 / queries));
+		System.out.println("plans found: " + found);
+	}
+
+	private static long runIndex(PlanEligibilityIndex index, List<List<FamilyMember>> families) {
+		long found = 0;
+		for (List<FamilyMember> family : families) {
+			found += index.eligiblePlans(family).size();
+		}
+		return found;
+	}
+
+	private static long runScan(List<InsurancePlan> plans, Map<String, List<MemberPlanRule>> rules,
+			List<List<FamilyMember>> families) {
+		long found = 0;
+		for (List<FamilyMember> family : families) {
+			found += scan(plans, rules, family).size();
+		}
+		return found;
+	}
+
+	/** The per-plan check the index replaces. */
+	private static List<InsurancePlan> scan(List<InsurancePlan> plans, Map<String, List<MemberPlanRule>> rules,
+			List<FamilyMember> family) {
+		List<InsurancePlan> eligible = new ArrayList<>();
+		for (InsurancePlan plan : plans) {
+			int max = plan.getMaximumMemberAllowed() > 0 ? plan.getMaximumMemberAllowed() : Integer.MAX_VALUE;
+			if (family.size() < plan.getMinimumMeberAllowed() || family.size() > max) {
+				continue;
+			}
+			boolean ok = true;
+			for (FamilyMember member : family) {
+				if (member.getAge() < plan.getMinEntryAge() || member.getAge() > plan.getMaxEntryAge()) {
+					ok = false;
+					break;
+				}
+				boolean allowed = false;
+				for (MemberPlanRule rule : rules.get(plan.getPlanId())) {
+					if (rule.getRelation() == member.getRelation()) {
+						allowed = true;
+						break;
+					}
+				}
+				if (!allowed) {
+					ok = false;
+					break;
+				}
+			}
+			if (ok) {
+				eligible.add(plan);
+			}
+		}
+		return eligible;
+	}
+
+	private static InsurancePlan newPlan(Random random, int i) {
+		InsurancePlan plan = new InsurancePlan();
+		plan.setPlanId(String.format("PLAN%05d", i));
+		plan.setPlanName("Bench plan " + i);
+		plan.setPlanType(PlanType.values()[random.nextInt(PlanType.values().length)]);
+		int minAge = random.nextInt(40);
+		plan.setMinEntryAge(minAge);
+		// some plans reach past the index table
+		plan.setMaxEntryAge(minAge + 20 + random.nextInt(110));
+		int minMembers = 1 + random.nextInt(2);
+		plan.setMinimumMeberAllowed(minMembers);
+		plan.setMaximumMemberAllowed(minMembers + random.nextInt(6));
+		return plan;
+	}
+
+	private static List<MemberPlanRule> newRules(Random random, InsurancePlan plan) {
+		// always the holder, then a random share of the other relations
+		List<MemberPlanRule> rules = new ArrayList<>();
+		for (Relation relation : Relation.values()) {
+			if (relation == Relation.SELF || random.nextInt(3) > 0) {
+				MemberPlanRule rule = new MemberPlanRule();
+				rule.setInsurancePlan(plan);
+				rule.setRelation(relation);
+				rules.add(rule);
+			}
+		}
+		return rules;
+	}
+
+	private static List<FamilyMember> newFamily(Random random) {
+		List<FamilyMember> family = new ArrayList<>();
+		int holderAge = 18 + random.nextInt(50);
+		family.add(new FamilyMember(Relation.SELF, holderAge));
+		if (random.nextBoolean()) {
+			family.add(new FamilyMember(Relation.WIFE, Math.max(18, holderAge - 3 + random.nextInt(6))));
+		}
+		Relation[] children = { Relation.SON1, Relation.DAUGHTER1, Relation.SON2, Relation.DAUGHTER2 };
+		int childCount = random.nextInt(3);
+		for (int i = 0; i < childCount; i++) {
+			// a son or a daughter for each child slot
+			family.add(new FamilyMember(children[2 * i + random.nextInt(2)],
+					random.nextInt(Math.max(1, holderAge - 17))));
+		}
+		if (random.nextInt(4) == 0) {
+			family.add(new FamilyMember(Relation.MOTHER, Math.min(95, holderAge + 20 + random.nextInt(10))));
+		}
+		return family;
+	}
+}
@@ -0,0 +1,110 @@
+package com.infinite.jsf.util;
+
+import java.util.Locale;
+import java.util.Properties;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Copyright © 2025 Infinite Computer Solution. All rights reserved.
+ *
+ * Resolves runtime settings that differ between environments.
+ *
+ * <p>
+ * A key such as {@code healthsure.db.pool.maxSize} is looked up, in order, as
+ * a JVM system property ({@code -Dhealthsure.db.pool.maxSize=20}), as an
+ * environment variable ({@code HEALTHSURE_DB_POOL_MAXSIZE}), in the optional
+ * fallback properties (for example the Hibernate configuration) and finally
+ * the supplied default. This lets each deployment tune the application without
+ * editing the packaged XML or property files.
+ * </p>
+ *
+ * @author Infinite Computer Solution
+ * @version 1.0
+ */
+public final class AppConfig {
+	private static final Logger logger = Logger.getLogger(AppConfig.class);
+
+	private AppConfig() {
+	}
+
+	/**
+	 * Returns the configured value for the key, or the default when the key is
+	 * not set anywhere.
+	 *
+	 * @param key          dotted configuration key
+	 * @param fallback     properties consulted after the JVM and environment, may
+	 *                     be null
+	 * @param defaultValue value used when nothing is configured
+	 * @return the resolved value
+	 */
+	public static String get(String key, Properties fallback, String defaultValue) {
+		String value = System.getProperty(key);
+		if (isBlank(value)) {
+			value = System.getenv(toEnvName(key));
+		}
+		if (isBlank(value) && fallback != null) {
+			value = fallback.getProperty(key);
+		}
+		return isBlank(value) ? defaultValue : value.trim();
+	}
+
+	public static String get(String key, String defaultValue) {
+		return get(key, null, defaultValue);
+	}
+
+	public static int getInt(String key, Properties fallback, int defaultValue) {
+		String value = get(key, fallback, null);
+		if (value == null) {
+			return defaultValue;
+		}
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			logger.warn("Ignoring non-numeric value '" + value + "' for " + key + ", using " + defaultValue);
+			return defaultValue;
+		}
+	}
+
+	public static int getInt(String key, int defaultValue) {
+		return getInt(key, null, defaultValue);
+	}
+
+	public static long getLong(String key, Properties fallback, long defaultValue) {
+		String value = get(key, fallback, null);
+		if (value == null) {
+			return defaultValue;
+		}
+		try {
+			return Long.parseLong(value);
+		} catch (NumberFormatException e) {
+			logger.warn("Ignoring non-numeric value '" + value + "' for " + key + ", using " + defaultValue);
+			return defaultValue;
+		}
+	}
+
+	public static long getLong(String key, long defaultValue) {
+		return getLong(key, null, defaultValue);
+	}
+
+	public static boolean getBoolean(String key, Properties fallback, boolean defaultValue) {
+		String value = get(key, fallback, null);
+		return value == null ? defaultValue : Boolean.parseBoolean(value);
+	}
+
+	public static boolean getBoolean(String key, boolean defaultValue) {
+		return getBoolean(key, null, defaultValue);
+	}
+
+	/**
+	 * Maps a dotted key to its environment variable name, e.g.
+	 * {@code healthsure.db.url} to {@code HEALTHSURE_DB_URL}.
+	 */
+	static String toEnvName(String key) {
+		return key.toUpperCase(Locale.ROOT).replace('.', '_').replace('-', '_');
+	}
+
+	private static boolean isBlank(String value) {
+		return value == null || value.trim().isEmpty();
+	}
+}
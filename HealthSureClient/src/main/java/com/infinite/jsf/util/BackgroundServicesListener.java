@@ -0,0 +1,70 @@
+package com.infinite.jsf.util;
+
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+
+import org.apache.log4j.Logger;
+
+import com.infinite.jsf.admin.daoImpl.AdminDaoImpl;
+import com.infinite.jsf.insurance.service.CoverageActivationJob;
+import com.infinite.jsf.insurance.service.InsuranceCatalog;
+import com.infinite.jsf.insurance.service.PlanFacetIndex;
+import com.infinite.jsf.mail.service.MailDispatcher;
+import com.infinite.jsf.pharmacy.daoImpl.ExpiryIndex;
+import com.infinite.jsf.pharmacy.daoImpl.PharmacyDaoImpl;
+import com.infinite.jsf.pharmacy.daoImpl.ReorderPointTracker;
+import com.infinite.jsf.pharmacy.daoImpl.StockNameIndex;
+
+/**
+ * Copyright © 2025 Infinite Computer Solution. All rights reserved.
+ *
+ * Starts the application's background workers when the web application is
+ * deployed and stops them on undeploy, so that no thread outlives the
+ * application. Also builds the in-memory uniqueness filters of the
+ * registration forms. Registered in web.xml.
+ *
+ * @author Infinite Computer Solution
+ * @version 1.0
+ */
+public class BackgroundServicesListener implements ServletContextListener {
+	private static final Logger logger = Logger.getLogger(BackgroundServicesListener.class);
+
+	@Override
+	public void contextInitialized(ServletContextEvent event) {
+		try {
+			// start eagerly so mails queued before a restart are delivered without waiting for a new one
+			MailDispatcher.getInstance();
+		} catch (RuntimeException e) {
+			logger.error("Mail dispatcher could not be started", e);
+		}
+		try {
+			// runs once now for the days the application was down, then every midnight
+			CoverageActivationJob.getInstance();
+		} catch (RuntimeException e) {
+			logger.error("Coverage activation job could not be started", e);
+		}
+		// a failed build is retried on first use
+		try {
+			PharmacyDaoImpl.rebuildUniqueIndex();
+		} catch (RuntimeException e) {
+			logger.error("Pharmacy uniqueness filters could not be built", e);
+		}
+		try {
+			AdminDaoImpl.rebuildUniqueIndex();
+		} catch (RuntimeException e) {
+			logger.error("User uniqueness filters could not be built", e);
+		}
+	}
+
+	@Override
+	public void contextDestroyed(ServletContextEvent event) {
+		MailDispatcher.shutdownInstance();
+		CoverageActivationJob.shutdownInstance();
+		InsuranceCatalog.shutdownInstance();
+		PlanFacetIndex.shutdownInstance();
+		StockNameIndex.shutdown();
+		ReorderPointTracker.shutdown();
+		ExpiryIndex.shutdown();
+		UniqueFieldIndex.shutdown();
+	}
+}
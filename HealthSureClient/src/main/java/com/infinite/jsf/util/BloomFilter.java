@@ -0,0 +1,92 @@
+package com.infinite.jsf.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Copyright © 2025 Infinite Computer Solution. All rights reserved.
+ *
+ * Thread-safe Bloom filter for strings.
+ *
+ * <p>
+ * {@link #mightContain(String)} never answers false for a value that was
+ * added; it answers true for a value that was not added with roughly the
+ * false positive probability the filter was sized for. Bits live in an
+ * {@link AtomicLongArray}, so concurrent adds and lookups need no locking.
+ * Positions are derived from two 64-bit hashes by double hashing.
+ * </p>
+ *
+ * @author Infinite Computer Solution
+ * @version 1.0
+ */
+public class BloomFilter {
+
+	private final AtomicLongArray bits;
+	private final long bitCount;
+	private final int hashCount;
+
+	/**
+	 * @param expectedInsertions number of values the filter is sized for
+	 * @param falsePositiveRate  wanted false positive probability, e.g. 0.01
+	 */
+	public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+		long n = Math.max(1L, expectedInsertions);
+		double p = Math.min(0.5d, Math.max(1e-9d, falsePositiveRate));
+		long m = (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+		int words = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1L, (m + 63) >>> 6));
+		this.bits = new AtomicLongArray(words);
+		this.bitCount = (long) words << 6;
+		this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+	}
+
+	public void put(String value) {
+		long h1 = hash(value, 0x9E3779B97F4A7C15L);
+		long h2 = hash(value, 0xC2B2AE3D27D4EB4FL) | 1L;
+		for (int i = 0; i < hashCount; i++) {
+			long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+			int word = (int) (bit >>> 6);
+			long mask = 1L << bit;
+			long old;
+			while (((old = bits.get(word)) & mask) == 0 && !bits.compareAndSet(word, old, old | mask)) {
+				// another thread changed the word; retry with its value
+			}
+		}
+	}
+
+	/**
+	 * @param value value to look up
+	 * @return false if the value was certainly never added
+	 */
+	public boolean mightContain(String value) {
+		long h1 = hash(value, 0x9E3779B97F4A7C15L);
+		long h2 = hash(value, 0xC2B2AE3D27D4EB4FL) | 1L;
+		for (int i = 0; i < hashCount; i++) {
+			long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+			if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public long getBitCount() {
+		return bitCount;
+	}
+
+	public int getHashCount() {
+		return hashCount;
+	}
+
+	/** 64-bit hash of the characters, finished with the murmur3 mixer. */
+	private static long hash(String value, long seed) {
+		long h = seed ^ value.length();
+		for (int i = 0; i < value.length(); i++) {
+			h = (h ^ value.charAt(i)) * 0x100000001B3L;
+		}
+		h ^= h >>> 33;
+		h *= 0xFF51AFD7ED558CCDL;
+		h ^= h >>> 33;
+		h *= 0xC4CEB9FE1A85EC53L;
+		h ^= h >>> 33;
+		return h;
+	}
+}
@@ -0,0 +1,169 @@
+package com.infinite.jsf.util;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+import org.hibernate.HibernateException;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.SecondLevelCacheStatistics;
+import org.hibernate.stat.Statistics;
+
+/**
+ * Copyright © 2025 Infinite Computer Solution. All rights reserved.
+ *
+ * Helper around the Hibernate second-level cache.
+ *
+ * <p>
+ * DAOs call {@link #evict(Class, Serializable)} after every successful update
+ * so that cached entities and cached query results are never served stale,
+ * even when the row was changed with a detached object or bulk HQL. Region
+ * sizes and TTLs are configured in ehcache.xml.
+ * </p>
+ *
+ * @author Infinite Computer Solution
+ * @version 1.0
+ */
+public final class CacheHelper {
+	private static final Logger logger = Logger.getLogger(CacheHelper.class);
+
+	/** Query cache region shared by the insurance catalogue queries. */
+	public static final String INSURANCE_QUERY_REGION = "insurance.queries";
+
+	/** Query cache region of the pharmacy stock counts. */
+	public static final String STOCK_QUERY_REGION = "pharmacy.stock.queries";
+
+	private CacheHelper() {
+	}
+
+	/**
+	 * Evicts one cached entity together with the insurance query results that
+	 * may contain it.
+	 *
+	 * @param entityClass mapped entity class
+	 * @param id          identifier of the changed row, or null for the whole
+	 *                    region
+	 */
+	public static void evict(Class<?> entityClass, Serializable id) {
+		try {
+			SessionFactory factory = SessionHelper.getSessionFactory();
+			if (id == null) {
+				factory.getCache().evictEntityRegion(entityClass);
+			} else {
+				factory.getCache().evictEntity(entityClass, id);
+			}
+			factory.getCache().evictQueryRegion(INSURANCE_QUERY_REGION);
+			if (logger.isDebugEnabled()) {
+				logger.debug("Evicted " + entityClass.getSimpleName() + (id == null ? " region" : "#" + id));
+			}
+		} catch (HibernateException e) {
+			// a failed eviction must not fail the update; the region TTL bounds staleness
+			logger.warn("Could not evict " + entityClass.getSimpleName() + " from second-level cache", e);
+		}
+	}
+
+	/**
+	 * Drops all cached results of one query region, e.g. after rows were
+	 * changed with plain JDBC, which Hibernate does not see.
+	 *
+	 * @param region query cache region
+	 */
+	public static void evictQueries(String region) {
+		try {
+			SessionHelper.getSessionFactory().getCache().evictQueryRegion(region);
+		} catch (HibernateException e) {
+			logger.warn("Could not evict query region " + region, e);
+		}
+	}
+
+	/**
+	 * Returns hit/miss figures for every second-level cache region.
+	 *
+	 * @return one entry per region, empty when statistics are disabled
+	 */
+	public static List<RegionStats> getRegionStats() {
+		List<RegionStats> result = new ArrayList<>();
+		Statistics statistics = SessionHelper.getSessionFactory().getStatistics();
+		if (!statistics.isStatisticsEnabled()) {
+			return result;
+		}
+		String[] regions = statistics.getSecondLevelCacheRegionNames();
+		Arrays.sort(regions);
+		for (String region : regions) {
+			SecondLevelCacheStatistics s = statistics.getSecondLevelCacheStatistics(region);
+			if (s != null) {
+				result.add(new RegionStats(region, s.getHitCount(), s.getMissCount(), s.getPutCount(),
+						s.getElementCountInMemory()));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Writes the current cache figures to the log at INFO level.
+	 */
+	public static void logStats() {
+		Statistics statistics = SessionHelper.getSessionFactory().getStatistics();
+		logger.info("Second-level cache hits=" + statistics.getSecondLevelCacheHitCount() + ", misses="
+				+ statistics.getSecondLevelCacheMissCount() + ", query cache hits="
+				+ statistics.getQueryCacheHitCount() + ", misses=" + statistics.getQueryCacheMissCount()
+				+ ", statements prepared=" + statistics.getPrepareStatementCount());
+		for (RegionStats region : getRegionStats()) {
+			logger.info(region);
+		}
+	}
+
+	/**
+	 * Hit/miss figures of one cache region.
+	 */
+	public static class RegionStats implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		private final String region;
+		private final long hits;
+		private final long misses;
+		private final long puts;
+		private final long elements;
+
+		public RegionStats(String region, long hits, long misses, long puts, long elements) {
+			this.region = region;
+			this.hits = hits;
+			this.misses = misses;
+			this.puts = puts;
+			this.elements = elements;
+		}
+
+		public String getRegion() {
+			return region;
+		}
+
+		public long getHits() {
+			return hits;
+		}
+
+		public long getMisses() {
+			return misses;
+		}
+
+		public long getPuts() {
+			return puts;
+		}
+
+		public long getElements() {
+			return elements;
+		}
+
+		public double getHitRatio() {
+			long total = hits + misses;
+			return total == 0 ? 0d : (double) hits / total;
+		}
+
+		@Override
+		public String toString() {
+			return "RegionStats [" + region + ": hits=" + hits + ", misses=" + misses + ", puts=" + puts
+					+ ", elements=" + elements + ", hitRatio=" + String.format("%.2f", getHitRatio()) + "]";
+		}
+	}
+}
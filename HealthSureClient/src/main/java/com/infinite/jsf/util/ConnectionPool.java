@@ -0,0 +1,405 @@
+package com.infinite.jsf.util;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Copyright © 2025 Infinite Computer Solution. All rights reserved.
+ *
+ * Bounded JDBC connection pool used behind the Hibernate SessionFactory.
+ *
+ * <p>
+ * Idle connections are reused most-recently-used first so that the ones left
+ * at the tail age out and are closed by a background evictor once they exceed
+ * the idle timeout, never dropping below the configured minimum. Idle
+ * connections are pinged before being handed out when validation on borrow is
+ * enabled. Callers that find the pool exhausted wait up to the borrow timeout
+ * and then fail with an {@link SQLException} instead of blocking forever.
+ * </p>
+ *
+ * <p>
+ * Opening a physical connection happens outside the pool lock, so a slow
+ * database only delays the thread that asked for the new connection.
+ * </p>
+ *
+ * @author Infinite Computer Solution
+ * @version 1.0
+ */
+public class ConnectionPool {
+	private static final Logger logger = Logger.getLogger(ConnectionPool.class);
+
+	private final String url;
+	private final Properties connectionProperties;
+	private final PoolSettings settings;
+	private final boolean autoCommit;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition available = lock.newCondition();
+	private final Deque<PooledEntry> idle = new ArrayDeque<>();
+	private final Map<Connection, PooledEntry> leased = new IdentityHashMap<>();
+	private final ScheduledExecutorService evictor;
+
+	// guarded by lock: open connections plus the ones being opened right now
+	private int total;
+	private int waiting;
+	private boolean closed;
+
+	private final AtomicLong borrowed = new AtomicLong();
+	private final AtomicLong created = new AtomicLong();
+	private final AtomicLong destroyed = new AtomicLong();
+	private final AtomicLong timeouts = new AtomicLong();
+	private final AtomicLong validationFailures = new AtomicLong();
+	private final AtomicLong totalWaitNanos = new AtomicLong();
+	private final AtomicLong maxWaitNanos = new AtomicLong();
+
+	/**
+	 * Creates the pool, opens {@code minIdle} connections and starts the idle
+	 * evictor.
+	 *
+	 * @param url                  JDBC url
+	 * @param connectionProperties driver properties including user and password
+	 * @param settings             pool tuning
+	 * @param autoCommit           auto-commit mode connections are handed out in
+	 */
+	public ConnectionPool(String url, Properties connectionProperties, PoolSettings settings, boolean autoCommit) {
+		this.url = url;
+		this.connectionProperties = connectionProperties;
+		this.settings = settings;
+		this.autoCommit = autoCommit;
+		this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "healthsure-pool-evictor");
+			t.setDaemon(true);
+			return t;
+		});
+		warmUp();
+		evictor.scheduleWithFixedDelay(this::evictIdle, settings.getEvictionIntervalMs(),
+				settings.getEvictionIntervalMs(), TimeUnit.MILLISECONDS);
+		logger.info("Connection pool started: " + settings);
+	}
+
+	/**
+	 * Hands out a connection, reusing an idle one when possible.
+	 *
+	 * @return an open connection in the configured auto-commit mode
+	 * @throws SQLException if the pool is closed, the borrow timeout elapses or
+	 *                      a new connection cannot be opened
+	 */
+	public Connection borrow() throws SQLException {
+		long start = System.nanoTime();
+		long deadline = start + TimeUnit.MILLISECONDS.toNanos(settings.getBorrowTimeoutMs());
+		while (true) {
+			PooledEntry entry = null;
+			lock.lock();
+			try {
+				while (entry == null) {
+					if (closed) {
+						throw new SQLException("Connection pool is closed");
+					}
+					entry = idle.pollFirst();
+					if (entry == null && total < settings.getMaxSize()) {
+						total++;
+						break;
+					}
+					if (entry == null) {
+						long remaining = deadline - System.nanoTime();
+						if (remaining <= 0L) {
+							timeouts.incrementAndGet();
+							recordWait(start);
+							throw new SQLException("Timed out after " + settings.getBorrowTimeoutMs()
+									+ " ms waiting for a database connection (active=" + leased.size() + ", max="
+									+ settings.getMaxSize() + ")");
+						}
+						waiting++;
+						try {
+							available.awaitNanos(remaining);
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+							throw new SQLException("Interrupted while waiting for a database connection", e);
+						} finally {
+							waiting--;
+						}
+					}
+				}
+			} finally {
+				lock.unlock();
+			}
+
+			if (entry == null) {
+				entry = open();
+			} else if (settings.isValidateOnBorrow() && !isUsable(entry.connection)) {
+				validationFailures.incrementAndGet();
+				logger.warn("Discarding pooled connection that failed validation");
+				discard(entry);
+				continue;
+			}
+
+			try {
+				if (entry.connection.getAutoCommit() != autoCommit) {
+					entry.connection.setAutoCommit(autoCommit);
+				}
+			} catch (SQLException e) {
+				logger.warn("Discarding pooled connection that could not be prepared: " + e.getMessage());
+				discard(entry);
+				continue;
+			}
+
+			lock.lock();
+			try {
+				leased.put(entry.connection, entry);
+			} finally {
+				lock.unlock();
+			}
+			borrowed.incrementAndGet();
+			recordWait(start);
+			return entry.connection;
+		}
+	}
+
+	/**
+	 * Returns a connection to the pool. Connections that are closed, broken or
+	 * were not handed out by this pool are closed instead of being reused.
+	 *
+	 * @param connection connection previously obtained from {@link #borrow()}
+	 */
+	public void giveBack(Connection connection) {
+		if (connection == null) {
+			return;
+		}
+		PooledEntry entry;
+		lock.lock();
+		try {
+			entry = leased.remove(connection);
+		} finally {
+			lock.unlock();
+		}
+		if (entry == null) {
+			logger.warn("Connection returned that was not borrowed from this pool; closing it");
+			closeQuietly(connection);
+			return;
+		}
+
+		boolean reusable;
+		try {
+			reusable = !connection.isClosed();
+			if (reusable && !connection.getAutoCommit()) {
+				// never let uncommitted work leak to the next borrower
+				connection.rollback();
+			}
+			if (reusable) {
+				connection.clearWarnings();
+			}
+		} catch (SQLException e) {
+			logger.warn("Discarding connection that failed on return: " + e.getMessage());
+			reusable = false;
+		}
+
+		if (!reusable) {
+			discard(entry);
+			return;
+		}
+		lock.lock();
+		try {
+			if (closed) {
+				total--;
+			} else {
+				entry.lastUsed = System.currentTimeMillis();
+				idle.addFirst(entry);
+				available.signal();
+				return;
+			}
+		} finally {
+			lock.unlock();
+		}
+		closeQuietly(connection);
+		destroyed.incrementAndGet();
+	}
+
+	/**
+	 * @return a snapshot of the current utilisation
+	 */
+	public PoolStats getStats() {
+		int active;
+		int idleCount;
+		int waitingCount;
+		lock.lock();
+		try {
+			active = leased.size();
+			idleCount = idle.size();
+			waitingCount = waiting;
+		} finally {
+			lock.unlock();
+		}
+		return new PoolStats(active, idleCount, settings.getMaxSize(), waitingCount, borrowed.get(), created.get(),
+				destroyed.get(), timeouts.get(), validationFailures.get(),
+				TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.get()), TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get()));
+	}
+
+	public PoolSettings getSettings() {
+		return settings;
+	}
+
+	/**
+	 * Closes every idle connection and stops the evictor. Connections still in
+	 * use are closed when they are returned.
+	 */
+	public void close() {
+		List<PooledEntry> toClose;
+		lock.lock();
+		try {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			toClose = new ArrayList<>(idle);
+			idle.clear();
+			total -= toClose.size();
+			available.signalAll();
+		} finally {
+			lock.unlock();
+		}
+		evictor.shutdownNow();
+		for (PooledEntry entry : toClose) {
+			closeQuietly(entry.connection);
+			destroyed.incrementAndGet();
+		}
+		logger.info("Connection pool closed: " + getStats());
+	}
+
+	/**
+	 * Closes connections that have been idle longer than the idle timeout while
+	 * keeping at least {@code minIdle} open.
+	 */
+	void evictIdle() {
+		List<PooledEntry> expired = new ArrayList<>();
+		long cutoff = System.currentTimeMillis() - settings.getIdleTimeoutMs();
+		lock.lock();
+		try {
+			Iterator<PooledEntry> oldestFirst = idle.descendingIterator();
+			while (oldestFirst.hasNext() && idle.size() > settings.getMinIdle()) {
+				PooledEntry entry = oldestFirst.next();
+				if (entry.lastUsed > cutoff) {
+					break;
+				}
+				oldestFirst.remove();
+				total--;
+				expired.add(entry);
+			}
+		} finally {
+			lock.unlock();
+		}
+		for (PooledEntry entry : expired) {
+			closeQuietly(entry.connection);
+			destroyed.incrementAndGet();
+		}
+		if (!expired.isEmpty() && logger.isDebugEnabled()) {
+			logger.debug("Evicted " + expired.size() + " idle connections, " + getStats());
+		}
+	}
+
+	private void warmUp() {
+		for (int i = 0; i < settings.getMinIdle(); i++) {
+			lock.lock();
+			try {
+				total++;
+			} finally {
+				lock.unlock();
+			}
+			try {
+				PooledEntry entry = open();
+				lock.lock();
+				try {
+					idle.addLast(entry);
+				} finally {
+					lock.unlock();
+				}
+			} catch (SQLException e) {
+				// the database may come up after the application; connections are opened lazily then
+				logger.warn("Could not pre-open pooled connection: " + e.getMessage());
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Opens a physical connection. The caller must already have reserved a slot
+	 * in {@code total}; the slot is released again when opening fails.
+	 */
+	private PooledEntry open() throws SQLException {
+		try {
+			Connection connection = DriverManager.getConnection(url, connectionProperties);
+			created.incrementAndGet();
+			return new PooledEntry(connection);
+		} catch (SQLException | RuntimeException e) {
+			releaseSlot();
+			throw e;
+		}
+	}
+
+	private void discard(PooledEntry entry) {
+		closeQuietly(entry.connection);
+		destroyed.incrementAndGet();
+		releaseSlot();
+	}
+
+	private void releaseSlot() {
+		lock.lock();
+		try {
+			total--;
+			available.signal();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private boolean isUsable(Connection connection) {
+		try {
+			return !connection.isClosed() && connection.isValid(settings.getValidationTimeoutSeconds());
+		} catch (SQLException e) {
+			return false;
+		}
+	}
+
+	private void recordWait(long startNanos) {
+		long waited = System.nanoTime() - startNanos;
+		totalWaitNanos.addAndGet(waited);
+		long max = maxWaitNanos.get();
+		while (waited > max && !maxWaitNanos.compareAndSet(max, waited)) {
+			max = maxWaitNanos.get();
+		}
+	}
+
+	private static void closeQuietly(Connection connection) {
+		try {
+			connection.close();
+		} catch (SQLException e) {
+			logger.debug("Error closing pooled connection: " + e.getMessage());
+		}
+	}
+
+	private static final class PooledEntry {
+		private final Connection connection;
+		private long lastUsed;
+
+		PooledEntry(Connection connection) {
+			this.connection = connection;
+			this.lastUsed = System.currentTimeMillis();
+		}
+	}
+}
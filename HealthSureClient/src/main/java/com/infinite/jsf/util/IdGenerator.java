@@ -0,0 +1,252 @@
+package com.infinite.jsf.util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.log4j.Logger;
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.hibernate.jdbc.Work;
+
+/**
+ * Copyright © 2025 Infinite Computer Solution. All rights reserved.
+ *
+ * Allocates business identifiers such as PLA001 or PHM042.
+ *
+ * <p>
+ * Numbers are reserved in blocks from the {@code id_sequence} table: one short
+ * transaction locks the row of the prefix ({@code SELECT ... FOR UPDATE}),
+ * advances it by the block size and commits. The block is then handed out from
+ * memory with a single atomic increment, so concurrent requests and several
+ * application nodes never receive the same identifier. Numbers of a block that
+ * is not used up before a restart are skipped, never reused.
+ * </p>
+ *
+ * <p>
+ * The first time a prefix is seen its row is seeded from the highest number
+ * already stored in the owning table, so existing data keeps working. The
+ * numeric part is zero padded to {@code healthsure.id.width} digits (default
+ * 3) and simply grows wider once that is exceeded, e.g. PLA999, PLA1000.
+ * </p>
+ *
+ * @author Infinite Computer Solution
+ * @version 1.0
+ */
+public class IdGenerator {
+	private static final Logger logger = Logger.getLogger(IdGenerator.class);
+
+	public static final String PLAN = "PLA";
+	public static final String COVERAGE = "COV";
+	public static final String MEMBER = "MEM";
+	public static final String COMPANY = "COM";
+	public static final String PHARMACY = "PHM";
+	public static final String DISPENSED_MEDICINE = "DSM";
+	public static final String DISPENSED_EQUIPMENT = "DSE";
+
+	private static final String CREATE_TABLE_SQL = "CREATE TABLE IF NOT EXISTS id_sequence ("
+			+ "prefix VARCHAR(10) NOT NULL PRIMARY KEY, next_value BIGINT NOT NULL)";
+	private static final String SEED_SQL = "INSERT IGNORE INTO id_sequence(prefix, next_value) VALUES (?, ?)";
+	private static final String LOCK_SQL = "SELECT next_value FROM id_sequence WHERE prefix = ? FOR UPDATE";
+	private static final String ADVANCE_SQL = "UPDATE id_sequence SET next_value = ? WHERE prefix = ?";
+
+	/** Owning table and id column of each prefix, used to seed a new sequence row. */
+	private static final Map<String, String[]> OWNERS = new ConcurrentHashMap<>();
+	static {
+		OWNERS.put(PLAN, new String[] { "insurance_plan", "plan_id" });
+		OWNERS.put(COVERAGE, new String[] { "insurance_coverage_option", "coverage_id" });
+		OWNERS.put(MEMBER, new String[] { "member_plan_rule", "member_id" });
+		OWNERS.put(COMPANY, new String[] { "insurance_company", "company_id" });
+		OWNERS.put(PHARMACY, new String[] { "pharmacy", "pharmacy_id" });
+		OWNERS.put(DISPENSED_MEDICINE, new String[] { "dispensed_medicines", "dispense_id" });
+		OWNERS.put(DISPENSED_EQUIPMENT, new String[] { "dispensed_equipments", "dispensed_equip_id" });
+	}
+
+	private static final IdGenerator INSTANCE = new IdGenerator(AppConfig.getInt("healthsure.id.blockSize", 20),
+			AppConfig.getInt("healthsure.id.width", 3));
+
+	private static final Block EXHAUSTED = new Block(0L, 0L);
+
+	private final int blockSize;
+	private final int width;
+	private final Map<String, AtomicReference<Block>> blocks = new ConcurrentHashMap<>();
+	private volatile boolean tableChecked;
+
+	/**
+	 * Creates an allocator with its own in-memory blocks. Production code uses
+	 * {@link #getInstance()}; separate instances behave like separate nodes.
+	 *
+	 * @param blockSize numbers reserved per database round trip
+	 * @param width     minimum number of digits after the prefix
+	 */
+	public IdGenerator(int blockSize, int width) {
+		this.blockSize = Math.max(1, blockSize);
+		this.width = Math.max(1, width);
+	}
+
+	public static IdGenerator getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Returns the next identifier of the given prefix from the shared allocator.
+	 *
+	 * @param prefix one of the prefix constants of this class
+	 * @return a unique identifier, e.g. PLA007
+	 * @throws HibernateException if a new block cannot be reserved
+	 */
+	public static String next(String prefix) {
+		return INSTANCE.nextId(prefix);
+	}
+
+	/**
+	 * Returns the next identifier of the given prefix.
+	 *
+	 * @param prefix one of the prefix constants of this class
+	 * @return a unique identifier
+	 * @throws HibernateException if a new block cannot be reserved
+	 */
+	public String nextId(String prefix) {
+		return format(prefix, nextValue(prefix));
+	}
+
+	String format(String prefix, long value) {
+		StringBuilder id = new StringBuilder(prefix);
+		String digits = Long.toString(value);
+		for (int i = digits.length(); i < width; i++) {
+			id.append('0');
+		}
+		return id.append(digits).toString();
+	}
+
+	private long nextValue(String prefix) {
+		AtomicReference<Block> ref = blocks.computeIfAbsent(prefix, p -> new AtomicReference<>(EXHAUSTED));
+		while (true) {
+			Block block = ref.get();
+			long value = block.cursor.getAndIncrement();
+			if (value < block.limit) {
+				return value;
+			}
+			// block used up: exactly one thread per prefix fetches the next one
+			synchronized (ref) {
+				if (ref.get() == block) {
+					ref.set(reserveBlock(prefix));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reserves the next block of numbers for the prefix in its own transaction.
+	 */
+	private Block reserveBlock(final String prefix) {
+		final long[] range = new long[1];
+		Session session = null;
+		Transaction trans = null;
+		try {
+			session = SessionHelper.getSessionFactory().openSession();
+			ensureTable(session);
+			trans = session.beginTransaction();
+			session.doWork(new Work() {
+				@Override
+				public void execute(Connection connection) throws SQLException {
+					range[0] = lockAndAdvance(connection, prefix);
+				}
+			});
+			trans.commit();
+		} catch (HibernateException e) {
+			if (trans != null)
+				trans.rollback();
+			logger.error("Could not reserve id block for prefix " + prefix, e);
+			throw e;
+		} finally {
+			if (session != null)
+				session.close();
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Reserved " + prefix + " ids " + range[0] + ".." + (range[0] + blockSize - 1));
+		}
+		return new Block(range[0], range[0] + blockSize);
+	}
+
+	private long lockAndAdvance(Connection connection, String prefix) throws SQLException {
+		Long start = lockRow(connection, prefix);
+		if (start == null) {
+			try (PreparedStatement seed = connection.prepareStatement(SEED_SQL)) {
+				seed.setString(1, prefix);
+				seed.setLong(2, highestExisting(connection, prefix) + 1);
+				seed.executeUpdate();
+			}
+			start = lockRow(connection, prefix);
+			if (start == null) {
+				throw new SQLException("id_sequence row for " + prefix + " could not be created");
+			}
+		}
+		try (PreparedStatement advance = connection.prepareStatement(ADVANCE_SQL)) {
+			advance.setLong(1, start + blockSize);
+			advance.setString(2, prefix);
+			advance.executeUpdate();
+		}
+		return start;
+	}
+
+	private static Long lockRow(Connection connection, String prefix) throws SQLException {
+		try (PreparedStatement lock = connection.prepareStatement(LOCK_SQL)) {
+			lock.setString(1, prefix);
+			try (ResultSet rs = lock.executeQuery()) {
+				return rs.next() ? rs.getLong(1) : null;
+			}
+		}
+	}
+
+	/**
+	 * Highest number already used in the owning table, so that the sequence
+	 * continues after ids created by the old max-and-increment code.
+	 */
+	private static long highestExisting(Connection connection, String prefix) throws SQLException {
+		String[] owner = OWNERS.get(prefix);
+		if (owner == null) {
+			return 0L;
+		}
+		String sql = "SELECT MAX(CAST(SUBSTRING(" + owner[1] + ", " + (prefix.length() + 1) + ") AS UNSIGNED)) FROM "
+				+ owner[0] + " WHERE " + owner[1] + " LIKE ?";
+		try (PreparedStatement max = connection.prepareStatement(sql)) {
+			max.setString(1, prefix + "%");
+			try (ResultSet rs = max.executeQuery()) {
+				return rs.next() ? rs.getLong(1) : 0L;
+			}
+		}
+	}
+
+	private void ensureTable(Session session) {
+		if (tableChecked) {
+			return;
+		}
+		session.doWork(new Work() {
+			@Override
+			public void execute(Connection connection) throws SQLException {
+				try (Statement st = connection.createStatement()) {
+					st.execute(CREATE_TABLE_SQL);
+				}
+			}
+		});
+		tableChecked = true;
+	}
+
+	private static final class Block {
+		private final AtomicLong cursor;
+		private final long limit;
+
+		Block(long start, long limit) {
+			this.cursor = new AtomicLong(start);
+			this.limit = limit;
+		}
+	}
+}
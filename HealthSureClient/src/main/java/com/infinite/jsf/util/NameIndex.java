@@ -0,0 +1,331 @@
+package com.infinite.jsf.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Copyright © 2025 Infinite Computer Solution. All rights reserved.
+ *
+ * In-memory name search over a set of (id, name) pairs, e.g. the medicines of
+ * one pharmacy.
+ *
+ * <p>
+ * "Starts with" searches walk a character trie. Every trie node counts the
+ * names below it, so the total and any page of matches are found without
+ * visiting the names before the page; matches come in alphabetical order.
+ * "Contains" searches intersect the posting lists of the trigrams of the
+ * query and confirm the few candidates with {@link String#indexOf(String)};
+ * matches are ranked by the position of the match, then by name length and
+ * name. Queries shorter than a trigram scan the names directly.
+ * </p>
+ *
+ * <p>
+ * Names are trimmed and lower-cased. All methods are thread-safe; searches
+ * run in parallel, updates are exclusive.
+ * </p>
+ *
+ * @author Infinite Computer Solution
+ * @version 1.0
+ */
+public class NameIndex {
+
+	private static final int GRAM = 3;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private final Map<String, String> namesById = new HashMap<>();
+	private final TrieNode root = new TrieNode();
+	private final Map<String, Set<String>> postings = new HashMap<>();
+
+	/**
+	 * Adds a row, or replaces the name of a row already indexed.
+	 *
+	 * @param id   row id
+	 * @param name row name; a blank name removes the row
+	 */
+	public void put(String id, String name) {
+		String normalized = normalize(name);
+		lock.writeLock().lock();
+		try {
+			String previous = namesById.remove(id);
+			if (previous != null) {
+				unindex(id, previous);
+			}
+			if (normalized != null) {
+				namesById.put(id, normalized);
+				index(id, normalized);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Removes a row.
+	 *
+	 * @param id row id
+	 */
+	public void remove(String id) {
+		put(id, null);
+	}
+
+	/**
+	 * @return number of indexed rows
+	 */
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return namesById.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Finds the rows whose name matches the query.
+	 *
+	 * @param query      text typed by the user
+	 * @param contains   true to match anywhere in the name, false for names
+	 *                   starting with the query
+	 * @param firstResult index of the first match to return
+	 * @param maxResults most matches to return
+	 * @return one page of ranked ids and the total number of matches
+	 */
+	public NameMatches search(String query, boolean contains, int firstResult, int maxResults) {
+		String normalized = normalize(query);
+		lock.readLock().lock();
+		try {
+			if (normalized == null) {
+				return new NameMatches(Collections.<String>emptyList(), 0);
+			}
+			return contains ? searchContaining(normalized, firstResult, maxResults)
+					: searchStartingWith(normalized, firstResult, maxResults);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	static String normalize(String name) {
+		if (name == null) {
+			return null;
+		}
+		String trimmed = name.trim();
+		return trimmed.isEmpty() ? null : trimmed.toLowerCase(Locale.ROOT);
+	}
+
+	private NameMatches searchStartingWith(String prefix, int firstResult, int maxResults) {
+		TrieNode node = root;
+		for (int i = 0; i < prefix.length() && node != null; i++) {
+			node = node.children.get(prefix.charAt(i));
+		}
+		if (node == null) {
+			return new NameMatches(Collections.<String>emptyList(), 0);
+		}
+		List<String> page = new ArrayList<>(Math.max(0, Math.min(maxResults, node.count - firstResult)));
+		collect(node, firstResult, maxResults, page);
+		return new NameMatches(page, node.count);
+	}
+
+	/**
+	 * Appends the ids of the subtree in name order, skipping whole subtrees
+	 * that lie before the page.
+	 *
+	 * @return how many of the {@code skip} matches are still to be skipped
+	 */
+	private static int collect(TrieNode node, int skip, int maxResults, List<String> page) {
+		if (page.size() >= maxResults) {
+			return skip;
+		}
+		if (skip >= node.count) {
+			return skip - node.count;
+		}
+		for (String id : node.ids) {
+			if (skip > 0) {
+				skip--;
+			} else if (page.size() < maxResults) {
+				page.add(id);
+			} else {
+				return 0;
+			}
+		}
+		for (TrieNode child : node.children.values()) {
+			skip = collect(child, skip, maxResults, page);
+			if (page.size() >= maxResults) {
+				return 0;
+			}
+		}
+		return skip;
+	}
+
+	private NameMatches searchContaining(String text, int firstResult, int maxResults) {
+		Iterable<String> candidates = text.length() < GRAM ? namesById.keySet() : candidates(text);
+		List<Match> matches = new ArrayList<>();
+		for (String id : candidates) {
+			String name = namesById.get(id);
+			int position = name.indexOf(text);
+			if (position >= 0) {
+				matches.add(new Match(id, name, position));
+			}
+		}
+		int from = Math.min(Math.max(0, firstResult), matches.size());
+		int to = (int) Math.min(matches.size(), (long) from + maxResults);
+		if (from == to) {
+			// a count, or a page past the end; no need to rank
+			return new NameMatches(Collections.<String>emptyList(), matches.size());
+		}
+		List<Match> ranked = firstRanked(matches, to);
+		List<String> page = new ArrayList<>(to - from);
+		for (Match match : ranked.subList(from, to)) {
+			page.add(match.id);
+		}
+		return new NameMatches(page, matches.size());
+	}
+
+	/**
+	 * The best {@code count} matches in rank order. Early pages keep only that
+	 * many matches in a heap instead of sorting all of them.
+	 */
+	private static List<Match> firstRanked(List<Match> matches, int count) {
+		if (count > matches.size() / 2) {
+			Collections.sort(matches);
+			return matches;
+		}
+		PriorityQueue<Match> worstFirst = new PriorityQueue<>(count, Collections.reverseOrder());
+		for (Match match : matches) {
+			if (worstFirst.size() < count) {
+				worstFirst.add(match);
+			} else if (match.compareTo(worstFirst.peek()) < 0) {
+				worstFirst.poll();
+				worstFirst.add(match);
+			}
+		}
+		List<Match> ranked = new ArrayList<>(worstFirst);
+		Collections.sort(ranked);
+		return ranked;
+	}
+
+	/** Ids holding every trigram of the text, starting from the rarest. */
+	private Set<String> candidates(String text) {
+		List<Set<String>> lists = new ArrayList<>();
+		for (String gram : grams(text)) {
+			Set<String> ids = postings.get(gram);
+			if (ids == null) {
+				return Collections.emptySet();
+			}
+			lists.add(ids);
+		}
+		Collections.sort(lists, new Comparator<Set<String>>() {
+			@Override
+			public int compare(Set<String> a, Set<String> b) {
+				return Integer.compare(a.size(), b.size());
+			}
+		});
+		Set<String> result = new HashSet<>(lists.get(0));
+		for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+			result.retainAll(lists.get(i));
+		}
+		return result;
+	}
+
+	private static Set<String> grams(String name) {
+		Set<String> grams = new HashSet<>();
+		for (int i = 0; i + GRAM <= name.length(); i++) {
+			grams.add(name.substring(i, i + GRAM));
+		}
+		return grams;
+	}
+
+	private void index(String id, String name) {
+		TrieNode node = root;
+		node.count++;
+		for (int i = 0; i < name.length(); i++) {
+			char c = name.charAt(i);
+			TrieNode child = node.children.get(c);
+			if (child == null) {
+				child = new TrieNode();
+				node.children.put(c, child);
+			}
+			node = child;
+			node.count++;
+		}
+		node.ids.add(id);
+
+		for (String gram : grams(name)) {
+			Set<String> ids = postings.get(gram);
+			if (ids == null) {
+				ids = new HashSet<>();
+				postings.put(gram, ids);
+			}
+			ids.add(id);
+		}
+	}
+
+	private void unindex(String id, String name) {
+		TrieNode node = root;
+		node.count--;
+		for (int i = 0; i < name.length(); i++) {
+			char c = name.charAt(i);
+			TrieNode child = node.children.get(c);
+			if (--child.count == 0) {
+				// nothing else below; drop the branch together with the id
+				node.children.remove(c);
+				node = null;
+				break;
+			}
+			node = child;
+		}
+		if (node != null) {
+			node.ids.remove(id);
+		}
+
+		for (String gram : grams(name)) {
+			Set<String> ids = postings.get(gram);
+			if (ids != null && ids.remove(id) && ids.isEmpty()) {
+				postings.remove(gram);
+			}
+		}
+	}
+
+	/** A "contains" match with its rank: match position, name length, name, id. */
+	private static final class Match implements Comparable<Match> {
+		private final String id;
+		private final String name;
+		private final int position;
+
+		Match(String id, String name, int position) {
+			this.id = id;
+			this.name = name;
+			this.position = position;
+		}
+
+		@Override
+		public int compareTo(Match other) {
+			int result = Integer.compare(position, other.position);
+			if (result == 0) {
+				result = Integer.compare(name.length(), other.name.length());
+			}
+			if (result == 0) {
+				result = name.compareTo(other.name);
+			}
+			return result == 0 ? id.compareTo(other.id) : result;
+		}
+	}
+
+	/** Trie node; {@code count} is the number of names ending in its subtree. */
+	private static final class TrieNode {
+		private final TreeMap<Character, TrieNode> children = new TreeMap<>();
+		private final TreeSet<String> ids = new TreeSet<>();
+		private int count;
+	}
+}
@@ -0,0 +1,35 @@
+package com.infinite.jsf.util;
+
+import java.util.List;
+
+/**
+ * Copyright © 2025 Infinite Computer Solution. All rights reserved.
+ *
+ * One page of a {@link NameIndex} search: the ranked ids of the page and the
+ * number of matches over all pages.
+ *
+ * @author Infinite Computer Solution
+ * @version 1.0
+ */
+public class NameMatches {
+	private final List<String> ids;
+	private final int total;
+
+	public NameMatches(List<String> ids, int total) {
+		this.ids = ids;
+		this.total = total;
+	}
+
+	public List<String> getIds() {
+		return ids;
+	}
+
+	public int getTotal() {
+		return total;
+	}
+
+	@Override
+	public String toString() {
+		return "NameMatches [" + ids.size() + " of " + total + "]";
+	}
+}
@@ -0,0 +1,76 @@
+package com.infinite.jsf.util;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.sql.Timestamp;
+
+/**
+ * Copyright © 2025 Infinite Computer Solution. All rights reserved.
+ *
+ * Immutable view of one issued OTP as held by {@link OtpStore}.
+ *
+ * @author Infinite Computer Solution
+ * @version 1.0
+ */
+public final class OtpEntry implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private final String code;
+	private final long createdAt;
+	private final long expiresAt;
+	private final boolean active;
+
+	public OtpEntry(String code, long createdAt, long expiresAt, boolean active) {
+		this.code = code;
+		this.createdAt = createdAt;
+		this.expiresAt = expiresAt;
+		this.active = active;
+	}
+
+	public String getCode() {
+		return code;
+	}
+
+	public Timestamp getCreatedAt() {
+		return new Timestamp(createdAt);
+	}
+
+	public Timestamp getExpiresAt() {
+		return new Timestamp(expiresAt);
+	}
+
+	long createdAtMillis() {
+		return createdAt;
+	}
+
+	/** False for codes that were already used or replaced when loaded. */
+	public boolean isActive() {
+		return active;
+	}
+
+	public boolean isExpired(long now) {
+		return now >= expiresAt;
+	}
+
+	/**
+	 * Compares the input with the code in constant time so that response timing
+	 * does not reveal how many leading digits were right.
+	 *
+	 * @param input code typed by the user
+	 * @return true if it is this code
+	 */
+	public boolean matches(String input) {
+		if (input == null || code == null) {
+			return false;
+		}
+		return MessageDigest.isEqual(code.getBytes(StandardCharsets.UTF_8),
+				input.trim().getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Override
+	public String toString() {
+		// the code itself is deliberately left out of log output
+		return "OtpEntry [createdAt=" + getCreatedAt() + ", expiresAt=" + getExpiresAt() + ", active=" + active + "]";
+	}
+}
@@ -0,0 +1,76 @@
+package com.infinite.jsf.util;
+
+import java.io.Serializable;
+
+/**
+ * Copyright © 2025 Infinite Computer Solution. All rights reserved.
+ *
+ * Identifies one OTP conversation: who the code was issued to (an e-mail
+ * address or a pharmacy id) and what it is for. The owner is compared as
+ * given, apart from surrounding blanks; callers normalise e-mail case and
+ * keep the address as the user typed it in {@link #getAddress()}.
+ *
+ * @author Infinite Computer Solution
+ * @version 1.0
+ */
+public final class OtpKey implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private final String owner;
+	private final Enum<?> purpose;
+	private final String address;
+
+	public OtpKey(String owner, Enum<?> purpose) {
+		this(owner, purpose, owner);
+	}
+
+	/**
+	 * @param owner   normalised owner the key is compared by
+	 * @param purpose what the code is for
+	 * @param address the owner as given, stored with the code; not compared
+	 */
+	public OtpKey(String owner, Enum<?> purpose, String address) {
+		if (owner == null || purpose == null) {
+			throw new IllegalArgumentException("OTP owner and purpose are required");
+		}
+		this.owner = owner.trim();
+		this.purpose = purpose;
+		this.address = address == null ? this.owner : address.trim();
+	}
+
+	/** Trimmed owner. */
+	public String getOwner() {
+		return owner;
+	}
+
+	/** Trimmed owner as given, before normalisation. */
+	public String getAddress() {
+		return address;
+	}
+
+	public Enum<?> getPurpose() {
+		return purpose;
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * owner.hashCode() + purpose.hashCode();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof OtpKey)) {
+			return false;
+		}
+		OtpKey other = (OtpKey) obj;
+		return owner.equals(other.owner) && purpose == other.purpose;
+	}
+
+	@Override
+	public String toString() {
+		return "OtpKey [" + owner + ", " + purpose + "]";
+	}
+}
@@ -0,0 +1,405 @@
+package com.infinite.jsf.util;
+
+import java.sql.Timestamp;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Copyright © 2025 Infinite Computer Solution. All rights reserved.
+ *
+ * In-memory store of issued OTPs keyed by {@link OtpKey}.
+ *
+ * <p>
+ * Issuing, checking the resend rules and verifying a code are answered from
+ * memory; the resend rules are one {@link RateLimiter} per purpose, registered
+ * with {@link #limit(Enum, RateLimiter)}. Every change is written through to the owning OTP table by a
+ * {@link Persister}, which keeps the audit trail and lets a restarted node
+ * rebuild a key from the database the first time it is used again. Expiry is
+ * driven by the {@code expiresAt} of each entry; keys with nothing left to
+ * remember are swept out periodically.
+ * </p>
+ *
+ * <p>
+ * Updates of one key are serialised on one of {@code healthsure.otp.stripes}
+ * locks (default 64), so unrelated users never wait for each other. The store
+ * is per JVM; with several nodes the OTP pages rely on sticky sessions just
+ * like the JSF view state does.
+ * </p>
+ *
+ * @author Infinite Computer Solution
+ * @version 1.0
+ */
+public class OtpStore {
+	private static final Logger logger = Logger.getLogger(OtpStore.class);
+
+	/** Number of operations between two sweeps of stale keys. */
+	private static final int SWEEP_INTERVAL = 256;
+
+	/**
+	 * Reads and writes the OTP rows behind a store.
+	 */
+	public interface Persister {
+
+		/**
+		 * Returns the codes issued for the key since the given time, oldest first.
+		 * Codes that are no longer usable are returned with active set to false.
+		 */
+		List<OtpEntry> loadSince(OtpKey key, Timestamp since);
+
+		/**
+		 * Stores a newly issued code, retiring older codes of the key if the
+		 * table keeps that state.
+		 *
+		 * @return true if the row was written
+		 */
+		boolean save(OtpKey key, OtpEntry entry);
+
+		/**
+		 * Marks every active code of the key as used or expired.
+		 */
+		void deactivate(OtpKey key);
+	}
+
+	/** Result of an issue request or a resend check. */
+	public enum Outcome {
+		ALLOWED, ISSUED, COOLDOWN, LIMIT_REACHED, NOT_SAVED
+	}
+
+	private final String name;
+	private final Persister persister;
+	private final long historyMillis;
+	private final Map<Enum<?>, RateLimiter<OtpKey>> limiters = new ConcurrentHashMap<>();
+	private final Map<OtpKey, Slot> slots = new ConcurrentHashMap<>();
+	private final ReentrantLock[] stripes;
+	private final AtomicInteger operations = new AtomicInteger();
+
+	/**
+	 * @param name          label used in log output
+	 * @param persister     database side of the store
+	 * @param historyMillis how far back a key is reloaded after a restart; at
+	 *                      least the longest rate-limit window
+	 */
+	public OtpStore(String name, Persister persister, long historyMillis) {
+		this.name = name;
+		this.persister = persister;
+		this.historyMillis = Math.max(0L, historyMillis);
+		int count = Integer.highestOneBit(Math.max(1, AppConfig.getInt("healthsure.otp.stripes", 64)));
+		this.stripes = new ReentrantLock[count];
+		for (int i = 0; i < count; i++) {
+			stripes[i] = new ReentrantLock();
+		}
+	}
+
+	/**
+	 * Applies a resend rule to every key of the purpose. Purposes without a
+	 * limiter are not limited.
+	 *
+	 * @param purpose OTP purpose, e.g. Reason.SIGNUP
+	 * @param limiter rule for that purpose
+	 * @return this store
+	 */
+	public OtpStore limit(Enum<?> purpose, RateLimiter<OtpKey> limiter) {
+		limiters.put(purpose, limiter);
+		return this;
+	}
+
+	/**
+	 * Tells whether a new code may be issued for the key right now.
+	 *
+	 * @param key OTP conversation
+	 * @return ALLOWED, COOLDOWN or LIMIT_REACHED with the remaining wait
+	 */
+	public Issue check(OtpKey key) {
+		ReentrantLock lock = lockFor(key);
+		lock.lock();
+		try {
+			slot(key, System.currentTimeMillis());
+			RateLimiter<OtpKey> limiter = limiters.get(key.getPurpose());
+			if (limiter == null) {
+				return new Issue(Outcome.ALLOWED, null, 0L);
+			}
+			return toIssue(limiter.check(key), Outcome.ALLOWED);
+		} finally {
+			lock.unlock();
+			afterOperation();
+		}
+	}
+
+	/**
+	 * Issues a code if the resend rules allow it. The code replaces any earlier
+	 * code of the key and is persisted before this method returns; a code
+	 * that could not be saved does not count against the resend rules.
+	 *
+	 * @param key        OTP conversation
+	 * @param code       the generated code
+	 * @param ttlMillis  validity of the code
+	 * @return ISSUED with the entry, or why it was refused
+	 */
+	public Issue issue(OtpKey key, String code, long ttlMillis) {
+		ReentrantLock lock = lockFor(key);
+		lock.lock();
+		try {
+			long now = System.currentTimeMillis();
+			Slot slot = slot(key, now);
+			RateLimiter<OtpKey> limiter = limiters.get(key.getPurpose());
+			if (limiter != null) {
+				RateLimiter.Decision decision = limiter.check(key);
+				if (!decision.isAllowed()) {
+					return toIssue(decision, Outcome.ISSUED);
+				}
+			}
+			OtpEntry entry = new OtpEntry(code, now, now + ttlMillis, true);
+			if (!persister.save(key, entry)) {
+				logger.error(name + " OTP for " + key + " could not be saved");
+				return new Issue(Outcome.NOT_SAVED, null, 0L);
+			}
+			if (limiter != null) {
+				// the stripe lock is held since the check, so the permit is still free
+				limiter.tryAcquire(key);
+			}
+			slot.current = entry;
+			slot.lastIssued = now;
+			return new Issue(Outcome.ISSUED, entry, 0L);
+		} finally {
+			lock.unlock();
+			afterOperation();
+		}
+	}
+
+	/**
+	 * Returns the usable code of the key.
+	 *
+	 * @param key OTP conversation
+	 * @return the active, unexpired entry or null
+	 */
+	public OtpEntry findActive(OtpKey key) {
+		ReentrantLock lock = lockFor(key);
+		lock.lock();
+		try {
+			long now = System.currentTimeMillis();
+			Slot slot = slot(key, now);
+			return slot.current != null && !slot.current.isExpired(now) ? slot.current : null;
+		} finally {
+			lock.unlock();
+			afterOperation();
+		}
+	}
+
+	/**
+	 * Returns the latest code of the key even if it has expired, so callers can
+	 * tell an expired code from a wrong one.
+	 *
+	 * @param key OTP conversation
+	 * @return the current entry or null
+	 */
+	public OtpEntry findLatest(OtpKey key) {
+		ReentrantLock lock = lockFor(key);
+		lock.lock();
+		try {
+			return slot(key, System.currentTimeMillis()).current;
+		} finally {
+			lock.unlock();
+			afterOperation();
+		}
+	}
+
+	/**
+	 * Checks the code without using it up.
+	 *
+	 * @param key  OTP conversation
+	 * @param code code typed by the user
+	 * @return true if it is the active, unexpired code
+	 */
+	public boolean verify(OtpKey key, String code) {
+		OtpEntry entry = findActive(key);
+		return entry != null && entry.matches(code);
+	}
+
+	/**
+	 * Checks the code and, if it is right, retires it so it cannot be used
+	 * again.
+	 *
+	 * @param key  OTP conversation
+	 * @param code code typed by the user
+	 * @return the consumed entry, or null if the code was wrong or expired
+	 */
+	public OtpEntry consume(OtpKey key, String code) {
+		ReentrantLock lock = lockFor(key);
+		lock.lock();
+		try {
+			long now = System.currentTimeMillis();
+			Slot slot = slot(key, now);
+			OtpEntry entry = slot.current;
+			if (entry == null || entry.isExpired(now) || !entry.matches(code)) {
+				return null;
+			}
+			persister.deactivate(key);
+			slot.current = null;
+			return entry;
+		} finally {
+			lock.unlock();
+			afterOperation();
+		}
+	}
+
+	/**
+	 * Retires the active code of the key, e.g. once the flow it guarded is
+	 * complete. The issue history used by the resend rules is kept.
+	 *
+	 * @param key OTP conversation
+	 */
+	public void invalidate(OtpKey key) {
+		ReentrantLock lock = lockFor(key);
+		lock.lock();
+		try {
+			persister.deactivate(key);
+			Slot slot = slots.get(key);
+			if (slot != null) {
+				slot.current = null;
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/** Number of keys currently held in memory. */
+	public int size() {
+		return slots.size();
+	}
+
+	private static Issue toIssue(RateLimiter.Decision decision, Outcome allowed) {
+		switch (decision.getReason()) {
+		case COOLDOWN:
+			return new Issue(Outcome.COOLDOWN, null, decision.getRetryAfterMillis());
+		case LIMIT_REACHED:
+			return new Issue(Outcome.LIMIT_REACHED, null, decision.getRetryAfterMillis());
+		default:
+			return new Issue(allowed, null, 0L);
+		}
+	}
+
+	/**
+	 * Returns the slot of the key, loading it from the database the first time
+	 * the key is seen by this node and seeding the key's rate limiter with the
+	 * recent issue times. Called with the stripe lock held.
+	 */
+	private Slot slot(OtpKey key, long now) {
+		Slot slot = slots.get(key);
+		if (slot != null) {
+			return slot;
+		}
+		slot = new Slot();
+		List<OtpEntry> recent = persister.loadSince(key, new Timestamp(now - historyMillis));
+		long[] issued = new long[recent.size()];
+		for (int i = 0; i < issued.length; i++) {
+			OtpEntry entry = recent.get(i);
+			issued[i] = entry.createdAtMillis();
+			slot.lastIssued = issued[i];
+			if (entry.isActive()) {
+				slot.current = entry;
+			}
+		}
+		RateLimiter<OtpKey> limiter = limiters.get(key.getPurpose());
+		if (limiter != null) {
+			limiter.seed(key, issued);
+		}
+		slots.put(key, slot);
+		if (logger.isDebugEnabled()) {
+			logger.debug(name + " OTP store loaded " + key + " with " + recent.size() + " recent code(s)");
+		}
+		return slot;
+	}
+
+	private ReentrantLock lockFor(OtpKey key) {
+		int h = key.hashCode();
+		h ^= (h >>> 16);
+		return stripes[h & (stripes.length - 1)];
+	}
+
+	private void afterOperation() {
+		if (operations.incrementAndGet() % SWEEP_INTERVAL == 0) {
+			sweep();
+		}
+	}
+
+	/**
+	 * Drops keys whose code has expired and whose last issue is older than the
+	 * reload horizon, so a later reload cannot seed the limiter twice. Keys that are busy are skipped and looked at next time.
+	 */
+	void sweep() {
+		long now = System.currentTimeMillis();
+		long horizon = now - historyMillis;
+		int removed = 0;
+		for (Iterator<Map.Entry<OtpKey, Slot>> it = slots.entrySet().iterator(); it.hasNext();) {
+			Map.Entry<OtpKey, Slot> e = it.next();
+			ReentrantLock lock = lockFor(e.getKey());
+			if (!lock.tryLock()) {
+				continue;
+			}
+			try {
+				Slot slot = e.getValue();
+				boolean codeGone = slot.current == null || slot.current.isExpired(now);
+				boolean historyGone = slot.lastIssued <= horizon;
+				if (codeGone && historyGone) {
+					it.remove();
+					removed++;
+				}
+			} finally {
+				lock.unlock();
+			}
+		}
+		if (removed > 0 && logger.isDebugEnabled()) {
+			logger.debug(name + " OTP store swept " + removed + " key(s), " + slots.size() + " left");
+		}
+	}
+
+	/** Per-key state, guarded by the stripe lock of the key. */
+	private static final class Slot {
+		private OtpEntry current;
+		private long lastIssued;
+	}
+
+	/**
+	 * Answer of {@link OtpStore#issue} and {@link OtpStore#check}.
+	 */
+	public static final class Issue {
+		private final Outcome outcome;
+		private final OtpEntry entry;
+		private final long retryAfterMillis;
+
+		Issue(Outcome outcome, OtpEntry entry, long retryAfterMillis) {
+			this.outcome = outcome;
+			this.entry = entry;
+			this.retryAfterMillis = Math.max(0L, retryAfterMillis);
+		}
+
+		public Outcome getOutcome() {
+			return outcome;
+		}
+
+		/** The issued code, only set for ISSUED. */
+		public OtpEntry getEntry() {
+			return entry;
+		}
+
+		/** How long the caller has to wait, for COOLDOWN and LIMIT_REACHED. */
+		public long getRetryAfterMillis() {
+			return retryAfterMillis;
+		}
+
+		public boolean isAllowed() {
+			return outcome == Outcome.ALLOWED || outcome == Outcome.ISSUED;
+		}
+
+		@Override
+		public String toString() {
+			return "Issue [" + outcome + ", retryAfterMillis=" + retryAfterMillis + "]";
+		}
+	}
+}
@@ -0,0 +1,146 @@
+package com.infinite.jsf.util;
+
+import java.util.Properties;
+
+/**
+ * Copyright © 2025 Infinite Computer Solution. All rights reserved.
+ *
+ * Tuning knobs for {@link ConnectionPool}.
+ *
+ * <p>
+ * Every value is resolved through {@link AppConfig}, so it can be set per
+ * environment as a system property or environment variable, and falls back to
+ * a property of the same name in hibernate.cfg.xml before using the default.
+ * </p>
+ *
+ * <pre>
+ * healthsure.db.pool.minIdle                  (2)     connections kept open while idle
+ * healthsure.db.pool.maxSize                  (15)    hard upper bound on open connections
+ * healthsure.db.pool.borrowTimeoutMs          (5000)  wait for a free connection before failing
+ * healthsure.db.pool.idleTimeoutMs            (300000) idle age after which a connection is closed
+ * healthsure.db.pool.evictionIntervalMs       (60000) how often the evictor runs
+ * healthsure.db.pool.validateOnBorrow         (true)  ping idle connections before handing them out
+ * healthsure.db.pool.validationTimeoutSeconds (2)     timeout for the ping
+ * healthsure.db.pool.statementCacheSize       (250)   driver-side prepared statement cache, 0 disables
+ * healthsure.db.pool.statementCacheSqlLimit   (2048)  longest SQL text the driver will cache
+ * </pre>
+ *
+ * @author Infinite Computer Solution
+ * @version 1.0
+ */
+public class PoolSettings {
+	static final String PREFIX = "healthsure.db.pool.";
+
+	private int minIdle = 2;
+	private int maxSize = 15;
+	private long borrowTimeoutMs = 5000L;
+	private long idleTimeoutMs = 300000L;
+	private long evictionIntervalMs = 60000L;
+	private boolean validateOnBorrow = true;
+	private int validationTimeoutSeconds = 2;
+	private int statementCacheSize = 250;
+	private int statementCacheSqlLimit = 2048;
+
+	/**
+	 * Builds the settings for the current environment.
+	 *
+	 * @param fallback properties consulted after system properties and
+	 *                 environment variables, typically the Hibernate properties
+	 * @return resolved settings, sanitised so that they are always usable
+	 */
+	public static PoolSettings resolve(Properties fallback) {
+		PoolSettings s = new PoolSettings();
+		s.setMaxSize(Math.max(1, AppConfig.getInt(PREFIX + "maxSize", fallback, s.maxSize)));
+		s.setMinIdle(Math.min(s.maxSize, Math.max(0, AppConfig.getInt(PREFIX + "minIdle", fallback, s.minIdle))));
+		s.setBorrowTimeoutMs(Math.max(0L, AppConfig.getLong(PREFIX + "borrowTimeoutMs", fallback, s.borrowTimeoutMs)));
+		s.setIdleTimeoutMs(Math.max(1000L, AppConfig.getLong(PREFIX + "idleTimeoutMs", fallback, s.idleTimeoutMs)));
+		s.setEvictionIntervalMs(
+				Math.max(1000L, AppConfig.getLong(PREFIX + "evictionIntervalMs", fallback, s.evictionIntervalMs)));
+		s.setValidateOnBorrow(AppConfig.getBoolean(PREFIX + "validateOnBorrow", fallback, s.validateOnBorrow));
+		s.setValidationTimeoutSeconds(
+				Math.max(1, AppConfig.getInt(PREFIX + "validationTimeoutSeconds", fallback, s.validationTimeoutSeconds)));
+		s.setStatementCacheSize(Math.max(0, AppConfig.getInt(PREFIX + "statementCacheSize", fallback, s.statementCacheSize)));
+		s.setStatementCacheSqlLimit(
+				Math.max(256, AppConfig.getInt(PREFIX + "statementCacheSqlLimit", fallback, s.statementCacheSqlLimit)));
+		return s;
+	}
+
+	public int getMinIdle() {
+		return minIdle;
+	}
+
+	public void setMinIdle(int minIdle) {
+		this.minIdle = minIdle;
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	public void setMaxSize(int maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	public long getBorrowTimeoutMs() {
+		return borrowTimeoutMs;
+	}
+
+	public void setBorrowTimeoutMs(long borrowTimeoutMs) {
+		this.borrowTimeoutMs = borrowTimeoutMs;
+	}
+
+	public long getIdleTimeoutMs() {
+		return idleTimeoutMs;
+	}
+
+	public void setIdleTimeoutMs(long idleTimeoutMs) {
+		this.idleTimeoutMs = idleTimeoutMs;
+	}
+
+	public long getEvictionIntervalMs() {
+		return evictionIntervalMs;
+	}
+
+	public void setEvictionIntervalMs(long evictionIntervalMs) {
+		this.evictionIntervalMs = evictionIntervalMs;
+	}
+
+	public boolean isValidateOnBorrow() {
+		return validateOnBorrow;
+	}
+
+	public void setValidateOnBorrow(boolean validateOnBorrow) {
+		this.validateOnBorrow = validateOnBorrow;
+	}
+
+	public int getValidationTimeoutSeconds() {
+		return validationTimeoutSeconds;
+	}
+
+	public void setValidationTimeoutSeconds(int validationTimeoutSeconds) {
+		this.validationTimeoutSeconds = validationTimeoutSeconds;
+	}
+
+	public int getStatementCacheSize() {
+		return statementCacheSize;
+	}
+
+	public void setStatementCacheSize(int statementCacheSize) {
+		this.statementCacheSize = statementCacheSize;
+	}
+
+	public int getStatementCacheSqlLimit() {
+		return statementCacheSqlLimit;
+	}
+
+	public void setStatementCacheSqlLimit(int statementCacheSqlLimit) {
+		this.statementCacheSqlLimit = statementCacheSqlLimit;
+	}
+
+	@Override
+	public String toString() {
+		return "PoolSettings [minIdle=" + minIdle + ", maxSize=" + maxSize + ", borrowTimeoutMs=" + borrowTimeoutMs
+				+ ", idleTimeoutMs=" + idleTimeoutMs + ", evictionIntervalMs=" + evictionIntervalMs
+				+ ", validateOnBorrow=" + validateOnBorrow + ", statementCacheSize=" + statementCacheSize + "]";
+	}
+}
@@ -0,0 +1,103 @@
+package com.infinite.jsf.util;
+
+import java.io.Serializable;
+
+/**
+ * Copyright © 2025 Infinite Computer Solution. All rights reserved.
+ *
+ * Point-in-time snapshot of {@link ConnectionPool} utilisation. Counters are
+ * cumulative since the pool was started.
+ *
+ * @author Infinite Computer Solution
+ * @version 1.0
+ */
+public class PoolStats implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private final int active;
+	private final int idle;
+	private final int maxSize;
+	private final int waiting;
+	private final long borrowed;
+	private final long created;
+	private final long destroyed;
+	private final long timeouts;
+	private final long validationFailures;
+	private final long totalWaitMillis;
+	private final long maxWaitMillis;
+
+	public PoolStats(int active, int idle, int maxSize, int waiting, long borrowed, long created, long destroyed,
+			long timeouts, long validationFailures, long totalWaitMillis, long maxWaitMillis) {
+		this.active = active;
+		this.idle = idle;
+		this.maxSize = maxSize;
+		this.waiting = waiting;
+		this.borrowed = borrowed;
+		this.created = created;
+		this.destroyed = destroyed;
+		this.timeouts = timeouts;
+		this.validationFailures = validationFailures;
+		this.totalWaitMillis = totalWaitMillis;
+		this.maxWaitMillis = maxWaitMillis;
+	}
+
+	/** Connections currently handed out to sessions. */
+	public int getActive() {
+		return active;
+	}
+
+	/** Open connections sitting in the pool. */
+	public int getIdle() {
+		return idle;
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/** Threads blocked waiting for a connection right now. */
+	public int getWaiting() {
+		return waiting;
+	}
+
+	public long getBorrowed() {
+		return borrowed;
+	}
+
+	public long getCreated() {
+		return created;
+	}
+
+	public long getDestroyed() {
+		return destroyed;
+	}
+
+	/** Borrow attempts that gave up after the configured timeout. */
+	public long getTimeouts() {
+		return timeouts;
+	}
+
+	public long getValidationFailures() {
+		return validationFailures;
+	}
+
+	public long getTotalWaitMillis() {
+		return totalWaitMillis;
+	}
+
+	public long getMaxWaitMillis() {
+		return maxWaitMillis;
+	}
+
+	public double getAverageWaitMillis() {
+		return borrowed == 0 ? 0d : (double) totalWaitMillis / borrowed;
+	}
+
+	@Override
+	public String toString() {
+		return "PoolStats [active=" + active + ", idle=" + idle + ", max=" + maxSize + ", waiting=" + waiting
+				+ ", borrowed=" + borrowed + ", created=" + created + ", destroyed=" + destroyed + ", timeouts="
+				+ timeouts + ", validationFailures=" + validationFailures + ", avgWaitMs="
+				+ String.format("%.2f", getAverageWaitMillis()) + ", maxWaitMs=" + maxWaitMillis + "]";
+	}
+}
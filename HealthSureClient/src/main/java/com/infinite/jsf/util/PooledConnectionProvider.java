@@ -0,0 +1,91 @@
+package com.infinite.jsf.util;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Properties;
+
+import org.apache.log4j.Logger;
+import org.hibernate.HibernateException;
+import org.hibernate.cfg.Environment;
+import org.hibernate.connection.ConnectionProvider;
+import org.hibernate.connection.ConnectionProviderFactory;
+
+/**
+ * Copyright © 2025 Infinite Computer Solution. All rights reserved.
+ *
+ * Hibernate {@link ConnectionProvider} backed by {@link ConnectionPool}.
+ *
+ * <p>
+ * Registered by {@link SessionHelper} in place of Hibernate's built-in
+ * DriverManager provider, which opens a new physical connection for almost
+ * every session. Connection details come from hibernate.cfg.xml and pool
+ * tuning from {@link PoolSettings}. Prepared statement caching is delegated to
+ * MySQL Connector/J ({@code cachePrepStmts}), which keeps the cache per
+ * physical connection and therefore survives across sessions in the pool.
+ * </p>
+ *
+ * @author Infinite Computer Solution
+ * @version 1.0
+ */
+public class PooledConnectionProvider implements ConnectionProvider {
+	private static final Logger logger = Logger.getLogger(PooledConnectionProvider.class);
+
+	private ConnectionPool pool;
+
+	@Override
+	public void configure(Properties props) throws HibernateException {
+		String driver = props.getProperty(Environment.DRIVER);
+		String url = props.getProperty(Environment.URL);
+		if (url == null) {
+			throw new HibernateException("JDBC url was not specified by property " + Environment.URL);
+		}
+		if (driver != null) {
+			try {
+				Class.forName(driver);
+			} catch (ClassNotFoundException e) {
+				throw new HibernateException("JDBC Driver class not found: " + driver, e);
+			}
+		}
+
+		Properties connectionProps = ConnectionProviderFactory.getConnectionProperties(props);
+		PoolSettings settings = PoolSettings.resolve(props);
+		if (settings.getStatementCacheSize() > 0) {
+			connectionProps.setProperty("cachePrepStmts", "true");
+			connectionProps.setProperty("prepStmtCacheSize", String.valueOf(settings.getStatementCacheSize()));
+			connectionProps.setProperty("prepStmtCacheSqlLimit", String.valueOf(settings.getStatementCacheSqlLimit()));
+		}
+		boolean autoCommit = Boolean.parseBoolean(props.getProperty(Environment.AUTOCOMMIT, "false"));
+
+		pool = new ConnectionPool(url, connectionProps, settings, autoCommit);
+		logger.info("Pooled connection provider configured for " + url);
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		return pool.borrow();
+	}
+
+	@Override
+	public void closeConnection(Connection conn) throws SQLException {
+		pool.giveBack(conn);
+	}
+
+	@Override
+	public void close() throws HibernateException {
+		if (pool != null) {
+			pool.close();
+		}
+	}
+
+	@Override
+	public boolean supportsAggressiveRelease() {
+		return false;
+	}
+
+	/**
+	 * @return live pool utilisation, or null before the provider is configured
+	 */
+	public PoolStats getStats() {
+		return pool == null ? null : pool.getStats();
+	}
+}
@@ -0,0 +1,252 @@
+package com.infinite.jsf.util;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Copyright © 2025 Infinite Computer Solution. All rights reserved.
+ *
+ * Sliding-window rate limiter with an optional cooldown between two permits.
+ *
+ * <p>
+ * Each key keeps the times of its most recent permits in an immutable array
+ * that is replaced with compare-and-set, so deciding is lock-free and never
+ * touches the database. A refused call is told exactly how long it has to
+ * wait. Keys idle for longer than the window are dropped periodically.
+ * </p>
+ *
+ * <p>
+ * {@link #fromConfig(String, int, long, long)} reads a rule from
+ * {@link AppConfig}, e.g. {@code healthsure.otp.admin.signup.maxPermits},
+ * {@code .windowMs} and {@code .cooldownMs}.
+ * </p>
+ *
+ * @param <K> key type, e.g. an e-mail address or {@link OtpKey}
+ * @author Infinite Computer Solution
+ * @version 1.0
+ */
+public class RateLimiter<K> {
+
+	/** Why a call was refused. */
+	public enum Reason {
+		ALLOWED, COOLDOWN, LIMIT_REACHED
+	}
+
+	private static final long[] EMPTY = new long[0];
+	private static final int SWEEP_INTERVAL = 1024;
+	private static final Decision ALLOWED = new Decision(Reason.ALLOWED, 0L);
+
+	private final int maxPermits;
+	private final long windowMillis;
+	private final long cooldownMillis;
+	private final Map<K, AtomicReference<long[]>> windows = new ConcurrentHashMap<>();
+	private final AtomicInteger operations = new AtomicInteger();
+
+	/**
+	 * @param maxPermits     permits per key within the window, 0 for no limit
+	 * @param windowMillis   length of the sliding window
+	 * @param cooldownMillis minimum gap between two permits, 0 for none
+	 */
+	public RateLimiter(int maxPermits, long windowMillis, long cooldownMillis) {
+		this.maxPermits = Math.max(0, maxPermits);
+		this.windowMillis = Math.max(0L, windowMillis);
+		this.cooldownMillis = Math.max(0L, cooldownMillis);
+	}
+
+	/**
+	 * Builds a limiter whose rule can be overridden with
+	 * {@code <prefix>.maxPermits}, {@code <prefix>.windowMs} and
+	 * {@code <prefix>.cooldownMs}.
+	 */
+	public static <K> RateLimiter<K> fromConfig(String prefix, int maxPermits, long windowMillis,
+			long cooldownMillis) {
+		return new RateLimiter<>(AppConfig.getInt(prefix + ".maxPermits", maxPermits),
+				AppConfig.getLong(prefix + ".windowMs", windowMillis),
+				AppConfig.getLong(prefix + ".cooldownMs", cooldownMillis));
+	}
+
+	/**
+	 * Takes a permit for the key if the rule allows it.
+	 *
+	 * @param key caller identity
+	 * @return ALLOWED, or the reason and remaining wait
+	 */
+	public Decision tryAcquire(K key) {
+		return decide(key, true);
+	}
+
+	/**
+	 * Tells whether a permit would be granted now, without taking it.
+	 *
+	 * @param key caller identity
+	 * @return ALLOWED, or the reason and remaining wait
+	 */
+	public Decision check(K key) {
+		return decide(key, false);
+	}
+
+	/**
+	 * Restores the permit history of a key, e.g. from the database after a
+	 * restart. Ignored when the key already has history on this node.
+	 *
+	 * @param key   caller identity
+	 * @param times permit times in milliseconds, oldest first
+	 */
+	public void seed(K key, long[] times) {
+		if (times.length == 0) {
+			return;
+		}
+		long[] kept = times.length > retained() ? Arrays.copyOfRange(times, times.length - retained(), times.length)
+				: times.clone();
+		windows.putIfAbsent(key, new AtomicReference<>(kept));
+	}
+
+	/** Forgets the history of a key. */
+	public void reset(K key) {
+		windows.remove(key);
+	}
+
+	/** Number of keys with history. */
+	public int size() {
+		return windows.size();
+	}
+
+	public int getMaxPermits() {
+		return maxPermits;
+	}
+
+	public long getWindowMillis() {
+		return windowMillis;
+	}
+
+	public long getCooldownMillis() {
+		return cooldownMillis;
+	}
+
+	private Decision decide(K key, boolean acquire) {
+		AtomicReference<long[]> ref = windows.get(key);
+		if (ref == null) {
+			if (!acquire) {
+				return ALLOWED;
+			}
+			ref = windows.computeIfAbsent(key, k -> new AtomicReference<>(EMPTY));
+		}
+		try {
+			while (true) {
+				long now = System.currentTimeMillis();
+				long[] current = ref.get();
+				long[] live = prune(current, now);
+				Decision blocked = blocked(live, now);
+				if (blocked != null) {
+					if (live != current) {
+						ref.compareAndSet(current, live);
+					}
+					return blocked;
+				}
+				if (!acquire) {
+					return ALLOWED;
+				}
+				if (ref.compareAndSet(current, append(live, now))) {
+					return ALLOWED;
+				}
+			}
+		} finally {
+			if (operations.incrementAndGet() % SWEEP_INTERVAL == 0) {
+				sweep();
+			}
+		}
+	}
+
+	private Decision blocked(long[] live, long now) {
+		if (maxPermits > 0 && live.length >= maxPermits) {
+			long oldest = live[live.length - maxPermits];
+			return new Decision(Reason.LIMIT_REACHED, oldest + windowMillis - now);
+		}
+		if (cooldownMillis > 0 && live.length > 0) {
+			long wait = live[live.length - 1] + cooldownMillis - now;
+			if (wait > 0) {
+				return new Decision(Reason.COOLDOWN, wait);
+			}
+		}
+		return null;
+	}
+
+	/** Drops permits that have left both the window and the cooldown. */
+	private long[] prune(long[] times, long now) {
+		long horizon = now - Math.max(windowMillis, cooldownMillis);
+		int first = 0;
+		while (first < times.length && times[first] <= horizon) {
+			first++;
+		}
+		return first == 0 ? times : Arrays.copyOfRange(times, first, times.length);
+	}
+
+	private long[] append(long[] times, long now) {
+		int keep = Math.min(times.length, retained() - 1);
+		long[] next = new long[keep + 1];
+		System.arraycopy(times, times.length - keep, next, 0, keep);
+		next[keep] = now;
+		return next;
+	}
+
+	/** Only the last maxPermits times matter; with no limit only the last one. */
+	private int retained() {
+		return Math.max(1, maxPermits);
+	}
+
+	/**
+	 * Removes keys whose history has expired. Empty histories only exist for
+	 * the moment between creating a key and recording its first permit, so
+	 * they are left alone. A caller racing with the removal of an idle key can
+	 * at worst lose one permit record.
+	 */
+	private void sweep() {
+		long horizon = System.currentTimeMillis() - Math.max(windowMillis, cooldownMillis);
+		for (Iterator<Map.Entry<K, AtomicReference<long[]>>> it = windows.entrySet().iterator(); it.hasNext();) {
+			long[] times = it.next().getValue().get();
+			if (times.length > 0 && times[times.length - 1] <= horizon) {
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Answer of the limiter.
+	 */
+	public static final class Decision {
+		private final Reason reason;
+		private final long retryAfterMillis;
+
+		Decision(Reason reason, long retryAfterMillis) {
+			this.reason = reason;
+			this.retryAfterMillis = Math.max(0L, retryAfterMillis);
+		}
+
+		public boolean isAllowed() {
+			return reason == Reason.ALLOWED;
+		}
+
+		public Reason getReason() {
+			return reason;
+		}
+
+		/** How long the caller is blocked, 0 when allowed. */
+		public long getRetryAfterMillis() {
+			return retryAfterMillis;
+		}
+
+		/** Remaining block time rounded up to whole seconds. */
+		public long getRetryAfterSeconds() {
+			return (retryAfterMillis + 999) / 1000;
+		}
+
+		@Override
+		public String toString() {
+			return "Decision [" + reason + ", retryAfterMillis=" + retryAfterMillis + "]";
+		}
+	}
+}
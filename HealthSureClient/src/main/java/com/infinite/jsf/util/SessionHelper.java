@@ -3,6 +3,9 @@ package com.infinite.jsf.util;
 import org.apache.log4j.Logger;
 import org.hibernate.SessionFactory;
 import org.hibernate.cfg.Configuration;
+import org.hibernate.cfg.Environment;
+import org.hibernate.connection.ConnectionProvider;
+import org.hibernate.engine.SessionFactoryImplementor;
 
 /**
  * Copyright © 2025 Infinite Computer Solution. All rights reserved.
@@ -16,6 +19,14 @@ import org.hibernate.cfg.Configuration;
  * </p>
  *
  * <p>
+ * Connections are served by {@link PooledConnectionProvider}. The JDBC url,
+ * username and password in hibernate.cfg.xml are defaults that each environment
+ * can override with {@code healthsure.db.url}, {@code healthsure.db.username}
+ * and {@code healthsure.db.password} (see {@link AppConfig}); pool tuning is
+ * described in {@link PoolSettings}.
+ * </p>
+ *
+ * <p>
  * Logging is handled using Log4j to track the initialization process and
  * capture any errors during SessionFactory creation.
  * </p>
@@ -37,6 +48,12 @@ public class SessionHelper {
 			config.setProperty("hibernate.validator.apply_to_ddl", "false");
 			config.setProperty("hibernate.validator.autoregister_listeners", "false");
 
+			// Per-environment connection settings and the pooled provider
+			override(config, Environment.URL, "healthsure.db.url");
+			override(config, Environment.USER, "healthsure.db.username");
+			override(config, Environment.PASS, "healthsure.db.password");
+			config.setProperty(Environment.CONNECTION_PROVIDER, PooledConnectionProvider.class.getName());
+
 			sessionFactory = config.buildSessionFactory();
 			if (logger.isDebugEnabled()) {
 				logger.debug("Hibernate configuration loaded and SessionFactory built successfully.");
@@ -56,4 +73,26 @@ public class SessionHelper {
 	public static SessionFactory getSessionFactory() {
 		return sessionFactory;
 	}
+
+	/**
+	 * Returns the live utilisation of the connection pool behind the
+	 * SessionFactory.
+	 *
+	 * @return pool statistics, or null if another connection provider is in use
+	 */
+	public static PoolStats getPoolStats() {
+		ConnectionProvider provider = ((SessionFactoryImplementor) sessionFactory).getConnectionProvider();
+		if (provider instanceof PooledConnectionProvider) {
+			return ((PooledConnectionProvider) provider).getStats();
+		}
+		return null;
+	}
+
+	private static void override(Configuration config, String hibernateKey, String appKey) {
+		String value = AppConfig.get(appKey, null);
+		if (value != null) {
+			config.setProperty(hibernateKey, value);
+			logger.info("Using " + appKey + " from the environment for " + hibernateKey);
+		}
+	}
 }
@@ -0,0 +1,392 @@
+package com.infinite.jsf.util;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+import org.hibernate.HibernateException;
+import org.hibernate.Query;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+
+/**
+ * Copyright © 2025 Infinite Computer Solution. All rights reserved.
+ *
+ * Answers "is this value already taken?" for the unique fields of one entity,
+ * e.g. the e-mail, mobile, Aadhar and GST number of a pharmacy.
+ *
+ * <p>
+ * Every field has a {@link BloomFilter} over the trimmed, lower-cased values
+ * stored in the table. A value the filter has never seen is certainly free and
+ * is answered without touching the database, which is the common case on a
+ * registration form. The values the filters cannot rule out are confirmed
+ * together with one projection query that reads only the unique columns.
+ * </p>
+ *
+ * <p>
+ * The filters are built from a single scan of the unique columns at startup
+ * (or on first use) and kept current by calling {@link #add(Map)} after every
+ * successful insert. Rows inserted by other nodes are picked up by the next
+ * rebuild. Rebuilds needed later, when the filters fill up or the first build
+ * failed, run on a background thread; lookups meanwhile use the old filters
+ * or, without any, the database.
+ * </p>
+ *
+ * <p>
+ * The index answers the form checks only; it does not make check and insert
+ * atomic. Two registrations checked at the same moment can both find a value
+ * free and both be inserted; the same holds for rows another node inserted
+ * since the last rebuild. Only a UNIQUE constraint on the column prevents
+ * that. healthsure(final).sql declares none on the pharmacy e-mail, contact
+ * number, owner e-mail or owner mobile, so duplicates of those are possible.
+ * </p>
+ *
+ * <p>
+ * Sizing is read from {@code healthsure.unique.fpp} (default 0.01) and
+ * {@code healthsure.unique.minCapacity} (default 10000).
+ * </p>
+ *
+ * @author Infinite Computer Solution
+ * @version 1.0
+ */
+public class UniqueFieldIndex {
+	private static final Logger logger = Logger.getLogger(UniqueFieldIndex.class);
+
+	/** Rows returned by the confirm query at most. */
+	private static final int MAX_CONFIRM_ROWS = 100;
+
+	private static final ExecutorService rebuilder = Executors.newSingleThreadExecutor(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable task) {
+			Thread thread = new Thread(task, "healthsure-unique-index");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	private final String entityName;
+	private final String[] fields;
+	private final double falsePositiveRate;
+	private final long minCapacity;
+	private final long retryMillis;
+	private final Object rebuildLock = new Object();
+	private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+
+	private volatile Filters current;
+	private volatile Filters building;
+	private volatile long lastAttempt;
+
+	private final AtomicLong lookups = new AtomicLong();
+	private final AtomicLong answeredFromMemory = new AtomicLong();
+	private final AtomicLong confirmQueries = new AtomicLong();
+	private final AtomicLong falsePositives = new AtomicLong();
+
+	/**
+	 * @param entityName mapped entity name, e.g. {@code Pharmacy}
+	 * @param fields     unique properties of the entity
+	 */
+	public UniqueFieldIndex(String entityName, String... fields) {
+		this.entityName = entityName;
+		this.fields = fields.clone();
+		this.falsePositiveRate = Double.parseDouble(AppConfig.get("healthsure.unique.fpp", "0.01"));
+		this.minCapacity = AppConfig.getLong("healthsure.unique.minCapacity", 10000L);
+		this.retryMillis = AppConfig.getLong("healthsure.unique.retryMs", 60000L);
+	}
+
+	/**
+	 * Trims and lower-cases a value the way it is stored in the filters.
+	 *
+	 * @param value raw form input
+	 * @return normalised value, or null when blank
+	 */
+	public static String normalize(String value) {
+		if (value == null) {
+			return null;
+		}
+		String trimmed = value.trim();
+		return trimmed.isEmpty() ? null : trimmed.toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * Rebuilds all filters from the table. Inserts recorded with
+	 * {@link #add(Map)} while the scan runs are kept.
+	 *
+	 * @throws HibernateException if the table cannot be read
+	 */
+	public void rebuild() {
+		synchronized (rebuildLock) {
+			lastAttempt = System.currentTimeMillis();
+			long start = lastAttempt;
+			long rows = count();
+			Filters next = new Filters(fields, Math.max(minCapacity, rows * 2), falsePositiveRate);
+			// from here on inserts go to the new filters as well
+			building = next;
+			try {
+				long scanned = scan(next);
+				current = next;
+				logger.info("Unique index of " + entityName + " rebuilt from " + scanned + " rows in "
+						+ (System.currentTimeMillis() - start) + " ms, capacity " + next.capacity);
+			} finally {
+				building = null;
+			}
+		}
+	}
+
+	/**
+	 * Records the unique values of a row that was just inserted.
+	 *
+	 * @param values field name to value
+	 */
+	public void add(Map<String, String> values) {
+		Filters pending = building;
+		Filters active = current;
+		for (Map.Entry<String, String> entry : values.entrySet()) {
+			String value = normalize(entry.getValue());
+			if (value == null) {
+				continue;
+			}
+			if (pending != null) {
+				pending.put(entry.getKey(), value);
+			}
+			if (active != null) {
+				active.put(entry.getKey(), value);
+			}
+		}
+		if (active != null && active.added.incrementAndGet() > active.capacity / 2) {
+			// filled up well past the rows it was sized for; start over before the error rate climbs
+			active.added.set(Long.MIN_VALUE);
+			rebuildLater();
+		}
+	}
+
+	/**
+	 * Stops the rebuild thread; called when the application is undeployed.
+	 */
+	public static void shutdown() {
+		rebuilder.shutdownNow();
+	}
+
+	/**
+	 * Tells which of the given values already exist.
+	 *
+	 * @param candidates field name to value; blank values are ignored
+	 * @return the fields whose value is taken, empty when all are free
+	 * @throws HibernateException if the confirm query fails
+	 */
+	public Set<String> findTaken(Map<String, String> candidates) {
+		Filters filters = filters();
+		Map<String, String> suspects = new LinkedHashMap<>();
+		for (Map.Entry<String, String> entry : candidates.entrySet()) {
+			String value = normalize(entry.getValue());
+			if (value == null) {
+				continue;
+			}
+			lookups.incrementAndGet();
+			if (filters != null && !filters.mightContain(entry.getKey(), value)) {
+				answeredFromMemory.incrementAndGet();
+				continue;
+			}
+			suspects.put(entry.getKey(), entry.getValue().trim());
+		}
+		if (suspects.isEmpty()) {
+			return Collections.emptySet();
+		}
+		Set<String> taken = confirm(suspects);
+		falsePositives.addAndGet(suspects.size() - taken.size());
+		if (logger.isDebugEnabled()) {
+			logger.debug(entityName + " uniqueness: " + suspects.keySet() + " checked in the database, taken "
+					+ taken + " (" + this + ")");
+		}
+		return taken;
+	}
+
+	/**
+	 * Single-field form of {@link #findTaken(Map)}.
+	 *
+	 * @param field unique property
+	 * @param value value to test
+	 * @return true if a row with this value exists
+	 */
+	public boolean isTaken(String field, String value) {
+		return !findTaken(Collections.singletonMap(field, value)).isEmpty();
+	}
+
+	@Override
+	public String toString() {
+		return "UniqueFieldIndex [" + entityName + ", lookups=" + lookups.get() + ", answeredFromMemory="
+				+ answeredFromMemory.get() + ", confirmQueries=" + confirmQueries.get() + ", falsePositives="
+				+ falsePositives.get() + "]";
+	}
+
+	/** The filters; null until a build succeeds, which is then started in the background. */
+	private Filters filters() {
+		Filters filters = current;
+		if (filters == null && System.currentTimeMillis() - lastAttempt >= retryMillis) {
+			rebuildLater();
+		}
+		return filters;
+	}
+
+	/** Queues one rebuild unless one is already waiting. */
+	private void rebuildLater() {
+		if (!rebuildQueued.compareAndSet(false, true)) {
+			return;
+		}
+		try {
+			rebuilder.execute(new Runnable() {
+				@Override
+				public void run() {
+					rebuildQueued.set(false);
+					try {
+						rebuild();
+					} catch (HibernateException e) {
+						// every lookup goes to the database until a rebuild succeeds
+						logger.error("Unique index of " + entityName + " could not be built", e);
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			// shut down with the application
+			rebuildQueued.set(false);
+		}
+	}
+
+	private long count() {
+		Session session = null;
+		try {
+			session = SessionHelper.getSessionFactory().openSession();
+			Number rows = (Number) session.createQuery("select count(*) from " + entityName).uniqueResult();
+			return rows == null ? 0L : rows.longValue();
+		} finally {
+			if (session != null) {
+				session.close();
+			}
+		}
+	}
+
+	private long scan(Filters target) {
+		Session session = null;
+		ScrollableResults results = null;
+		try {
+			session = SessionHelper.getSessionFactory().openSession();
+			Query query = session.createQuery("select " + columns(fields) + " from " + entityName + " e");
+			query.setReadOnly(true);
+			query.setFetchSize(1000);
+			results = query.scroll(ScrollMode.FORWARD_ONLY);
+			long rows = 0;
+			while (results.next()) {
+				for (int i = 0; i < fields.length; i++) {
+					Object value = results.get(i);
+					String normalised = value == null ? null : normalize(value.toString());
+					if (normalised != null) {
+						target.put(fields[i], normalised);
+					}
+				}
+				rows++;
+			}
+			return rows;
+		} finally {
+			if (results != null) {
+				results.close();
+			}
+			if (session != null) {
+				session.close();
+			}
+		}
+	}
+
+	/**
+	 * Looks all suspects up with one query over the unique columns only.
+	 */
+	private Set<String> confirm(Map<String, String> suspects) {
+		String[] suspectFields = suspects.keySet().toArray(new String[suspects.size()]);
+		StringBuilder hql = new StringBuilder("select ").append(columns(suspectFields)).append(" from ")
+				.append(entityName).append(" e where ");
+		for (int i = 0; i < suspectFields.length; i++) {
+			if (i > 0) {
+				hql.append(" or ");
+			}
+			hql.append("e.").append(suspectFields[i]).append(" = :p").append(i);
+		}
+
+		Session session = null;
+		try {
+			session = SessionHelper.getSessionFactory().openSession();
+			Query query = session.createQuery(hql.toString());
+			for (int i = 0; i < suspectFields.length; i++) {
+				query.setParameter("p" + i, suspects.get(suspectFields[i]));
+			}
+			query.setReadOnly(true);
+			query.setMaxResults(MAX_CONFIRM_ROWS);
+			confirmQueries.incrementAndGet();
+			List<?> rows = query.list();
+
+			Set<String> taken = new LinkedHashSet<>();
+			for (Object row : rows) {
+				Object[] values = suspectFields.length == 1 ? new Object[] { row } : (Object[]) row;
+				for (int i = 0; i < suspectFields.length; i++) {
+					if (values[i] != null
+							&& normalize(values[i].toString()).equals(normalize(suspects.get(suspectFields[i])))) {
+						taken.add(suspectFields[i]);
+					}
+				}
+			}
+			return taken;
+		} finally {
+			if (session != null) {
+				session.close();
+			}
+		}
+	}
+
+	private static String columns(String[] names) {
+		StringBuilder select = new StringBuilder();
+		for (int i = 0; i < names.length; i++) {
+			if (i > 0) {
+				select.append(", ");
+			}
+			select.append("e.").append(names[i]);
+		}
+		return select.toString();
+	}
+
+	/** One filter per field, replaced as a whole on rebuild. */
+	private static final class Filters {
+		private final Map<String, BloomFilter> byField = new HashMap<>();
+		private final long capacity;
+		private final AtomicLong added = new AtomicLong();
+
+		Filters(String[] fields, long capacity, double falsePositiveRate) {
+			this.capacity = capacity;
+			for (String field : fields) {
+				byField.put(field, new BloomFilter(capacity, falsePositiveRate));
+			}
+		}
+
+		void put(String field, String value) {
+			BloomFilter filter = byField.get(field);
+			if (filter != null) {
+				filter.put(value);
+			}
+		}
+
+		boolean mightContain(String field, String value) {
+			BloomFilter filter = byField.get(field);
+			// a field without a filter cannot be ruled out
+			return filter == null || filter.mightContain(value);
+		}
+	}
+}
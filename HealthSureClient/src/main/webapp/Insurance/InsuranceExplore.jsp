@@ -47,6 +47,47 @@ h2, h3 {
 	transform: translateY(-2px);
 }
 
+.filter-links .filter-button.selected {
+	background-color: #1f618d;
+}
+
+.facet-panel {
+	display: flex;
+	flex-wrap: wrap;
+	justify-content: center;
+	gap: 20px;
+	margin-bottom: 20px;
+	max-width: 1000px;
+}
+
+.facet-group {
+	background-color: #ffffff;
+	border: 1px solid #e0e0e0;
+	border-radius: 10px;
+	padding: 10px 14px;
+	min-width: 160px;
+}
+
+.facet-title {
+	font-weight: 600;
+	color: #34495e;
+}
+
+.facet-value {
+	color: #2c3e50;
+	text-decoration: none;
+}
+
+.facet-value.selected {
+	font-weight: bold;
+	color: #1f618d;
+}
+
+.pagination {
+	text-align: center;
+	margin-top: 20px;
+}
+
 .card-container {
 	display: flex;
 	flex-direction: column;
@@ -143,15 +184,34 @@ h2, h3 {
 					action="#{insuranceSubscribedController.setSelectedPlanType('SUPER_ELITE')}"
 					styleClass="filter-button" />
 				<h:commandLink value="Show All"
-					action="#{insuranceSubscribedController.setSelectedPlanType(null)}"
+					action="#{insuranceSubscribedController.clearFacets}"
 					styleClass="filter-button" />
 			</div>
 
+			<!-- Facets: counts follow the filters chosen on the other facets -->
+			<div class="facet-panel">
+				<h:dataTable value="#{insuranceSubscribedController.facetGroups}"
+					var="group">
+					<h:column>
+						<div class="facet-group">
+							<h:outputText value="#{group[0].facet.label}"
+								styleClass="facet-title" />
+							<h:dataTable value="#{group}" var="count">
+								<h:column>
+									<h:commandLink
+										value="#{count.value} (#{count.count})"
+										action="#{insuranceSubscribedController.toggleFacet(count.facetName, count.value)}"
+										styleClass="#{count.selected ? 'facet-value selected' : 'facet-value'}" />
+								</h:column>
+							</h:dataTable>
+						</div>
+					</h:column>
+				</h:dataTable>
+			</div>
 
 			<h3>
-
 				<h:outputText
-					value="#{insuranceSubscribedController.selectedPlanType}" />
+					value="#{insuranceSubscribedController.totalMatches} plans found" />
 			</h3>
 
 			<div class="card-container">
@@ -217,6 +277,19 @@ h2, h3 {
 					</h:column>
 				</h:dataTable>
 			</div>
+
+			<!-- Pagination Controls -->
+			<div class="pagination">
+				<h:commandButton value="<-Prev"
+					action="#{insuranceSubscribedController.previousPage}"
+					disabled="#{insuranceSubscribedController.currentPage == 1}" />
+				<h:outputText
+					value=" Page #{insuranceSubscribedController.currentPage} of #{insuranceSubscribedController.totalPages} "
+					style="margin: 0 10px;" />
+				<h:commandButton value="Next ->"
+					action="#{insuranceSubscribedController.nextPage}"
+					disabled="#{insuranceSubscribedController.currentPage == insuranceSubscribedController.totalPages}" />
+			</div>
 		</h:form>
 
 
@@ -153,6 +153,10 @@ h3, h4 {
 	<div class="container">
 		<h2>Insurance Coverage Summary</h2>
 
+		<h:outputText value="This coverage option is no longer offered."
+			rendered="#{insuranceSubscribedController.coverageOption == null}"
+			style="color:red;" />
+
 		<!-- Coverage Details -->
 		<h3>Coverage Details</h3>
 		<div class="section">
@@ -283,7 +287,9 @@ h3, h4 {
 		</div>
 	</div>
 
-	<h:form id="form">
+	<!-- the subscription form needs the member lookup, which the controller does not offer yet -->
+	<h:form id="form"
+		rendered="#{insuranceSubscribedController.subscriptionAvailable and insuranceSubscribedController.coverageOption != null}">
 
 		<h:panelGroup
 			rendered="#{insuranceSubscribedController.coverageOption.insurancePlan.planType != 'FAMILY'}">
@@ -104,7 +104,15 @@
 				<h:dataTable value="#{reviewPharmacyController.paginatedPharmacies}"
 					var="pharmacy">
 
-
+					<!-- Selection Column -->
+					<h:column>
+						<f:facet name="header">
+							<h:outputText value="Select" />
+						</f:facet>
+						<h:selectBooleanCheckbox
+							value="#{reviewPharmacyController.selected[pharmacy.pharmacyId]}"
+							disabled="#{not reviewPharmacyController.isReviewable(pharmacy.status)}" />
+					</h:column>
 
 					<!-- Pharmacy ID Column -->
 					<h:column>
@@ -307,7 +315,50 @@
 				</h:dataTable>
 			</div>
 
+			<!-- Bulk Validation -->
+			<div style="margin-top: 15px; text-align: right;">
+				<h:commandButton value="Validate Selected"
+					action="#{reviewPharmacyController.validateSelected}"
+					onclick="showLoader()" styleClass="action-button" />
+			</div>
 
+			<h:panelGroup layout="block" styleClass="table-container1"
+				rendered="#{not empty reviewPharmacyController.bulkResults}"
+				style="margin-top: 15px;">
+				<h:dataTable value="#{reviewPharmacyController.bulkResults}"
+					var="result">
+					<h:column>
+						<f:facet name="header">
+							<h:outputText value="Pharmacy ID" />
+						</f:facet>
+						<h:outputText value="#{result.pharmacyId}" />
+					</h:column>
+					<h:column>
+						<f:facet name="header">
+							<h:outputText value="Pharmacy Name" />
+						</f:facet>
+						<h:outputText value="#{result.pharmacyName}" />
+					</h:column>
+					<h:column>
+						<f:facet name="header">
+							<h:outputText value="Previous Status" />
+						</f:facet>
+						<h:outputText value="#{result.previousStatus}" />
+					</h:column>
+					<h:column>
+						<f:facet name="header">
+							<h:outputText value="Requested Status" />
+						</f:facet>
+						<h:outputText value="#{result.newStatus.dbValue}" />
+					</h:column>
+					<h:column>
+						<f:facet name="header">
+							<h:outputText value="Result" />
+						</f:facet>
+						<h:outputText value="#{result.outcome}" />
+					</h:column>
+				</h:dataTable>
+			</h:panelGroup>
 
 			<div
 				style="display: flex; justify-content: space-between; align-items: center; margin-top: 30px;">
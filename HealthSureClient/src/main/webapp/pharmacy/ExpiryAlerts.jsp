@@ -0,0 +1,100 @@
+<%@ page contentType="text/html;charset=UTF-8" language="java"%>
+<%@ taglib uri="http://java.sun.com/jsf/core" prefix="f"%>
+<%@ taglib uri="http://java.sun.com/jsf/html" prefix="h"%>
+
+<f:view>
+	<html>
+<head>
+<title>Expiry Alerts</title>
+<link rel="stylesheet" type="text/css"
+	href="${pageContext.request.contextPath}/resources/css/ViewMedicines.css" />
+</head>
+<body>
+	<jsp:include page="/navbar/NavPharmacy.jsp" />
+
+	<div class="top">
+		<h2>Expiry Alerts</h2>
+		<h:messages style="color:red;" />
+		<h:outputText
+			value="#{expiryController.expiredAlerts} expired, #{expiryController.totalAlerts - expiryController.expiredAlerts} expiring within #{expiryController.warnDays} days" />
+
+		<!-- Table -->
+		<h:form id="alertForm">
+			<h:panelGroup rendered="#{expiryController.totalAlerts gt 0}">
+				<h:dataTable value="#{expiryController.paginatedAlerts}" var="alert"
+					border="1" styleClass="table">
+
+					<h:column>
+						<f:facet name="header">
+							<h:outputText value="ID" />
+						</f:facet>
+						<h:outputText value="#{alert.medicineId}" />
+					</h:column>
+
+					<h:column>
+						<f:facet name="header">
+							<h:outputText value="Name" />
+						</f:facet>
+						<h:outputText value="#{alert.medicineName}" />
+					</h:column>
+
+					<h:column>
+						<f:facet name="header">
+							<h:outputText value="Batch" />
+						</f:facet>
+						<h:outputText value="#{alert.batchNo}" />
+					</h:column>
+
+					<h:column>
+						<f:facet name="header">
+							<h:outputText value="Stock" />
+						</f:facet>
+						<h:outputText value="#{alert.quantityInStock}" />
+					</h:column>
+
+					<!-- Expiry Date, red once expired -->
+					<h:column>
+						<f:facet name="header">
+							<h:outputText value="Expiry" />
+						</f:facet>
+						<h:outputText value="#{alert.expiryDate}"
+							style="#{alert.expired ? 'color:red; white-space: nowrap;' : 'white-space: nowrap;'}">
+							<f:convertDateTime pattern="dd-MM-yyyy" timeZone="Asia/Kolkata" />
+						</h:outputText>
+					</h:column>
+
+					<h:column>
+						<f:facet name="header">
+							<h:outputText value="Status" />
+						</f:facet>
+						<h:outputText value="#{alert.expired ? 'Expired' : 'Near expiry'}" />
+					</h:column>
+
+				</h:dataTable>
+
+				<!-- Pagination Controls -->
+				<div style="text-align: center; margin-top: 20px;">
+					<h:commandButton value="<-Prev"
+						action="#{expiryController.previousPage}"
+						disabled="#{expiryController.currentPage == 1}" />
+					<h:outputText
+						value=" Page #{expiryController.currentPage} of #{expiryController.totalPages} "
+						style="margin: 0 10px;" />
+					<h:commandButton value="Next ->"
+						action="#{expiryController.nextPage}"
+						disabled="#{expiryController.currentPage == expiryController.totalPages}" />
+				</div>
+			</h:panelGroup>
+
+			<h:panelGroup rendered="#{expiryController.totalAlerts eq 0}">
+				<div style="text-align: center; margin-top: 20px;">
+					<h:outputText value="No medicine in stock has expired or expires soon." />
+				</div>
+			</h:panelGroup>
+		</h:form>
+	</div>
+
+	<jsp:include page="/footer/Footer.jsp" />
+</body>
+	</html>
+</f:view>
@@ -39,7 +39,46 @@
 		        <h:commandButton value="Search Payments" action="#{providerBean.searchPayments}"
 		            styleClass="w-full py-3 bg-blue-600 hover:bg-blue-700 text-white rounded-xl font-semibold shadow-lg transition-all duration-300 transform hover:-translate-y-1 hover:scale-105" />
 		    </h:form>
+		    <!-- badge: batches in stock that have expired or expire soon -->
+		    <h:form>
+		        <h:commandButton value="Expiry Alerts (#{expiryController.totalAlerts})" action="#{expiryController.ViewExpiryAlerts}"
+		            styleClass="w-full py-3 #{expiryController.expiredAlerts gt 0 ? 'bg-red-600 hover:bg-red-700' : 'bg-blue-600 hover:bg-blue-700'} text-white rounded-xl font-semibold shadow-lg transition-all duration-300 transform hover:-translate-y-1 hover:scale-105" />
+		    </h:form>
 		</div>
+
+        <!-- Medicines that run out soonest at the current rate of dispensing -->
+        <div class="mt-10 bg-white rounded-xl shadow-lg p-6 text-left">
+            <h2 class="text-xl font-semibold mb-4">Reorder Soon</h2>
+            <h:outputText value="Dispensing rates are being calculated, please refresh in a moment."
+                rendered="#{not reorderController.ready}" styleClass="text-gray-500" />
+            <h:outputText value="No medicine is expected to run out soon."
+                rendered="#{reorderController.ready and empty reorderController.reorderSoon}" styleClass="text-gray-500" />
+            <h:dataTable value="#{reorderController.reorderSoon}" var="item"
+                rendered="#{not empty reorderController.reorderSoon}" styleClass="w-full"
+                headerClass="text-left border-b" rowClasses="border-b">
+                <h:column>
+                    <f:facet name="header"><h:outputText value="Medicine" /></f:facet>
+                    <h:outputText value="#{item.medicineName}" />
+                </h:column>
+                <h:column>
+                    <f:facet name="header"><h:outputText value="Stock" /></f:facet>
+                    <h:outputText value="#{item.quantityInStock}" />
+                </h:column>
+                <h:column>
+                    <f:facet name="header"><h:outputText value="Used per Day" /></f:facet>
+                    <h:outputText value="#{item.dailyUsage}">
+                        <f:convertNumber maxFractionDigits="1" />
+                    </h:outputText>
+                </h:column>
+                <h:column>
+                    <f:facet name="header"><h:outputText value="Days Left" /></f:facet>
+                    <h:outputText value="#{item.daysOfCover}"
+                        style="#{item.daysOfCover lt 3 ? 'color:red;font-weight:bold;' : ''}">
+                        <f:convertNumber maxFractionDigits="1" />
+                    </h:outputText>
+                </h:column>
+            </h:dataTable>
+        </div>
     </div>
 </f:view>
 
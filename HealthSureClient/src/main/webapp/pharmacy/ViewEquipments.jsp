@@ -32,7 +32,7 @@
 
     <!-- Table -->
     <h:form id="tableForm">
-        <h:panelGroup rendered="#{not empty viewEquipmentController.equipmentList}">
+        <h:panelGroup rendered="#{viewEquipmentController.totalEquipment gt 0}">
             <h:dataTable value="#{viewEquipmentController.paginatedEquipment}" var="med" border="1" styleClass="table">
 
     <!-- ID -->
@@ -99,7 +99,7 @@
         </h:panelGroup>
 
         <!-- No Results Message -->
-        <h:panelGroup rendered="#{empty viewEquipmentController.equipmentList}">
+        <h:panelGroup rendered="#{viewEquipmentController.totalEquipment eq 0}">
             <div style="text-align:center; color:red; margin-top:20px;">
                 <h:outputText value = "No result found for: " />
                 <h:outputText value = "#{viewEquipmentController.searchText}" style = "font-weight:bold;" />
@@ -32,7 +32,7 @@
 
 		<!-- Table -->
 		<h:form id="tableForm">
-			<h:panelGroup rendered="#{not empty viewController.medicinesList}">
+			<h:panelGroup rendered="#{viewController.totalMedicines gt 0}">
 				<h:dataTable value="#{viewController.paginatedMedicines}" var="med"
 					border="1" styleClass="table">
 
@@ -112,7 +112,7 @@
 			</h:panelGroup>
 
 			<!-- No Results Message -->
-			<h:panelGroup rendered="#{empty viewController.medicinesList}">
+			<h:panelGroup rendered="#{viewController.totalMedicines eq 0}">
 				<div style="text-align: center; color: red; margin-top: 20px;">
 					<h:outputText value="No result found for: " />
 					<h:outputText value="#{viewController.searchText}"
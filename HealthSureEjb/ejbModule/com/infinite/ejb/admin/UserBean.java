@@ -3,10 +3,15 @@ package com.infinite.ejb.admin;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 
 import javax.ejb.Remote;
 import javax.ejb.Stateless;
+import javax.ejb.TransactionManagement;
+import javax.ejb.TransactionManagementType;
+
+import com.infinite.ejb.util.ConnectionHelper;
 
 
 /**
@@ -19,13 +24,20 @@ import javax.ejb.Stateless;
  * @Purpose : This class implements the UserBeanRemote interface and handles 
  *            user-related operations.
  * Session Bean implementation class UserBean
+ *
+ * Transactions are bean-managed so that both sign-up inserts are committed or
+ * rolled back together on a single pooled connection.
  */
 @Stateless
 @Remote(UserBeanRemote.class)
+@TransactionManagement(TransactionManagementType.BEAN)
 public class UserBean implements UserBeanRemote {
 
-	Connection connection;
-	PreparedStatement pstm;
+	private static final String INSERT_USER_SQL = "INSERT INTO Admin_User(first_name, last_name, user_name, password, email, status) "
+			+ "VALUES (?, ?, ?, ?, ?, ?)";
+
+	private static final String INSERT_PASSWORD_HISTORY_SQL = "INSERT INTO Admin_Password_History(user_id, password_hash) "
+			+ "VALUES (?, ?)";
 
 	/**
 	 * Default constructor. 
@@ -35,23 +47,45 @@ public class UserBean implements UserBeanRemote {
 	}
 	
 	/**
-	 * Registers a new user and stores password in history table.
+	 * Registers a new user and stores password in history table. Both rows are
+	 * written in one transaction; if either insert fails nothing is kept.
 	 *
 	 * @param user 
 	 * @return String
 	 */
 	@Override
 	public String SignUp(User user) {
-		String sql = "INSERT INTO Admin_User(first_name, last_name, user_name, password, email, status) " +
-				"VALUES (?, ?, ?, ?, ?, ?)";
-
-		String passwordHistorySql = "INSERT INTO Admin_Password_History(user_id, password_hash) " +
-				"VALUES (?, ?)";
-
-		try (Connection connection = ConnectionHelper.getConnection();
-				PreparedStatement pstm = connection.prepareStatement(sql, PreparedStatement.RETURN_GENERATED_KEYS)) {
-
+		try (Connection connection = ConnectionHelper.getConnection()) {
+			connection.setAutoCommit(false);
+			try {
+				String result = insertUserWithHistory(connection, user);
+				if (result == null) {
+					connection.commit();
+					return "User successfully registered.";
+				}
+				connection.rollback();
+				return result;
+			} catch (SQLException e) {
+				connection.rollback();
+				throw e;
+			} finally {
+				connection.setAutoCommit(true);
+			}
+		} catch (Exception e) {
+			e.printStackTrace();
+			return "Exception during registration: " + e.getMessage();
+		}
+	}
 
+	/**
+	 * Runs both inserts on the caller's connection.
+	 *
+	 * @return null on success, otherwise the failure message for the caller
+	 */
+	private String insertUserWithHistory(Connection connection, User user) throws SQLException {
+		int userId;
+		try (PreparedStatement pstm = connection.prepareStatement(INSERT_USER_SQL,
+				PreparedStatement.RETURN_GENERATED_KEYS)) {
 			pstm.setString(1, user.getFirstName());
 			pstm.setString(2, user.getLastName());
 			pstm.setString(3, user.getUsername());
@@ -59,34 +93,24 @@ public class UserBean implements UserBeanRemote {
 			pstm.setString(5, user.getEmail());
 			pstm.setString(6, user.getStatus().toString());
 
-
-			int rows = pstm.executeUpdate();
-
-			if (rows > 0) {
-				// Step 2: Get generated user ID
-				try (java.sql.ResultSet generatedKeys = pstm.getGeneratedKeys()) {
-					if (generatedKeys.next()) {
-						int userId = generatedKeys.getInt(1);
-
-						// Step 3: Insert into password_history
-						try (PreparedStatement historyPstm = connection.prepareStatement(passwordHistorySql)) {
-							historyPstm.setInt(1, userId);
-							historyPstm.setString(2, user.getPassword()); // hashed password assumed
-							historyPstm.executeUpdate();
-						}
-
-						return "User successfully registered.";
-					} else {
-						return "User registration failed: could not retrieve user ID.";
-					}
-				}
-			} else {
+			if (pstm.executeUpdate() <= 0) {
 				return "User registration failed.";
 			}
+			// Step 2: Get generated user ID
+			try (ResultSet generatedKeys = pstm.getGeneratedKeys()) {
+				if (!generatedKeys.next()) {
+					return "User registration failed: could not retrieve user ID.";
+				}
+				userId = generatedKeys.getInt(1);
+			}
+		}
 
-		} catch (Exception e) {
-			e.printStackTrace();
-			return "Exception during registration: " + e.getMessage();
+		// Step 3: Insert into password_history
+		try (PreparedStatement historyPstm = connection.prepareStatement(INSERT_PASSWORD_HISTORY_SQL)) {
+			historyPstm.setInt(1, userId);
+			historyPstm.setString(2, user.getPassword()); // hashed password assumed
+			historyPstm.executeUpdate();
 		}
+		return null;
 	}
 }
@@ -0,0 +1,106 @@
+package com.infinite.ejb.pharmacy.bean;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+import javax.ejb.EJBException;
+import javax.ejb.Remote;
+import javax.ejb.Stateless;
+import javax.ejb.TransactionManagement;
+import javax.ejb.TransactionManagementType;
+
+import com.infinite.ejb.pharmacy.dao.DispensePrescriptionDao;
+import com.infinite.ejb.pharmacy.dao.UpdateMedicinesDao;
+import com.infinite.ejb.pharmacy.daoImpl.DispensePrescriptionDaoImpl;
+import com.infinite.ejb.pharmacy.daoImpl.UpdateMedicinesDaoImpl;
+import com.infinite.ejb.pharmacy.model.DispenseLine;
+import com.infinite.ejb.pharmacy.model.DispenseLineResult;
+import com.infinite.ejb.pharmacy.model.Medicines;
+import com.infinite.ejb.util.ConnectionHelper;
+
+/**
+ *
+ * -----------------------------------------------------------------------------
+ * Copyright © 2025 Infinite Computer Solution. All rights reserved.
+ * -----------------------------------------------------------------------------
+ *
+ * @Purpose : Implements PharmacyBeanRemote: medicine edits and prescription
+ *            dispensing for the pharmacy module of the web application.
+ *
+ * Transactions are bean-managed so that all stock decrements and dispense rows
+ * of a prescription are committed or rolled back together on a single pooled
+ * connection.
+ */
+@Stateless
+@Remote(PharmacyBeanRemote.class)
+@TransactionManagement(TransactionManagementType.BEAN)
+public class PharmacyBean implements PharmacyBeanRemote {
+
+	private final UpdateMedicinesDao updateMedicinesDao = new UpdateMedicinesDaoImpl();
+	private final DispensePrescriptionDao dispensePrescriptionDao = new DispensePrescriptionDaoImpl();
+
+	@Override
+	public boolean updateMedicineDetails(Medicines med) {
+		return updateMedicinesDao.updateMedicineDetails(med);
+	}
+
+	/**
+	 * Dispenses a prescription; the transaction is committed only if every
+	 * line was dispensed.
+	 *
+	 * @return one result per line, in the order of {@code lines}
+	 * @throws EJBException if the prescription does not exist or the database
+	 *                      cannot be updated
+	 */
+	@Override
+	public List<DispenseLineResult> dispensePrescription(String prescriptionId, String pharmacyId,
+			String pharmacistName, List<DispenseLine> lines) {
+		if (lines == null || lines.isEmpty()) {
+			throw new EJBException("Prescription " + prescriptionId + " has no lines to dispense");
+		}
+		for (DispenseLine line : lines) {
+			if (line.getType() == null || line.getItemId() == null || line.getQuantity() < 1) {
+				throw new EJBException("Invalid dispense line " + line);
+			}
+		}
+		String[] dispenseIds;
+		try {
+			// before the transaction connection, so a dispense never waits on a second one
+			dispenseIds = dispensePrescriptionDao.reserveDispenseIds(lines);
+		} catch (SQLException e) {
+			e.printStackTrace();
+			throw new EJBException("Prescription " + prescriptionId + " not dispensed: " + e.getMessage());
+		}
+		try (Connection connection = ConnectionHelper.getConnection()) {
+			connection.setAutoCommit(false);
+			try {
+				List<DispenseLineResult> results = dispensePrescriptionDao.dispensePrescription(connection,
+						prescriptionId, pharmacyId, pharmacistName, lines, dispenseIds);
+				if (allDispensed(results)) {
+					connection.commit();
+				} else {
+					connection.rollback();
+				}
+				return results;
+			} catch (Exception e) {
+				connection.rollback();
+				throw e;
+			} finally {
+				connection.setAutoCommit(true);
+			}
+		} catch (Exception e) {
+			e.printStackTrace();
+			throw new EJBException("Prescription " + prescriptionId + " not dispensed: " + e.getMessage());
+		}
+	}
+
+	private static boolean allDispensed(List<DispenseLineResult> results) {
+		for (DispenseLineResult result : results) {
+			if (!result.isDispensed()) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
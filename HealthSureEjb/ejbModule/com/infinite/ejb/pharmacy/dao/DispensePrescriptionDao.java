@@ -0,0 +1,35 @@
+package com.infinite.ejb.pharmacy.dao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+import com.infinite.ejb.pharmacy.model.DispenseLine;
+import com.infinite.ejb.pharmacy.model.DispenseLineResult;
+
+public interface DispensePrescriptionDao {
+
+	/**
+	 * Reserves one dispense id per line on a short transaction of its own. Call
+	 * it before borrowing the connection of the dispense; ids of a dispense
+	 * that is refused or rolled back are skipped.
+	 *
+	 * @return the id of each line, in the order of {@code lines}
+	 * @throws SQLException if the id sequence cannot be advanced
+	 */
+	public String[] reserveDispenseIds(List<DispenseLine> lines) throws SQLException;
+
+	/**
+	 * Checks the stock of every line, then decrements it and inserts the
+	 * dispense rows with JDBC batches on the caller's connection. The caller
+	 * commits only if every line is DISPENSED.
+	 *
+	 * @param dispenseIds ids from {@link #reserveDispenseIds(List)}
+	 * @return one result per line, in the order of {@code lines}
+	 * @throws SQLException if the prescription does not exist or a statement
+	 *                      fails
+	 */
+	public List<DispenseLineResult> dispensePrescription(Connection connection, String prescriptionId,
+			String pharmacyId, String pharmacistName, List<DispenseLine> lines, String[] dispenseIds)
+			throws SQLException;
+}
@@ -0,0 +1,263 @@
+package com.infinite.ejb.pharmacy.daoImpl;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.infinite.ejb.pharmacy.dao.DispensePrescriptionDao;
+import com.infinite.ejb.pharmacy.model.DispenseItemType;
+import com.infinite.ejb.pharmacy.model.DispenseLine;
+import com.infinite.ejb.pharmacy.model.DispenseLineResult;
+import com.infinite.ejb.pharmacy.model.DispenseStatus;
+import com.infinite.ejb.util.IdSequence;
+
+/**
+ * Dispenses a prescription with a fixed number of statements, whatever the
+ * number of lines: one read of the prescription, one stock read, one batch of
+ * decrements and one batch of inserts per kind of item. Decrements keep the
+ * {@code quantity >= ?} guard so stock changed since the read is never
+ * oversold, and are sent in id order so concurrent prescriptions lock rows in
+ * the same order.
+ */
+public class DispensePrescriptionDaoImpl implements DispensePrescriptionDao {
+
+	private static final String PRESCRIPTION_SQL = "SELECT doctor_id, h_id FROM prescription WHERE prescription_id = ?";
+
+	private static final String INSERT_MEDICINE_SQL = "INSERT INTO Dispensed_Medicines(dispense_id, medicine_id, pharmacy_id, "
+			+ "quantity_dispensed, dispense_date, prescription_id, doctor_id, h_id, pharmacist_name) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+	private static final String INSERT_EQUIPMENT_SQL = "INSERT INTO Dispensed_Equipments(dispensed_equip_id, equipment_id, pharmacy_id, "
+			+ "quantity_dispensed, dispense_date, prescription_id, doctor_id, h_id, pharmacist_name) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+	@Override
+	public String[] reserveDispenseIds(List<DispenseLine> lines) throws SQLException {
+		String[] dispenseIds = new String[lines.size()];
+		for (DispenseItemType type : DispenseItemType.values()) {
+			List<Integer> indexes = new ArrayList<>();
+			for (int i = 0; i < lines.size(); i++) {
+				if (lines.get(i).getType() == type) {
+					indexes.add(i);
+				}
+			}
+			if (indexes.isEmpty()) {
+				continue;
+			}
+			String[] ids = type == DispenseItemType.MEDICINE
+					? IdSequence.reserve("DSM", "dispensed_medicines", "dispense_id", indexes.size())
+					: IdSequence.reserve("DSE", "dispensed_equipments", "dispensed_equip_id", indexes.size());
+			for (int j = 0; j < ids.length; j++) {
+				dispenseIds[indexes.get(j)] = ids[j];
+			}
+		}
+		return dispenseIds;
+	}
+
+	@Override
+	public List<DispenseLineResult> dispensePrescription(Connection connection, String prescriptionId,
+			String pharmacyId, String pharmacistName, List<DispenseLine> lines, String[] dispenseIds)
+			throws SQLException {
+		String doctorId;
+		String hId;
+		try (PreparedStatement pst = connection.prepareStatement(PRESCRIPTION_SQL)) {
+			pst.setString(1, prescriptionId);
+			try (ResultSet rs = pst.executeQuery()) {
+				if (!rs.next()) {
+					throw new SQLException("Prescription " + prescriptionId + " does not exist");
+				}
+				doctorId = rs.getString(1);
+				hId = rs.getString(2);
+			}
+		}
+
+		List<DispenseLineResult> refused = checkStock(connection, pharmacyId, lines);
+		if (refused != null) {
+			return refused;
+		}
+
+		List<Integer> order = lockOrder(lines);
+		int[] counts = new int[lines.size()];
+		for (DispenseItemType type : DispenseItemType.values()) {
+			decrement(connection, type, pharmacyId, lines, order, counts);
+		}
+		boolean allTaken = true;
+		for (int count : counts) {
+			allTaken &= count == 1;
+		}
+		if (!allTaken) {
+			// stock was taken between the read and the update
+			List<DispenseLineResult> results = new ArrayList<>(lines.size());
+			for (int i = 0; i < lines.size(); i++) {
+				results.add(new DispenseLineResult(lines.get(i),
+						counts[i] == 1 ? DispenseStatus.NOT_DISPENSED : DispenseStatus.INSUFFICIENT_STOCK, null, 0));
+			}
+			return results;
+		}
+
+		Date today = new Date(System.currentTimeMillis());
+		for (DispenseItemType type : DispenseItemType.values()) {
+			insert(connection, type, lines, dispenseIds, today, prescriptionId, doctorId, hId, pharmacyId,
+					pharmacistName);
+		}
+		List<DispenseLineResult> results = new ArrayList<>(lines.size());
+		for (int i = 0; i < lines.size(); i++) {
+			results.add(new DispenseLineResult(lines.get(i), DispenseStatus.DISPENSED, dispenseIds[i], 0));
+		}
+		return results;
+	}
+
+	/**
+	 * Reads the stock of all lines, one query per kind of item.
+	 *
+	 * @return the line results if any line cannot be filled, otherwise null
+	 */
+	private List<DispenseLineResult> checkStock(Connection connection, String pharmacyId, List<DispenseLine> lines)
+			throws SQLException {
+		Map<String, Integer> left = new HashMap<>();
+		for (DispenseItemType type : DispenseItemType.values()) {
+			Set<String> ids = new LinkedHashSet<>();
+			for (DispenseLine line : lines) {
+				if (line.getType() == type) {
+					ids.add(line.getItemId());
+				}
+			}
+			if (ids.isEmpty()) {
+				continue;
+			}
+			StringBuilder sql = new StringBuilder("SELECT ").append(idColumn(type)).append(", ")
+					.append(quantityColumn(type)).append(" FROM ").append(table(type))
+					.append(" WHERE pharmacy_id = ? AND ").append(idColumn(type)).append(" IN (");
+			for (int i = 0; i < ids.size(); i++) {
+				sql.append(i == 0 ? "?" : ", ?");
+			}
+			sql.append(')');
+			try (PreparedStatement pst = connection.prepareStatement(sql.toString())) {
+				int index = 1;
+				pst.setString(index++, pharmacyId);
+				for (String id : ids) {
+					pst.setString(index++, id);
+				}
+				try (ResultSet rs = pst.executeQuery()) {
+					while (rs.next()) {
+						left.put(type + ":" + rs.getString(1), rs.getInt(2));
+					}
+				}
+			}
+		}
+
+		List<DispenseLineResult> results = new ArrayList<>(lines.size());
+		boolean refused = false;
+		for (DispenseLine line : lines) {
+			String key = line.getType() + ":" + line.getItemId();
+			Integer stock = left.get(key);
+			DispenseStatus status = DispenseStatus.NOT_DISPENSED;
+			int available = 0;
+			if (stock == null) {
+				status = DispenseStatus.UNKNOWN_ITEM;
+			} else if (stock < line.getQuantity()) {
+				status = DispenseStatus.INSUFFICIENT_STOCK;
+				available = Math.max(0, stock);
+			} else {
+				// the same item on several lines draws from one stock
+				left.put(key, stock - line.getQuantity());
+			}
+			refused |= status != DispenseStatus.NOT_DISPENSED;
+			results.add(new DispenseLineResult(line, status, null, available));
+		}
+		return refused ? results : null;
+	}
+
+	private void decrement(Connection connection, DispenseItemType type, String pharmacyId, List<DispenseLine> lines,
+			List<Integer> order, int[] counts) throws SQLException {
+		String quantity = quantityColumn(type);
+		List<Integer> batched = new ArrayList<>();
+		try (PreparedStatement pst = connection.prepareStatement("UPDATE " + table(type) + " SET " + quantity + " = "
+				+ quantity + " - ? WHERE " + idColumn(type) + " = ? AND pharmacy_id = ? AND " + quantity + " >= ?")) {
+			for (Integer i : order) {
+				DispenseLine line = lines.get(i);
+				if (line.getType() == type) {
+					pst.setInt(1, line.getQuantity());
+					pst.setString(2, line.getItemId());
+					pst.setString(3, pharmacyId);
+					pst.setInt(4, line.getQuantity());
+					pst.addBatch();
+					batched.add(i);
+				}
+			}
+			if (!batched.isEmpty()) {
+				int[] result = pst.executeBatch();
+				for (int j = 0; j < result.length; j++) {
+					counts[batched.get(j)] = result[j];
+				}
+			}
+		}
+	}
+
+	private void insert(Connection connection, DispenseItemType type, List<DispenseLine> lines, String[] dispenseIds,
+			Date today, String prescriptionId, String doctorId, String hId, String pharmacyId, String pharmacistName)
+			throws SQLException {
+		List<Integer> batched = new ArrayList<>();
+		for (int i = 0; i < lines.size(); i++) {
+			if (lines.get(i).getType() == type) {
+				batched.add(i);
+			}
+		}
+		if (batched.isEmpty()) {
+			return;
+		}
+		try (PreparedStatement pst = connection
+				.prepareStatement(type == DispenseItemType.MEDICINE ? INSERT_MEDICINE_SQL : INSERT_EQUIPMENT_SQL)) {
+			for (int j = 0; j < batched.size(); j++) {
+				DispenseLine line = lines.get(batched.get(j));
+				pst.setString(1, dispenseIds[batched.get(j)]);
+				pst.setString(2, line.getItemId());
+				pst.setString(3, pharmacyId);
+				pst.setInt(4, line.getQuantity());
+				pst.setDate(5, today);
+				pst.setString(6, prescriptionId);
+				pst.setString(7, doctorId);
+				pst.setString(8, hId);
+				pst.setString(9, pharmacistName);
+				pst.addBatch();
+			}
+			pst.executeBatch();
+		}
+	}
+
+	/** Line indexes sorted by item, the order in which rows are locked. */
+	private static List<Integer> lockOrder(final List<DispenseLine> lines) {
+		List<Integer> order = new ArrayList<>(lines.size());
+		for (int i = 0; i < lines.size(); i++) {
+			order.add(i);
+		}
+		Collections.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				int result = lines.get(a).getType().compareTo(lines.get(b).getType());
+				return result != 0 ? result : lines.get(a).getItemId().compareTo(lines.get(b).getItemId());
+			}
+		});
+		return order;
+	}
+
+	private static String table(DispenseItemType type) {
+		return type == DispenseItemType.MEDICINE ? "Medicines" : "Equipment";
+	}
+
+	private static String idColumn(DispenseItemType type) {
+		return type == DispenseItemType.MEDICINE ? "medicine_id" : "equipment_id";
+	}
+
+	private static String quantityColumn(DispenseItemType type) {
+		return type == DispenseItemType.MEDICINE ? "quantity_in_stock" : "quantity";
+	}
+}
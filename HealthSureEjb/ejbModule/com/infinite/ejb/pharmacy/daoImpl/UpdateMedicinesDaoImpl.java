@@ -9,28 +9,28 @@ import com.infinite.ejb.util.ConnectionHelper;
 
 public class UpdateMedicinesDaoImpl implements UpdateMedicinesDao {
 
-	Connection connection;
-	PreparedStatement pst;
+	// quantity_in_stock is left alone: stock only moves through the client's stock ledger,
+	// whose conditional decrements would be lost under an overwrite from a stale form
+	private static final String UPDATE_MEDICINE_SQL = "UPDATE Medicines SET medicine_name = ?, description = ?, unit_price = ?, purpose = ? WHERE medicine_id = ?";
+
 	@Override
 	public boolean updateMedicineDetails(Medicines med) {
-		try {
-            connection = ConnectionHelper.getConnection(); // Your JDBC connection helper
-            String sql = "UPDATE Medicines SET medicine_name = ?, description = ?, quantity_in_stock = ?, unit_price = ?, purpose = ? WHERE medicine_id = ?";
-            pst = connection.prepareStatement(sql);
-
-            pst.setString(1, med.getMedicineName());
-            pst.setString(2, med.getDescription());
-            pst.setInt(3, med.getQuantityInStock());
-            pst.setDouble(4, med.getUnitPrice());
-            pst.setString(5, med.getPurpose());
-            pst.setString(6, med.getMedicineId());
-
-            int rows = pst.executeUpdate();
-            return rows > 0;
-
-        } catch (Exception e) {
-            e.printStackTrace();
-            return false;
-        }
+		// connection and statement are per call so the DAO is safe to share and nothing leaks
+		try (Connection connection = ConnectionHelper.getConnection();
+				PreparedStatement pst = connection.prepareStatement(UPDATE_MEDICINE_SQL)) {
+
+			pst.setString(1, med.getMedicineName());
+			pst.setString(2, med.getDescription());
+			pst.setDouble(3, med.getUnitPrice());
+			pst.setString(4, med.getPurpose());
+			pst.setString(5, med.getMedicineId());
+
+			int rows = pst.executeUpdate();
+			return rows > 0;
+
+		} catch (Exception e) {
+			e.printStackTrace();
+			return false;
+		}
 	}
 }
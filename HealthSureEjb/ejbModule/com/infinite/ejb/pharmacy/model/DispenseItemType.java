@@ -0,0 +1,6 @@
+package com.infinite.ejb.pharmacy.model;
+
+public enum DispenseItemType {
+
+	MEDICINE, EQUIPMENT;
+}
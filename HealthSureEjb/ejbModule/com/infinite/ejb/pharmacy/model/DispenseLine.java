@@ -0,0 +1,53 @@
+package com.infinite.ejb.pharmacy.model;
+
+import java.io.Serializable;
+
+/**
+ * One line of a prescription to dispense: a medicine or equipment and the
+ * units handed out.
+ */
+public class DispenseLine implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private DispenseItemType type;
+	private String itemId;
+	private int quantity;
+
+	public DispenseLine() {
+	}
+
+	public DispenseLine(DispenseItemType type, String itemId, int quantity) {
+		this.type = type;
+		this.itemId = itemId;
+		this.quantity = quantity;
+	}
+
+	public DispenseItemType getType() {
+		return type;
+	}
+
+	public void setType(DispenseItemType type) {
+		this.type = type;
+	}
+
+	public String getItemId() {
+		return itemId;
+	}
+
+	public void setItemId(String itemId) {
+		this.itemId = itemId;
+	}
+
+	public int getQuantity() {
+		return quantity;
+	}
+
+	public void setQuantity(int quantity) {
+		this.quantity = quantity;
+	}
+
+	@Override
+	public String toString() {
+		return "DispenseLine [" + type + " " + itemId + " x" + quantity + "]";
+	}
+}
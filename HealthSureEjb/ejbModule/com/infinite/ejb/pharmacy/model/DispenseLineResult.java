@@ -0,0 +1,48 @@
+package com.infinite.ejb.pharmacy.model;
+
+import java.io.Serializable;
+
+/**
+ * Result of one {@link DispenseLine}: its status, the id of the dispense row
+ * written for it, and for a shortage the units that were available.
+ */
+public class DispenseLineResult implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private final DispenseLine line;
+	private final DispenseStatus status;
+	private final String dispenseId;
+	private final int available;
+
+	public DispenseLineResult(DispenseLine line, DispenseStatus status, String dispenseId, int available) {
+		this.line = line;
+		this.status = status;
+		this.dispenseId = dispenseId;
+		this.available = available;
+	}
+
+	public DispenseLine getLine() {
+		return line;
+	}
+
+	public DispenseStatus getStatus() {
+		return status;
+	}
+
+	public String getDispenseId() {
+		return dispenseId;
+	}
+
+	public int getAvailable() {
+		return available;
+	}
+
+	public boolean isDispensed() {
+		return status == DispenseStatus.DISPENSED;
+	}
+
+	@Override
+	public String toString() {
+		return "DispenseLineResult [" + line + ", " + status + (dispenseId == null ? "" : ", " + dispenseId) + "]";
+	}
+}
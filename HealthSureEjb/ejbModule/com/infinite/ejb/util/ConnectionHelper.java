@@ -1,22 +1,117 @@
 package com.infinite.ejb.util;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.MissingResourceException;
 import java.util.ResourceBundle;
+import java.util.logging.Logger;
 
+import javax.naming.InitialContext;
+import javax.naming.NamingException;
+import javax.sql.DataSource;
+
+/**
+ * -----------------------------------------------------------------------------
+ * Copyright © 2025 Infinite Computer Solution. All rights reserved.
+ * -----------------------------------------------------------------------------
+ *
+ * @Purpose : Single source of JDBC connections for the EJB module.
+ *
+ *            The DataSource is resolved once. The container-managed, pooled
+ *            DataSource bound under the {@code datasource} JNDI name in
+ *            db.properties is preferred; pool size, validation and statistics
+ *            for it are configured on the server
+ *            (/subsystem=datasources/data-source=HealthSureDS/statistics=pool).
+ *            If nothing is bound there, a {@link SimpleConnectionPool} is built
+ *            from the driver settings in the same file.
+ *
+ *            Every key can be overridden per environment with a system
+ *            property named {@code healthsure.db.<key>}, e.g.
+ *            -Dhealthsure.db.url=jdbc:mysql://db-host:3306/healthsuremain.
+ */
 public class ConnectionHelper {
+	private static final Logger logger = Logger.getLogger(ConnectionHelper.class.getName());
+
+	private static volatile DataSource dataSource;
+
+	/**
+	 * Borrows a connection; closing it returns it to the pool.
+	 *
+	 * @return an open connection
+	 * @throws SQLException if no connection can be obtained
+	 */
+	public static Connection getConnection() throws SQLException {
+		return getDataSource().getConnection();
+	}
+
+	/**
+	 * Reports utilisation of the fallback pool. The container DataSource keeps
+	 * its own statistics, so an empty map is returned when it is in use.
+	 *
+	 * @return pool statistics keyed by name
+	 */
+	public static Map<String, Long> getPoolStats() {
+		DataSource ds = dataSource;
+		if (ds instanceof SimpleConnectionPool) {
+			return ((SimpleConnectionPool) ds).getStats();
+		}
+		return Collections.emptyMap();
+	}
 
-	public static Connection getConnection() throws ClassNotFoundException, SQLException {
+	private static DataSource getDataSource() throws SQLException {
+		DataSource ds = dataSource;
+		if (ds == null) {
+			synchronized (ConnectionHelper.class) {
+				ds = dataSource;
+				if (ds == null) {
+					ds = resolveDataSource();
+					dataSource = ds;
+				}
+			}
+		}
+		return ds;
+	}
+
+	private static DataSource resolveDataSource() throws SQLException {
 		ResourceBundle rb = ResourceBundle.getBundle("db");
-		String driver = rb.getString("driver");
-		String url = rb.getString("url");
-		String user = rb.getString("user");
-		String pwd = rb.getString("password");
-		
-		Connection connection = null;
-		Class.forName(driver);
-		connection = DriverManager.getConnection(url, user, pwd);
-		return connection;
+		String jndiName = setting(rb, "datasource", null);
+		if (jndiName != null) {
+			try {
+				DataSource ds = (DataSource) new InitialContext().lookup(jndiName);
+				logger.info("Using container DataSource " + jndiName);
+				return ds;
+			} catch (NamingException e) {
+				logger.warning("DataSource " + jndiName + " is not bound (" + e.getMessage()
+						+ "); falling back to the built-in connection pool");
+			}
+		}
+
+		String driver = setting(rb, "driver", null);
+		try {
+			Class.forName(driver);
+		} catch (ClassNotFoundException e) {
+			throw new SQLException("JDBC driver not found: " + driver, e);
+		}
+		int maxSize = Integer.parseInt(setting(rb, "pool.maxSize", "10"));
+		long borrowTimeoutMs = Long.parseLong(setting(rb, "pool.borrowTimeoutMs", "5000"));
+		long idleTimeoutMs = Long.parseLong(setting(rb, "pool.idleTimeoutMs", "300000"));
+		logger.info("Using built-in connection pool, maxSize=" + maxSize);
+		return new SimpleConnectionPool(setting(rb, "url", null), setting(rb, "user", null),
+				setting(rb, "password", null), maxSize, borrowTimeoutMs, idleTimeoutMs);
+	}
+
+	private static String setting(ResourceBundle rb, String key, String defaultValue) {
+		String value = System.getProperty("healthsure.db." + key);
+		if (value != null && !value.trim().isEmpty()) {
+			return value.trim();
+		}
+		try {
+			value = rb.getString(key).trim();
+			return value.isEmpty() ? defaultValue : value;
+		} catch (MissingResourceException e) {
+			return defaultValue;
+		}
 	}
 }
@@ -0,0 +1,135 @@
+package com.infinite.ejb.util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * -----------------------------------------------------------------------------
+ * Copyright © 2025 Infinite Computer Solution. All rights reserved.
+ * -----------------------------------------------------------------------------
+ *
+ * @Purpose : Reserves ranges of business identifiers (e.g. DSM001) from the
+ *            {@code id_sequence} table shared with the web application's
+ *            IdGenerator, so ids created here and there never collide.
+ *
+ *            Each reservation is its own short transaction on its own
+ *            connection: the row of the prefix is locked, advanced by the
+ *            number of ids needed and committed at once, so callers never
+ *            hold the sequence lock for the length of their own transaction.
+ *            Ids of a caller that later rolls back are skipped, not reused.
+ *            Callers reserve before borrowing their own connection, so a
+ *            dispense never holds two pooled connections at once.
+ */
+public class IdSequence {
+
+	private static final int WIDTH = 3;
+
+	private static final String CREATE_TABLE_SQL = "CREATE TABLE IF NOT EXISTS id_sequence ("
+			+ "prefix VARCHAR(10) NOT NULL PRIMARY KEY, next_value BIGINT NOT NULL)";
+	private static final String SEED_SQL = "INSERT IGNORE INTO id_sequence(prefix, next_value) VALUES (?, ?)";
+	private static final String LOCK_SQL = "SELECT next_value FROM id_sequence WHERE prefix = ? FOR UPDATE";
+	private static final String ADVANCE_SQL = "UPDATE id_sequence SET next_value = ? WHERE prefix = ?";
+
+	// the table is created at most once per class loader
+	private static volatile boolean tableChecked;
+
+	private IdSequence() {
+	}
+
+	/**
+	 * Reserves {@code count} consecutive ids.
+	 *
+	 * @param prefix    id prefix, e.g. DSM
+	 * @param table     table owning the ids, read once to seed a new prefix
+	 * @param idColumn  id column of that table
+	 * @param count     number of ids needed
+	 * @return the reserved ids, in order
+	 * @throws SQLException if the sequence cannot be advanced
+	 */
+	public static String[] reserve(String prefix, String table, String idColumn, int count) throws SQLException {
+		long start;
+		try (Connection connection = ConnectionHelper.getConnection()) {
+			ensureTable(connection);
+			connection.setAutoCommit(false);
+			try {
+				start = lockAndAdvance(connection, prefix, table, idColumn, count);
+				connection.commit();
+			} catch (SQLException e) {
+				connection.rollback();
+				throw e;
+			} finally {
+				connection.setAutoCommit(true);
+			}
+		}
+		String[] ids = new String[count];
+		for (int i = 0; i < count; i++) {
+			ids[i] = format(prefix, start + i);
+		}
+		return ids;
+	}
+
+	private static void ensureTable(Connection connection) throws SQLException {
+		if (tableChecked) {
+			return;
+		}
+		try (Statement st = connection.createStatement()) {
+			st.execute(CREATE_TABLE_SQL);
+		}
+		tableChecked = true;
+	}
+
+	private static long lockAndAdvance(Connection connection, String prefix, String table, String idColumn,
+			int count) throws SQLException {
+		Long start = lockRow(connection, prefix);
+		if (start == null) {
+			try (PreparedStatement seed = connection.prepareStatement(SEED_SQL)) {
+				seed.setString(1, prefix);
+				seed.setLong(2, highestExisting(connection, prefix, table, idColumn) + 1);
+				seed.executeUpdate();
+			}
+			start = lockRow(connection, prefix);
+			if (start == null) {
+				throw new SQLException("id_sequence row for " + prefix + " could not be created");
+			}
+		}
+		try (PreparedStatement advance = connection.prepareStatement(ADVANCE_SQL)) {
+			advance.setLong(1, start + count);
+			advance.setString(2, prefix);
+			advance.executeUpdate();
+		}
+		return start;
+	}
+
+	private static Long lockRow(Connection connection, String prefix) throws SQLException {
+		try (PreparedStatement lock = connection.prepareStatement(LOCK_SQL)) {
+			lock.setString(1, prefix);
+			try (ResultSet rs = lock.executeQuery()) {
+				return rs.next() ? rs.getLong(1) : null;
+			}
+		}
+	}
+
+	private static long highestExisting(Connection connection, String prefix, String table, String idColumn)
+			throws SQLException {
+		String sql = "SELECT MAX(CAST(SUBSTRING(" + idColumn + ", " + (prefix.length() + 1) + ") AS UNSIGNED)) FROM "
+				+ table + " WHERE " + idColumn + " LIKE ?";
+		try (PreparedStatement max = connection.prepareStatement(sql)) {
+			max.setString(1, prefix + "%");
+			try (ResultSet rs = max.executeQuery()) {
+				return rs.next() ? rs.getLong(1) : 0L;
+			}
+		}
+	}
+
+	private static String format(String prefix, long value) {
+		StringBuilder id = new StringBuilder(prefix);
+		String digits = Long.toString(value);
+		for (int i = digits.length(); i < WIDTH; i++) {
+			id.append('0');
+		}
+		return id.append(digits).toString();
+	}
+}
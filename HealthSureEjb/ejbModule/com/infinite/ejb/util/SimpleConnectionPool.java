@@ -0,0 +1,243 @@
+package com.infinite.ejb.util;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+/**
+ * -----------------------------------------------------------------------------
+ * Copyright © 2025 Infinite Computer Solution. All rights reserved.
+ * -----------------------------------------------------------------------------
+ *
+ * @Purpose : Small bounded connection pool used by {@link ConnectionHelper}
+ *            when no container DataSource is bound in JNDI (for example when
+ *            the module is run outside WildFly).
+ *
+ *            Connections are handed out as proxies whose close() puts the
+ *            physical connection back into the pool, so DAO code keeps using
+ *            try-with-resources unchanged. Idle connections are pinged before
+ *            reuse and idle ones older than the idle timeout are closed on the
+ *            next borrow.
+ */
+public class SimpleConnectionPool implements DataSource {
+	private static final Logger logger = Logger.getLogger(SimpleConnectionPool.class.getName());
+
+	private final String url;
+	private final String user;
+	private final String password;
+	private final int maxSize;
+	private final long borrowTimeoutMs;
+	private final long idleTimeoutMs;
+
+	private final Semaphore permits;
+	private final LinkedBlockingDeque<IdleConnection> idle = new LinkedBlockingDeque<>();
+	private final AtomicInteger active = new AtomicInteger();
+	private final AtomicLong borrowed = new AtomicLong();
+	private final AtomicLong created = new AtomicLong();
+	private final AtomicLong timeouts = new AtomicLong();
+	private final AtomicLong totalWaitNanos = new AtomicLong();
+
+	public SimpleConnectionPool(String url, String user, String password, int maxSize, long borrowTimeoutMs,
+			long idleTimeoutMs) {
+		this.url = url;
+		this.user = user;
+		this.password = password;
+		this.maxSize = maxSize;
+		this.borrowTimeoutMs = borrowTimeoutMs;
+		this.idleTimeoutMs = idleTimeoutMs;
+		this.permits = new Semaphore(maxSize, true);
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		long start = System.nanoTime();
+		try {
+			if (!permits.tryAcquire(borrowTimeoutMs, TimeUnit.MILLISECONDS)) {
+				timeouts.incrementAndGet();
+				throw new SQLException("Timed out after " + borrowTimeoutMs
+						+ " ms waiting for a database connection (active=" + active.get() + ", max=" + maxSize + ")");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while waiting for a database connection", e);
+		} finally {
+			totalWaitNanos.addAndGet(System.nanoTime() - start);
+		}
+
+		try {
+			Connection physical = takeIdle();
+			if (physical == null) {
+				physical = DriverManager.getConnection(url, user, password);
+				created.incrementAndGet();
+			}
+			active.incrementAndGet();
+			borrowed.incrementAndGet();
+			return wrap(physical);
+		} catch (SQLException | RuntimeException e) {
+			permits.release();
+			throw e;
+		}
+	}
+
+	/**
+	 * @return current utilisation, counters are cumulative since start-up
+	 */
+	public Map<String, Long> getStats() {
+		Map<String, Long> stats = new LinkedHashMap<>();
+		long count = borrowed.get();
+		stats.put("active", (long) active.get());
+		stats.put("idle", (long) idle.size());
+		stats.put("max", (long) maxSize);
+		stats.put("waiting", (long) permits.getQueueLength());
+		stats.put("borrowed", count);
+		stats.put("created", created.get());
+		stats.put("timeouts", timeouts.get());
+		stats.put("avgWaitMs", count == 0 ? 0L : TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.get()) / count);
+		return stats;
+	}
+
+	private Connection takeIdle() {
+		long cutoff = System.currentTimeMillis() - idleTimeoutMs;
+		IdleConnection candidate;
+		while ((candidate = idle.pollFirst()) != null) {
+			if (candidate.since >= cutoff && isUsable(candidate.connection)) {
+				return candidate.connection;
+			}
+			closeQuietly(candidate.connection);
+		}
+		return null;
+	}
+
+	private void release(Connection physical) {
+		try {
+			if (physical.isClosed()) {
+				return;
+			}
+			if (!physical.getAutoCommit()) {
+				physical.rollback();
+				physical.setAutoCommit(true);
+			}
+			physical.clearWarnings();
+			idle.offerFirst(new IdleConnection(physical));
+		} catch (SQLException e) {
+			logger.warning("Discarding connection that failed on return: " + e.getMessage());
+			closeQuietly(physical);
+		} finally {
+			active.decrementAndGet();
+			permits.release();
+		}
+	}
+
+	private Connection wrap(final Connection physical) {
+		InvocationHandler handler = new InvocationHandler() {
+			private boolean closed;
+
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+				String name = method.getName();
+				if ("close".equals(name)) {
+					if (!closed) {
+						closed = true;
+						release(physical);
+					}
+					return null;
+				}
+				if ("isClosed".equals(name)) {
+					return closed || physical.isClosed();
+				}
+				if (closed) {
+					throw new SQLException("Connection has already been returned to the pool");
+				}
+				try {
+					return method.invoke(physical, args);
+				} catch (InvocationTargetException e) {
+					throw e.getCause();
+				}
+			}
+		};
+		return (Connection) Proxy.newProxyInstance(SimpleConnectionPool.class.getClassLoader(),
+				new Class<?>[] { Connection.class }, handler);
+	}
+
+	private static boolean isUsable(Connection connection) {
+		try {
+			return connection.isValid(2);
+		} catch (SQLException e) {
+			return false;
+		}
+	}
+
+	private static void closeQuietly(Connection connection) {
+		try {
+			connection.close();
+		} catch (SQLException e) {
+			// already broken, nothing to recover
+		}
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		throw new SQLFeatureNotSupportedException("Pooled connections always use the configured credentials");
+	}
+
+	@Override
+	public PrintWriter getLogWriter() {
+		return null;
+	}
+
+	@Override
+	public void setLogWriter(PrintWriter out) {
+	}
+
+	@Override
+	public void setLoginTimeout(int seconds) {
+	}
+
+	@Override
+	public int getLoginTimeout() {
+		return 0;
+	}
+
+	@Override
+	public java.util.logging.Logger getParentLogger() {
+		return logger;
+	}
+
+	@Override
+	public <T> T unwrap(Class<T> iface) throws SQLException {
+		if (iface.isInstance(this)) {
+			return iface.cast(this);
+		}
+		throw new SQLException("Not a wrapper for " + iface.getName());
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> iface) {
+		return iface.isInstance(this);
+	}
+
+	private static final class IdleConnection {
+		private final Connection connection;
+		private final long since = System.currentTimeMillis();
+
+		IdleConnection(Connection connection) {
+			this.connection = connection;
+		}
+	}
+}
@@ -375,4 +375,42 @@ CREATE TABLE Payment_history (
     -- Foreign key constraints (optional, depends on how you're storing doctor/hospital/dentist)
     FOREIGN KEY (h_id) REFERENCES Recipient(h_id),
     FOREIGN KEY (provider_id) REFERENCES Providers(provider_id) 
-);
\ No newline at end of file
+);
+-- ....................................................................................................
+-- Business id sequences (PLA, COV, MEM, COM, PHM), reserved in blocks by IdGenerator
+CREATE TABLE IF NOT EXISTS id_sequence (
+    prefix VARCHAR(10) NOT NULL PRIMARY KEY,
+    next_value BIGINT NOT NULL
+);
+-- ....................................................................................................
+-- Outgoing mail outbox, delivered asynchronously by MailDispatcher
+CREATE TABLE IF NOT EXISTS mail_outbox (
+    mail_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    recipient VARCHAR(255) NOT NULL,
+    subject VARCHAR(255),
+    body TEXT,
+    status ENUM('PENDING', 'SENDING', 'SENT', 'FAILED') NOT NULL DEFAULT 'PENDING',
+    attempts INT NOT NULL DEFAULT 0,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    next_attempt_at TIMESTAMP NULL,
+    claimed_at TIMESTAMP NULL,
+    sent_at TIMESTAMP NULL,
+    last_error VARCHAR(500),
+    INDEX idx_mail_outbox_due (status, next_attempt_at)
+);
+-- ....................................................................................................
+-- Plan dashboard: keyset pages ordered by (sort column, plan_id) read from an index
+CREATE INDEX idx_plan_name ON insurance_plan (plan_name, plan_id);
+CREATE INDEX idx_plan_type ON insurance_plan (plan_type, plan_id);
+CREATE INDEX idx_plan_cover ON insurance_plan (available_cover_amounts, plan_id);
+CREATE INDEX idx_plan_waiting ON insurance_plan (waiting_period, plan_id);
+CREATE INDEX idx_plan_expire ON insurance_plan (expire_date, plan_id);
+CREATE INDEX idx_plan_active ON insurance_plan (active_on, plan_id);
+-- ....................................................................................................
+-- Pharmacy stock views: pages of one pharmacy ordered by (sort column, id) read from an index
+CREATE INDEX idx_medicines_name ON Medicines (pharmacy_id, medicine_name, medicine_id);
+CREATE INDEX idx_medicines_price ON Medicines (pharmacy_id, unit_price, medicine_id);
+CREATE INDEX idx_medicines_expiry ON Medicines (pharmacy_id, expiry_date, medicine_id);
+CREATE INDEX idx_equipment_name ON Equipment (pharmacy_id, equipment_name, equipment_id);
+CREATE INDEX idx_equipment_price ON Equipment (pharmacy_id, unit_price, equipment_id);
+CREATE INDEX idx_equipment_quantity ON Equipment (pharmacy_id, quantity, equipment_id);